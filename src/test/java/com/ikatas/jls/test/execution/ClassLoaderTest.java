@@ -6,12 +6,16 @@ import org.junit.Test;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.ikatas.util.DirectClassLoader.directClassLoader;
 import static java.lang.ClassLoader.getSystemClassLoader;
 import static java.lang.Integer.toHexString;
 import static java.lang.String.format;
 import static java.util.Collections.reverse;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -114,6 +118,30 @@ public class ClassLoaderTest {
                 Sup.class.getName(), Sub.class.getName()));
     }
 
+    @Test
+    public void parallelCapableLoaderDefinesClassOnlyOnceWhenLoadingConcurrently() throws Exception {
+        DirectClassLoader testLoader = directClassLoader();
+        CountDownLatch startLock = new CountDownLatch(1);
+        ExecutorService executor = newFixedThreadPool(4);
+        try {
+            List<Future<Class<?>>> loaded = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                loaded.add(executor.submit(() -> {
+                    startLock.await();
+                    return testLoader.loadClass(testClassName);
+                }));
+            }
+            startLock.countDown();
+
+            for (Future<Class<?>> it : loaded) {
+                assertThat(it.get(), sameInstance(loaded.get(0).get()));
+            }
+            assertThat(testLoader.loadedClasses(), contains(testClassName));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private Sub sub;
 
     static class Sup implements Markable {
@@ -1,9 +1,14 @@
 package com.ikatas.jls.test.threading;
 
 import com.ikatas.jls.test.execution.Unstable;
+import com.ikatas.util.concurrent.Strand;
+import com.ikatas.util.concurrent.ThreadBackend;
 import org.hamcrest.Matcher;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
 import java.util.List;
 import java.util.concurrent.CompletionException;
@@ -19,11 +24,28 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeThat;
 
+/**
+ * The scenarios run on each {@link ThreadBackend#available() available} backend; those about {@link Thread} itself only
+ * on the platform one.
+ */
+@RunWith(Parameterized.class)
 public class ThreadTest {
+    private final ThreadBackend backend;
+
+    public ThreadTest(ThreadBackend backend) {
+        this.backend = backend;
+    }
+
+    @Parameters(name = "{0}")
+    public static List<ThreadBackend> backends() {
+        return ThreadBackend.available();
+    }
 
     @Test
     public void terminatedThread() throws InterruptedException {
+        assumePlatformBackend();
         Thread thread = new Thread();
         thread.start();
 
@@ -35,6 +57,7 @@ public class ThreadTest {
 
     @Test
     public void interruptNotAliveThreadNeedNotHaveAnyEffects() {
+        assumePlatformBackend();
         Thread thread = new Thread();
 
         thread.interrupt();
@@ -46,7 +69,7 @@ public class ThreadTest {
     @Test
     public void threadInterruptStatusWillBeClearedOnWaitAfterReceivingAnInterruptedException() throws InterruptedException {
         AtomicReference<Throwable> capturedException = new AtomicReference<>();
-        Thread thread = startThread(() -> {
+        Strand thread = startThread(() -> {
             synchronized (this) {
                 try {
                     wait();
@@ -80,9 +103,9 @@ public class ThreadTest {
             }
             exitLock.countDown();
         };
-        Thread first = startThread(action);
+        Strand first = startThread(action);
         entryLock.await();
-        Thread next = startThread(action);
+        Strand next = startThread(action);
         startLock.await();
 
         first.interrupt();
@@ -113,10 +136,10 @@ public class ThreadTest {
             exitLock.countDown();
         };
 
-        Thread first = startThread(action);
+        Strand first = startThread(action);
         entryLock.await(); // ensure the first thread already holds the lock
 
-        Thread next = startThread(action);
+        Strand next = startThread(action);
         startLock.await(); // ensure all threads started
 
         assertThat(first, inState(WAITING));
@@ -175,9 +198,9 @@ public class ThreadTest {
                 }
                 finalExitLock.countDown();
             };
-            Thread first = startThread(action);
+            Strand first = startThread(action);
             entryLock.await();
-            Thread next = startThread(action);
+            Strand next = startThread(action);
             startLock.await();
 
             first.interrupt();
@@ -185,7 +208,7 @@ public class ThreadTest {
                 notify();
             }
             if (capturedException.get() != null) {
-                assertThat(interrupted.get(), equalTo(first));
+                assertThat(interrupted.get(), equalTo(first.thread()));
                 break;
             }
             next.interrupt(); // remove it from the wait set
@@ -210,7 +233,7 @@ public class ThreadTest {
                 }
                 while (!Thread.interrupted()) currentThread().join();
             };
-            Thread thread = startThread(action, (t, e) -> {/**/});
+            Strand thread = startThread(action, (t, e) -> {/**/});
             entryLock.await();
 
             thread.interrupt(); // remove thread from the wait set and interrupt it
@@ -232,7 +255,7 @@ public class ThreadTest {
     @Test
     public void sleepDoesNotLoseTheOwnershipOfAnyMonitors() throws InterruptedException {
         CountDownLatch startLock = new CountDownLatch(2), entryLock = new CountDownLatch(1), exitLock = new CountDownLatch(2);
-        Thread sleeping = startThread(() -> {
+        Strand sleeping = startThread(() -> {
             startLock.countDown();
             synchronized (this) {
                 entryLock.countDown();
@@ -243,7 +266,7 @@ public class ThreadTest {
             }
         });
         entryLock.await();
-        Thread blocked = startThread(() -> {
+        Strand blocked = startThread(() -> {
             startLock.countDown();
             synchronized (this) {
                 exitLock.countDown();
@@ -265,7 +288,7 @@ public class ThreadTest {
     public void sleepHasNotAnySynchronizationSemanticsWhichMeansJVMDoesNotHaveToFlushWriteCachedInRegistersOutToSharedMemory() throws InterruptedException {
         CountDownLatch writeLock = new CountDownLatch(1);
 
-        Thread thread = startThread(() -> {
+        Strand thread = startThread(() -> {
             sharedMemory[0] = 100L;
             writeLock.countDown();
             try {
@@ -284,16 +307,16 @@ public class ThreadTest {
         return hasProperty("state", equalTo(currentState));
     }
 
-    private Thread startThread(Runnable action) {
+    private void assumePlatformBackend() {
+        assumeThat(backend.toString(), equalTo("platform"));
+    }
+
+    private Strand startThread(Runnable action) {
         return startThread(action, null);
     }
 
-    private Thread startThread(Runnable action, Thread.UncaughtExceptionHandler exceptionHandler) {
-        Thread thread = new Thread(action);
-        thread.setDaemon(true);
-        thread.setUncaughtExceptionHandler(exceptionHandler);
-        thread.start();
-        return thread;
+    private Strand startThread(Runnable action, Thread.UncaughtExceptionHandler exceptionHandler) {
+        return backend.start(action, exceptionHandler);
     }
 
     interface ThrowableRunnable extends Runnable {
@@ -0,0 +1,50 @@
+package com.ikatas.util;
+
+import java.time.Duration;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The result of defining a batch of classes: which classes were defined in which order, and how long the read phase
+ * (reading and ordering the class files) and the define phase took.
+ */
+public final class BatchDefinition {
+    private final List<String> classes;
+    private final long bytes;
+    private final Duration readTime;
+    private final Duration defineTime;
+
+    BatchDefinition(List<String> classes, long bytes, Duration readTime, Duration defineTime) {
+        this.classes = unmodifiableList(classes);
+        this.bytes = bytes;
+        this.readTime = readTime;
+        this.defineTime = defineTime;
+    }
+
+    /**
+     * @return the defined classes in definition order
+     */
+    public List<String> classes() {
+        return classes;
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public Duration readTime() {
+        return readTime;
+    }
+
+    public Duration defineTime() {
+        return defineTime;
+    }
+
+    @Override
+    public String toString() {
+        return format("%d classes (%d bytes): read %.3f ms, define %.3f ms", classes.size(), bytes,
+                readTime.toNanos() / 1e6, defineTime.toNanos() / 1e6);
+    }
+}
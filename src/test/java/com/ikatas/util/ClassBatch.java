@@ -0,0 +1,355 @@
+package com.ikatas.util;
+
+import com.ikatas.util.classfile.ClassFileParser;
+import com.ikatas.util.classfile.ClassHeader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The class files of a batch, read in parallel into pooled buffers and ordered so that supertypes come before their
+ * subtypes in the batch.
+ */
+final class ClassBatch {
+    private static final int MIN_BUFFER_SIZE = 4096;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+
+    private final List<ClassSource> sources;
+    private final List<ByteBuffer> pooled = new ArrayList<>();
+
+    private ClassBatch(List<ClassSource> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * @param locator finds the class files which are not {@link ClassFileCache cached} once the batch is read
+     */
+    static ClassBatch of(Collection<String> names, ClassFileLocator locator) {
+        List<ClassSource> sources = new ArrayList<>();
+        for (String name : names) {
+            sources.add(new ClassSource(name, -1) {
+                private URL classFile;
+
+                @Override
+                void locate() throws ClassNotFoundException {
+                    classFile = locator.findClassFile(name);
+                }
+
+                @Override
+                boolean isLocal() {
+                    return ClassBatch.isLocal(classFile);
+                }
+
+                @Override
+                ByteBuffer read() throws IOException {
+                    if (classFile.getProtocol().equals("file")) {
+                        try {
+                            return readFile(Paths.get(classFile.toURI()));
+                        } catch (URISyntaxException e) {
+                            throw new IOException(e);
+                        }
+                    }
+                    try (InputStream in = classFile.openStream()) {
+                        return readFully(in, size);
+                    }
+                }
+            });
+        }
+        return new ClassBatch(sources);
+    }
+
+    /**
+     * Lists the classes of the package with a single directory listing or a single pass over the jar entries of every
+     * location of the package, subpackages are not included.
+     */
+    static ClassBatch ofPackage(ClassLoader resources, String packageName, JarFiles jars) throws IOException {
+        String packagePath = packageName.replace('.', '/') + "/";
+        Set<String> names = new LinkedHashSet<>();
+        List<ClassSource> sources = new ArrayList<>();
+        try {
+            for (Enumeration<URL> locations = resources.getResources(packagePath); locations.hasMoreElements(); ) {
+                URL location = locations.nextElement();
+                if (location.getProtocol().equals("file")) {
+                    try (Stream<Path> files = Files.list(Paths.get(location.toURI()))) {
+                        for (Path file : files.filter(it -> isClassFile(it.getFileName().toString())).collect(toList())) {
+                            String name = packageName + "." + simpleName(file.getFileName().toString());
+                            if (names.add(name)) {
+                                sources.add(new ClassSource(name, -1) {
+                                    @Override
+                                    ByteBuffer read() throws IOException {
+                                        return readFile(file);
+                                    }
+                                });
+                            }
+                        }
+                    }
+                } else if (location.getProtocol().equals("jar")) {
+                    String path = location.getPath();
+                    JarFile jar = jars.open(Paths.get(new URL(path.substring(0, path.indexOf("!/"))).toURI()));
+                    for (JarEntry entry : jar.stream().filter(it -> isClassFileOf(packagePath, it.getName())).collect(toList())) {
+                        String name = packageName + "." + simpleName(entry.getName().substring(packagePath.length()));
+                        if (names.add(name)) {
+                            sources.add(new ClassSource(name, (int) entry.getSize()) {
+                                @Override
+                                ByteBuffer read() throws IOException {
+                                    try (InputStream in = jar.getInputStream(entry)) {
+                                        return readFully(in, size);
+                                    }
+                                }
+                            });
+                        }
+                    }
+                }
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        return new ClassBatch(sources);
+    }
+
+    /**
+     * @return whether the class file is in a directory or a jar file, rather than e.g: generated or remote
+     */
+    static boolean isLocal(URL classFile) {
+        return classFile.getProtocol().equals("file") || classFile.getProtocol().equals("jar") && classFile.getPath().startsWith("file:");
+    }
+
+    private static boolean isClassFileOf(String packagePath, String entry) {
+        return entry.startsWith(packagePath) && entry.indexOf('/', packagePath.length()) < 0 && isClassFile(entry);
+    }
+
+    private static boolean isClassFile(String fileName) {
+        return fileName.endsWith(".class") && !fileName.endsWith("module-info.class") && !fileName.endsWith("package-info.class");
+    }
+
+    private static String simpleName(String fileName) {
+        return fileName.substring(0, fileName.length() - ".class".length());
+    }
+
+    List<String> names() {
+        return sources.stream().map(it -> it.name).collect(toList());
+    }
+
+    ClassBatch filter(Predicate<String> accepted) {
+        return new ClassBatch(sources.stream().filter(it -> accepted.test(it.name)).collect(toList()));
+    }
+
+    /**
+     * Takes the class files the cache has, then reads the others in parallel and writes those read from directories
+     * and jar files to the cache.
+     *
+     * @return the buffers in dependency order: a supertype in the batch always comes before its subtypes; those read
+     * into pooled buffers are returned to the pool by {@link #release()}
+     * @throws ClassNotFoundException if neither the cache nor the locator of the batch has a class file
+     */
+    Map<String, ByteBuffer> read(ClassFileCache cache) throws IOException, ClassNotFoundException {
+        Map<String, ByteBuffer> buffers = new LinkedHashMap<>();
+        List<ClassSource> unread = new ArrayList<>();
+        for (ClassSource source : sources) {
+            ByteBuffer cached = cache.read(source.name);
+            if (cached == null) {
+                source.locate();
+                unread.add(source);
+            }
+            buffers.put(source.name, cached);
+        }
+        List<ByteBuffer> read;
+        try {
+            read = unread.parallelStream().map(ClassSource::readUnchecked).collect(toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (int i = 0; i < unread.size(); i++) {
+            buffers.put(unread.get(i).name, read.get(i));
+            pooled.add(read.get(i));
+            if (unread.get(i).isLocal()) {
+                cache.write(unread.get(i).name, read.get(i).duplicate());
+            }
+        }
+        Map<String, ClassHeader> headers = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteBuffer> it : buffers.entrySet()) {
+            headers.put(it.getKey(), ClassFileParser.parse(bytes(it.getValue())));
+        }
+        Map<String, ByteBuffer> ordered = new LinkedHashMap<>();
+        for (String name : headers.keySet()) {
+            order(name, headers, buffers, ordered);
+        }
+        return ordered;
+    }
+
+    private static void order(String name, Map<String, ClassHeader> headers, Map<String, ByteBuffer> buffers, Map<String, ByteBuffer> ordered) {
+        ClassHeader header = headers.get(name);
+        if (header == null || ordered.containsKey(name)) {
+            return;
+        }
+        ordered.put(name, null); // visiting, also breaks malformed cycles
+        if (header.superName() != null) {
+            order(header.superName(), headers, buffers, ordered);
+        }
+        header.interfaces().forEach(it -> order(it, headers, buffers, ordered));
+        ordered.remove(name);
+        ordered.put(name, buffers.get(name));
+    }
+
+    /**
+     * Returns the buffers the batch has read into to the pool, the buffers must not be used afterwards.
+     */
+    void release() {
+        pooled.forEach(ClassBatch::release);
+        pooled.clear();
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        if (pool.size() < MAX_POOLED_BUFFERS) {
+            pool.offer(buffer.clear());
+        }
+    }
+
+    private static ByteBuffer acquire(int size) {
+        for (int attempts = 0; attempts < 4; attempts++) {
+            ByteBuffer buffer = pool.poll();
+            if (buffer == null) {
+                break;
+            }
+            if (buffer.capacity() >= size) {
+                return buffer;
+            }
+            release(buffer);
+        }
+        return ByteBuffer.allocate(Math.max(MIN_BUFFER_SIZE, Integer.highestOneBit(Math.max(size, 1) - 1) << 1));
+    }
+
+    private static ByteBuffer readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer buffer = acquire((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read until the end of file
+            }
+            return buffer.flip();
+        }
+    }
+
+    private static ByteBuffer readFully(InputStream in, int size) throws IOException {
+        ByteBuffer buffer = acquire(size < 0 ? MIN_BUFFER_SIZE : size);
+        for (int n; (n = in.read(buffer.array(), buffer.position(), buffer.remaining())) != -1; ) {
+            buffer.position(buffer.position() + n);
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = acquire(buffer.capacity() * 2);
+                larger.put(buffer.flip());
+                release(buffer);
+                buffer = larger;
+            }
+        }
+        return buffer.flip();
+    }
+
+    interface ClassFileLocator {
+        URL findClassFile(String name) throws ClassNotFoundException;
+    }
+
+    /**
+     * Where the class files of a batch are taken from before they are read from their locations, e.g: prefetched
+     * class files or a {@link SharedClassStore}.
+     */
+    interface ClassFileCache {
+        /**
+         * @return the class file, or {@code null} to read it from its location
+         */
+        ByteBuffer read(String name);
+
+        /**
+         * Adds a class file read from a directory or a jar file, the buffer is only valid during the call.
+         */
+        void write(String name, ByteBuffer classFile);
+    }
+
+    /**
+     * Keeps the jars opened by listing packages until the batch has been read.
+     */
+    static final class JarFiles implements AutoCloseable {
+        private final Map<Path, JarFile> jars = new LinkedHashMap<>();
+
+        JarFile open(Path path) throws IOException {
+            JarFile jar = jars.get(path);
+            if (jar == null) {
+                jars.put(path, jar = new JarFile(path.toFile()));
+            }
+            return jar;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (JarFile jar : jars.values()) {
+                jar.close();
+            }
+        }
+    }
+
+    private abstract static class ClassSource {
+        final String name;
+        final int size;
+
+        ClassSource(String name, int size) {
+            this.name = name;
+            this.size = size;
+        }
+
+        /**
+         * Finds the class file before it is read, unless the class file is cached.
+         */
+        void locate() throws ClassNotFoundException {
+        }
+
+        /**
+         * @return whether the class file is in a directory or a jar file, once located
+         */
+        boolean isLocal() {
+            return true;
+        }
+
+        abstract ByteBuffer read() throws IOException;
+
+        ByteBuffer readUnchecked() {
+            try {
+                return read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
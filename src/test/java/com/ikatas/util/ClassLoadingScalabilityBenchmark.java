@@ -0,0 +1,199 @@
+package com.ikatas.util;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.ClassLoader.getPlatformClassLoader;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.Arrays.fill;
+import static java.util.Arrays.stream;
+
+/**
+ * Measures how many classes per second can be loaded concurrently through different class loader topologies.
+ * <p>
+ * Each trial requests every synthetic class twice: thread {@code t} of {@code n} loads the classes whose index is
+ * {@code t mod n}, then requests them again. So the amount of work is the same at every thread count, and the
+ * loads/second only changes by how well the topology scales. The second request of a class finds it loaded, except in
+ * the {@code _FORCE_RELOAD} topologies, which make it to fresh force reload loaders of the same topology, created before
+ * the trial starts, so they measure reading and defining every class twice. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.ClassLoadingScalabilityBenchmark
+ * </pre>
+ * The {@code classes}, {@code trials} and {@code threads} system properties override the defaults, e.g:
+ * {@code -Dbenchmark.jvmArgs="-Dclasses=1024 -Dthreads=1,2,4"}.
+ */
+public class ClassLoadingScalabilityBenchmark {
+    private static final double SCALING_THRESHOLD = 1.1;
+
+    enum Topology {
+        SHARED_DIRECT {
+            @Override
+            ClassLoader[] loaders(Path root, int threads) {
+                ClassLoader shared = new DirectoryClassLoader(root, false);
+                return nCopies(shared, threads);
+            }
+        },
+        SHARED_DIRECT_FORCE_RELOAD {
+            @Override
+            ClassLoader[] loaders(Path root, int threads) {
+                ClassLoader shared = new DirectoryClassLoader(root, true);
+                return nCopies(shared, threads);
+            }
+
+            @Override
+            ClassLoader[] reloaders(Path root, ClassLoader[] loaders) {
+                return loaders(root, loaders.length);
+            }
+        },
+        LOADER_PER_THREAD {
+            @Override
+            ClassLoader[] loaders(Path root, int threads) {
+                ClassLoader[] loaders = new ClassLoader[threads];
+                for (int i = 0; i < threads; i++) {
+                    loaders[i] = new DirectoryClassLoader(root, false);
+                }
+                return loaders;
+            }
+        },
+        LOADER_PER_THREAD_FORCE_RELOAD {
+            @Override
+            ClassLoader[] loaders(Path root, int threads) {
+                ClassLoader[] loaders = new ClassLoader[threads];
+                for (int i = 0; i < threads; i++) {
+                    loaders[i] = new DirectoryClassLoader(root, true);
+                }
+                return loaders;
+            }
+
+            @Override
+            ClassLoader[] reloaders(Path root, ClassLoader[] loaders) {
+                return loaders(root, loaders.length);
+            }
+        },
+        /**
+         * The builtin app loader can load a class only once per JVM, so a fresh {@link URLClassLoader} over the same
+         * {@code URLClassPath} machinery stands in for it in every trial.
+         */
+        APP {
+            @Override
+            ClassLoader[] loaders(Path root, int threads) throws IOException {
+                ClassLoader shared = new URLClassLoader("app", new URL[]{root.toUri().toURL()}, getPlatformClassLoader());
+                return nCopies(shared, threads);
+            }
+        };
+
+        abstract ClassLoader[] loaders(Path root, int threads) throws IOException;
+
+        /**
+         * @return the loaders the classes are requested from again, a force reload loader can define a class only once
+         */
+        ClassLoader[] reloaders(Path root, ClassLoader[] loaders) {
+            return loaders;
+        }
+
+        private static ClassLoader[] nCopies(ClassLoader loader, int threads) {
+            ClassLoader[] loaders = new ClassLoader[threads];
+            fill(loaders, loader);
+            return loaders;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int classes = Integer.getInteger("classes", 4096);
+        int trials = Integer.getInteger("trials", 5);
+        int[] threadCounts = threadCounts(System.getProperty("threads", "1,2,4,8,16,32,64"));
+
+        Path root = Files.createTempDirectory("synthetic-classes");
+        List<String> names = SyntheticClasses.generate(root, classes);
+        out.printf("%d synthetic classes, %d trials, %d cpus%n", classes, trials, Runtime.getRuntime().availableProcessors());
+
+        for (Topology topology : Topology.values()) {
+            trial(topology, root, names, threadCounts[threadCounts.length - 1]); // warm up
+            double[] throughputs = new double[threadCounts.length];
+            out.printf("%n%s%n%8s %14s %8s %10s%n", topology, "threads", "loads/s", "speedup", "efficiency");
+            for (int i = 0; i < threadCounts.length; i++) {
+                double best = 0;
+                for (int trial = 0; trial < trials; trial++) {
+                    best = Math.max(best, trial(topology, root, names, threadCounts[i]));
+                }
+                throughputs[i] = best;
+                double speedup = best / throughputs[0];
+                out.printf("%8d %14.0f %8.2f %9.0f%%%n", threadCounts[i], best, speedup, 100 * speedup / threadCounts[i]);
+            }
+            out.println(scalingLimit(threadCounts, throughputs));
+        }
+    }
+
+    /**
+     * @return loads per second of a single trial, counting both requests of each class
+     */
+    static double trial(Topology topology, Path root, List<String> names, int threads) throws Exception {
+        ClassLoader[] loaders = topology.loaders(root, threads);
+        ClassLoader[] reloaders = topology.reloaders(root, loaders);
+        CountDownLatch ready = new CountDownLatch(threads), start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            ClassLoader loader = loaders[t], reloader = reloaders[t];
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    for (int i = offset; i < names.size(); i += threads) {
+                        loader.loadClass(names.get(i));
+                    }
+                    for (int i = offset; i < names.size(); i += threads) {
+                        reloader.loadClass(names.get(i));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        ready.await();
+        long begin = nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = nanoTime() - begin;
+        if (failure.get() != null) {
+            throw new IllegalStateException(format("%s failed at %d threads", topology, threads), failure.get());
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return 2 * names.size() * 1e9 / elapsed;
+    }
+
+    /**
+     * Finds the first thread count after which doubling the threads no longer gains at least 10% throughput, which is
+     * where lock contention (or the number of cpus) stops the topology from scaling.
+     */
+    static String scalingLimit(int[] threadCounts, double[] throughputs) {
+        for (int i = 0; i + 1 < threadCounts.length; i++) {
+            if (throughputs[i + 1] < throughputs[i] * SCALING_THRESHOLD) {
+                return format("scaling stops at %d threads (%.0f loads/s)", threadCounts[i], throughputs[i]);
+            }
+        }
+        int last = threadCounts.length - 1;
+        return format("still scaling at %d threads (%.0f loads/s)", threadCounts[last], throughputs[last]);
+    }
+
+    private static int[] threadCounts(String threads) {
+        return stream(threads.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,149 @@
+package com.ikatas.util;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.Arrays.stream;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Measures how long running code takes which links a tree of {@code classes} classes lazily: each class has a static
+ * method calling those of its {@code fanout} children, so every class is loaded by the thread running the tree when
+ * the call is first resolved, with and without a {@link ClassPrefetcher} over an I/O pool of each of {@code io}
+ * threads. Every class file read takes {@code readMicros} more, as from a cold disk or a network file system. Run it
+ * with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.ClassPrefetchBenchmark
+ * </pre>
+ * The {@code classes}, {@code fanout}, {@code readMicros}, {@code io} and {@code trials} system properties override the
+ * defaults, e.g: {@code -Dbenchmark.jvmArgs="-DreadMicros=0 -Dio=1,2"}.
+ */
+public class ClassPrefetchBenchmark {
+    private static final String PACKAGE = "com.ikatas.synthetic.tree";
+    private static final long CAPACITY = 16 << 20;
+
+    public static void main(String[] args) throws Exception {
+        int classes = Integer.getInteger("classes", 1024);
+        int fanout = Integer.getInteger("fanout", 4);
+        long readNanos = Integer.getInteger("readMicros", 200) * 1000L;
+        int trials = Integer.getInteger("trials", 5);
+        int[] ioThreads = stream(System.getProperty("io", "1,4,16").split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+
+        Path root = Files.createTempDirectory("class-tree");
+        generate(root, classes, fanout);
+        out.printf("%d classes, fanout %d, %d us per read, %d trials%n", classes, fanout, readNanos / 1000, trials);
+        out.printf("%-10s %12s %10s %10s %10s%n", "prefetch", "best (ms)", "hit rate", "reads", "wasted");
+
+        trial(root, readNanos, 0); // warm up
+        report("none", best(root, readNanos, 0, trials));
+        for (int io : ioThreads) {
+            report(io + " io", best(root, readNanos, io, trials));
+        }
+    }
+
+    private static void report(String mode, Result best) {
+        ClassPrefetcher prefetcher = best.prefetcher;
+        out.printf("%-10s %12.1f %9.1f%% %10s %10s%n", mode, best.elapsed / 1e6, prefetcher == null ? 0 : 100 * prefetcher.hitRate(),
+                prefetcher == null ? "-" : prefetcher.reads(), prefetcher == null ? "-" : prefetcher.wastedReads());
+    }
+
+    private static Result best(Path root, long readNanos, int io, int trials) throws Exception {
+        Result best = null;
+        for (int i = 0; i < trials; i++) {
+            Result result = trial(root, readNanos, io);
+            if (best == null || result.elapsed < best.elapsed) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    private static Result trial(Path root, long readNanos, int io) throws Exception {
+        DirectClassLoader loader = new SlowLoader(root, readNanos);
+        ExecutorService pool = null;
+        ClassPrefetcher prefetcher = null;
+        if (io > 0) {
+            pool = Executors.newFixedThreadPool(io, action -> {
+                Thread thread = new Thread(action, "prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prefetcher = ClassPrefetcher.attach(loader, pool, CAPACITY);
+        }
+        long begin = nanoTime();
+        loader.loadClass(name(0)).getMethod("touch").invoke(null);
+        long elapsed = nanoTime() - begin;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        return new Result(elapsed, prefetcher);
+    }
+
+    private static void generate(Path root, int classes, int fanout) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(PACKAGE.replace('.', '/')));
+        for (int i = 0; i < classes; i++) {
+            String internalName = name(i).replace('.', '/');
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            cw.visit(V11, ACC_PUBLIC | ACC_SUPER, internalName, null, "java/lang/Object", null);
+            MethodVisitor touch = cw.visitMethod(ACC_PUBLIC | ACC_STATIC, "touch", "()V", null, null);
+            touch.visitCode();
+            for (int child = i * fanout + 1; child <= i * fanout + fanout && child < classes; child++) {
+                touch.visitMethodInsn(INVOKESTATIC, name(child).replace('.', '/'), "touch", "()V", false);
+            }
+            touch.visitInsn(RETURN);
+            touch.visitMaxs(0, 0);
+            touch.visitEnd();
+            cw.visitEnd();
+            Files.write(dir.resolve(internalName.substring(internalName.lastIndexOf('/') + 1) + ".class"), cw.toByteArray());
+        }
+    }
+
+    private static String name(int i) {
+        return format("%s.Node%05d", PACKAGE, i);
+    }
+
+    /**
+     * Adds a fixed latency to every class file read, on whichever thread reads it.
+     */
+    private static final class SlowLoader extends DirectoryClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final long readNanos;
+
+        SlowLoader(Path root, long readNanos) {
+            super(root, false);
+            this.readNanos = readNanos;
+        }
+
+        @Override
+        protected byte[] readClassFile(String name) throws ClassNotFoundException {
+            long deadline = nanoTime() + readNanos;
+            for (long left = readNanos; left > 0; left = deadline - nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+            return super.readClassFile(name);
+        }
+    }
+
+    private static final class Result {
+        final long elapsed;
+        final ClassPrefetcher prefetcher;
+
+        Result(long elapsed, ClassPrefetcher prefetcher) {
+            this.elapsed = elapsed;
+            this.prefetcher = prefetcher;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ikatas.util;
+
+import com.ikatas.util.classfile.ClassFileParser;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Predicts the classes a {@link DirectClassLoader} is going to define next: once it defines a class, the classes named
+ * by the constant pool of the class file are read on an I/O executor into a staging area, where the loader looks for
+ * class files before reading them itself. The classes a class links against are resolved lazily, one link at a time,
+ * by the thread running the class, which so finds their bytes in memory rather than waiting for I/O.
+ * <p>
+ * The staging area is bounded: no read is started while the staged bytes exceed the capacity, so it can exceed it by a
+ * class file per I/O thread at most. A class needed while its read is in flight waits for that read rather than reading
+ * the class file again.
+ */
+public final class ClassPrefetcher implements DefinitionListener {
+    private final DirectClassLoader loader;
+    private final Executor io;
+    private final long capacity;
+    private final Map<String, CompletableFuture<byte[]>> staged = new ConcurrentHashMap<>();
+    private final AtomicLong stagedBytes = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private ClassPrefetcher(DirectClassLoader loader, Executor io, long capacity) {
+        this.loader = loader;
+        this.io = io;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Prefetches the classes the loader defines from now on.
+     *
+     * @param io       the executor reading and parsing class files, e.g: a small fixed pool of daemon threads
+     * @param capacity the bytes of the class files the staging area holds
+     */
+    public static ClassPrefetcher attach(DirectClassLoader loader, Executor io, long capacity) {
+        ClassPrefetcher prefetcher = new ClassPrefetcher(loader, io, capacity);
+        loader.prefetchWith(prefetcher);
+        return prefetcher;
+    }
+
+    @Override
+    public void defined(DirectClassLoader loader, Class<?> c, ByteBuffer classFile) {
+        discard(c.getName()); // defined without taking its staged bytes, e.g: staged while it was read
+        byte[] bytes = new byte[classFile.remaining()];
+        classFile.get(bytes);
+        try {
+            io.execute(() -> {
+                for (String name : ClassFileParser.parse(bytes).referencedClasses()) {
+                    prefetch(name);
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // prefetching is only a hint, e.g: the executor is shut down
+        }
+    }
+
+    private void prefetch(String name) {
+        if (!loader.isDefinedDirectly(name) || loader.isClassLoaded(name) || staged.containsKey(name)) {
+            return;
+        }
+        if (stagedBytes.get() >= capacity) {
+            skipped.incrementAndGet();
+            return;
+        }
+        CompletableFuture<byte[]> read = new CompletableFuture<>();
+        if (staged.putIfAbsent(name, read) != null) {
+            return;
+        }
+        try {
+            byte[] bytes = loader.readClassFile(name);
+            reads.incrementAndGet();
+            stagedBytes.addAndGet(bytes.length);
+            read.complete(bytes);
+            if (loader.isClassLoaded(name)) {
+                discard(name, read); // defined since it was checked, so defined() found nothing staged to discard
+            }
+        } catch (ClassNotFoundException | RuntimeException e) {
+            staged.remove(name, read);
+            read.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Takes the staged class file of the class, waiting for it if it is being read, called by the loader before it
+     * reads the class file itself.
+     *
+     * @return {@code null} if the class file isn't staged, or couldn't be read
+     */
+    byte[] take(String name) {
+        CompletableFuture<byte[]> read = staged.remove(name);
+        if (read == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        (read.isDone() ? hits : waits).incrementAndGet();
+        try {
+            byte[] bytes = read.join();
+            stagedBytes.addAndGet(-bytes.length);
+            return bytes;
+        } catch (CompletionException e) {
+            return null; // the loader reads it again, and reports why it can't
+        }
+    }
+
+    private void discard(String name) {
+        CompletableFuture<byte[]> read = staged.remove(name);
+        if (read != null) {
+            read.thenAccept(bytes -> stagedBytes.addAndGet(-bytes.length));
+        }
+    }
+
+    private void discard(String name, CompletableFuture<byte[]> read) {
+        if (staged.remove(name, read)) {
+            read.thenAccept(bytes -> stagedBytes.addAndGet(-bytes.length));
+        }
+    }
+
+    public boolean isStaged(String name) {
+        CompletableFuture<byte[]> read = staged.get(name);
+        return read != null && read.isDone() && !read.isCompletedExceptionally();
+    }
+
+    /**
+     * @return the class files read ahead of time
+     */
+    public long reads() {
+        return reads.get();
+    }
+
+    /**
+     * @return the classes whose class file was staged when the loader needed it
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the classes whose class file was being read when the loader needed it
+     */
+    public long waits() {
+        return waits.get();
+    }
+
+    /**
+     * @return the classes the loader read itself, since they weren't predicted or their read was skipped
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the reads not started since the staging area was full
+     */
+    public long skipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return the class files read but not taken by the loader, so far
+     */
+    public long wastedReads() {
+        return reads.get() - hits.get() - waits.get();
+    }
+
+    public long stagedBytes() {
+        return stagedBytes.get();
+    }
+
+    /**
+     * @return the share of the class files the loader needed which it found staged or being read
+     */
+    public double hitRate() {
+        long taken = hits.get() + waits.get(), needed = taken + misses.get();
+        return needed == 0 ? 0 : (double) taken / needed;
+    }
+
+    @Override
+    public String toString() {
+        return format("%.1f%% hits (%d staged, %d in flight, %d misses), %d reads, %d wasted, %d skipped",
+                100 * hitRate(), hits.get(), waits.get(), misses.get(), reads.get(), wastedReads(), skipped.get());
+    }
+}
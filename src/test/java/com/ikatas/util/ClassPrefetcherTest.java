@@ -0,0 +1,128 @@
+package com.ikatas.util;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClassPrefetcherTest {
+    private static final String TEST_CLASS = ClassPrefetcherTest.class.getName();
+    private static final String ROOT = TEST_CLASS + "$Root", LEAF = TEST_CLASS + "$Leaf", UNUSED = TEST_CLASS + "$Unused";
+
+    private final DirectClassLoader loader = directClassLoader();
+
+    @Test
+    public void stagesTheClassesDefinedClassesReferTo() throws Exception {
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(loader, Runnable::run, 1 << 20);
+
+        loader.loadClass(ROOT);
+
+        assertThat(prefetcher.isStaged(LEAF), is(true));
+        assertThat(prefetcher.isStaged(UNUSED), is(true));
+        assertThat(prefetcher.isStaged(Object.class.getName()), is(false));
+        assertThat(loader.isClassLoaded(LEAF), is(false));
+        assertThat(prefetcher.misses(), equalTo(1L));
+        assertThat(prefetcher.stagedBytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void loaderTakesStagedClassFiles() throws Exception {
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(loader, Runnable::run, 1 << 20);
+
+        Class<?> root = loader.loadClass(ROOT);
+        root.getDeclaredMethod("leaf").invoke(root.getDeclaredConstructor().newInstance());
+
+        assertThat(loader.isClassLoaded(LEAF), is(true));
+        assertThat(prefetcher.isStaged(LEAF), is(false));
+        // reflection resolves the types of all methods of Root, Unused included
+        assertThat(prefetcher.hits(), equalTo(2L));
+        assertThat(prefetcher.wastedReads(), equalTo(prefetcher.reads() - 2));
+        assertThat(prefetcher.hitRate(), closeTo(2 / 3.0, 1e-9));
+    }
+
+    @Test
+    public void prefetchesOnTheIoExecutor() throws Exception {
+        ExecutorService io = Executors.newFixedThreadPool(2);
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(loader, io, 1 << 20);
+
+        loader.loadClass(ROOT);
+        io.shutdown();
+        assertThat(io.awaitTermination(5, SECONDS), is(true));
+
+        assertThat(prefetcher.isStaged(LEAF), is(true));
+        loader.loadClass(LEAF);
+        assertThat(prefetcher.hits(), equalTo(1L));
+    }
+
+    @Test
+    public void skipsReadsOnceTheStagingAreaIsFull() throws Exception {
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(loader, Runnable::run, 1);
+
+        loader.loadClass(ROOT);
+
+        assertThat(prefetcher.reads(), equalTo(1L));
+        assertThat(prefetcher.skipped(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    public void batchesTakeStagedClassFiles() throws Exception {
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(loader, Runnable::run, 1 << 20);
+        loader.loadClass(ROOT);
+        long staged = prefetcher.stagedBytes();
+
+        loader.defineAll(List.of(LEAF));
+
+        assertThat(prefetcher.isStaged(LEAF), is(false));
+        assertThat(prefetcher.stagedBytes(), lessThan(staged));
+        assertThat(prefetcher.hits(), equalTo(1L));
+    }
+
+    @Test
+    public void releasesStagedClassFilesOfClassesDefinedWhileTheyWereRead() throws Exception {
+        ClassPrefetcher all = ClassPrefetcher.attach(loader, Runnable::run, 1 << 20);
+        loader.loadClass(ROOT);
+        DirectClassLoader racing = new DirectClassLoader(false) {
+            @Override
+            public boolean isClassLoaded(String name) {
+                boolean loaded = super.isClassLoaded(name);
+                if (name.equals(LEAF) && !loaded) {
+                    try {
+                        defineAll(List.of(LEAF)); // right after the prefetcher checked it isn't
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return loaded;
+            }
+        };
+        ClassPrefetcher prefetcher = ClassPrefetcher.attach(racing, Runnable::run, 1 << 20);
+
+        racing.loadClass(ROOT);
+
+        assertThat(racing.isClassLoaded(LEAF), is(true));
+        assertThat(prefetcher.isStaged(LEAF), is(false));
+        assertThat(prefetcher.stagedBytes(), equalTo(all.stagedBytes() - loader.readClassFile(LEAF).length));
+    }
+
+    public static class Root {
+        public Leaf leaf() {
+            return new Leaf();
+        }
+
+        public Unused unused() {
+            return new Unused();
+        }
+    }
+
+    public static class Leaf {
+    }
+
+    static class Unused {
+    }
+}
@@ -0,0 +1,32 @@
+package com.ikatas.util;
+
+import java.util.Collection;
+
+import static java.util.Collections.emptySet;
+
+/**
+ * Transforms the class files a {@link DirectClassLoader} defines, between reading and defining them, and may generate
+ * classes the transformed ones refer to.
+ */
+public interface ClassTransformer {
+    /**
+     * @return the transformed class file, or the given one if the class is left as is
+     */
+    byte[] transform(String name, byte[] classFile);
+
+    /**
+     * @return the class file of a class the transformer generates for the transformed classes to link against, or
+     * {@code null} if the class is not generated by the transformer
+     */
+    default byte[] generate(String name) {
+        return null;
+    }
+
+    /**
+     * @return the binary names of the classes the transformed classes link against, which the loader delegates to its
+     * parent even if it would define them itself, so the transformed classes of all loaders share them
+     */
+    default Collection<String> runtimeClasses() {
+        return emptySet();
+    }
+}
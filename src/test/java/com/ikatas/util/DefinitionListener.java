@@ -0,0 +1,26 @@
+package com.ikatas.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Observes the classes a {@link DirectClassLoader} defines, e.g: to account for the memory their definitions take.
+ * Listeners are called by the thread defining the class, while it holds the class loading lock of the class.
+ */
+public interface DefinitionListener {
+    /**
+     * Called right before the class is defined from its transformed class file.
+     */
+    default void defining(DirectClassLoader loader, String name) {
+    }
+
+    /**
+     * @param classFile the transformed class file the class was defined from, which is only valid during the call
+     */
+    void defined(DirectClassLoader loader, Class<?> c, ByteBuffer classFile);
+
+    /**
+     * Called instead of {@link #defined} if defining the class threw, right before the failure propagates.
+     */
+    default void failed(DirectClassLoader loader, String name, Throwable failure) {
+    }
+}
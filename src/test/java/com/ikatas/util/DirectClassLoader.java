@@ -7,15 +7,36 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
 import static java.nio.ByteBuffer.wrap;
+import static java.util.Collections.synchronizedMap;
+import static java.util.stream.Collectors.toList;
 
 public class DirectClassLoader extends ClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
     private final boolean forceReload;
-    private Map<String, Class<?>> loadedClasses = new LinkedHashMap<>();
+    private final Map<String, Class<?>> loadedClasses = synchronizedMap(new LinkedHashMap<>());
+    private final Map<String, byte[]> prefetchedClasses = new ConcurrentHashMap<>();
+    private final List<ClassTransformer> transformers = new CopyOnWriteArrayList<>();
+    private final List<DefinitionListener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<String> runtimeClasses = ConcurrentHashMap.newKeySet();
+    private volatile ClassPrefetcher prefetcher;
+    private volatile SharedClassStore store;
 
     public DirectClassLoader(boolean forceReload) {
         this.forceReload = forceReload;
@@ -36,23 +57,285 @@ public class DirectClassLoader extends ClassLoader {
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
-        if (!forceReload) {
-            Class<?> c = findLoadedClass(name);
-            if (c != null) {
-                return c;
+        synchronized (getClassLoadingLock(name)) {
+            if (!forceReload) {
+                Class<?> c = findLoadedClass(name);
+                if (c != null) {
+                    return c;
+                }
+            }
+            if (isDefinedDirectly(name)) {
+                return define(name, readClassBuffer(name));
             }
-        }
-        if (name.startsWith("com.ikatas") || name.startsWith("jdk.")) {
-            Class<?> c = defineClass(name, wrap(readClass(name)), null);
-            loadedClasses.put(name, c);
-            return c;
         }
         return super.loadClass(name, resolve);
     }
 
+    private Class<?> define(String name, ByteBuffer bytes) {
+        ByteBuffer classFile = transform(name, bytes);
+        for (DefinitionListener listener : listeners) {
+            listener.defining(this, name);
+        }
+        Class<?> c;
+        try {
+            c = defineClass(name, classFile.duplicate(), null);
+        } catch (RuntimeException | Error e) {
+            for (DefinitionListener listener : listeners) {
+                listener.failed(this, name, e);
+            }
+            throw e;
+        }
+        loadedClasses.put(name, c);
+        for (DefinitionListener listener : listeners) {
+            listener.defined(this, c, classFile.duplicate());
+        }
+        return c;
+    }
+
+    /**
+     * Adds a transformer applied to every class this loader defines afterwards, in the order transformers are added.
+     */
+    public void addTransformer(ClassTransformer transformer) {
+        runtimeClasses.addAll(transformer.runtimeClasses());
+        transformers.add(transformer);
+    }
+
+    /**
+     * Adds a listener notified of every class this loader defines afterwards.
+     */
+    public void addListener(DefinitionListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Looks for class files in the staging area of the prefetcher before reading them.
+     */
+    void prefetchWith(ClassPrefetcher prefetcher) {
+        this.prefetcher = prefetcher;
+        addListener(prefetcher);
+    }
+
+    /**
+     * Defines classes from the class files of the store, and adds those it reads from class path directories and jars
+     * to the store, so class files are shared with other loaders and JVMs using the store rather than read into each
+     * loader. The store must be opened with the fingerprint of the locations {@link #findClassFile(String)} looks in.
+     *
+     * @throws IllegalStateException if this loader overrides {@link #readClassFile(String)}, so the class files it
+     *                               defines may not be those of their locations
+     */
+    public void useStore(SharedClassStore store) {
+        for (Class<?> c = getClass(); c != DirectClassLoader.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("readClassFile", String.class);
+                throw new IllegalStateException(format("%s reads class files its own way, so it can't use a store", c.getName()));
+            } catch (NoSuchMethodException ignored) {/**/}
+        }
+        this.store = store;
+    }
+
+    private ByteBuffer transform(String name, ByteBuffer bytes) {
+        if (transformers.isEmpty()) {
+            return bytes;
+        }
+        byte[] classFile = new byte[bytes.remaining()];
+        bytes.duplicate().get(classFile);
+        for (ClassTransformer transformer : transformers) {
+            classFile = transformer.transform(name, classFile);
+        }
+        return wrap(classFile);
+    }
+
+    /**
+     * Defines a batch of classes at once: all class files are read in parallel first, then the classes are defined
+     * with supertypes before their subtypes. Classes which are not defined by this loader, or already loaded unless
+     * in force reload mode, are skipped. Prefetched, generated, stored and staged class files are used, and read
+     * class files are stored, as when loading a class.
+     */
+    public BatchDefinition defineAll(Collection<String> names) throws ClassNotFoundException {
+        try {
+            return define(ClassBatch.of(names.stream().filter(this::isUndefined).collect(toList()), this::findClassFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Defines all classes of a package, excluding its subpackages, listing each directory or jar of the package only
+     * once.
+     *
+     * @see #defineAll(Collection)
+     */
+    public BatchDefinition preloadPackage(String packageName) {
+        try (ClassBatch.JarFiles jars = new ClassBatch.JarFiles()) {
+            return define(ClassBatch.ofPackage(this, packageName, jars));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e); // listed classes are never located
+        }
+    }
+
+    private boolean isUndefined(String name) {
+        return isDefinedDirectly(name) && (forceReload || findLoadedClass(name) == null);
+    }
+
+    private BatchDefinition define(ClassBatch batch) throws IOException, ClassNotFoundException {
+        long start = nanoTime();
+        ClassBatch undefined = batch.filter(this::isUndefined);
+        Map<String, ByteBuffer> classes = undefined.read(new ClassBatch.ClassFileCache() {
+            @Override
+            public ByteBuffer read(String name) {
+                return readAhead(name);
+            }
+
+            @Override
+            public void write(String name, ByteBuffer classFile) {
+                SharedClassStore store = DirectClassLoader.this.store;
+                if (store != null) {
+                    byte[] bytes = new byte[classFile.remaining()];
+                    classFile.get(bytes);
+                    store(store, name, bytes);
+                }
+            }
+        });
+        long read = nanoTime();
+        List<String> defined = new ArrayList<>(classes.size());
+        long bytes = 0;
+        try {
+            for (Map.Entry<String, ByteBuffer> it : classes.entrySet()) {
+                String name = it.getKey();
+                bytes += it.getValue().remaining();
+                synchronized (getClassLoadingLock(name)) {
+                    if (forceReload || findLoadedClass(name) == null) {
+                        define(name, it.getValue());
+                        defined.add(name);
+                    }
+                }
+            }
+        } finally {
+            undefined.release();
+        }
+        return new BatchDefinition(defined, bytes, Duration.ofNanos(read - start), Duration.ofNanos(nanoTime() - read));
+    }
+
+    /**
+     * The JDK internals are excluded from the {@code jdk.} test packages, since classes the JDK generates in loaders
+     * delegating to this one, e.g: reflection accessors, must link against the JDK's own. So are the
+     * {@link ClassTransformer#runtimeClasses() runtime classes} of the transformers.
+     */
+    public boolean isDefinedDirectly(String name) {
+        return (name.startsWith("com.ikatas") || name.startsWith("jdk.") && !name.startsWith("jdk.internal."))
+                && !runtimeClasses.contains(name);
+    }
+
+    /**
+     * Reads the bytes of classes ahead of time, so defining them later needs no I/O. Classes which are not defined by
+     * this loader, already loaded, or can't be found are skipped since prefetching is only a hint.
+     */
+    public void prefetch(Collection<String> names) {
+        for (String name : names) {
+            if (isDefinedDirectly(name) && findLoadedClass(name) == null && !prefetchedClasses.containsKey(name)) {
+                try {
+                    prefetchedClasses.putIfAbsent(name, readClass(name));
+                } catch (ClassNotFoundException ignored) {/**/}
+            }
+        }
+    }
+
+    /**
+     * Reads the class file from the store if any, which is defined straight from the mapped file, unless the class is
+     * prefetched or generated. Only the class files read from directories and jars are added to the store.
+     */
+    private ByteBuffer readClassBuffer(String name) throws ClassNotFoundException {
+        ByteBuffer classFile = readAhead(name);
+        if (classFile != null) {
+            return classFile;
+        }
+        SharedClassStore store = this.store;
+        if (store == null) {
+            return wrap(readClassFile(name));
+        }
+        URL url = findClassFile(name);
+        byte[] bytes = readClassFile(url);
+        if (ClassBatch.isLocal(url)) {
+            store(store, name, bytes);
+        }
+        return wrap(bytes);
+    }
+
+    /**
+     * @return the class file prefetched, generated, in the store or staged by the prefetcher, or {@code null} to read
+     * it from its location
+     */
+    private ByteBuffer readAhead(String name) {
+        byte[] classFile = readPrefetchedOrGenerated(name);
+        if (classFile != null) {
+            return wrap(classFile);
+        }
+        SharedClassStore store = this.store;
+        ByteBuffer stored = store != null ? store.read(name) : null;
+        if (stored != null) {
+            return stored;
+        }
+        classFile = takeStaged(name);
+        return classFile != null ? wrap(classFile) : null;
+    }
+
+    private static void store(SharedClassStore store, String name, byte[] classFile) {
+        try {
+            store.write(name, classFile);
+        } catch (IOException ignored) {
+            // the store is only a cache
+        }
+    }
+
     private byte[] readClass(String name) throws ClassNotFoundException {
-        try (InputStream in = new BufferedInputStream(findClassFile(name).openStream())) {
-            return toBytes(new BufferedInputStream(in));
+        byte[] classFile = readPrefetchedOrGenerated(name);
+        if (classFile == null) {
+            classFile = takeStaged(name);
+        }
+        return classFile != null ? classFile : readClassFile(name);
+    }
+
+    private byte[] readPrefetchedOrGenerated(String name) {
+        byte[] prefetched = prefetchedClasses.remove(name);
+        if (prefetched != null) {
+            return prefetched;
+        }
+        for (ClassTransformer transformer : transformers) {
+            byte[] generated = transformer.generate(name);
+            if (generated != null) {
+                return generated;
+            }
+        }
+        return null;
+    }
+
+    private byte[] takeStaged(String name) {
+        ClassPrefetcher prefetcher = this.prefetcher;
+        return prefetcher == null ? null : prefetcher.take(name);
+    }
+
+    /**
+     * Reads the class file found by {@link #findClassFile(String)}. Entries of jars are read through the
+     * {@link JarClassSource#shared(java.nio.file.Path) shared source} of the jar instead of a {@code JarURLConnection}
+     * per class, unless the source can't read the jar.
+     */
+    protected byte[] readClassFile(String name) throws ClassNotFoundException {
+        return readClassFile(findClassFile(name));
+    }
+
+    private byte[] readClassFile(URL classFile) {
+        try {
+            if (classFile.getProtocol().equals("jar")) {
+                byte[] bytes = JarClassSource.read(classFile);
+                if (bytes != null) {
+                    return bytes;
+                }
+            }
+            try (InputStream in = new BufferedInputStream(classFile.openStream())) {
+                return toBytes(in);
+            }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -84,7 +367,13 @@ public class DirectClassLoader extends ClassLoader {
         return loadedClasses.containsKey(name);
     }
 
+    public boolean isPrefetched(String name) {
+        return prefetchedClasses.containsKey(name);
+    }
+
     public Collection<? extends String> loadedClasses() {
-        return loadedClasses.keySet();
+        synchronized (loadedClasses) {
+            return new ArrayList<>(loadedClasses.keySet());
+        }
     }
 }
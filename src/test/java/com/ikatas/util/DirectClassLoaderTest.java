@@ -0,0 +1,130 @@
+package com.ikatas.util;
+
+import com.ikatas.jls.test.execution.ClassLoaderTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarFile;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyEnumeration;
+import static java.util.Collections.enumeration;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertTrue;
+
+public class DirectClassLoaderTest {
+    private static final String TEST_CLASS = ClassLoaderTest.class.getName();
+    private static final String ANY = TEST_CLASS + "$Any", MARKABLE = TEST_CLASS + "$Markable",
+            SUP = TEST_CLASS + "$Sup", SUB = TEST_CLASS + "$Sub";
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void defineAllClassesWithSupertypesFirst() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader();
+
+        BatchDefinition batch = loader.defineAll(asList(SUB, ANY, SUP, MARKABLE));
+
+        assertThat(batch.classes(), contains(ANY, MARKABLE, SUP, SUB));
+        assertThat(loader.loadedClasses(), contains(ANY, MARKABLE, SUP, SUB));
+        assertThat(batch.bytes(), greaterThan(0L));
+    }
+
+    @Test
+    public void skipClassesAlreadyLoadedOrNotDefinedDirectly() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader();
+        loader.loadClass(SUP);
+
+        BatchDefinition batch = loader.defineAll(asList(SUB, SUP, String.class.getName()));
+
+        assertThat(batch.classes(), contains(SUB));
+    }
+
+    @Test
+    public void defineAllPrefetchedAndGeneratedClasses() throws ClassNotFoundException {
+        String generated = SyntheticClasses.PACKAGE + ".Generated";
+        DirectClassLoader loader = directClassLoader();
+        loader.addTransformer(new ClassTransformer() {
+            @Override
+            public byte[] transform(String name, byte[] classFile) {
+                return classFile;
+            }
+
+            @Override
+            public byte[] generate(String name) {
+                return name.equals(generated) ? SyntheticClasses.classBytes(generated.replace('.', '/'), 0) : null;
+            }
+        });
+        loader.prefetch(singletonList(SUP));
+
+        BatchDefinition batch = loader.defineAll(asList(SUP, generated));
+
+        assertThat(batch.classes(), containsInAnyOrder(SUP, generated));
+        assertThat(loader.isPrefetched(SUP), is(false));
+    }
+
+    @Test
+    public void preloadPackageFromDirectory() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader();
+
+        BatchDefinition batch = loader.preloadPackage(ClassLoaderTest.class.getPackageName());
+
+        assertThat(batch.classes(), containsInRelativeOrder(ANY, MARKABLE, SUP, SUB));
+        assertThat(loader.loadClass(TEST_CLASS).getClassLoader(), sameInstance(loader));
+        assertThat(batch.readTime().isNegative(), is(false));
+        assertThat(batch.defineTime().isNegative(), is(false));
+    }
+
+    @Test
+    public void preloadPackageFromJar() throws IOException {
+        Path jar = temp.getRoot().toPath().resolve("synthetic.jar");
+        List<String> classes = SyntheticClasses.jar(jar, SyntheticClasses.PACKAGE, 16);
+        DirectClassLoader loader = new JarClassLoader(jar);
+
+        BatchDefinition batch = loader.preloadPackage(SyntheticClasses.PACKAGE);
+
+        assertThat(batch.classes(), containsInAnyOrder(classes.toArray()));
+        assertTrue(loader.isClassLoaded(classes.get(0)));
+    }
+
+    private static class JarClassLoader extends DirectClassLoader {
+        private final Path jar;
+
+        JarClassLoader(Path jar) {
+            super(false);
+            this.jar = jar;
+        }
+
+        @Override
+        protected URL findResource(String name) {
+            try (JarFile jarFile = new JarFile(jar.toFile())) {
+                if (jarFile.stream().noneMatch(it -> it.getName().startsWith(name))) {
+                    return null;
+                }
+                return new URL("jar:" + jar.toUri() + "!/" + name);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        protected Enumeration<URL> findResources(String name) {
+            URL resource = findResource(name);
+            return resource == null ? emptyEnumeration() : enumeration(singletonList(resource));
+        }
+    }
+}
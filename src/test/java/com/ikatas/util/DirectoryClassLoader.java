@@ -0,0 +1,35 @@
+package com.ikatas.util;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A {@link DirectClassLoader} which finds class files in a root directory rather than on the class path.
+ */
+public class DirectoryClassLoader extends DirectClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Path root;
+
+    public DirectoryClassLoader(Path root, boolean forceReload) {
+        super(forceReload);
+        this.root = root;
+    }
+
+    @Override
+    protected URL findClassFile(String name) throws ClassNotFoundException {
+        Path classFile = root.resolve(name.replace('.', '/') + ".class");
+        if (!Files.isRegularFile(classFile)) {
+            return super.findClassFile(name);
+        }
+        try {
+            return classFile.toUri().toURL();
+        } catch (MalformedURLException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.ikatas.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Reads class files out of a jar through a single open {@link FileChannel}. The central directory is read once into
+ * an offset table, and entries are read with positional reads, which are thread-safe without any seek lock, then
+ * inflated by {@link Inflater}s from a pool.
+ * <p>
+ * Zip64 archives are not supported. The entries of the runtime version of a multi-release jar are read by
+ * {@link #readRuntimeVersion(String)}.
+ */
+public final class JarClassSource implements Closeable {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int STORED = 0, DEFLATED = 8;
+    private static final int MAX_POOLED_INFLATERS = 64;
+    private static final String VERSIONS = "META-INF/versions/";
+
+    private static final Map<Path, JarClassSource> shared = new ConcurrentHashMap<>();
+    private static final Set<Path> unreadable = ConcurrentHashMap.newKeySet();
+    private static final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, Entry> entries;
+    /**
+     * the versions of a multi-release jar up to the runtime's, highest first, or none
+     */
+    private final int[] versions;
+
+    private JarClassSource(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, READ);
+        try {
+            this.entries = readCentralDirectory();
+            this.versions = readVersions();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static JarClassSource open(Path jar) throws IOException {
+        return new JarClassSource(jar);
+    }
+
+    /**
+     * @return the source of the jar shared by all callers, it stays open as long as the JVM, just like the jars on the
+     * class path
+     */
+    public static JarClassSource shared(Path jar) {
+        return shared.computeIfAbsent(jar.toAbsolutePath().normalize(), it -> {
+            try {
+                return open(it);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Reads an entry of a {@code jar:file:} URL through the shared source of the jar, the entry of the runtime version
+     * if the URL asks for it by a {@code #runtime} fragment, as the URLs of the class loaders of multi-release jars do.
+     *
+     * @return {@code null} if the jar has no such entry, or if this source can't read the jar, e.g: it is not a local
+     * file or it is a zip64 archive, so the caller reads the URL as usual
+     */
+    public static byte[] read(URL jarEntry) throws IOException {
+        String spec = jarEntry.getPath();
+        int separator = spec.indexOf("!/");
+        if (!jarEntry.getProtocol().equals("jar") || separator < 0) {
+            throw new IllegalArgumentException("not a jar entry: " + jarEntry);
+        }
+        URL jarUrl = new URL(spec.substring(0, separator));
+        if (!jarUrl.getProtocol().equals("file")) {
+            return null;
+        }
+        Path jar;
+        try {
+            jar = Paths.get(jarUrl.toURI()).toAbsolutePath().normalize();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+        if (unreadable.contains(jar)) {
+            return null;
+        }
+        JarClassSource source;
+        try {
+            source = shared(jar);
+        } catch (UncheckedIOException e) {
+            unreadable.add(jar); // remembered, so the jar isn't parsed again on every read
+            return null;
+        }
+        String entryName = spec.substring(separator + 2);
+        return "runtime".equals(jarEntry.getRef()) ? source.readRuntimeVersion(entryName) : source.read(entryName);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public Set<String> entryNames() {
+        return unmodifiableSet(entries.keySet());
+    }
+
+    public boolean contains(String entryName) {
+        return entries.containsKey(entryName);
+    }
+
+    public byte[] readClass(String className) throws IOException {
+        return read(className.replace('.', '/') + ".class");
+    }
+
+    /**
+     * Reads the entry of the highest version up to the runtime's of a multi-release jar, as a {@link JarFile} opened
+     * with the {@link JarFile#runtimeVersion() runtime version} does, or the entry itself if there is none or the jar is
+     * not a multi-release one.
+     *
+     * @return {@code null} if the jar has no such entry
+     */
+    public byte[] readRuntimeVersion(String entryName) throws IOException {
+        for (int version : versions) {
+            byte[] versioned = read(VERSIONS + version + "/" + entryName);
+            if (versioned != null) {
+                return versioned;
+            }
+        }
+        return read(entryName);
+    }
+
+    /**
+     * @return {@code null} if the jar has no such entry
+     */
+    public byte[] read(String entryName) throws IOException {
+        Entry entry = entries.get(entryName);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.method == STORED) {
+            ByteBuffer stored = ByteBuffer.allocate(entry.size);
+            readFully(stored, dataOffset(entry));
+            return stored.array();
+        }
+        // an extra dummy byte for the nowrap inflater, as ZipFile does
+        ByteBuffer compressed = ByteBuffer.allocate(entry.compressedSize + 1).limit(entry.compressedSize);
+        readFully(compressed, dataOffset(entry));
+        Inflater inflater = acquireInflater();
+        try {
+            inflater.setInput(compressed.array());
+            byte[] bytes = new byte[entry.size];
+            for (int n = 0; n < bytes.length; ) {
+                int inflated = inflater.inflate(bytes, n, bytes.length - n);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException(format("truncated entry %s in %s", entryName, path));
+                }
+                n += inflated;
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new ZipException(format("invalid entry %s in %s: %s", entryName, path, e.getMessage()));
+        } finally {
+            releaseInflater(inflater);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        shared.remove(path, this);
+        channel.close();
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws IOException {
+        long size = channel.size();
+        int tail = (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer end = ByteBuffer.allocate(tail).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(end, size - tail);
+        int eocd = tail - END_OF_CENTRAL_DIRECTORY_SIZE;
+        while (eocd >= 0 && end.getInt(eocd) != END_OF_CENTRAL_DIRECTORY) {
+            eocd--;
+        }
+        if (eocd < 0) {
+            throw new ZipException("end of central directory not found in " + path);
+        }
+        int count = end.getShort(eocd + 10) & 0xFFFF;
+        long directorySize = end.getInt(eocd + 12) & 0xFFFFFFFFL;
+        long directoryOffset = end.getInt(eocd + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("zip64 is not supported: " + path);
+        }
+
+        ByteBuffer directory = ByteBuffer.allocate((int) directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(directory, directoryOffset);
+        Map<String, Entry> entries = new HashMap<>(count * 4 / 3 + 1);
+        for (int offset = 0, i = 0; i < count; i++) {
+            if (directory.getInt(offset) != CENTRAL_DIRECTORY_HEADER) {
+                throw new ZipException(format("invalid central directory header at %d in %s", offset, path));
+            }
+            int method = directory.getShort(offset + 10) & 0xFFFF;
+            int compressedSize = directory.getInt(offset + 20);
+            int uncompressedSize = directory.getInt(offset + 24);
+            int nameLength = directory.getShort(offset + 28) & 0xFFFF;
+            int extraLength = directory.getShort(offset + 30) & 0xFFFF;
+            int commentLength = directory.getShort(offset + 32) & 0xFFFF;
+            long localHeaderOffset = directory.getInt(offset + 42) & 0xFFFFFFFFL;
+            String name = new String(directory.array(), offset + CENTRAL_DIRECTORY_HEADER_SIZE, nameLength, UTF_8);
+            if (!name.endsWith("/") && (method == STORED || method == DEFLATED)) {
+                entries.put(name, new Entry(method, compressedSize, uncompressedSize, localHeaderOffset));
+            }
+            offset += CENTRAL_DIRECTORY_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    private int[] readVersions() throws IOException {
+        byte[] manifest = read(JarFile.MANIFEST_NAME);
+        if (manifest == null || !"true".equalsIgnoreCase(
+                new Manifest(new ByteArrayInputStream(manifest)).getMainAttributes().getValue(Attributes.Name.MULTI_RELEASE))) {
+            return new int[0];
+        }
+        int runtime = JarFile.runtimeVersion().feature();
+        TreeSet<Integer> versions = new TreeSet<>();
+        for (String name : entries.keySet()) {
+            int end = name.indexOf('/', VERSIONS.length());
+            if (name.startsWith(VERSIONS) && end > 0) {
+                try {
+                    int version = Integer.parseInt(name.substring(VERSIONS.length(), end));
+                    if (version >= 9 && version <= runtime) {
+                        versions.add(version);
+                    }
+                } catch (NumberFormatException ignored) {/**/}
+            }
+        }
+        return versions.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * The local header may have an extra field of another length than the central one, so the offset of the data is
+     * resolved on the first read of each entry. Racing readers compute the same value.
+     */
+    private long dataOffset(Entry entry) throws IOException {
+        long offset = entry.dataOffset;
+        if (offset < 0) {
+            ByteBuffer header = ByteBuffer.allocate(LOCAL_FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(header, entry.localHeaderOffset);
+            if (header.getInt(0) != LOCAL_FILE_HEADER) {
+                throw new ZipException(format("invalid local header at %d in %s", entry.localHeaderOffset, path));
+            }
+            int nameLength = header.getShort(26) & 0xFFFF;
+            int extraLength = header.getShort(28) & 0xFFFF;
+            entry.dataOffset = offset = entry.localHeaderOffset + LOCAL_FILE_HEADER_SIZE + nameLength + extraLength;
+        }
+        return offset;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new ZipException(format("unexpected end of %s at %d", path, position + buffer.position()));
+            }
+        }
+    }
+
+    private static Inflater acquireInflater() {
+        Inflater inflater = inflaters.poll();
+        return inflater != null ? inflater : new Inflater(true);
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        if (inflaters.size() < MAX_POOLED_INFLATERS) {
+            inflater.reset();
+            inflaters.offer(inflater);
+        } else {
+            inflater.end();
+        }
+    }
+
+    private static final class Entry {
+        final int method;
+        final int compressedSize;
+        final int size;
+        final long localHeaderOffset;
+        volatile long dataOffset = -1;
+
+        Entry(int method, int compressedSize, int size, long localHeaderOffset) {
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
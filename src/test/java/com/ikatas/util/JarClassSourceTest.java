@@ -0,0 +1,145 @@
+package com.ikatas.util;
+
+import org.hamcrest.Matcher;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class JarClassSourceTest {
+    private final Path junit = jarOf(Test.class), hamcrest = jarOf(Matcher.class);
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void readAllEntriesIdenticalToJarFile() throws IOException {
+        assertReadIdenticalToJarFile(junit);
+        assertReadIdenticalToJarFile(hamcrest);
+    }
+
+    private void assertReadIdenticalToJarFile(Path jar) throws IOException {
+        try (JarClassSource source = JarClassSource.open(jar); JarFile jarFile = new JarFile(jar.toFile())) {
+            List<JarEntry> entries = jarFile.stream().filter(it -> !it.isDirectory()).collect(toList());
+            for (JarEntry entry : entries) {
+                assertThat(entry.getName(), source.read(entry.getName()), equalTo(read(jarFile, entry)));
+            }
+            assertThat(source.entryNames(), hasSize(entries.size()));
+        }
+    }
+
+    @Test
+    public void returnsNullIfEntryAbsent() throws IOException {
+        try (JarClassSource source = JarClassSource.open(junit)) {
+            assertThat(source.readClass("org.junit.Absent"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void readEntriesConcurrentlyWithPositionalReads() throws Exception {
+        ExecutorService executor = newFixedThreadPool(4);
+        try (JarClassSource source = JarClassSource.open(junit)) {
+            List<Callable<byte[]>> reads = source.entryNames().stream().map(it -> (Callable<byte[]>) () -> source.read(it)).collect(toList());
+            List<Future<byte[]>> results = executor.invokeAll(reads);
+
+            try (JarFile jarFile = new JarFile(junit.toFile())) {
+                int i = 0;
+                for (String name : source.entryNames()) {
+                    assertThat(name, results.get(i++).get(), equalTo(read(jarFile, jarFile.getJarEntry(name))));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readJarEntryUrlThroughSharedSource() throws IOException {
+        URL resource = Test.class.getResource("Test.class");
+
+        assertThat(resource.getProtocol(), equalTo("jar"));
+        try (InputStream in = resource.openStream()) {
+            assertThat(JarClassSource.read(resource), equalTo(in.readAllBytes()));
+        }
+        assertThat(JarClassSource.shared(junit), sameInstance(JarClassSource.shared(junit)));
+    }
+
+    @Test
+    public void readRuntimeVersionOfMultiReleaseJarEntryUrls() throws IOException {
+        Path jar = temp.newFile("multi-release.jar").toPath();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            put(out, "a/B.class", "base");
+            put(out, "META-INF/versions/9/a/B.class", "9");
+            put(out, "META-INF/versions/" + (Runtime.version().feature() + 1) + "/a/B.class", "next");
+        }
+
+        URL runtime = new URL("jar:" + jar.toUri() + "!/a/B.class#runtime");
+        try (InputStream in = runtime.openStream()) {
+            assertThat(JarClassSource.read(runtime), allOf(equalTo(in.readAllBytes()), equalTo("9".getBytes(UTF_8))));
+        }
+        assertThat(JarClassSource.read(new URL("jar:" + jar.toUri() + "!/a/B.class")), equalTo("base".getBytes(UTF_8)));
+    }
+
+    @Test
+    public void leavesJarsItCanNotReadToTheCaller() throws IOException {
+        Path zip64 = temp.newFile("zip64.jar").toPath();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip64))) {
+            for (int i = 0; i <= 0xFFFF; i++) { // more entries than the end of central directory counts
+                put(out, "e" + i, "");
+            }
+        }
+        URL entry = new URL("jar:" + zip64.toUri() + "!/e1");
+
+        try (InputStream in = entry.openStream()) {
+            assertThat(in.readAllBytes().length, equalTo(0));
+        }
+        assertThat(JarClassSource.read(entry), is(nullValue()));
+        assertThat(JarClassSource.read(new URL("jar:http://localhost/absent.jar!/a/B.class")), is(nullValue()));
+    }
+
+    private static void put(ZipOutputStream out, String name, String content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(UTF_8));
+        out.closeEntry();
+    }
+
+    private static byte[] read(JarFile jarFile, JarEntry entry) throws IOException {
+        try (InputStream in = jarFile.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Path jarOf(Class<?> type) {
+        try {
+            return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
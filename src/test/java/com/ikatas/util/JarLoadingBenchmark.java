@@ -0,0 +1,237 @@
+package com.ikatas.util;
+
+import org.hamcrest.Matcher;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Compares reading and defining all classes of the junit and hamcrest jars through a {@code JarURLConnection} per
+ * class, through a shared {@link JarFile}, and through a {@link JarClassSource}. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.JarLoadingBenchmark
+ * </pre>
+ * The {@code trials} and {@code threads} system properties override the defaults.
+ */
+public class JarLoadingBenchmark {
+
+    enum Source {
+        URL_CONNECTION {
+            @Override
+            Reader open(Path jar) {
+                String prefix = "jar:" + jar.toUri() + "!/";
+                return entry -> {
+                    try (InputStream in = new URL(prefix + entry).openStream()) {
+                        return in.readAllBytes();
+                    }
+                };
+            }
+        },
+        JAR_FILE {
+            @Override
+            Reader open(Path jar) throws IOException {
+                JarFile jarFile = new JarFile(jar.toFile());
+                return new Reader() {
+                    @Override
+                    public byte[] read(String entry) throws IOException {
+                        try (InputStream in = jarFile.getInputStream(jarFile.getJarEntry(entry))) {
+                            return in.readAllBytes();
+                        }
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        jarFile.close();
+                    }
+                };
+            }
+        },
+        JAR_CLASS_SOURCE {
+            @Override
+            Reader open(Path jar) throws IOException {
+                JarClassSource classSource = JarClassSource.open(jar);
+                return new Reader() {
+                    @Override
+                    public byte[] read(String entry) throws IOException {
+                        return classSource.read(entry);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        classSource.close();
+                    }
+                };
+            }
+        };
+
+        abstract Reader open(Path jar) throws IOException;
+    }
+
+    interface Reader extends Closeable {
+        byte[] read(String entry) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int trials = Integer.getInteger("trials", 10);
+        int[] threadCounts = stream(System.getProperty("threads", "1,4").split(",")).mapToInt(Integer::parseInt).toArray();
+        List<Path> jars = List.of(jarOf(Test.class), jarOf(Matcher.class));
+        List<ClassEntry> classes = new ArrayList<>();
+        for (Path jar : jars) {
+            try (JarFile jarFile = new JarFile(jar.toFile())) {
+                jarFile.stream().map(JarEntry::getName)
+                        .filter(it -> it.endsWith(".class") && !it.endsWith("module-info.class"))
+                        .forEach(it -> classes.add(new ClassEntry(jar, it)));
+            }
+        }
+        out.printf("%d classes in %s%n", classes.size(), jars);
+        out.printf("%-18s %-12s %8s %14s %10s%n", "source", "phase", "threads", "classes/s", "failures");
+
+        for (Source source : Source.values()) {
+            for (boolean define : new boolean[]{false, true}) {
+                for (int threads : threadCounts) {
+                    run(source, classes, threads, define); // warm up
+                    double best = 0;
+                    int failures = 0;
+                    for (int trial = 0; trial < trials; trial++) {
+                        Result result = run(source, classes, threads, define);
+                        best = Math.max(best, result.throughput);
+                        failures = result.failures;
+                    }
+                    out.printf("%-18s %-12s %8d %14.0f %10d%n", source, define ? "read+define" : "read", threads, best, failures);
+                }
+            }
+        }
+    }
+
+    private static Result run(Source source, List<ClassEntry> classes, int threads, boolean define) throws Exception {
+        Map<Path, Reader> readers = new HashMap<>();
+        for (ClassEntry entry : classes) {
+            if (!readers.containsKey(entry.jar)) {
+                readers.put(entry.jar, source.open(entry.jar));
+            }
+        }
+        JarLoader loader = new JarLoader(classes, readers);
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1), done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = offset; i < classes.size(); i += threads) {
+                        ClassEntry entry = classes.get(i);
+                        try {
+                            if (define) {
+                                loader.loadClass(entry.className());
+                            } else {
+                                readers.get(entry.jar).read(entry.name);
+                            }
+                        } catch (ClassNotFoundException | LinkageError e) {
+                            failures.incrementAndGet(); // e.g: a super class of an optional dependency
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.setDaemon(true);
+            worker.start();
+        }
+        long begin = nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = nanoTime() - begin;
+        for (Reader reader : readers.values()) {
+            reader.close();
+        }
+        return new Result(classes.size() * 1e9 / elapsed, failures.get());
+    }
+
+    private static Path jarOf(Class<?> type) throws Exception {
+        return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static final class Result {
+        final double throughput;
+        final int failures;
+
+        Result(double throughput, int failures) {
+            this.throughput = throughput;
+            this.failures = failures;
+        }
+    }
+
+    private static final class ClassEntry {
+        final Path jar;
+        final String name;
+
+        ClassEntry(Path jar, String name) {
+            this.jar = jar;
+            this.name = name;
+        }
+
+        String className() {
+            return name.substring(0, name.length() - ".class".length()).replace('/', '.');
+        }
+    }
+
+    /**
+     * Defines every class of the jars itself, reading the class files through the readers of the benchmarked source.
+     */
+    private static final class JarLoader extends DirectClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final Map<String, ClassEntry> classes;
+        private final Map<Path, Reader> readers;
+
+        JarLoader(List<ClassEntry> classes, Map<Path, Reader> readers) {
+            super(false);
+            this.classes = classes.stream().collect(toMap(ClassEntry::className, it -> it));
+            this.readers = readers;
+        }
+
+        @Override
+        public boolean isDefinedDirectly(String name) {
+            return classes.containsKey(name);
+        }
+
+        @Override
+        protected byte[] readClassFile(String name) throws ClassNotFoundException {
+            ClassEntry entry = classes.get(name);
+            try {
+                return readers.get(entry.jar).read(entry.name);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
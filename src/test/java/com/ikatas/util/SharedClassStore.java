@@ -0,0 +1,344 @@
+package com.ikatas.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Class files shared by all loaders of all JVMs on a host through a single memory-mapped file, so each class file
+ * lives once in the page cache and is defined straight from it, without any copy on the heap.
+ * <p>
+ * The file starts with a header and an open-addressed index of {@code slots} slots, each holding the 64-bit hash of a
+ * class name, then the offset and length of its entry; entries, the name followed by the class file, are appended
+ * after the index. Readers don't lock: a writer appends the entry and fills the slot before it publishes the hash with
+ * a release write, which readers read with acquire. Writers append under a lock of the JVM and a {@link FileLock} on a
+ * {@code .lock} file next to the store, which also serializes rebuilds across JVMs.
+ * <p>
+ * The header records a fingerprint of the class path the class files were read from. A store opened with another
+ * fingerprint is rebuilt into a new file, which atomically replaces the old one, so JVMs still mapping the old file
+ * keep reading consistent, if stale, entries. The store doesn't grow: once its index is three quarters full, or its
+ * data reaches its capacity, no entry is added any more.
+ */
+public final class SharedClassStore implements Closeable {
+    private static final int MAGIC = 0x434c5353; // CLSS
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0, VERSION_OFFSET = 4, FINGERPRINT_OFFSET = 8, SLOTS_OFFSET = 16,
+            CAPACITY_OFFSET = 20, COUNT_OFFSET = 24, DATA_END_OFFSET = 28, HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L, FNV_PRIME = 0x100000001b3L;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final Map<Path, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final long fingerprint;
+    private final int slots;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final ReentrantLock lock;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private SharedClassStore(Path path, long fingerprint, FileChannel channel, MappedByteBuffer map) {
+        this.path = path;
+        this.fingerprint = fingerprint;
+        this.slots = map.getInt(SLOTS_OFFSET);
+        this.capacity = map.getInt(CAPACITY_OFFSET);
+        this.channel = channel;
+        this.map = map;
+        this.lock = lockOf(path);
+    }
+
+    /**
+     * Opens the store of the class path of the JVM, with {@code 65536} slots and a capacity of 256 MB.
+     */
+    public static SharedClassStore open(Path path) throws IOException {
+        return open(path, classPathFingerprint(), 1 << 16, 256 << 20);
+    }
+
+    /**
+     * Opens the store at the path, creating it, or rebuilding it if it was built for another fingerprint. The slots and
+     * capacity are those of the existing store unless it is created or rebuilt.
+     *
+     * @param slots    the slots of the index, rounded up to a power of two
+     * @param capacity the bytes of the file, header and index included, which is sparse where not written yet
+     */
+    public static SharedClassStore open(Path path, long fingerprint, int slots, int capacity) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        slots = Integer.highestOneBit(Math.max(slots, 2) * 2 - 1);
+        if ((long) HEADER_SIZE + (long) slots * SLOT_SIZE >= capacity) {
+            throw new IllegalArgumentException(format("capacity %d can't hold %d slots", capacity, slots));
+        }
+        ReentrantLock lock = lockOf(path);
+        lock.lock();
+        try (FileChannel lockFile = FileChannel.open(lockFileOf(path), CREATE, WRITE)) {
+            lockFile.lock(); // released by closing the channel
+            SharedClassStore store = Files.exists(path) ? map(path, fingerprint) : null;
+            if (store != null && store.isValid()) {
+                return store;
+            }
+            if (store != null) {
+                store.close();
+            }
+            rebuild(path, fingerprint, slots, capacity);
+            return map(path, fingerprint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a fingerprint of the {@code java.class.path} entries
+     */
+    public static long classPathFingerprint() {
+        List<Path> classPath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                classPath.add(Paths.get(entry));
+            }
+        }
+        return fingerprint(classPath);
+    }
+
+    /**
+     * @return a hash of the paths of the class path entries and the sizes and modification times of their files,
+     * so it changes once any class file or jar is added, removed or rewritten
+     */
+    public static long fingerprint(List<Path> classPath) {
+        long hash = fnv(FNV_OFFSET, "v" + VERSION);
+        for (Path entry : classPath) {
+            hash = fnv(hash, entry.toAbsolutePath().normalize().toString());
+            if (Files.isDirectory(entry)) {
+                try (Stream<Path> files = Files.walk(entry)) {
+                    for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                        hash = fnv(fnv(hash, entry.relativize(file).toString()), attributes(file));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (Files.exists(entry)) {
+                hash = fnv(hash, attributes(entry));
+            }
+        }
+        return hash;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return the number of class files in the store, including those other JVMs added
+     */
+    public int size() {
+        return map.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * @return a read-only view of the class file in the mapped file, or {@code null} if the store has none
+     */
+    public ByteBuffer read(String className) {
+        byte[] name = className.getBytes(UTF_8);
+        long hash = hash(name);
+        for (int slot = (int) hash & (slots - 1), probes = 0; probes < slots; slot = (slot + 1) & (slots - 1), probes++) {
+            int at = HEADER_SIZE + slot * SLOT_SIZE;
+            long found = (long) LONGS.getAcquire(map, at);
+            if (found == 0) {
+                break;
+            }
+            if (found == hash && nameAt(map.getInt(at + 8), name)) {
+                hits.incrementAndGet();
+                int offset = map.getInt(at + 8), length = map.getInt(at + 12);
+                int data = offset + 2 + name.length;
+                return map.duplicate().position(data).limit(offset + length).slice().asReadOnlyBuffer();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Adds the class file unless the store has one for the class already.
+     *
+     * @return whether the store has the class file, so {@code false} once the store is full
+     */
+    public boolean write(String className, byte[] classFile) throws IOException {
+        byte[] name = className.getBytes(UTF_8);
+        long hash = hash(name);
+        int entrySize = 2 + name.length + classFile.length;
+        lock.lock();
+        try (FileChannel lockFile = FileChannel.open(lockFileOf(path), CREATE, WRITE)) {
+            lockFile.lock(); // released by closing the channel
+            int count = map.getInt(COUNT_OFFSET);
+            for (int slot = (int) hash & (slots - 1); ; slot = (slot + 1) & (slots - 1)) {
+                int at = HEADER_SIZE + slot * SLOT_SIZE;
+                long found = (long) LONGS.getAcquire(map, at);
+                if (found == hash && nameAt(map.getInt(at + 8), name)) {
+                    return true;
+                }
+                if (found == 0) {
+                    int offset = map.getInt(DATA_END_OFFSET);
+                    if (count + 1 > slots / 4 * 3 || (long) offset + entrySize > capacity) {
+                        return false;
+                    }
+                    ByteBuffer entry = map.duplicate().position(offset);
+                    entry.putShort((short) name.length).put(name).put(classFile);
+                    map.putInt(at + 8, offset).putInt(at + 12, entrySize);
+                    LONGS.setRelease(map, at, hash);
+                    map.putInt(DATA_END_OFFSET, offset + entrySize).putInt(COUNT_OFFSET, count + 1);
+                    return true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the reads which found the class file
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Closes the file; the mapping stays valid until it is garbage collected, so the buffers read stay valid too.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean isValid() {
+        return map.getInt(MAGIC_OFFSET) == MAGIC && map.getInt(VERSION_OFFSET) == VERSION
+                && map.getLong(FINGERPRINT_OFFSET) == fingerprint;
+    }
+
+    private boolean nameAt(int offset, byte[] name) {
+        if ((map.getShort(offset) & 0xffff) != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (map.get(offset + 2 + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SharedClassStore map(Path path, long fingerprint) throws IOException {
+        FileChannel channel = FileChannel.open(path, READ, WRITE);
+        try {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, Integer.MAX_VALUE));
+            int capacity = map.getInt(CAPACITY_OFFSET), slots = map.getInt(SLOTS_OFFSET);
+            if (capacity != size || Integer.bitCount(slots) != 1 || HEADER_SIZE + (long) slots * SLOT_SIZE >= capacity) {
+                channel.close(); // not a store, so rebuilt
+                return null;
+            }
+            return new SharedClassStore(path, fingerprint, channel, map);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds an empty store in a new file, which then replaces the one at the path.
+     */
+    private static void rebuild(Path path, long fingerprint, int slots, int capacity) throws IOException {
+        Path building = path.resolveSibling(format("%s.%d.tmp", path.getFileName(), ProcessHandle.current().pid()));
+        try (FileChannel channel = FileChannel.open(building, CREATE_NEW, READ, WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC_OFFSET, MAGIC).putInt(VERSION_OFFSET, VERSION).putLong(FINGERPRINT_OFFSET, fingerprint)
+                    .putInt(SLOTS_OFFSET, slots).putInt(CAPACITY_OFFSET, capacity).putInt(COUNT_OFFSET, 0)
+                    .putInt(DATA_END_OFFSET, HEADER_SIZE + slots * SLOT_SIZE);
+            channel.write(header, 0);
+            channel.write(ByteBuffer.allocate(1), capacity - 1); // sparse up to the capacity
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(building);
+            throw e;
+        }
+        Files.move(building, path, ATOMIC_MOVE, REPLACE_EXISTING);
+    }
+
+    private static ReentrantLock lockOf(Path path) {
+        return locks.computeIfAbsent(path, it -> new ReentrantLock());
+    }
+
+    private static Path lockFileOf(Path path) {
+        return path.resolveSibling(path.getFileName() + ".lock");
+    }
+
+    private static long hash(byte[] name) {
+        long hash = FNV_OFFSET;
+        for (byte b : name) {
+            hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++, value >>>= 8) {
+            hash = (hash ^ (value & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long attributes(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() * 31 + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
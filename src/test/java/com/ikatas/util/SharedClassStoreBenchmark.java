@@ -0,0 +1,66 @@
+package com.ikatas.util;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Measures how long a fresh loader takes to load {@code classes} synthetic classes, and how many bytes it allocates on
+ * the heap per class, reading the class files from their directory or defining them from a {@link SharedClassStore}
+ * which the first loader filled. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.SharedClassStoreBenchmark
+ * </pre>
+ * The {@code classes}, {@code loaders} and {@code trials} system properties override the defaults, and {@code store}
+ * names the store file, e.g: {@code -Dbenchmark.jvmArgs="-Dstore=/tmp/classes.store"} run by several JVMs at once,
+ * which then share the class files of the same page cache pages.
+ */
+public class SharedClassStoreBenchmark {
+    public static void main(String[] args) throws Exception {
+        int classes = Integer.getInteger("classes", 4096);
+        int loaders = Integer.getInteger("loaders", 10);
+        int trials = Integer.getInteger("trials", 5);
+        Path root = Files.createTempDirectory("synthetic-classes");
+        List<String> names = SyntheticClasses.generate(root, classes);
+        Path storePath = System.getProperty("store") != null ? Paths.get(System.getProperty("store")) : root.resolve("classes.store");
+
+        try (SharedClassStore store = SharedClassStore.open(storePath, SharedClassStore.fingerprint(List.of(root)), classes * 2, 64 << 20)) {
+            run(root, names, store, 1); // warm up, and fills the store
+            out.printf("%d classes, %d loaders, %d trials%n", classes, loaders, trials);
+            out.printf("%-12s %16s %16s%n", "source", "us/class", "heap bytes/class");
+            for (SharedClassStore source : new SharedClassStore[]{null, store}) {
+                double best = Double.MAX_VALUE, allocated = 0;
+                for (int trial = 0; trial < trials; trial++) {
+                    long heap = allocatedBytes();
+                    long elapsed = run(root, names, source, loaders);
+                    allocated = (allocatedBytes() - heap) / (double) (loaders * classes);
+                    best = Math.min(best, elapsed / 1e3 / (loaders * classes));
+                }
+                out.printf("%-12s %16.2f %16.0f%n", source == null ? "directory" : "store", best, allocated);
+            }
+        }
+    }
+
+    private static long run(Path root, List<String> names, SharedClassStore store, int loaders) throws ClassNotFoundException {
+        long begin = nanoTime();
+        for (int i = 0; i < loaders; i++) {
+            DirectClassLoader loader = new DirectoryClassLoader(root, false);
+            if (store != null) {
+                loader.useStore(store);
+            }
+            for (String name : names) {
+                loader.loadClass(name);
+            }
+        }
+        return nanoTime() - begin;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,202 @@
+package com.ikatas.util;
+
+import com.ikatas.jls.test.execution.ClassLoaderTest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class SharedClassStoreTest {
+    private static final String SUP = ClassLoaderTest.class.getName() + "$Sup";
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void readsClassFilesWrittenAsReadOnlyViewsOfTheMappedFile() throws IOException {
+        try (SharedClassStore store = open(1)) {
+            assertThat(store.read("a.A"), is(nullValue()));
+
+            assertThat(store.write("a.A", bytes("class A")), is(true));
+            assertThat(store.write("a.A", bytes("ignored")), is(true));
+
+            ByteBuffer classFile = store.read("a.A");
+            assertThat(string(classFile), equalTo("class A"));
+            assertThat(classFile.isDirect(), is(true));
+            assertThat(classFile.isReadOnly(), is(true));
+            assertThat(store.size(), equalTo(1));
+            assertThat(store.hits(), equalTo(1L));
+            assertThat(store.misses(), equalTo(1L));
+        }
+    }
+
+    @Test
+    public void sharesClassFilesWithStoresOpenedOnTheSameFile() throws IOException {
+        try (SharedClassStore first = open(1); SharedClassStore second = open(1)) {
+            first.write("a.A", bytes("class A"));
+            second.write("b.B", bytes("class B"));
+
+            assertThat(string(second.read("a.A")), equalTo("class A"));
+            assertThat(string(first.read("b.B")), equalTo("class B"));
+        }
+    }
+
+    @Test
+    public void rebuildsTheStoreOnceTheFingerprintChanges() throws IOException {
+        try (SharedClassStore old = open(1)) {
+            old.write("a.A", bytes("class A"));
+
+            try (SharedClassStore rebuilt = open(2)) {
+                assertThat(rebuilt.read("a.A"), is(nullValue()));
+                assertThat(rebuilt.size(), equalTo(0));
+            }
+            assertThat("the old file stays mapped", string(old.read("a.A")), equalTo("class A"));
+        }
+        try (SharedClassStore reopened = open(2)) {
+            assertThat(reopened.read("a.A"), is(nullValue()));
+        }
+    }
+
+    @Test
+    public void stopsAddingClassFilesOnceFull() throws IOException {
+        try (SharedClassStore store = SharedClassStore.open(temp.getRoot().toPath().resolve("small"), 1, 8, 4096)) {
+            for (int i = 0; i < 6; i++) {
+                assertThat(store.write("c.C" + i, bytes("class")), is(true));
+            }
+            assertThat(store.write("c.C6", bytes("class")), is(false));
+            assertThat(store.write("c.C0", new byte[4096]), is(true));
+            assertThat(store.size(), equalTo(6));
+        }
+        assertThrows(IllegalArgumentException.class, () -> SharedClassStore.open(temp.getRoot().toPath().resolve("tiny"), 1, 1024, 4096));
+    }
+
+    @Test
+    public void rebuildsFilesWhichAreNotStores() throws IOException {
+        Path path = temp.getRoot().toPath().resolve("store");
+        Files.write(path, bytes("not a store"));
+
+        try (SharedClassStore store = SharedClassStore.open(path, 1, 16, 4096)) {
+            assertThat(store.write("a.A", bytes("class A")), is(true));
+        }
+    }
+
+    @Test
+    public void loadersDefineClassesFromTheStore() throws Exception {
+        try (SharedClassStore store = open(1)) {
+            DirectClassLoader first = directClassLoader(), second = directClassLoader();
+            first.useStore(store);
+            second.useStore(store);
+
+            first.loadClass(SUP);
+            assertThat(store.read(SUP), is(notNullValue()));
+            Class<?> sup = second.loadClass(SUP);
+
+            assertThat(sup.getClassLoader(), sameInstance(second));
+            assertThat(store.hits(), greaterThanOrEqualTo(2L));
+        }
+    }
+
+    @Test
+    public void batchesDefineClassesFromTheStoreAndAddThoseTheyRead() throws Exception {
+        try (SharedClassStore store = open(1)) {
+            DirectClassLoader first = directClassLoader(), second = directClassLoader();
+            first.useStore(store);
+            second.useStore(store);
+
+            first.defineAll(List.of(SUP));
+            assertThat(store.read(SUP), is(notNullValue()));
+            long hits = store.hits();
+            second.defineAll(List.of(SUP));
+
+            assertThat(second.isClassLoaded(SUP), is(true));
+            assertThat(store.hits(), greaterThan(hits));
+        }
+    }
+
+    @Test
+    public void generatedClassesTakePrecedenceOverTheStoreAndAreNotAddedToIt() throws Exception {
+        try (SharedClassStore store = open(1)) {
+            DirectClassLoader generating = generating(SUP), next = generating(SUP);
+            generating.useStore(store);
+            next.useStore(store);
+
+            generating.loadClass(SUP);
+            assertThat(store.read(SUP), is(nullValue()));
+
+            store.write(SUP, bytes("not a class file"));
+            assertThat(next.loadClass(SUP).getClassLoader(), sameInstance(next));
+        }
+    }
+
+    @Test
+    public void loadersReadingClassFilesTheirOwnWayCanNotUseTheStore() throws IOException {
+        try (SharedClassStore store = open(1)) {
+            DirectClassLoader loader = new DirectClassLoader(false) {
+                @Override
+                protected byte[] readClassFile(String name) {
+                    return bytes("not a class file");
+                }
+            };
+
+            assertThrows(IllegalStateException.class, () -> loader.useStore(store));
+        }
+    }
+
+    @Test
+    public void fingerprintsChangeWithTheClassFiles() throws IOException {
+        Path dir = temp.newFolder("classes").toPath();
+        Files.write(dir.resolve("A.class"), bytes("class A"));
+        long before = SharedClassStore.fingerprint(List.of(dir));
+
+        Files.write(dir.resolve("B.class"), bytes("class B"));
+
+        assertThat(SharedClassStore.fingerprint(List.of(dir)), not(equalTo(before)));
+        assertThat(SharedClassStore.fingerprint(List.of(dir)), equalTo(SharedClassStore.fingerprint(List.of(dir))));
+    }
+
+    private static DirectClassLoader generating(String name) throws IOException {
+        byte[] classFile;
+        try (InputStream in = ClassLoader.getSystemResourceAsStream(name.replace('.', '/') + ".class")) {
+            classFile = in.readAllBytes();
+        }
+        DirectClassLoader loader = directClassLoader();
+        loader.addTransformer(new ClassTransformer() {
+            @Override
+            public byte[] transform(String className, byte[] bytes) {
+                return bytes;
+            }
+
+            @Override
+            public byte[] generate(String className) {
+                return className.equals(name) ? classFile : null;
+            }
+        });
+        return loader;
+    }
+
+    private SharedClassStore open(long fingerprint) throws IOException {
+        return SharedClassStore.open(temp.getRoot().toPath().resolve("classes.store"), fingerprint, 64, 1 << 20);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -0,0 +1,89 @@
+package com.ikatas.util;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static java.lang.String.format;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Writes synthetic class files into a directory or a jar so benchmarks can load many distinct classes which are not on the
+ * class path of the application class loader.
+ */
+public final class SyntheticClasses {
+    public static final String PACKAGE = "com.ikatas.synthetic";
+
+    private SyntheticClasses() {
+    }
+
+    public static List<String> generate(Path root, int count) throws IOException {
+        return generate(root, PACKAGE, count);
+    }
+
+    public static List<String> generate(Path root, String packageName, int count) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(packageName.replace('.', '/')));
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String simpleName = format("Synthetic%05d", i);
+            String name = packageName + "." + simpleName;
+            Files.write(dir.resolve(simpleName + ".class"), classBytes(name.replace('.', '/'), i));
+            names.add(name);
+        }
+        return names;
+    }
+
+    public static List<String> jar(Path jar, String packageName, int count) throws IOException {
+        List<String> names = new ArrayList<>(count);
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (int i = 0; i < count; i++) {
+                String name = packageName + "." + format("Synthetic%05d", i);
+                out.putNextEntry(new JarEntry(name.replace('.', '/') + ".class"));
+                out.write(classBytes(name.replace('.', '/'), i));
+                out.closeEntry();
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * A class extends {@code Object} directly, so it can be defined without resolving any other synthetic class,
+     * e.g: by a loader which is in force reload mode.
+     */
+    static byte[] classBytes(String internalName, int id) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V11, ACC_PUBLIC | ACC_SUPER, internalName, null, "java/lang/Object", null);
+        cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "ID", "I", null, id).visitEnd();
+        cw.visitField(ACC_PRIVATE, "value", "I", null, null).visitEnd();
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        for (int i = 0; i < 8; i++) {
+            MethodVisitor method = cw.visitMethod(ACC_PUBLIC, "value" + i, "()I", null, null);
+            method.visitCode();
+            method.visitVarInsn(ALOAD, 0);
+            method.visitFieldInsn(GETFIELD, internalName, "value", "I");
+            method.visitLdcInsn(id + i);
+            method.visitInsn(IADD);
+            method.visitInsn(IRETURN);
+            method.visitMaxs(0, 0);
+            method.visitEnd();
+        }
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.DirectClassLoader;
+import com.ikatas.util.classfile.BoxingSite.Kind;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static org.objectweb.asm.Opcodes.ASM9;
+
+/**
+ * Finds the boxing and unboxing conversions in class files, which are invisible in source code.
+ */
+public final class BoxingScanner {
+    private BoxingScanner() {
+    }
+
+    /**
+     * Scans the classes of a package, including its subpackages, which the loader defines itself.
+     *
+     * @return the sites in the order of their classes and then of their instructions
+     */
+    public static List<BoxingSite> scan(DirectClassLoader loader, String packageName) throws IOException {
+        List<ScannedClass> classes = ClassPathScanner.parse(loader, packageName, BoxingScanner::scanClass);
+        List<BoxingSite> sites = new ArrayList<>();
+        classes.stream().filter(it -> loader.isDefinedDirectly(it.name)).sorted((a, b) -> a.name.compareTo(b.name)).forEach(it -> sites.addAll(it.sites));
+        return sites;
+    }
+
+    /**
+     * @return the sites of the class in the order of their instructions
+     */
+    public static List<BoxingSite> scan(byte[] classFile) {
+        return scanClass(classFile).sites;
+    }
+
+    private static ScannedClass scanClass(byte[] classFile) {
+        ScannedClass scanned = new ScannedClass();
+        new ClassReader(classFile).accept(new ClassVisitor(ASM9) {
+            private String sourceFile;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                scanned.name = Type.getObjectType(name).getClassName();
+            }
+
+            @Override
+            public void visitSource(String source, String debug) {
+                sourceFile = source;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(ASM9) {
+                    private int line = -1;
+
+                    @Override
+                    public void visitLineNumber(int line, Label start) {
+                        this.line = line;
+                    }
+
+                    @Override
+                    public void visitMethodInsn(int opcode, String owner, String method, String methodDescriptor, boolean isInterface) {
+                        Kind kind = BoxingSite.kindOf(opcode, owner, method, methodDescriptor);
+                        if (kind != null) {
+                            String caller = format("%s.%s(%s:%d)", scanned.name, name, sourceFile, line);
+                            scanned.sites.add(new BoxingSite(caller, owner + "." + method + methodDescriptor, kind));
+                        }
+                    }
+                };
+            }
+        }, ClassReader.SKIP_FRAMES);
+        return scanned;
+    }
+
+    private static final class ScannedClass {
+        String name;
+        final List<BoxingSite> sites = new ArrayList<>();
+    }
+}
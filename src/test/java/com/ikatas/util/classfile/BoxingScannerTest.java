@@ -0,0 +1,97 @@
+package com.ikatas.util.classfile;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BoxingScannerTest {
+    @Test
+    public void findsImplicitBoxingAndUnboxing() throws IOException {
+        List<BoxingSite> sites = scanFixture();
+
+        assertThat(describe(sites, "squares"), contains("BOXING java/lang/Integer.valueOf(I)Ljava/lang/Integer;"));
+        assertThat(describe(sites, "sum"), contains("UNBOXING java/lang/Integer.intValue()I"));
+        assertThat(describe(sites, "average"), containsInAnyOrder(
+                "BOXING java/lang/Character.valueOf(C)Ljava/lang/Character;",
+                "BOXING java/lang/Double.valueOf(D)Ljava/lang/Double;",
+                "UNBOXING java/lang/Double.doubleValue()D"));
+    }
+
+    @Test
+    public void ignoresWrapperMethodsWhichAreNoConversions() throws IOException {
+        List<BoxingSite> sites = scanFixture();
+
+        assertThat(describe(sites, "parse"), contains("UNBOXING java/lang/Integer.intValue()I"));
+        assertThat(describe(sites, "noConversions"), is(empty()));
+    }
+
+    @Test
+    public void locatesSitesBySourceLine() throws IOException {
+        BoxingSite site = scanFixture().stream().filter(it -> it.caller().contains(".squares(")).findFirst().orElseThrow();
+
+        assertThat(site.caller(), matchesPattern(".*\\$Fixture\\.squares\\(BoxingScannerTest\\.java:\\d+\\)"));
+        assertThat(site.kind(), equalTo(BoxingSite.Kind.BOXING));
+    }
+
+    @Test
+    public void scansClassesOfPackagesDefinedByTheLoader() throws IOException {
+        List<BoxingSite> sites = BoxingScanner.scan(directClassLoader(), getClass().getPackageName());
+
+        assertThat(sites.stream().filter(it -> it.caller().startsWith(Fixture.class.getName() + ".")).collect(toList()), hasSize(scanFixture().size()));
+    }
+
+    private static List<BoxingSite> scanFixture() throws IOException {
+        try (InputStream in = Fixture.class.getResourceAsStream("/" + Fixture.class.getName().replace('.', '/') + ".class")) {
+            return BoxingScanner.scan(in.readAllBytes());
+        }
+    }
+
+    private static List<String> describe(List<BoxingSite> sites, String method) {
+        return sites.stream().filter(it -> it.caller().contains("." + method + "("))
+                .map(it -> it.kind() + " " + it.method()).collect(toList());
+    }
+
+    static class Fixture {
+        static List<Integer> squares(int count) {
+            List<Integer> squares = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                squares.add(i * i);
+            }
+            return squares;
+        }
+
+        static long sum(List<Integer> values) {
+            long sum = 0;
+            for (int value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        static double average(Map<Character, Double> grades, char grade, double value) {
+            grades.put(grade, value);
+            double sum = 0;
+            for (double it : grades.values()) {
+                sum += it;
+            }
+            return sum / grades.size();
+        }
+
+        static int parse(String value) {
+            return Integer.valueOf(value);
+        }
+
+        static long noConversions(Number number, String value) {
+            return number.longValue() + Long.parseLong(value) + Integer.valueOf(value).hashCode();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ikatas.util.classfile;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+
+/**
+ * A call of a wrapper class method which the compiler inserts for a boxing (JLS §5.1.7) or unboxing (JLS §5.1.8)
+ * conversion, e.g: {@code Integer.valueOf(I)} or {@code Integer.intValue()}. Explicit calls of the same methods compile
+ * to the same instructions, so they are found too.
+ */
+public final class BoxingSite {
+    public enum Kind {
+        BOXING, UNBOXING
+    }
+
+    // the wrapper classes by the descriptors of their primitive types
+    private static final Map<String, String> WRAPPERS = Map.of("Z", "java/lang/Boolean", "B", "java/lang/Byte",
+            "C", "java/lang/Character", "S", "java/lang/Short", "I", "java/lang/Integer", "J", "java/lang/Long",
+            "F", "java/lang/Float", "D", "java/lang/Double");
+    private static final Map<String, String> UNBOXING_METHODS = Map.of("Z", "booleanValue", "B", "byteValue",
+            "C", "charValue", "S", "shortValue", "I", "intValue", "J", "longValue", "F", "floatValue", "D", "doubleValue");
+
+    private final String caller;
+    private final String method;
+    private final Kind kind;
+
+    public BoxingSite(String caller, String method, Kind kind) {
+        this.caller = caller;
+        this.method = method;
+        this.kind = kind;
+    }
+
+    /**
+     * @return the kind of conversion of a method call instruction, or {@code null} if it converts none
+     */
+    public static Kind kindOf(int opcode, String owner, String name, String descriptor) {
+        if (opcode == INVOKESTATIC && name.equals("valueOf")) {
+            String primitive = descriptor.substring(1, 2);
+            return owner.equals(WRAPPERS.get(primitive)) && descriptor.equals("(" + primitive + ")L" + owner + ";") ? Kind.BOXING : null;
+        }
+        if (opcode == INVOKEVIRTUAL && descriptor.length() == 3) {
+            String primitive = descriptor.substring(2);
+            return owner.equals(WRAPPERS.get(primitive)) && name.equals(UNBOXING_METHODS.get(primitive)) ? Kind.UNBOXING : null;
+        }
+        return null;
+    }
+
+    /**
+     * @return the calling method and line, e.g: {@code com.ikatas.Totals.sum(Totals.java:12)}
+     */
+    public String caller() {
+        return caller;
+    }
+
+    /**
+     * @return the called wrapper method, e.g: {@code java/lang/Integer.valueOf(I)Ljava/lang/Integer;}
+     */
+    public String method() {
+        return method;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    @Override
+    public String toString() {
+        return format("%-9s %s -> %s", kind, caller, method);
+    }
+}
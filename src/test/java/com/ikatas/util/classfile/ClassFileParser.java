@@ -0,0 +1,267 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.classfile.ClassHeader.Member;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * Parses the declarations of a class file (JVMS §4.1) without defining the class. Method bodies are skipped, only
+ * the constant pool, the header, the members and the annotations are read.
+ */
+public final class ClassFileParser {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final String[] strings;
+    private int position;
+
+    private ClassFileParser(byte[] bytes) {
+        this.bytes = bytes;
+        if (bytes.length < 10 || readInt(0) != MAGIC) {
+            throw new ClassFormatError("Incompatible magic value");
+        }
+        int count = readUnsignedShort(8);
+        this.offsets = new int[count];
+        this.strings = new String[count];
+    }
+
+    public static ClassHeader parse(byte[] bytes) {
+        try {
+            return new ClassFileParser(bytes).parse();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new ClassFormatError("Truncated class file");
+        }
+    }
+
+    private ClassHeader parse() {
+        int version = readUnsignedShort(6);
+        position = 10;
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] = position;
+            int tag = bytes[position] & 0xFF;
+            position += 1 + constantSize(tag, position + 1);
+            if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE) {
+                i++; // takes up two entries
+            }
+        }
+
+        int access = u2();
+        String name = className(u2());
+        int superIndex = u2();
+        String superName = superIndex == 0 ? null : className(superIndex);
+        List<String> interfaces = new ArrayList<>();
+        for (int i = u2(); i > 0; i--) {
+            interfaces.add(className(u2()));
+        }
+        List<Member> fields = members();
+        List<Member> methods = members();
+        List<String> annotations = attributes();
+
+        return new ClassHeader(version, access, name, superName, unmodifiableList(interfaces), annotations,
+                fields, methods, referencedClasses(name));
+    }
+
+    private int constantSize(int tag, int offset) {
+        switch (tag) {
+            case CONSTANT_UTF8:
+                return 2 + readUnsignedShort(offset);
+            case CONSTANT_CLASS:
+            case CONSTANT_STRING:
+            case CONSTANT_METHOD_TYPE:
+            case CONSTANT_MODULE:
+            case CONSTANT_PACKAGE:
+                return 2;
+            case CONSTANT_METHOD_HANDLE:
+                return 3;
+            case CONSTANT_INTEGER:
+            case CONSTANT_FLOAT:
+            case CONSTANT_FIELDREF:
+            case CONSTANT_METHODREF:
+            case CONSTANT_INTERFACE_METHODREF:
+            case CONSTANT_NAME_AND_TYPE:
+            case CONSTANT_DYNAMIC:
+            case CONSTANT_INVOKE_DYNAMIC:
+                return 4;
+            case CONSTANT_LONG:
+            case CONSTANT_DOUBLE:
+                return 8;
+            default:
+                throw new ClassFormatError(format("Unknown constant tag %d at offset %d", tag, offset - 1));
+        }
+    }
+
+    private List<Member> members() {
+        int count = u2();
+        if (count == 0) {
+            return emptyList();
+        }
+        List<Member> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int access = u2();
+            String name = utf8(u2());
+            String descriptor = utf8(u2());
+            members.add(new Member(access, name, descriptor, attributes()));
+        }
+        return unmodifiableList(members);
+    }
+
+    /**
+     * Skips all attributes but the annotations.
+     *
+     * @return the annotation types found in the attributes
+     */
+    private List<String> attributes() {
+        List<String> annotations = emptyList();
+        for (int i = u2(); i > 0; i--) {
+            String name = utf8(u2());
+            int length = readInt(position);
+            position += 4;
+            int end = position + length;
+            if (name.equals("RuntimeVisibleAnnotations") || name.equals("RuntimeInvisibleAnnotations")) {
+                if (annotations.isEmpty()) {
+                    annotations = new ArrayList<>();
+                }
+                for (int n = u2(); n > 0; n--) {
+                    annotations.add(annotation());
+                }
+            }
+            position = end;
+        }
+        return annotations.isEmpty() ? annotations : unmodifiableList(annotations);
+    }
+
+    private String annotation() {
+        String type = typeName(utf8(u2()));
+        for (int pairs = u2(); pairs > 0; pairs--) {
+            position += 2; // element_name_index
+            skipElementValue();
+        }
+        return type;
+    }
+
+    private void skipElementValue() {
+        char tag = (char) bytes[position++];
+        switch (tag) {
+            case 'e':
+                position += 4;
+                break;
+            case '@':
+                annotation();
+                break;
+            case '[':
+                for (int values = u2(); values > 0; values--) {
+                    skipElementValue();
+                }
+                break;
+            default: // B C D F I J S Z s c
+                position += 2;
+        }
+    }
+
+    private Set<String> referencedClasses(String self) {
+        Set<String> classes = new LinkedHashSet<>();
+        for (int i = 1; i < offsets.length; i++) {
+            int offset = offsets[i];
+            if (offset != 0 && bytes[offset] == CONSTANT_CLASS) {
+                String referenced = className(i);
+                if (referenced != null && !referenced.equals(self)) {
+                    classes.add(referenced);
+                }
+            }
+        }
+        return unmodifiableSet(classes);
+    }
+
+    /**
+     * @return the binary name of a {@code CONSTANT_Class}, or the element type for an array class, or {@code null}
+     * for an array of primitives
+     */
+    private String className(int index) {
+        String internalName = utf8(readUnsignedShort(offsets[index] + 1));
+        if (internalName.startsWith("[")) {
+            return typeName(internalName.substring(internalName.lastIndexOf('[') + 1));
+        }
+        return internalName.replace('/', '.');
+    }
+
+    /**
+     * @return the binary name of a field descriptor, or {@code null} if it is a primitive type
+     */
+    static String typeName(String descriptor) {
+        int dimensions = 0;
+        while (descriptor.charAt(dimensions) == '[') {
+            dimensions++;
+        }
+        if (descriptor.charAt(dimensions) != 'L') {
+            return null;
+        }
+        return descriptor.substring(dimensions + 1, descriptor.length() - 1).replace('/', '.');
+    }
+
+    /**
+     * Decodes a modified UTF-8 constant (JVMS §4.4.7), strings are decoded once and cached.
+     */
+    private String utf8(int index) {
+        String value = strings[index];
+        if (value != null) {
+            return value;
+        }
+        int offset = offsets[index];
+        int length = readUnsignedShort(offset + 1);
+        int start = offset + 3, end = start + length;
+        char[] chars = new char[length];
+        int n = 0;
+        for (int i = start; i < end; ) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[n++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[n++] = (char) (((b & 0x1F) << 6) | (bytes[i++] & 0x3F));
+            } else {
+                chars[n++] = (char) (((b & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F));
+            }
+        }
+        return strings[index] = new String(chars, 0, n);
+    }
+
+    private int u2() {
+        int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return (readUnsignedShort(offset) << 16) | readUnsignedShort(offset + 2);
+    }
+}
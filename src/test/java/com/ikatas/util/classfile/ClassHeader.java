@@ -0,0 +1,143 @@
+package com.ikatas.util.classfile;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The declarations of a class file parsed straight from its bytes: nothing is loaded, linked or initialized.
+ * All class names are binary names, e.g: {@code java.util.Map$Entry}.
+ */
+public final class ClassHeader {
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ANNOTATION = 0x2000;
+
+    private final int version;
+    private final int access;
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final List<String> annotations;
+    private final List<Member> fields;
+    private final List<Member> methods;
+    private final Set<String> referencedClasses;
+
+    ClassHeader(int version, int access, String name, String superName, List<String> interfaces, List<String> annotations,
+                List<Member> fields, List<Member> methods, Set<String> referencedClasses) {
+        this.version = version;
+        this.access = access;
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.annotations = annotations;
+        this.fields = fields;
+        this.methods = methods;
+        this.referencedClasses = referencedClasses;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    public int access() {
+        return access;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return {@code null} for {@code java.lang.Object} and {@code module-info}
+     */
+    public String superName() {
+        return superName;
+    }
+
+    public List<String> interfaces() {
+        return interfaces;
+    }
+
+    /**
+     * @return the annotation types of the class, both runtime visible and invisible
+     */
+    public List<String> annotations() {
+        return annotations;
+    }
+
+    public List<Member> fields() {
+        return fields;
+    }
+
+    public List<Member> methods() {
+        return methods;
+    }
+
+    /**
+     * @return all classes named by {@code CONSTANT_Class} entries of the constant pool except the class itself, array
+     * types are replaced by their element types
+     */
+    public Set<String> referencedClasses() {
+        return referencedClasses;
+    }
+
+    public boolean isInterface() {
+        return (access & ACC_INTERFACE) != 0;
+    }
+
+    public boolean isAnnotation() {
+        return (access & ACC_ANNOTATION) != 0;
+    }
+
+    public boolean isAbstract() {
+        return Modifier.isAbstract(access);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static final class Member {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final List<String> annotations;
+
+        Member(int access, String name, String descriptor, List<String> annotations) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.annotations = annotations;
+        }
+
+        public int access() {
+            return access;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String descriptor() {
+            return descriptor;
+        }
+
+        public List<String> annotations() {
+            return annotations;
+        }
+
+        public boolean isStatic() {
+            return Modifier.isStatic(access);
+        }
+
+        public boolean isAbstract() {
+            return Modifier.isAbstract(access);
+        }
+
+        @Override
+        public String toString() {
+            return name + descriptor;
+        }
+    }
+}
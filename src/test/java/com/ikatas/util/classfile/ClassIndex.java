@@ -0,0 +1,95 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.classfile.ClassHeader.Member;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * A queryable index of class headers by name, by annotation and by supertype. When the same class appears more
+ * than once the first one wins, just like a class path lookup.
+ */
+public final class ClassIndex {
+    private final Map<String, ClassHeader> classes = new LinkedHashMap<>();
+    private final Map<String, Set<String>> annotatedClasses = new HashMap<>();
+    private final Map<String, Set<String>> classesWithAnnotatedMembers = new HashMap<>();
+    private final Map<String, Set<String>> directSubtypes = new HashMap<>();
+
+    public ClassIndex(Collection<ClassHeader> headers) {
+        for (ClassHeader header : headers) {
+            if (classes.putIfAbsent(header.name(), header) != null) {
+                continue;
+            }
+            for (String annotation : header.annotations()) {
+                add(annotatedClasses, annotation, header.name());
+            }
+            Stream.concat(header.fields().stream(), header.methods().stream())
+                    .map(Member::annotations).flatMap(Collection::stream)
+                    .forEach(annotation -> add(classesWithAnnotatedMembers, annotation, header.name()));
+            if (header.superName() != null) {
+                add(directSubtypes, header.superName(), header.name());
+            }
+            for (String supertype : header.interfaces()) {
+                add(directSubtypes, supertype, header.name());
+            }
+        }
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String name) {
+        index.computeIfAbsent(key, it -> new LinkedHashSet<>()).add(name);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    public Collection<ClassHeader> classes() {
+        return classes.values();
+    }
+
+    public Optional<ClassHeader> find(String name) {
+        return Optional.ofNullable(classes.get(name));
+    }
+
+    /**
+     * @return the classes annotated with the annotation type directly, annotations are not inherited here
+     */
+    public Set<String> annotatedWith(String annotation) {
+        return unmodifiableSet(annotatedClasses.getOrDefault(annotation, emptySet()));
+    }
+
+    /**
+     * @return the classes which declare any field or method annotated with the annotation type
+     */
+    public Set<String> withMembersAnnotatedWith(String annotation) {
+        return unmodifiableSet(classesWithAnnotatedMembers.getOrDefault(annotation, emptySet()));
+    }
+
+    /**
+     * @return all indexed classes which extend or implement the type directly or indirectly
+     */
+    public Set<String> subtypesOf(String type) {
+        Set<String> subtypes = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            for (String subtype : directSubtypes.getOrDefault(pending.poll(), emptySet())) {
+                if (subtypes.add(subtype)) {
+                    pending.add(subtype);
+                }
+            }
+        }
+        return subtypes;
+    }
+}
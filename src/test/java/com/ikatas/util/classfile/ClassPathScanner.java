@@ -0,0 +1,145 @@
+package com.ikatas.util.classfile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.stream;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Builds a {@link ClassIndex} of class path entries or of packages by parsing the class files in parallel. No class is
+ * ever defined, so neither the scanned classes nor the classes they refer to are loaded.
+ */
+public final class ClassPathScanner {
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private ClassPathScanner() {
+    }
+
+    public static ClassIndex scanClassPath() throws IOException {
+        return scan(stream(System.getProperty("java.class.path").split("[:;]")).map(Paths::get).collect(toList()));
+    }
+
+    /**
+     * @param classPath directories and jar files
+     */
+    public static ClassIndex scan(Collection<Path> classPath) throws IOException {
+        List<JarFile> jars = new ArrayList<>();
+        try {
+            List<ClassFile> classFiles = new ArrayList<>();
+            for (Path entry : classPath) {
+                if (Files.isDirectory(entry)) {
+                    classFiles.addAll(classFilesIn(entry));
+                } else if (Files.isRegularFile(entry)) {
+                    JarFile jar = new JarFile(entry.toFile());
+                    jars.add(jar);
+                    classFiles.addAll(classFilesIn(jar, ""));
+                }
+            }
+            return new ClassIndex(parse(classFiles, ClassFileParser::parse));
+        } finally {
+            close(jars);
+        }
+    }
+
+    /**
+     * Locates the package through the resources of the class loader, the same way
+     * {@link com.ikatas.util.DirectClassLoader#findClassFile(String)} locates a class file. All directories and jars
+     * which contain the package are scanned, including their subpackages.
+     */
+    public static ClassIndex scan(ClassLoader loader, String packageName) throws IOException {
+        return new ClassIndex(parse(loader, packageName, ClassFileParser::parse));
+    }
+
+    /**
+     * Parses the class files of a package located as {@link #scan(ClassLoader, String)} does, in parallel.
+     */
+    static <T> List<T> parse(ClassLoader loader, String packageName, Function<byte[], T> parser) throws IOException {
+        String packagePath = packageName.replace('.', '/') + "/";
+        List<JarFile> jars = new ArrayList<>();
+        try {
+            List<ClassFile> classFiles = new ArrayList<>();
+            for (Enumeration<URL> resources = loader.getResources(packagePath); resources.hasMoreElements(); ) {
+                URL resource = resources.nextElement();
+                if (resource.getProtocol().equals("file")) {
+                    classFiles.addAll(classFilesIn(Paths.get(resource.toURI())));
+                } else if (resource.getProtocol().equals("jar")) {
+                    String path = resource.getPath();
+                    JarFile jar = new JarFile(Paths.get(new URL(path.substring(0, path.indexOf("!/"))).toURI()).toFile());
+                    jars.add(jar);
+                    classFiles.addAll(classFilesIn(jar, packagePath));
+                }
+            }
+            return parse(classFiles, parser);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        } finally {
+            close(jars);
+        }
+    }
+
+    private static <T> List<T> parse(List<ClassFile> classFiles, Function<byte[], T> parser) throws IOException {
+        try {
+            return classFiles.parallelStream().map(it -> parser.apply(it.readUnchecked())).collect(toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static List<ClassFile> classFilesIn(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(it -> isClassFile(it.getFileName().toString()))
+                    .map(it -> (ClassFile) () -> Files.readAllBytes(it))
+                    .collect(toList());
+        }
+    }
+
+    private static List<ClassFile> classFilesIn(JarFile jar, String prefix) {
+        return jar.stream()
+                .filter(it -> it.getName().startsWith(prefix) && isClassFile(it.getName()))
+                .map(it -> (ClassFile) () -> read(jar, it))
+                .collect(toList());
+    }
+
+    private static boolean isClassFile(String path) {
+        return path.endsWith(CLASS_FILE_SUFFIX) && !path.endsWith("module-info.class") && !path.startsWith("META-INF/");
+    }
+
+    private static byte[] read(JarFile jar, JarEntry entry) throws IOException {
+        try (InputStream in = jar.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static void close(List<JarFile> jars) throws IOException {
+        for (JarFile jar : jars) {
+            jar.close();
+        }
+    }
+
+    private interface ClassFile {
+        byte[] read() throws IOException;
+
+        default byte[] readUnchecked() {
+            try {
+                return read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
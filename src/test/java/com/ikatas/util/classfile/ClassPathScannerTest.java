@@ -0,0 +1,79 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.jls.test.execution.ClassLoaderTest;
+import com.ikatas.jls.test.execution.Unstable;
+import com.ikatas.jls.test.threading.ThreadTest;
+import com.ikatas.util.DirectClassLoader;
+import org.junit.Test;
+import org.junit.runner.Runner;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertTrue;
+
+public class ClassPathScannerTest {
+    private static final String EXECUTION_PACKAGE = ClassLoaderTest.class.getPackageName();
+
+    @Test
+    public void parseClassHeaderFromBytes() throws IOException {
+        ClassHeader header = ClassFileParser.parse(classBytes(ClassLoaderTest.class.getName() + "$Sup"));
+
+        assertThat(header.name(), equalTo(ClassLoaderTest.class.getName() + "$Sup"));
+        assertThat(header.superName(), equalTo(Object.class.getName()));
+        assertThat(header.interfaces(), contains(ClassLoaderTest.class.getName() + "$Markable"));
+        assertThat(header.methods(), contains(hasToString("<init>()V")));
+    }
+
+    @Test
+    public void scanPackageWithoutDefiningAnyClasses() throws IOException {
+        DirectClassLoader loader = directClassLoader();
+
+        ClassIndex index = ClassPathScanner.scan(loader, EXECUTION_PACKAGE);
+
+        assertThat(index.find(ClassLoaderTest.class.getName()).isPresent(), is(true));
+        assertThat(loader.loadedClasses(), is(empty()));
+    }
+
+    @Test
+    public void querySubtypesTransitively() throws IOException {
+        ClassIndex index = ClassPathScanner.scan(getClass().getClassLoader(), EXECUTION_PACKAGE);
+
+        assertThat(index.subtypesOf(ClassLoaderTest.class.getName() + "$Any"), containsInAnyOrder(
+                ClassLoaderTest.class.getName() + "$Markable",
+                ClassLoaderTest.class.getName() + "$Sup",
+                ClassLoaderTest.class.getName() + "$Sub"));
+    }
+
+    @Test
+    public void queryClassesByAnnotationsOfTheirMembers() throws IOException {
+        ClassIndex index = ClassPathScanner.scan(getClass().getClassLoader(), "com.ikatas.jls.test");
+
+        assertThat(index.withMembersAnnotatedWith(Unstable.class.getName()), contains(ThreadTest.class.getName()));
+        assertThat(index.withMembersAnnotatedWith(Test.class.getName()), hasItem(ClassLoaderTest.class.getName()));
+        assertThat(index.annotatedWith(Unstable.class.getName()), is(empty()));
+    }
+
+    @Test
+    public void scanJarsOnClassPath() throws Exception {
+        Path junit = Paths.get(Test.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+
+        ClassIndex index = ClassPathScanner.scan(singletonList(junit));
+
+        assertTrue(index.find(Runner.class.getName()).get().isAbstract());
+        assertThat(index.subtypesOf(Runner.class.getName()), hasItem("org.junit.runners.BlockJUnit4ClassRunner"));
+        assertThat(index.annotatedWith("java.lang.annotation.Retention"), hasItem(Test.class.getName()));
+    }
+
+    private byte[] classBytes(String name) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+}
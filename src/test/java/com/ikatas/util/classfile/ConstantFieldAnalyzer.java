@@ -0,0 +1,390 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.DirectClassLoader;
+import com.ikatas.util.classfile.ConstantFieldReport.Candidate;
+import com.ikatas.util.classfile.ConstantFieldReport.Initializer;
+import com.ikatas.util.classfile.ConstantFieldReport.Reason;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.toList;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Finds the {@code static final} fields which {@code <clinit>} initializes with values that could be constant
+ * expressions. The static initializers are interpreted over straight-line code only: a value is a constant if it is
+ * a literal, or computed from constants by arithmetic, boxing, or deterministic methods of {@code Math} and of the
+ * wrapper and {@code String} classes. Any other instruction, and any branch target, forgets the operand stack, so
+ * candidates may be missed but are never made up.
+ */
+public final class ConstantFieldAnalyzer {
+    private static final Set<String> LIBRARY_CLASSES = Set.of("java/lang/Math", "java/lang/StrictMath", "java/lang/String",
+            "java/lang/Integer", "java/lang/Long", "java/lang/Short", "java/lang/Byte", "java/lang/Character",
+            "java/lang/Boolean", "java/lang/Float", "java/lang/Double");
+    // depend on the environment: system properties, the default locale, or a random generator
+    private static final Set<String> NON_DETERMINISTIC_METHODS = Set.of("random", "getInteger", "getLong", "getBoolean",
+            "format", "formatted", "toUpperCase", "toLowerCase");
+    private static final String STRING = "Ljava/lang/String;";
+
+    private ConstantFieldAnalyzer() {
+    }
+
+    /**
+     * Analyzes the classes of a package, including its subpackages, which the loader defines itself.
+     */
+    public static ConstantFieldReport analyze(DirectClassLoader loader, String packageName) throws IOException {
+        List<ClassAnalysis> classes = ClassPathScanner.parse(loader, packageName, ConstantFieldAnalyzer::analyzeClass);
+        return report(classes.stream().filter(it -> loader.isDefinedDirectly(it.name)).collect(toList()));
+    }
+
+    private static ClassAnalysis analyzeClass(byte[] classFile) {
+        ClassAnalysis analysis = new ClassAnalysis();
+        new ClassReader(classFile).accept(new ClassAnalyzer(analysis), ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return analysis;
+    }
+
+    private static ConstantFieldReport report(Collection<ClassAnalysis> classes) {
+        Map<String, ClassAnalysis> byName = new HashMap<>();
+        classes.forEach(it -> byName.put(it.name, it));
+
+        List<Candidate> candidates = new ArrayList<>();
+        List<Initializer> initializers = new ArrayList<>();
+        for (ClassAnalysis it : classes) {
+            if (!it.candidates.isEmpty()) {
+                candidates.addAll(it.candidates.values());
+                initializers.add(new Initializer(it.name, it.initializerInstructions, it.avoidableInstructions));
+            }
+        }
+        candidates.sort(comparing(Candidate::className).thenComparing(Candidate::name));
+        initializers.sort(comparingInt(Initializer::avoidableInstructions).reversed().thenComparing(Initializer::className));
+
+        Set<String> initializedByCandidateReads = new HashSet<>(), initializedOtherwise = new HashSet<>();
+        for (ClassAnalysis it : classes) {
+            for (Reference reference : it.references) {
+                String owner = reference.field == null ? reference.owner : declaringClass(reference.owner, reference.field, byName);
+                if (owner.equals(it.name) || !byName.containsKey(owner)) {
+                    continue;
+                }
+                if (reference.isRead && byName.get(owner).candidates.containsKey(reference.field)) {
+                    initializedByCandidateReads.add(owner);
+                } else {
+                    initializedOtherwise.add(owner);
+                }
+            }
+        }
+        // initializing a class initializes its superclasses first (JLS §12.4.2)
+        for (String name : new ArrayList<>(initializedOtherwise)) {
+            for (ClassAnalysis c = byName.get(name); c != null; c = byName.get(c.superName)) {
+                initializedOtherwise.add(c.name);
+            }
+        }
+        Set<String> initializedOnlyByCandidateReads = new TreeSet<>(initializedByCandidateReads);
+        initializedOnlyByCandidateReads.removeAll(initializedOtherwise);
+        return new ConstantFieldReport(candidates, initializers, new ArrayList<>(initializedOnlyByCandidateReads));
+    }
+
+    /**
+     * A static field referenced through a subclass is resolved to, and only initializes, the class declaring it.
+     */
+    private static String declaringClass(String owner, String field, Map<String, ClassAnalysis> classes) {
+        for (ClassAnalysis c = classes.get(owner); c != null; c = classes.get(c.superName)) {
+            if (c.staticFields.contains(field)) {
+                return c.name;
+            }
+        }
+        return owner;
+    }
+
+    private static final class ClassAnalysis {
+        String name;
+        String superName;
+        final Set<String> staticFields = new HashSet<>();
+        final Map<String, String> nonConstantFinalFields = new HashMap<>();
+        final Map<String, Candidate> candidates = new LinkedHashMap<>();
+        final List<Reference> references = new ArrayList<>();
+        int initializerInstructions;
+        int avoidableInstructions;
+    }
+
+    /**
+     * A reference which initializes the owner class when executed (JLS §12.4.1).
+     */
+    private static final class Reference {
+        final String owner;
+        final String field;
+        final boolean isRead;
+
+        Reference(String owner, String field, boolean isRead) {
+            this.owner = owner;
+            this.field = field;
+            this.isRead = isRead;
+        }
+    }
+
+    private static final class Value {
+        static final Value UNKNOWN = new Value(false, false, 0);
+
+        final boolean constant;
+        final boolean computed;
+        final int instructions;
+
+        Value(boolean constant, boolean computed, int instructions) {
+            this.constant = constant;
+            this.computed = computed;
+            this.instructions = instructions;
+        }
+
+        static Value literal() {
+            return new Value(true, false, 1);
+        }
+
+        static Value computed(Value... operands) {
+            boolean constant = true;
+            int instructions = 1;
+            for (Value operand : operands) {
+                constant &= operand.constant;
+                instructions += operand.instructions;
+            }
+            return constant ? new Value(true, true, instructions) : UNKNOWN;
+        }
+    }
+
+    private static final class ClassAnalyzer extends ClassVisitor {
+        private final ClassAnalysis analysis;
+
+        ClassAnalyzer(ClassAnalysis analysis) {
+            super(ASM9);
+            this.analysis = analysis;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            analysis.name = Type.getObjectType(name).getClassName();
+            analysis.superName = superName == null ? null : Type.getObjectType(superName).getClassName();
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+            if ((access & ACC_STATIC) != 0) {
+                analysis.staticFields.add(name);
+                if ((access & ACC_FINAL) != 0 && value == null) {
+                    analysis.nonConstantFinalFields.put(name, descriptor);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            return new CodeAnalyzer(analysis, name.equals("<clinit>"));
+        }
+    }
+
+    /**
+     * Collects the references initializing other classes of any method, and interprets the static initializer.
+     */
+    private static final class CodeAnalyzer extends MethodVisitor {
+        private final ClassAnalysis analysis;
+        private final boolean initializer;
+        private final Deque<Value> stack = new ArrayDeque<>();
+
+        CodeAnalyzer(ClassAnalysis analysis, boolean initializer) {
+            super(ASM9);
+            this.analysis = analysis;
+            this.initializer = initializer;
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            instruction();
+            if (opcode >= ICONST_M1 && opcode <= DCONST_1) {
+                stack.push(Value.literal());
+            } else if (opcode == ACONST_NULL) {
+                stack.push(Value.UNKNOWN);
+            } else if (opcode == DUP) {
+                Value value = pop();
+                stack.push(value);
+                stack.push(value);
+            } else if (opcode >= INEG && opcode <= DNEG || opcode >= I2L && opcode <= I2S) {
+                stack.push(Value.computed(pop()));
+            } else if (opcode >= IADD && opcode <= DREM || opcode >= ISHL && opcode <= LXOR || opcode >= LCMP && opcode <= DCMPG) {
+                Value right = pop(), left = pop();
+                stack.push(Value.computed(left, right));
+            } else if (opcode != RETURN) {
+                stack.clear();
+            }
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            instruction();
+            if (opcode == BIPUSH || opcode == SIPUSH) {
+                stack.push(Value.literal());
+            } else {
+                stack.clear();
+            }
+        }
+
+        @Override
+        public void visitLdcInsn(Object value) {
+            instruction();
+            stack.push(value instanceof Number || value instanceof String ? Value.literal() : Value.UNKNOWN);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+            instruction();
+            String className = Type.getObjectType(owner).getClassName();
+            if (opcode == GETSTATIC || opcode == PUTSTATIC) {
+                analysis.references.add(new Reference(className, name, opcode == GETSTATIC));
+            }
+            if (initializer && opcode == PUTSTATIC && className.equals(analysis.name) && analysis.nonConstantFinalFields.containsKey(name)) {
+                Value value = pop();
+                if (value.constant) {
+                    int instructions = value.instructions + 1;
+                    analysis.candidates.put(name, new Candidate(analysis.name, name, descriptor, reason(descriptor, value), instructions));
+                    analysis.avoidableInstructions += instructions;
+                }
+                return;
+            }
+            stack.clear();
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+            instruction();
+            if (opcode == INVOKESTATIC) {
+                analysis.references.add(new Reference(Type.getObjectType(owner).getClassName(), null, false));
+            }
+            if (!isDeterministic(opcode, owner, name, descriptor)) {
+                stack.clear();
+                return;
+            }
+            Type[] arguments = Type.getArgumentTypes(descriptor);
+            Value[] operands = new Value[arguments.length + (opcode == INVOKESTATIC ? 0 : 1)];
+            for (int i = operands.length - 1; i >= 0; i--) {
+                operands[i] = pop();
+            }
+            stack.push(Value.computed(operands));
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            instruction();
+            if (opcode == NEW) {
+                analysis.references.add(new Reference(Type.getObjectType(type).getClassName(), null, false));
+            }
+            stack.clear();
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            unknown();
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            unknown();
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            unknown();
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            unknown();
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            unknown();
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String descriptor, int numDimensions) {
+            unknown();
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+            unknown();
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            stack.clear(); // a branch target joins unknown stacks
+        }
+
+        private void unknown() {
+            instruction();
+            stack.clear();
+        }
+
+        private void instruction() {
+            if (initializer) {
+                analysis.initializerInstructions++;
+            }
+        }
+
+        private Value pop() {
+            return stack.isEmpty() ? Value.UNKNOWN : stack.pop();
+        }
+
+        private static Reason reason(String descriptor, Value value) {
+            if (descriptor.length() > 1 && !descriptor.equals(STRING)) {
+                return Reason.NON_CONSTANT_TYPE;
+            }
+            return value.computed ? Reason.COMPUTED : Reason.LITERAL;
+        }
+
+        /**
+         * Static methods of {@code Math} and of the wrapper classes, and methods of {@code String}, which take and
+         * return primitives, strings or wrappers only, and which don't depend on the environment.
+         */
+        private static boolean isDeterministic(int opcode, String owner, String name, String descriptor) {
+            if (!LIBRARY_CLASSES.contains(owner) || NON_DETERMINISTIC_METHODS.contains(name)) {
+                return false;
+            }
+            if (opcode != INVOKESTATIC && !(opcode == INVOKEVIRTUAL && owner.equals("java/lang/String"))) {
+                return false;
+            }
+            Type returnType = Type.getReturnType(descriptor);
+            if (returnType.getSort() == Type.VOID || !isValueType(returnType)) {
+                return false;
+            }
+            for (Type argument : Type.getArgumentTypes(descriptor)) {
+                if (!isValueType(argument)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isValueType(Type type) {
+            return type.getSort() < Type.ARRAY || type.getSort() == Type.OBJECT && LIBRARY_CLASSES.contains(type.getInternalName())
+                    && !type.getInternalName().endsWith("Math");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.classfile.ConstantFieldReport.Candidate;
+import com.ikatas.util.classfile.ConstantFieldReport.Initializer;
+import com.ikatas.util.classfile.ConstantFieldReport.Reason;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.stream.Collectors.toMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ConstantFieldAnalyzerTest {
+    private static ConstantFieldReport report;
+
+    @BeforeClass
+    public static void analyze() throws IOException {
+        report = ConstantFieldAnalyzer.analyze(directClassLoader(), ConstantFieldAnalyzerTest.class.getPackageName());
+    }
+
+    @Test
+    public void findsFieldsInitializedWithValuesWhichCouldBeConstantExpressions() {
+        Map<String, Reason> candidates = candidatesOf(Fixtures.class);
+
+        assertThat(candidates, hasEntry("BlankFinal.NAME", Reason.LITERAL));
+        assertThat(candidates, hasEntry("Boxed.SIZE", Reason.NON_CONSTANT_TYPE));
+        assertThat(candidates, hasEntry("Computed.MASK", Reason.COMPUTED));
+        assertThat(candidates, hasEntry("Computed.MAX", Reason.COMPUTED));
+        assertThat(candidates, hasEntry("Mixed.SIZE", Reason.NON_CONSTANT_TYPE));
+    }
+
+    @Test
+    public void ignoresConstantVariablesAndValuesDependingOnTheEnvironment() {
+        Map<String, Reason> candidates = candidatesOf(Fixtures.class);
+
+        assertThat(candidates, not(hasKey("Mixed.RANDOM")));
+        assertThat(candidates, not(hasKey("Mixed.PROPERTY")));
+        assertThat(candidates, not(hasKey("Constant.VALUE")));
+        assertThat(candidates, not(hasKey("Branched.VALUE")));
+    }
+
+    @Test
+    public void estimatesAvoidableInitializerWork() {
+        Initializer computed = initializerOf(Fixtures.Computed.class);
+        Initializer mixed = initializerOf(Fixtures.Mixed.class);
+
+        assertThat(computed.isRemovable(), is(true));
+        assertThat(computed.avoidableInstructions(), equalTo(computed.instructions() - 1));
+        assertThat(mixed.isRemovable(), is(false));
+        assertThat(mixed.avoidableInstructions(), allOf(greaterThan(0), lessThan(mixed.instructions() - 1)));
+        assertThat(report.avoidableInstructions(), greaterThanOrEqualTo(computed.avoidableInstructions() + mixed.avoidableInstructions()));
+    }
+
+    @Test
+    public void listsClassesInitializedOnlyByCandidateReads() {
+        assertThat(report.classesInitializedOnlyByCandidateReads(), hasItems(Fixtures.Boxed.class.getName(), Fixtures.Computed.class.getName()));
+        assertThat(report.classesInitializedOnlyByCandidateReads(), not(hasItem(Fixtures.Mixed.class.getName())));
+        assertThat(report.classesInitializedOnlyByCandidateReads(), not(hasItem(Fixtures.BlankFinal.class.getName())));
+    }
+
+    private static Map<String, Reason> candidatesOf(Class<?> fixtures) {
+        return report.candidates().stream().filter(it -> it.className().startsWith(fixtures.getName() + "$"))
+                .collect(toMap(it -> it.className().substring(fixtures.getName().length() + 1) + "." + it.name(), Candidate::reason));
+    }
+
+    private static Initializer initializerOf(Class<?> type) {
+        return report.initializers().stream().filter(it -> it.className().equals(type.getName())).findFirst().orElseThrow();
+    }
+
+    static class Fixtures {
+        static class BlankFinal {
+            static final String NAME;
+
+            static {
+                NAME = "blank";
+            }
+        }
+
+        static class Boxed {
+            static final Integer SIZE = 42;
+        }
+
+        static class Computed {
+            static final int MASK = Integer.parseInt("ff", 16);
+            static final long MAX = Math.max(1L << 10, 1000L);
+        }
+
+        static class Mixed {
+            static final double RANDOM = Math.random();
+            static final Integer SIZE = 7;
+            static final Integer PROPERTY = Integer.getInteger("mixed.property", 1);
+        }
+
+        static class Constant {
+            static final String VALUE = "constant";
+        }
+
+        static class Branched {
+            static final int VALUE = Boolean.getBoolean("branched") ? 1 : 2;
+        }
+
+        static class Reader {
+            static int read() {
+                return Boxed.SIZE + Computed.MASK + (int) Computed.MAX + Mixed.SIZE + Constant.VALUE.length() + Branched.VALUE;
+            }
+
+            static String name() {
+                new BlankFinal();
+                return BlankFinal.NAME;
+            }
+
+            static double random() {
+                return Mixed.RANDOM;
+            }
+        }
+    }
+}
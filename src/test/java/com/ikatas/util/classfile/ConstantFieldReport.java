@@ -0,0 +1,153 @@
+package com.ikatas.util.classfile;
+
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * The {@code static final} fields which are initialized by {@code <clinit>} although they could be constant variables
+ * (JLS §4.12.4), whose reads would then be inlined by the compiler without initializing their classes (JLS §12.4.1).
+ * Work is estimated in bytecode instructions of the class initializers.
+ */
+public final class ConstantFieldReport {
+    public enum Reason {
+        /**
+         * a literal is assigned outside the declaration of the field, e.g: in a static initializer block
+         */
+        LITERAL,
+        /**
+         * the value is computed by library methods from literals, e.g: {@code Integer.parseInt("ff", 16)}
+         */
+        COMPUTED,
+        /**
+         * the field is of a wrapper type or a supertype of {@code String}, so its literal can't be a constant
+         */
+        NON_CONSTANT_TYPE
+    }
+
+    private final List<Candidate> candidates;
+    private final List<Initializer> initializers;
+    private final List<String> classesInitializedOnlyByCandidateReads;
+
+    ConstantFieldReport(List<Candidate> candidates, List<Initializer> initializers, List<String> classesInitializedOnlyByCandidateReads) {
+        this.candidates = unmodifiableList(candidates);
+        this.initializers = unmodifiableList(initializers);
+        this.classesInitializedOnlyByCandidateReads = unmodifiableList(classesInitializedOnlyByCandidateReads);
+    }
+
+    public List<Candidate> candidates() {
+        return candidates;
+    }
+
+    /**
+     * @return the initializers of the classes declaring candidates, most avoidable work first
+     */
+    public List<Initializer> initializers() {
+        return initializers;
+    }
+
+    /**
+     * @return the classes which the analyzed classes only initialize by reading candidates, so none of them would be
+     * initialized once the candidates are constants; initializations through reflection are not seen
+     */
+    public List<String> classesInitializedOnlyByCandidateReads() {
+        return classesInitializedOnlyByCandidateReads;
+    }
+
+    public int avoidableInstructions() {
+        return initializers.stream().mapToInt(Initializer::avoidableInstructions).sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(format("%d candidates, %d avoidable <clinit> instructions in %d classes%n",
+                candidates.size(), avoidableInstructions(), initializers.size()));
+        candidates.forEach(it -> report.append("  ").append(it).append(System.lineSeparator()));
+        initializers.forEach(it -> report.append("  ").append(it).append(System.lineSeparator()));
+        classesInitializedOnlyByCandidateReads.forEach(it -> report.append("  initialized only by candidate reads: ").append(it).append(System.lineSeparator()));
+        return report.toString();
+    }
+
+    public static final class Candidate {
+        private final String className;
+        private final String name;
+        private final String descriptor;
+        private final Reason reason;
+        private final int instructions;
+
+        Candidate(String className, String name, String descriptor, Reason reason, int instructions) {
+            this.className = className;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.reason = reason;
+            this.instructions = instructions;
+        }
+
+        public String className() {
+            return className;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String descriptor() {
+            return descriptor;
+        }
+
+        public Reason reason() {
+            return reason;
+        }
+
+        /**
+         * @return the instructions computing and storing the value
+         */
+        public int instructions() {
+            return instructions;
+        }
+
+        @Override
+        public String toString() {
+            return format("%s.%s:%s %s (%d instructions)", className, name, descriptor, reason, instructions);
+        }
+    }
+
+    public static final class Initializer {
+        private final String className;
+        private final int instructions;
+        private final int avoidableInstructions;
+
+        Initializer(String className, int instructions, int avoidableInstructions) {
+            this.className = className;
+            this.instructions = instructions;
+            this.avoidableInstructions = avoidableInstructions;
+        }
+
+        public String className() {
+            return className;
+        }
+
+        public int instructions() {
+            return instructions;
+        }
+
+        public int avoidableInstructions() {
+            return avoidableInstructions;
+        }
+
+        /**
+         * @return whether the initializer does nothing but initialize candidates, so it would vanish once they are
+         * constants
+         */
+        public boolean isRemovable() {
+            return avoidableInstructions + 1 >= instructions; // the trailing return
+        }
+
+        @Override
+        public String toString() {
+            return format("%s.<clinit> %d of %d instructions avoidable%s", className, avoidableInstructions, instructions, isRemovable() ? ", removable" : "");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.util.DirectClassLoader;
+import com.ikatas.util.classfile.ClassHeader.Member;
+import com.ikatas.util.classfile.PreloadPlan.Reason;
+import com.ikatas.util.classfile.PreloadPlan.Step;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.ikatas.util.classfile.ClassFileParser.typeName;
+import static com.ikatas.util.classfile.PreloadPlan.Reason.*;
+
+/**
+ * Computes statically from class bytes which classes loading and initializing an entry class pulls in:
+ * <ul>
+ *     <li>its superclasses and superinterfaces, which are loaded before the class itself (JVMS §5.3.5)</li>
+ *     <li>the types of its declared fields, which are loaded once the fields are reflected</li>
+ *     <li>the superclasses and the superinterfaces declaring default methods, which are initialized before the class
+ *     itself (JVMS §5.5)</li>
+ * </ul>
+ * Classes loaded by the static initializers themselves, or by the verifier to check assignments, are not followed.
+ */
+public final class PreloadAnalyzer {
+    private final ClassLoader resources;
+    private final Predicate<String> candidates;
+    private final Map<String, ClassHeader> headers = new HashMap<>();
+
+    /**
+     * @param resources  locates the class files
+     * @param candidates the classes to take into account, others are assumed to be loaded by other loaders already
+     */
+    public PreloadAnalyzer(ClassLoader resources, Predicate<String> candidates) {
+        this.resources = resources;
+        this.candidates = candidates;
+    }
+
+    public static PreloadAnalyzer of(DirectClassLoader loader) {
+        return new PreloadAnalyzer(loader, loader::isDefinedDirectly);
+    }
+
+    public PreloadPlan analyze(String entry) throws ClassNotFoundException {
+        Set<String> visited = new LinkedHashSet<>();
+        List<Step> steps = new ArrayList<>();
+        load(entry, ENTRY, null, visited, steps);
+        for (Member field : header(entry).fields()) {
+            String type = typeName(field.descriptor());
+            if (type != null) {
+                load(type, FIELD_TYPE, entry, visited, steps);
+            }
+        }
+        return new PreloadPlan(entry, steps, initialize(entry));
+    }
+
+    private void load(String name, Reason reason, String requiredBy, Set<String> visited, List<Step> steps) throws ClassNotFoundException {
+        if (!candidates.test(name) || !visited.add(name)) {
+            return;
+        }
+        ClassHeader header = header(name);
+        if (header.superName() != null) {
+            load(header.superName(), SUPERCLASS, name, visited, steps);
+        }
+        for (String superinterface : header.interfaces()) {
+            load(superinterface, SUPERINTERFACE, name, visited, steps);
+        }
+        steps.add(new Step(name, reason, requiredBy));
+    }
+
+    private List<String> initialize(String entry) throws ClassNotFoundException {
+        Set<String> initialized = new LinkedHashSet<>();
+        ClassHeader header = header(entry);
+        if (header.isInterface()) {
+            initialized.add(entry); // superinterfaces are not initialized by initializing an interface
+        } else {
+            initializeClass(header, initialized);
+        }
+        return new ArrayList<>(initialized);
+    }
+
+    private void initializeClass(ClassHeader header, Set<String> initialized) throws ClassNotFoundException {
+        if (header.superName() != null && candidates.test(header.superName())) {
+            initializeClass(header(header.superName()), initialized);
+        }
+        for (String superinterface : header.interfaces()) {
+            initializeInterfacesDeclaringDefaults(superinterface, initialized);
+        }
+        initialized.add(header.name());
+    }
+
+    private void initializeInterfacesDeclaringDefaults(String name, Set<String> initialized) throws ClassNotFoundException {
+        if (!candidates.test(name)) {
+            return;
+        }
+        ClassHeader header = header(name);
+        for (String superinterface : header.interfaces()) {
+            initializeInterfacesDeclaringDefaults(superinterface, initialized);
+        }
+        if (header.methods().stream().anyMatch(it -> !it.isAbstract() && !it.isStatic() && !it.name().equals("<clinit>"))) {
+            initialized.add(name);
+        }
+    }
+
+    private ClassHeader header(String name) throws ClassNotFoundException {
+        ClassHeader header = headers.get(name);
+        if (header == null) {
+            headers.put(name, header = ClassFileParser.parse(classBytes(name)));
+        }
+        return header;
+    }
+
+    private byte[] classBytes(String name) throws ClassNotFoundException {
+        try (InputStream in = resources.getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
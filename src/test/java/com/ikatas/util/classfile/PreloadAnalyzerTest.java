@@ -0,0 +1,71 @@
+package com.ikatas.util.classfile;
+
+import com.ikatas.jls.test.execution.ClassInitializationTest;
+import com.ikatas.jls.test.execution.ClassLoaderTest;
+import com.ikatas.util.DirectClassLoader;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PreloadAnalyzerTest {
+    private static final String TEST_CLASS = ClassLoaderTest.class.getName();
+    private static final String SUB = TEST_CLASS + "$Sub";
+    private static final String INITIALIZATION_TEST = ClassInitializationTest.class.getName();
+
+    private final DirectClassLoader loader = directClassLoader();
+    private final PreloadAnalyzer analyzer = PreloadAnalyzer.of(loader);
+
+    @Test
+    public void planSuperInterfacesBeforeAllClasses() throws ClassNotFoundException {
+        PreloadPlan plan = analyzer.analyze(SUB);
+
+        assertThat(plan.classes(), contains(TEST_CLASS + "$Any", TEST_CLASS + "$Markable", TEST_CLASS + "$Sup", SUB));
+    }
+
+    @Test
+    public void planInTheSameOrderAsTheClassesLoadedByJVM() throws ClassNotFoundException {
+        PreloadPlan plan = analyzer.analyze(SUB);
+
+        loader.loadClass(SUB);
+
+        assertThat(loader.loadedClasses(), equalTo(plan.classes()));
+    }
+
+    @Test
+    public void planFieldTypesResolvedOnReflection() throws Exception {
+        PreloadPlan plan = analyzer.analyze(TEST_CLASS);
+
+        loader.loadClass(TEST_CLASS).getDeclaredField("sub");
+
+        assertThat(plan.steps(), hasItem(hasToString(SUB + "(FIELD_TYPE)")));
+        assertThat(loader.loadedClasses(), containsInRelativeOrder(plan.classes().toArray()));
+    }
+
+    @Test
+    public void initializeSuperInterfacesDeclaringDefaultMethods() throws ClassNotFoundException {
+        assertThat(analyzer.analyze(INITIALIZATION_TEST + "$C").initializedClasses(),
+                contains(INITIALIZATION_TEST + "$DefaultMethods", INITIALIZATION_TEST + "$C"));
+        assertThat(analyzer.analyze(INITIALIZATION_TEST + "$Ref").initializedClasses(),
+                contains(INITIALIZATION_TEST + "$AbstractRef", INITIALIZATION_TEST + "$Identity", INITIALIZATION_TEST + "$Ref"));
+        assertThat(analyzer.analyze(INITIALIZATION_TEST + "$I1").initializedClasses(), contains(INITIALIZATION_TEST + "$I1"));
+    }
+
+    @Test
+    public void prefetchClassBytesInBatches() throws ClassNotFoundException {
+        List<List<String>> batches = analyzer.analyze(SUB).batches(3);
+        assertThat(batches, hasSize(2));
+
+        batches.forEach(loader::prefetch);
+        assertTrue(loader.isPrefetched(SUB));
+        assertThat(loader.loadedClasses(), is(empty()));
+
+        loader.loadClass(SUB);
+        assertFalse("prefetched bytes are consumed on define", loader.isPrefetched(SUB));
+    }
+}
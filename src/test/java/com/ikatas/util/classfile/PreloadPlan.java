@@ -0,0 +1,101 @@
+package com.ikatas.util.classfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The classes which loading and initializing an entry class pulls in, in the order the JVM loads them: supertypes
+ * before their subtypes.
+ */
+public final class PreloadPlan {
+    public enum Reason {
+        ENTRY, SUPERCLASS, SUPERINTERFACE, FIELD_TYPE
+    }
+
+    private final String entry;
+    private final List<Step> steps;
+    private final List<String> initializedClasses;
+
+    PreloadPlan(String entry, List<Step> steps, List<String> initializedClasses) {
+        this.entry = entry;
+        this.steps = unmodifiableList(steps);
+        this.initializedClasses = unmodifiableList(initializedClasses);
+    }
+
+    public String entry() {
+        return entry;
+    }
+
+    public List<Step> steps() {
+        return steps;
+    }
+
+    /**
+     * @return all classes of the plan in loading order
+     */
+    public List<String> classes() {
+        return steps.stream().map(Step::name).collect(toList());
+    }
+
+    /**
+     * @return the classes initialized along with the entry class, in initialization order
+     */
+    public List<String> initializedClasses() {
+        return initializedClasses;
+    }
+
+    /**
+     * Splits the plan into batches of at most {@code size} classes, the batches keep the loading order.
+     */
+    public List<List<String>> batches(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("batch size must be positive: " + size);
+        }
+        List<String> classes = classes();
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < classes.size(); i += size) {
+            batches.add(classes.subList(i, Math.min(i + size, classes.size())));
+        }
+        return batches;
+    }
+
+    @Override
+    public String toString() {
+        return steps.toString();
+    }
+
+    public static final class Step {
+        private final String name;
+        private final Reason reason;
+        private final String requiredBy;
+
+        Step(String name, Reason reason, String requiredBy) {
+            this.name = name;
+            this.reason = reason;
+            this.requiredBy = requiredBy;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public Reason reason() {
+            return reason;
+        }
+
+        /**
+         * @return the class which causes this class to be loaded, or {@code null} for the entry class
+         */
+        public String requiredBy() {
+            return requiredBy;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + reason + ")";
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.ikatas.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A bounded multi-producer multi-consumer queue on a ring of slots, none of whose operations allocate or lock. Each
+ * slot has a sequence number telling which lap of the ring it is in: producers and consumers claim slots by a CAS on
+ * the tail or head sequence, and a slot is published to the other side by a release store of its sequence number, as
+ * Dmitry Vyukov's bounded MPMC queue does. The head and tail sequences are padded onto cache lines of their own, so
+ * producers and consumers don't contend on them unless they race for the same slot.
+ * <p>
+ * Blocking operations wait by a {@link WaitStrategy}, with its interruption semantics; like
+ * {@link ArrayBlockingQueue}, they throw an {@link InterruptedException} if the thread is interrupted on entry. An
+ * element is never lost to an interrupted consumer: it stays in the queue for the next one.
+ * <p>
+ * An element is only visible to consumers once its producer published it, so a producer preempted between claiming a
+ * slot and publishing it holds back the elements after it. Iterators are weakly consistent: they traverse the
+ * published elements from the head towards the tail, skipping those consumers take meanwhile, and can't remove
+ * elements, so neither can {@link #remove(Object)} nor the bulk removals.
+ */
+public final class BoundedQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Object[] elements;
+    private final long[] sequences;
+    private final int mask;
+    private final Sequence head = new Sequence(), tail = new Sequence();
+    private final WaitStrategy waitStrategy;
+    private final WaitStrategy.Signal notEmpty, notFull;
+    private final BooleanSupplier hasElement = this::hasElement, hasRoom = this::hasRoom;
+
+    /**
+     * A queue whose blocking operations park.
+     */
+    public BoundedQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * @param capacity the number of elements the queue holds, rounded up to a power of two
+     */
+    public BoundedQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int slots = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.elements = new Object[slots];
+        this.sequences = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            sequences[i] = i;
+        }
+        this.mask = slots - 1;
+        this.waitStrategy = waitStrategy;
+        this.notEmpty = waitStrategy.newSignal();
+        this.notFull = waitStrategy.newSignal();
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public boolean offer(E element) {
+        requireNonNull(element);
+        long position = tail.get();
+        while (true) {
+            long lap = sequence(position) - position;
+            if (lap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (lap < 0) {
+                return false; // the slot still holds the element of the previous lap
+            } else {
+                position = tail.get(); // another producer claimed the slot
+            }
+        }
+        int slot = (int) position & mask;
+        elements[slot] = element;
+        SEQUENCES.setRelease(sequences, slot, position + 1);
+        notEmpty.signal();
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            long lap = sequence(position) - (position + 1);
+            if (lap == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = head.get();
+            } else if (lap < 0) {
+                return null; // the slot isn't published yet
+            } else {
+                position = head.get(); // another consumer took the slot
+            }
+        }
+        int slot = (int) position & mask;
+        @SuppressWarnings("unchecked")
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        SEQUENCES.setRelease(sequences, slot, position + elements.length);
+        notFull.signal();
+        return element;
+    }
+
+    @Override
+    public void put(E element) throws InterruptedException {
+        requireNonNull(element);
+        throwIfInterrupted();
+        while (!offer(element)) {
+            notFull.await(hasRoom);
+        }
+    }
+
+    @Override
+    public boolean offer(E element, long timeout, TimeUnit unit) throws InterruptedException {
+        requireNonNull(element);
+        throwIfInterrupted();
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        while (!offer(element)) {
+            if (!notFull.awaitUntil(hasRoom, deadline)) {
+                return offer(element);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        throwIfInterrupted();
+        E element;
+        while ((element = poll()) == null) {
+            notEmpty.await(hasElement);
+        }
+        return element;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        throwIfInterrupted();
+        long deadline = nanoTime() + unit.toNanos(timeout);
+        E element;
+        while ((element = poll()) == null) {
+            if (!notEmpty.awaitUntil(hasElement, deadline)) {
+                return poll();
+            }
+        }
+        return element;
+    }
+
+    /**
+     * @return the element at the head, or {@code null} if there's none or consumers took it meanwhile
+     */
+    @Override
+    public E peek() {
+        long position = head.get();
+        int slot = (int) position & mask;
+        if (sequence(position) != position + 1) {
+            return null;
+        }
+        @SuppressWarnings("unchecked")
+        E element = (E) elements[slot];
+        VarHandle.loadLoadFence(); // reads the element before checking that no consumer took it
+        return sequence(position) == position + 1 ? element : null;
+    }
+
+    @Override
+    public int size() {
+        while (true) {
+            long head = this.head.get(), tail = this.tail.get();
+            if (head == this.head.get()) {
+                return (int) Math.max(0, Math.min(tail - head, elements.length));
+            }
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return elements.length - size();
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException("Can't drain to itself");
+        }
+        int drained = 0;
+        for (E element; drained < maxElements && (element = poll()) != null; drained++) {
+            c.add(element);
+        }
+        return drained;
+    }
+
+    /**
+     * @return a weakly consistent iterator, which doesn't support {@link Iterator#remove()}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    @Override
+    public String toString() {
+        return format("BoundedQueue[%d/%d, %s]", size(), elements.length, waitStrategy);
+    }
+
+    private boolean hasElement() {
+        long position = head.get();
+        return sequence(position) - (position + 1) >= 0;
+    }
+
+    private boolean hasRoom() {
+        long position = tail.get();
+        return sequence(position) - position >= 0;
+    }
+
+    private long sequence(long position) {
+        return (long) SEQUENCES.getAcquire(sequences, (int) position & mask);
+    }
+
+    private final class Itr implements Iterator<E> {
+        private long position = head.get();
+        private E next = advance();
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public E next() {
+            E element = next;
+            if (element == null) {
+                throw new NoSuchElementException();
+            }
+            next = advance();
+            return element;
+        }
+
+        /**
+         * @return the element at the position, or after it if consumers took it, or {@code null} at the first slot
+         * not published yet
+         */
+        private E advance() {
+            while (true) {
+                long lap = sequence(position) - (position + 1);
+                if (lap < 0) {
+                    return null;
+                }
+                if (lap > 0) {
+                    position = Math.max(position + 1, head.get()); // taken, and maybe published again for a later lap
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                E element = (E) elements[(int) position & mask];
+                VarHandle.loadLoadFence(); // reads the element before checking that no consumer took it, as peek()
+                if (sequence(position) == position + 1) {
+                    position++;
+                    return element;
+                }
+            }
+        }
+    }
+
+    private static void throwIfInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * A sequence padded by a cache line on each side, as the fields of a superclass are laid out before those of its
+     * subclasses.
+     */
+    @SuppressWarnings("unused")
+    private abstract static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07, p08;
+    }
+
+    private abstract static class SequenceValue extends LeftPadding {
+        volatile long value;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Sequence extends SequenceValue {
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long p11, p12, p13, p14, p15, p16, p17, p18;
+
+        long get() {
+            return value;
+        }
+
+        boolean compareAndSet(long expected, long value) {
+            return VALUE.compareAndSet(this, expected, value);
+        }
+    }
+}
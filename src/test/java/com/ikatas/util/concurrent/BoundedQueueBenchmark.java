@@ -0,0 +1,93 @@
+package com.ikatas.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Compares handing elements off from producer threads to consumer threads through a {@link BoundedQueue} with each
+ * {@link WaitStrategy}, through an {@link ArrayBlockingQueue} and through a {@link LinkedBlockingQueue}, all of
+ * {@code capacity} elements. The producers and consumers block in timed operations, so they give up waiting once an
+ * iteration ends. The {@code -tg} option sets the number of producers and consumers, e.g: 1 of each, 4 of each, or
+ * many to one and one to many:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="BoundedQueueBenchmark -tg 1,1 -prof gc"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="BoundedQueueBenchmark -tg 4,4"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="BoundedQueueBenchmark -tg 4,1"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="BoundedQueueBenchmark -tg 1,4"
+ * </pre>
+ * where the {@code gc.alloc.rate.norm} lines of the gc profiler report the bytes allocated per hand-off. Spinning only
+ * makes sense with fewer producers and consumers than processors.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundedQueueBenchmark {
+    private static final Integer ELEMENT = 42;
+    private static final long TIMEOUT_MILLIS = 10;
+
+    @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "parking", "timedParking", "yielding", "spinning"})
+    private String queue;
+
+    @Param({"1024"})
+    private int capacity;
+
+    private BlockingQueue<Integer> elements;
+
+    @Setup
+    public void setUp() {
+        switch (queue) {
+            case "ArrayBlockingQueue":
+                elements = new ArrayBlockingQueue<>(capacity);
+                break;
+            case "LinkedBlockingQueue":
+                elements = new LinkedBlockingQueue<>(capacity);
+                break;
+            case "parking":
+                elements = new BoundedQueue<>(capacity, WaitStrategy.parking());
+                break;
+            case "timedParking":
+                elements = new BoundedQueue<>(capacity, WaitStrategy.timedParking(50_000));
+                break;
+            case "yielding":
+                elements = new BoundedQueue<>(capacity, WaitStrategy.yielding());
+                break;
+            default:
+                elements = new BoundedQueue<>(capacity, WaitStrategy.spinning());
+        }
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public boolean put() throws InterruptedException {
+        return elements.offer(ELEMENT, TIMEOUT_MILLIS, MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public Integer take() throws InterruptedException {
+        return elements.poll(TIMEOUT_MILLIS, MILLISECONDS);
+    }
+}
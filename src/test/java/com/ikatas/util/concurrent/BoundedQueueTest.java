@@ -0,0 +1,240 @@
+package com.ikatas.util.concurrent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * The interruption scenarios of {@code ThreadTest}, for threads blocked on a queue rather than in {@code wait()}, with
+ * each wait strategy.
+ */
+@RunWith(Parameterized.class)
+public class BoundedQueueTest {
+    private static final long BLOCKED_MILLIS = 50;
+
+    private final WaitStrategy waitStrategy;
+    private final BoundedQueue<Integer> queue;
+
+    public BoundedQueueTest(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        this.queue = new BoundedQueue<>(3, waitStrategy);
+    }
+
+    @Parameters(name = "{0}")
+    public static List<WaitStrategy> strategies() {
+        return WaitStrategy.all();
+    }
+
+    @Test
+    public void holdsElementsInFifoOrderUpToItsCapacityRoundedUpToAPowerOfTwo() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        assertFalse(queue.offer(4));
+        assertThat(queue.size(), equalTo(4));
+        assertThat(queue.remainingCapacity(), equalTo(0));
+        assertThat(queue.peek(), equalTo(0));
+        assertThat(queue.poll(), equalTo(0));
+        assertTrue(queue.offer(4));
+        List<Integer> drained = new ArrayList<>();
+        assertThat(queue.drainTo(drained), equalTo(4));
+        assertThat(drained, contains(1, 2, 3, 4));
+        assertThat(queue.poll(), is(nullValue()));
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    public void iteratesOverTheElementsFromHeadToTail() {
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        queue.poll();
+        queue.offer(4); // wraps around the ring
+
+        assertThat(queue, contains(1, 2, 3, 4));
+        assertThat(queue.toArray(), arrayContaining(1, 2, 3, 4));
+        assertThat(queue.stream().mapToInt(Integer::intValue).sum(), equalTo(10));
+        assertTrue(queue.contains(3));
+        assertFalse(queue.contains(0));
+        assertTrue(queue.containsAll(List.of(1, 4)));
+        assertFalse(queue.remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> queue.remove(1));
+        assertThat(queue.size(), equalTo(4));
+    }
+
+    @Test
+    public void iteratorsSkipTheElementsTakenMeanwhile() {
+        for (int i = 0; i < 4; i++) {
+            queue.offer(i);
+        }
+        Iterator<Integer> it = queue.iterator();
+        assertThat(it.next(), equalTo(0));
+
+        queue.poll();
+        queue.poll();
+        queue.poll();
+        queue.offer(4);
+
+        List<Integer> rest = new ArrayList<>();
+        it.forEachRemaining(rest::add);
+        assertThat(rest, contains(1, 3, 4)); // 1 was read ahead by the previous next()
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    @Test
+    public void interruptStatusIsClearedAfterTakeThrowsAnInterruptedException() throws InterruptedException {
+        AtomicReference<Throwable> captured = new AtomicReference<>();
+        AtomicBoolean interruptedAfter = new AtomicBoolean(true);
+        Thread consumer = start(() -> {
+            try {
+                queue.take();
+            } catch (InterruptedException e) {
+                captured.set(e);
+                interruptedAfter.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        Thread.sleep(BLOCKED_MILLIS);
+
+        consumer.interrupt();
+        consumer.join(500);
+
+        assertThat(captured.get(), isA(InterruptedException.class));
+        assertFalse("interrupt status is reset", interruptedAfter.get());
+    }
+
+    @Test
+    public void interruptedPutThrowsAnInterruptedExceptionWithoutAddingTheElement() throws InterruptedException {
+        for (int i = 0; i < queue.capacity(); i++) {
+            queue.put(i);
+        }
+        AtomicReference<Throwable> captured = new AtomicReference<>();
+        Thread producer = start(() -> {
+            try {
+                queue.put(-1);
+            } catch (InterruptedException e) {
+                captured.set(e);
+            }
+        });
+        Thread.sleep(BLOCKED_MILLIS);
+
+        producer.interrupt();
+        producer.join(500);
+
+        assertThat(captured.get(), isA(InterruptedException.class));
+        assertThat(queue.size(), equalTo(queue.capacity()));
+        assertThat(queue.poll(), equalTo(0));
+    }
+
+    @Test
+    public void blockingOperationsThrowIfInterruptedOnEntry() {
+        queue.offer(1);
+
+        Thread.currentThread().interrupt();
+        assertThrows(InterruptedException.class, queue::take);
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        assertThat(queue.size(), equalTo(1));
+    }
+
+    @Test
+    public void elementMustNotBeLostDueToInterrupt() throws InterruptedException {
+        List<Integer> taken = new ArrayList<>();
+        CountDownLatch exitLock = new CountDownLatch(1);
+        Runnable consumer = () -> {
+            try {
+                Integer element = queue.take();
+                synchronized (taken) {
+                    taken.add(element);
+                }
+                exitLock.countDown();
+            } catch (InterruptedException ignored) {/**/}
+        };
+        Thread first = start(consumer), next = start(consumer);
+        Thread.sleep(BLOCKED_MILLIS);
+
+        first.interrupt();
+        queue.put(42);
+
+        assertTrue("element is lost", exitLock.await(500, MILLISECONDS));
+        assertThat(taken, contains(42));
+        first.interrupt();
+        next.interrupt();
+    }
+
+    @Test
+    public void timedOperationsGiveUpOnceTheTimeoutElapsed() throws InterruptedException {
+        long begin = System.nanoTime();
+        assertThat(queue.poll(20, MILLISECONDS), is(nullValue()));
+        assertThat(System.nanoTime() - begin, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+
+        for (int i = 0; i < queue.capacity(); i++) {
+            assertTrue(queue.offer(i, 0, MILLISECONDS));
+        }
+        assertFalse(queue.offer(-1, 20, MILLISECONDS));
+    }
+
+    @Test
+    public void transfersEveryElementOnceBetweenProducersAndConsumers() throws Exception {
+        int producers = 3, consumers = 3, elements = 20000;
+        assumeFalse("spinning threads outnumbering the processors take their time slices in turn",
+                waitStrategy.toString().equals("spinning") && Runtime.getRuntime().availableProcessors() < producers + consumers);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        try {
+            List<Future<Long>> sums = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                executor.submit(() -> {
+                    for (int i = 1; i <= elements; i++) {
+                        queue.put(i);
+                    }
+                    return null;
+                });
+            }
+            for (int c = 0; c < consumers; c++) {
+                sums.add(executor.submit(() -> {
+                    long sum = 0;
+                    for (int i = 0; i < elements; i++) {
+                        sum += queue.take();
+                    }
+                    return sum;
+                }));
+            }
+
+            long total = 0;
+            for (Future<Long> sum : sums) {
+                total += sum.get();
+            }
+            assertThat(waitStrategy.toString(), total, equalTo((long) producers * elements * (elements + 1) / 2));
+            assertThat(queue.size(), equalTo(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Thread start(Runnable action) {
+        Thread thread = new Thread(action);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,237 @@
+package com.ikatas.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Compares guarding a pair of counters, which writers increment together and readers sum, by each of the usual ways
+ * to do it: a monitor, fair and unfair {@link ReentrantLock}s, a {@link ReentrantReadWriteLock}, a {@link StampedLock}
+ * whose readers read optimistically, and a CAS loop over both counters packed into a {@code long}. Of the operations of
+ * each thread, {@code reads} percent are reads. One thread measures the uncontended cost, more the contended one, as
+ * the {@code -t} option sets:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LockBenchmark -t 1"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LockBenchmark -t 2"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LockBenchmark -t 8"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LockBenchmark -t 32"
+ * </pre>
+ * Where Linux {@code perf} and the {@code hsdis} disassembler are installed, {@code -prof perfasm} shows the hottest
+ * code of each guard, e.g: {@code -Dbenchmark.args="LockBenchmark -t 8 -p guard=stampedLock -p reads=90 -prof perfasm"};
+ * {@code -prof stack} samples where the threads are, e.g: parked in a lock, on any platform.
+ *
+ * @see WaitNotifyBenchmark for the cost of waiting and signalling
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockBenchmark {
+    @Param({"synchronized", "reentrantLock", "fairReentrantLock", "readWriteLock", "stampedLock", "varHandleCas"})
+    private String guard;
+
+    @Param({"0", "50", "90", "100"})
+    private int reads;
+
+    private Guard counters;
+
+    @Setup
+    public void setUp() {
+        switch (guard) {
+            case "synchronized":
+                counters = new Monitor();
+                break;
+            case "reentrantLock":
+                counters = new Locked(new ReentrantLock(false));
+                break;
+            case "fairReentrantLock":
+                counters = new Locked(new ReentrantLock(true));
+                break;
+            case "readWriteLock":
+                counters = new ReadWriteLocked();
+                break;
+            case "stampedLock":
+                counters = new Stamped();
+                break;
+            default:
+                counters = new Cas();
+        }
+    }
+
+    /**
+     * Spreads the reads of a thread evenly among its operations, without the cost of a random number per operation.
+     */
+    @State(Scope.Thread)
+    public static class Mix {
+        private int operation;
+
+        boolean nextIsRead(int reads) {
+            if (++operation == 100) {
+                operation = 0;
+            }
+            return operation < reads;
+        }
+    }
+
+    @Benchmark
+    public long operate(Mix mix) {
+        return mix.nextIsRead(reads) ? counters.read() : counters.write();
+    }
+
+    private interface Guard {
+        /**
+         * @return the sum of the counters, which is even if no read ever sees a write half done
+         */
+        long read();
+
+        long write();
+    }
+
+    private static final class Monitor implements Guard {
+        private long x, y;
+
+        @Override
+        public synchronized long read() {
+            return x + y;
+        }
+
+        @Override
+        public synchronized long write() {
+            return ++x + ++y;
+        }
+    }
+
+    private static final class Locked implements Guard {
+        private final ReentrantLock lock;
+        private long x, y;
+
+        Locked(ReentrantLock lock) {
+            this.lock = lock;
+        }
+
+        @Override
+        public long read() {
+            lock.lock();
+            try {
+                return x + y;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public long write() {
+            lock.lock();
+            try {
+                return ++x + ++y;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class ReadWriteLocked implements Guard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long x, y;
+
+        @Override
+        public long read() {
+            lock.readLock().lock();
+            try {
+                return x + y;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public long write() {
+            lock.writeLock().lock();
+            try {
+                return ++x + ++y;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class Stamped implements Guard {
+        private final StampedLock lock = new StampedLock();
+        private long x, y;
+
+        @Override
+        public long read() {
+            long stamp = lock.tryOptimisticRead();
+            long sum = x + y;
+            if (lock.validate(stamp)) {
+                return sum;
+            }
+            stamp = lock.readLock(); // a writer got in, so read under the lock rather than retrying
+            try {
+                return x + y;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public long write() {
+            long stamp = lock.writeLock();
+            try {
+                return ++x + ++y;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Both counters in a {@code long}, 32 bits each, so a write is a single CAS.
+     */
+    private static final class Cas implements Guard {
+        private static final VarHandle COUNTERS;
+
+        static {
+            try {
+                COUNTERS = MethodHandles.lookup().findVarHandle(Cas.class, "counters", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long counters;
+
+        @Override
+        public long read() {
+            long counters = (long) COUNTERS.getAcquire(this);
+            return (counters >>> 32) + (counters & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public long write() {
+            long current, next;
+            do {
+                current = (long) COUNTERS.getVolatile(this);
+                next = current + (1L << 32) + 1;
+            } while (!COUNTERS.weakCompareAndSet(this, current, next));
+            return (next >>> 32) + (next & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ikatas.util.concurrent;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Parks waiters on a {@link Condition}, which the signalling thread only locks to signal when some thread waits.
+ */
+final class ParkingWaitStrategy implements WaitStrategy {
+    @Override
+    public Signal newSignal() {
+        return new ParkingSignal();
+    }
+
+    @Override
+    public String toString() {
+        return "parking";
+    }
+
+    private static final class ParkingSignal implements Signal {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private volatile int waiters;
+
+        @Override
+        public void await(BooleanSupplier condition) throws InterruptedException {
+            await(condition, false, 0);
+        }
+
+        @Override
+        public boolean awaitUntil(BooleanSupplier condition, long deadline) throws InterruptedException {
+            return await(condition, true, deadline);
+        }
+
+        private boolean await(BooleanSupplier ready, boolean timed, long deadline) throws InterruptedException {
+            lock.lockInterruptibly();
+            try {
+                waiters++;
+                try {
+                    // the signalling thread makes the condition true then reads the waiters, so either it sees this
+                    // waiter, or this waiter sees the condition true
+                    VarHandle.fullFence();
+                    while (!ready.getAsBoolean()) {
+                        if (!timed) {
+                            condition.await();
+                        } else {
+                            long left = deadline - nanoTime();
+                            if (left <= 0) {
+                                return false;
+                            }
+                            condition.awaitNanos(left);
+                        }
+                    }
+                    return true;
+                } catch (InterruptedException e) {
+                    if (waiters > 1 && ready.getAsBoolean()) {
+                        condition.signal(); // the signal this waiter may have taken goes to another
+                    }
+                    throw e;
+                } finally {
+                    waiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signal() {
+            VarHandle.fullFence();
+            if (waiters > 0) {
+                lock.lock();
+                try {
+                    condition.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
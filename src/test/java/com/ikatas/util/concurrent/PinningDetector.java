@@ -0,0 +1,129 @@
+package com.ikatas.util.concurrent;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Records the JFR {@code jdk.VirtualThreadPinned} events, emitted when a virtual thread blocks while it can't be
+ * unmounted from its carrier thread, e.g: it sleeps or parks holding a monitor. Every pinning is recorded, not only
+ * those longer than the default threshold of JFR. On JDKs without virtual threads nothing is ever recorded.
+ * <pre>
+ * PinningDetector detector = PinningDetector.start();
+ * ...
+ * List&lt;Pinning&gt; pinnings = detector.stop();
+ * </pre>
+ */
+public final class PinningDetector {
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private final Recording recording;
+
+    private PinningDetector(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @return whether the JVM emits the pinning events
+     */
+    public static boolean isSupported() {
+        return FlightRecorder.getFlightRecorder().getEventTypes().stream().map(EventType::getName).anyMatch(EVENT::equals);
+    }
+
+    public static PinningDetector start() {
+        Recording recording = new Recording();
+        recording.enable(EVENT).withThreshold(Duration.ZERO).withStackTrace();
+        recording.start();
+        return new PinningDetector(recording);
+    }
+
+    /**
+     * Stops recording.
+     *
+     * @return the pinnings recorded since started, in the order they ended
+     */
+    public List<Pinning> stop() {
+        try {
+            recording.stop();
+            Path file = Files.createTempFile("pinning", ".jfr");
+            try {
+                recording.dump(file);
+                return RecordingFile.readAllEvents(file).stream()
+                        .filter(it -> it.getEventType().getName().equals(EVENT))
+                        .sorted((a, b) -> a.getEndTime().compareTo(b.getEndTime()))
+                        .map(Pinning::new).collect(toList());
+            } finally {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            recording.close();
+        }
+    }
+
+    /**
+     * A virtual thread blocked while pinned to its carrier.
+     */
+    public static final class Pinning {
+        private final String thread;
+        private final Duration duration;
+        private final List<String> stackTrace;
+
+        Pinning(RecordedEvent event) {
+            RecordedThread thread = event.getThread();
+            this.thread = thread == null ? "" : thread.getJavaName();
+            this.duration = event.getDuration();
+            List<String> frames = new ArrayList<>();
+            if (event.getStackTrace() != null) {
+                for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                    frames.add(format("%s.%s(line:%d)", frame.getMethod().getType().getName(), frame.getMethod().getName(), frame.getLineNumber()));
+                }
+            }
+            this.stackTrace = unmodifiableList(frames);
+        }
+
+        public String thread() {
+            return thread;
+        }
+
+        public Duration duration() {
+            return duration;
+        }
+
+        /**
+         * @return the frames of the blocked thread, innermost first, e.g: {@code java.lang.Thread.sleep(line:509)}
+         */
+        public List<String> stackTrace() {
+            return stackTrace;
+        }
+
+        /**
+         * @return the innermost frame outside the JDK, where the application blocked, if any
+         */
+        public String blockedAt() {
+            return stackTrace.stream().filter(it -> !it.startsWith("java.") && !it.startsWith("jdk.")).findFirst().orElse("");
+        }
+
+        @Override
+        public String toString() {
+            return format("%s pinned %d us at %s", thread, duration.toNanos() / 1000, blockedAt());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ikatas.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assume.assumeTrue;
+
+public class PinningDetectorTest {
+    @Test
+    public void detectsVirtualThreadsSleepingWhileHoldingAMonitor() throws InterruptedException {
+        assumeTrue(ThreadBackend.isVirtualAvailable() && PinningDetector.isSupported());
+        PinningDetector detector = PinningDetector.start();
+
+        ThreadBackend.virtual().start(this::sleepHoldingMonitor).join();
+
+        List<PinningDetector.Pinning> pinnings = detector.stop();
+        assertThat(pinnings, hasSize(greaterThanOrEqualTo(1)));
+        assertThat(pinnings.get(0).blockedAt(), containsString(".sleepHoldingMonitor("));
+    }
+
+    @Test
+    public void detectsNothingOnPlatformThreads() throws InterruptedException {
+        PinningDetector detector = PinningDetector.start();
+
+        ThreadBackend.platform().start(this::sleepHoldingMonitor).join();
+
+        assertThat(detector.stop(), is(empty()));
+    }
+
+    private synchronized void sleepHoldingMonitor() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
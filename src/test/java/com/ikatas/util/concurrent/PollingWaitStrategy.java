@@ -0,0 +1,70 @@
+package com.ikatas.util.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Waits by checking the condition repeatedly, idling between checks, so signalling is free.
+ */
+final class PollingWaitStrategy implements WaitStrategy, WaitStrategy.Signal {
+    enum Idle {
+        SPIN, YIELD, PARK
+    }
+
+    private final Idle idle;
+    private final long periodNanos;
+
+    PollingWaitStrategy(Idle idle, long periodNanos) {
+        this.idle = idle;
+        this.periodNanos = periodNanos;
+    }
+
+    @Override
+    public Signal newSignal() {
+        return this; // no state: nothing waits to be woken up
+    }
+
+    @Override
+    public void await(BooleanSupplier condition) throws InterruptedException {
+        await(condition, false, 0);
+    }
+
+    @Override
+    public boolean awaitUntil(BooleanSupplier condition, long deadline) throws InterruptedException {
+        return await(condition, true, deadline);
+    }
+
+    private boolean await(BooleanSupplier condition, boolean timed, long deadline) throws InterruptedException {
+        while (!condition.getAsBoolean()) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            long left = timed ? deadline - nanoTime() : Long.MAX_VALUE;
+            if (left <= 0) {
+                return false;
+            }
+            switch (idle) {
+                case SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case YIELD:
+                    Thread.yield();
+                    break;
+                default:
+                    LockSupport.parkNanos(this, Math.min(periodNanos, left));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void signal() {
+    }
+
+    @Override
+    public String toString() {
+        return idle == Idle.PARK ? "timedParking(" + periodNanos + "ns)" : idle == Idle.SPIN ? "spinning" : "yielding";
+    }
+}
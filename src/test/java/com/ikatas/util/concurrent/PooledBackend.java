@@ -0,0 +1,119 @@
+package com.ikatas.util.concurrent;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Runs actions on a pool, by default a cached pool of daemon threads. An interrupt is delivered to the pool thread only
+ * while it runs the action, and is cleared before the thread runs another one.
+ */
+final class PooledBackend implements ThreadBackend {
+    private final ExecutorService pool;
+
+    PooledBackend() {
+        this(Executors.newCachedThreadPool(action -> {
+            Thread thread = new Thread(action);
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    PooledBackend(ExecutorService pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public Strand start(Runnable action, UncaughtExceptionHandler handler) {
+        PooledStrand strand = new PooledStrand();
+        pool.execute(() -> strand.run(action, handler));
+        return strand;
+    }
+
+    @Override
+    public String toString() {
+        return "pooled";
+    }
+
+    private static final class PooledStrand implements Strand {
+        private final CountDownLatch completed = new CountDownLatch(1);
+        // guarded by this
+        private Thread thread;
+        private boolean running;
+        private boolean pendingInterrupt;
+
+        void run(Runnable action, UncaughtExceptionHandler handler) {
+            Thread current = Thread.currentThread();
+            synchronized (this) {
+                thread = current;
+                running = true;
+                if (pendingInterrupt) {
+                    current.interrupt();
+                }
+            }
+            try {
+                action.run();
+            } catch (Throwable e) {
+                (handler != null ? handler : current.getUncaughtExceptionHandler()).uncaughtException(current, e);
+            } finally {
+                synchronized (this) {
+                    running = false;
+                }
+                Thread.interrupted(); // no interrupt is delivered once it isn't running
+                completed.countDown();
+            }
+        }
+
+        @Override
+        public synchronized Thread thread() {
+            return thread;
+        }
+
+        @Override
+        public Thread.State getState() {
+            synchronized (this) {
+                if (running) {
+                    return thread.getState();
+                }
+            }
+            return isAlive() ? Thread.State.RUNNABLE : Thread.State.TERMINATED;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return completed.getCount() > 0;
+        }
+
+        @Override
+        public synchronized boolean isInterrupted() {
+            return running ? thread.isInterrupted() : pendingInterrupt && thread == null;
+        }
+
+        @Override
+        public synchronized void interrupt() {
+            if (running) {
+                thread.interrupt();
+            } else if (thread == null) {
+                pendingInterrupt = true;
+            }
+        }
+
+        @Override
+        public void join() throws InterruptedException {
+            completed.await();
+        }
+
+        @Override
+        public boolean join(long millis) throws InterruptedException {
+            return completed.await(millis, MILLISECONDS);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "PooledStrand[" + (running ? thread.getName() : isAlive() ? "queued" : "completed") + "]";
+        }
+    }
+}
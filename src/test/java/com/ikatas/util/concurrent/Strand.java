@@ -0,0 +1,34 @@
+package com.ikatas.util.concurrent;
+
+/**
+ * An action started by a {@link ThreadBackend}, with the interruption and joining semantics of a {@link Thread} even
+ * if the action runs on a pooled thread that outlives it.
+ */
+public interface Strand {
+    /**
+     * @return the thread running the action, or {@code null} if a pool hasn't run it yet
+     */
+    Thread thread();
+
+    /**
+     * @return the state of the thread while it runs the action; {@link Thread.State#RUNNABLE} before it runs, and
+     * {@link Thread.State#TERMINATED} after
+     */
+    Thread.State getState();
+
+    boolean isAlive();
+
+    boolean isInterrupted();
+
+    /**
+     * Interrupts the action, or the action once it runs; has no effect after it completed.
+     */
+    void interrupt();
+
+    void join() throws InterruptedException;
+
+    /**
+     * @return whether the action completed within the timeout
+     */
+    boolean join(long millis) throws InterruptedException;
+}
@@ -0,0 +1,76 @@
+package com.ikatas.util.concurrent;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Starts actions on platform threads, on a pool of reused platform threads, or on virtual threads. Virtual threads
+ * are created through {@code Thread.ofVirtual()}, looked up reflectively so the same build runs on JDKs without
+ * them.
+ */
+public interface ThreadBackend {
+    /**
+     * @param handler handles what the action throws, the default handler of the thread if {@code null}
+     */
+    Strand start(Runnable action, UncaughtExceptionHandler handler);
+
+    default Strand start(Runnable action) {
+        return start(action, null);
+    }
+
+    /**
+     * A new daemon thread per action.
+     */
+    static ThreadBackend platform() {
+        return new ThreadFactoryBackend("platform", action -> {
+            Thread thread = new Thread(action);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Actions run on a cached pool of daemon threads, so they reuse threads of completed actions but never wait for
+     * one.
+     */
+    static ThreadBackend pooled() {
+        return new PooledBackend();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the JDK has no virtual threads
+     */
+    static ThreadBackend virtual() {
+        return new ThreadFactoryBackend("virtual", virtualThreadFactory().orElseThrow(() -> new UnsupportedOperationException("Virtual threads need JDK 21+")));
+    }
+
+    static boolean isVirtualAvailable() {
+        return virtualThreadFactory().isPresent();
+    }
+
+    /**
+     * @return the platform and pooled backends, and the virtual one if the JDK has virtual threads
+     */
+    static List<ThreadBackend> available() {
+        List<ThreadBackend> backends = new ArrayList<>(List.of(platform(), pooled()));
+        if (isVirtualAvailable()) {
+            backends.add(virtual());
+        }
+        return backends;
+    }
+
+    private static Optional<ThreadFactory> virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return Optional.of((ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder));
+        } catch (NoSuchMethodException | ClassNotFoundException | InvocationTargetException e) {
+            return Optional.empty(); // before JDK 21, or a preview feature of JDK 19 and 20 which isn't enabled
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ikatas.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.lang.Thread.currentThread;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assume.assumeFalse;
+
+public class ThreadBackendTest {
+    @Test
+    public void runsActionsAndReportsWhatTheyThrowToTheHandler() throws InterruptedException {
+        for (ThreadBackend backend : ThreadBackend.available()) {
+            AtomicReference<Throwable> thrown = new AtomicReference<>();
+            IllegalStateException failure = new IllegalStateException();
+
+            Strand strand = backend.start(() -> {
+                throw failure;
+            }, (thread, e) -> thrown.set(e));
+            strand.join();
+
+            assertThat(backend.toString(), thrown.get(), sameInstance(failure));
+            assertThat(strand.isAlive(), is(false));
+            assertThat(strand.getState(), equalTo(Thread.State.TERMINATED));
+        }
+    }
+
+    @Test
+    public void pooledActionsReuseThreadsOfCompletedActions() throws InterruptedException {
+        ThreadBackend pooled = ThreadBackend.pooled();
+        Strand first = pooled.start(() -> {/**/});
+        first.join();
+        Thread.sleep(50); // until the thread is back in the pool
+
+        AtomicReference<Thread> runBy = new AtomicReference<>();
+        pooled.start(() -> runBy.set(currentThread())).join();
+
+        assertThat(runBy.get(), sameInstance(first.thread()));
+    }
+
+    @Test
+    public void pooledActionsAreInterruptedEvenIfInterruptedBeforeTheyRun() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ThreadBackend pooled = new PooledBackend(pool);
+        CountDownLatch blocked = new CountDownLatch(1);
+        pooled.start(() -> {
+            try {
+                blocked.await(); // keeps the only thread busy
+            } catch (InterruptedException ignored) {/**/}
+        });
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Strand strand = pooled.start(() -> interrupted.set(currentThread().isInterrupted()));
+
+        strand.interrupt();
+        assertThat(strand.isInterrupted(), is(true));
+        blocked.countDown();
+        strand.join();
+
+        assertThat(interrupted.get(), is(true));
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void interruptsDoNotOutliveThePooledActions() throws InterruptedException {
+        ThreadBackend pooled = ThreadBackend.pooled();
+        CountDownLatch running = new CountDownLatch(1);
+        Strand first = pooled.start(() -> {
+            running.countDown();
+            while (!currentThread().isInterrupted()) {
+                Thread.onSpinWait();
+            }
+        });
+        running.await();
+        first.interrupt();
+        first.join();
+        first.interrupt();
+        Thread.sleep(50);
+
+        AtomicBoolean interrupted = new AtomicBoolean(true);
+        pooled.start(() -> interrupted.set(currentThread().isInterrupted())).join();
+
+        assertThat(first.isInterrupted(), is(false));
+        assertThat(interrupted.get(), is(false));
+    }
+
+    @Test
+    public void virtualBackendNeedsVirtualThreads() {
+        assumeFalse(ThreadBackend.isVirtualAvailable());
+
+        assertThrows(UnsupportedOperationException.class, ThreadBackend::virtual);
+        assertThat(ThreadBackend.available().stream().map(Object::toString).toArray(), arrayContaining("platform", "pooled"));
+    }
+}
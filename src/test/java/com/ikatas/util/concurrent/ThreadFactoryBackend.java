@@ -0,0 +1,79 @@
+package com.ikatas.util.concurrent;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Starts each action on a new thread of a factory.
+ */
+final class ThreadFactoryBackend implements ThreadBackend {
+    private final String name;
+    private final ThreadFactory factory;
+
+    ThreadFactoryBackend(String name, ThreadFactory factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    @Override
+    public Strand start(Runnable action, UncaughtExceptionHandler handler) {
+        Thread thread = factory.newThread(action);
+        thread.setUncaughtExceptionHandler(handler);
+        thread.start();
+        return new ThreadStrand(thread);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static final class ThreadStrand implements Strand {
+        private final Thread thread;
+
+        ThreadStrand(Thread thread) {
+            this.thread = thread;
+        }
+
+        @Override
+        public Thread thread() {
+            return thread;
+        }
+
+        @Override
+        public Thread.State getState() {
+            return thread.getState();
+        }
+
+        @Override
+        public boolean isAlive() {
+            return thread.isAlive();
+        }
+
+        @Override
+        public boolean isInterrupted() {
+            return thread.isInterrupted();
+        }
+
+        @Override
+        public void interrupt() {
+            thread.interrupt();
+        }
+
+        @Override
+        public void join() throws InterruptedException {
+            thread.join();
+        }
+
+        @Override
+        public boolean join(long millis) throws InterruptedException {
+            thread.join(millis);
+            return !thread.isAlive();
+        }
+
+        @Override
+        public String toString() {
+            return thread.toString();
+        }
+    }
+}
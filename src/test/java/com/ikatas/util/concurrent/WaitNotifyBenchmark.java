@@ -0,0 +1,127 @@
+package com.ikatas.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * Compares handing a slot back and forth between threads which fill it and threads which empty it, each waiting for
+ * the slot to be in their state, by {@code wait()} and {@code notifyAll()} on a monitor as the scenarios of
+ * {@code ThreadTest} do, and by {@link Condition}s of fair and unfair {@link ReentrantLock}s, signalling one waiter of
+ * the other side. Waits time out, so the threads give up once an iteration ends. The {@code -tg} option sets the number
+ * of fillers and emptiers:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="WaitNotifyBenchmark -tg 1,1"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="WaitNotifyBenchmark -tg 4,4"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="WaitNotifyBenchmark -tg 16,16"
+ * </pre>
+ * where {@code notifyAll} wakes all the waiters of both sides up, and all but one of them go back to waiting.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaitNotifyBenchmark {
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Param({"monitor", "condition", "fairCondition"})
+    private String signalling;
+
+    private Slot slot;
+
+    @Setup
+    public void setUp() {
+        slot = signalling.equals("monitor") ? new MonitorSlot() : new ConditionSlot(signalling.equals("fairCondition"));
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public boolean fill() throws InterruptedException {
+        return slot.await(false);
+    }
+
+    @Benchmark
+    @Group("handOff")
+    @GroupThreads(1)
+    public boolean empty() throws InterruptedException {
+        return slot.await(true);
+    }
+
+    private interface Slot {
+        /**
+         * Waits until the slot is in the state, and flips it.
+         *
+         * @return whether it flipped the slot before the timeout
+         */
+        boolean await(boolean full) throws InterruptedException;
+    }
+
+    private static final class MonitorSlot implements Slot {
+        private boolean full;
+
+        @Override
+        public synchronized boolean await(boolean full) throws InterruptedException {
+            long deadline = nanoTime() + TIMEOUT_NANOS;
+            while (this.full != full) {
+                long left = deadline - nanoTime();
+                if (left <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+            this.full = !full;
+            notifyAll();
+            return true;
+        }
+    }
+
+    private static final class ConditionSlot implements Slot {
+        private final ReentrantLock lock;
+        private final Condition filled, emptied;
+        private boolean full;
+
+        ConditionSlot(boolean fair) {
+            lock = new ReentrantLock(fair);
+            filled = lock.newCondition();
+            emptied = lock.newCondition();
+        }
+
+        @Override
+        public boolean await(boolean full) throws InterruptedException {
+            lock.lock();
+            try {
+                long left = TIMEOUT_NANOS;
+                while (this.full != full) {
+                    if (left <= 0) {
+                        return false;
+                    }
+                    left = (full ? filled : emptied).awaitNanos(left);
+                }
+                this.full = !full;
+                (full ? emptied : filled).signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
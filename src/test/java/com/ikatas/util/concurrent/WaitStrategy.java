@@ -0,0 +1,82 @@
+package com.ikatas.util.concurrent;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a thread waits for a condition another thread makes true, e.g: for a {@link BoundedQueue} to have an element or
+ * room for one. Spinning and yielding trade CPU for latency, parking frees the CPU but the signalling thread has to
+ * wake the waiters up, and timed parking frees most of it without any signalling.
+ * <p>
+ * All of them wait as {@link Object#wait()} does with regard to interruption: a waiting thread which is interrupted
+ * throws an {@link InterruptedException} and its interrupt status is cleared, and a thread which is interrupted once
+ * the condition holds may return normally, with its interrupt status set. A signal is never lost to an interrupted
+ * waiter: another waiter gets it.
+ */
+public interface WaitStrategy {
+    /**
+     * @return a new signal, for the threads waiting for one condition
+     */
+    Signal newSignal();
+
+    /**
+     * Busy waits, hinting the processor by {@link Thread#onSpinWait()}.
+     */
+    static WaitStrategy spinning() {
+        return new PollingWaitStrategy(PollingWaitStrategy.Idle.SPIN, 0);
+    }
+
+    /**
+     * Busy waits, yielding the processor to other threads between checks.
+     */
+    static WaitStrategy yielding() {
+        return new PollingWaitStrategy(PollingWaitStrategy.Idle.YIELD, 0);
+    }
+
+    /**
+     * Parks until the signalling thread unparks the waiter.
+     */
+    static WaitStrategy parking() {
+        return new ParkingWaitStrategy();
+    }
+
+    /**
+     * Parks for up to the period between checks, so a signal is seen within a period at most.
+     */
+    static WaitStrategy timedParking(long periodNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Invalid period: " + periodNanos);
+        }
+        return new PollingWaitStrategy(PollingWaitStrategy.Idle.PARK, periodNanos);
+    }
+
+    static List<WaitStrategy> all() {
+        return List.of(spinning(), yielding(), parking(), timedParking(50_000));
+    }
+
+    /**
+     * The threads waiting for a condition, and the threads making it true.
+     */
+    interface Signal {
+        /**
+         * Waits until the condition holds, which is checked before the thread waits.
+         *
+         * @throws InterruptedException if the thread was interrupted while it waited
+         */
+        void await(BooleanSupplier condition) throws InterruptedException;
+
+        /**
+         * Waits until the condition holds or the deadline passes.
+         *
+         * @param deadline as of {@link System#nanoTime()}
+         * @return whether the condition holds, {@code false} if the deadline passed
+         * @throws InterruptedException if the thread was interrupted while it waited
+         */
+        boolean awaitUntil(BooleanSupplier condition, long deadline) throws InterruptedException;
+
+        /**
+         * Wakes up a waiter, once the calling thread made the condition true.
+         */
+        void signal();
+    }
+}
@@ -0,0 +1,136 @@
+package com.ikatas.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures how fast each {@link ThreadBackend} starts a crowd of waiters, releases them all at once and sees them
+ * complete, with waiters blocking in {@code Object.wait()} while holding a monitor, as the scenarios of
+ * {@code ThreadTest} do, or on a {@link CountDownLatch}. Virtual threads waiting on a monitor are pinned to their
+ * carriers; once the carriers run out, the remaining waiters can't even start before the release, which is reported
+ * as a stall. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.concurrent.WaitersBenchmark
+ * </pre>
+ * The {@code waiters} and {@code trials} system properties override the defaults, e.g:
+ * {@code -Dbenchmark.jvmArgs="-Dwaiters=20000"}.
+ */
+public class WaitersBenchmark {
+    private static final long START_TIMEOUT_SECONDS = 10;
+
+    enum Wait {
+        MONITOR {
+            @Override
+            Runnable waiter(Crowd crowd) {
+                return () -> {
+                    synchronized (crowd) {
+                        crowd.started.countDown();
+                        while (!crowd.released) {
+                            try {
+                                crowd.wait();
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                        }
+                    }
+                    crowd.done.countDown();
+                };
+            }
+
+            @Override
+            void release(Crowd crowd) {
+                synchronized (crowd) {
+                    crowd.released = true;
+                    crowd.notifyAll();
+                }
+            }
+        },
+        LATCH {
+            @Override
+            Runnable waiter(Crowd crowd) {
+                return () -> {
+                    crowd.started.countDown();
+                    try {
+                        crowd.release.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    crowd.done.countDown();
+                };
+            }
+
+            @Override
+            void release(Crowd crowd) {
+                crowd.release.countDown();
+            }
+        };
+
+        abstract Runnable waiter(Crowd crowd);
+
+        abstract void release(Crowd crowd);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int waiters = Integer.getInteger("waiters", 10_000);
+        int trials = Integer.getInteger("trials", 5);
+        out.printf("%-10s %-8s %8s %12s %14s %10s %10s%n", "backend", "wait", "waiters", "best (ms)", "waiters/s", "stalled", "pinnings");
+        for (ThreadBackend backend : ThreadBackend.available()) {
+            for (Wait wait : Wait.values()) {
+                run(backend, wait, waiters); // warm up
+                Result best = null;
+                for (int trial = 0; trial < trials; trial++) {
+                    Result result = run(backend, wait, waiters);
+                    if (best == null || result.elapsed < best.elapsed) {
+                        best = result;
+                    }
+                }
+                String pinnings = "-";
+                if (PinningDetector.isSupported()) {
+                    PinningDetector detector = PinningDetector.start();
+                    run(backend, wait, waiters);
+                    pinnings = String.valueOf(detector.stop().size());
+                }
+                out.printf("%-10s %-8s %8d %12.1f %14.0f %10s %10s%n", backend, wait, waiters, best.elapsed / 1e6,
+                        waiters * 1e9 / best.elapsed, best.stalled ? "yes" : "no", pinnings);
+            }
+        }
+    }
+
+    private static Result run(ThreadBackend backend, Wait wait, int waiters) throws InterruptedException {
+        Crowd crowd = new Crowd(waiters);
+        long begin = nanoTime();
+        for (int i = 0; i < waiters; i++) {
+            backend.start(wait.waiter(crowd));
+        }
+        boolean stalled = !crowd.started.await(START_TIMEOUT_SECONDS, SECONDS);
+        wait.release(crowd);
+        crowd.done.await();
+        return new Result(nanoTime() - begin, stalled);
+    }
+
+    private static final class Crowd {
+        final CountDownLatch started;
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done;
+        // guarded by this
+        boolean released;
+
+        Crowd(int waiters) {
+            started = new CountDownLatch(waiters);
+            done = new CountDownLatch(waiters);
+        }
+    }
+
+    private static final class Result {
+        final long elapsed;
+        final boolean stalled;
+
+        Result(long elapsed, boolean stalled) {
+            this.elapsed = elapsed;
+            this.stalled = stalled;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.ikatas.util.invoke;
+
+import com.ikatas.util.reflect.ClassInfo;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.WrongMethodTypeException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.lang.invoke.MethodHandles.constant;
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.explicitCastArguments;
+import static java.lang.invoke.MethodHandles.filterArguments;
+import static java.lang.invoke.MethodHandles.filterReturnValue;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.guardWithTest;
+import static java.lang.invoke.MethodHandles.identity;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Transforms records by a chain of stages assembled at runtime, e.g: from configuration, into a single method handle of
+ * type {@code (Object)Object}. A pipeline is made of segments separated by filters: the stages of a segment are chained
+ * by {@link MethodHandles#filterReturnValue}, a filter {@link MethodHandles#guardWithTest guards} the rest of the
+ * pipeline, which is fed the outcome of the segment before it by {@link MethodHandles#filterArguments}. A record any
+ * filter rejects is transformed to {@code null}, without running the stages after the filter.
+ * <p>
+ * The handle is the target of a {@link ConstantCallSite}. Once the {@link #dynamicInvoker()} is a constant, e.g: held
+ * in a {@code static final} field, the JIT inlines the whole pipeline into its caller as it would hand written code.
+ */
+public final class Pipeline {
+    private static final MethodHandle STRING_VALUE_OF;
+
+    static {
+        try {
+            STRING_VALUE_OF = MethodHandles.publicLookup().findStatic(String.class, "valueOf", methodType(String.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Class<?> recordType;
+    private final Class<?> outputType;
+    private final CallSite site;
+
+    private Pipeline(Class<?> recordType, Class<?> outputType, MethodHandle target) {
+        this.recordType = recordType;
+        this.outputType = outputType;
+        this.site = new ConstantCallSite(target);
+    }
+
+    /**
+     * Starts a pipeline transforming records of the type.
+     */
+    public static Builder of(Class<?> recordType) {
+        return new Builder(recordType);
+    }
+
+    /**
+     * @return a {@code (Object)Object} handle transforming a record, or returning {@code null} if a filter rejects it
+     */
+    public MethodHandle dynamicInvoker() {
+        return site.dynamicInvoker();
+    }
+
+    public Class<?> recordType() {
+        return recordType;
+    }
+
+    /**
+     * @return the type of the values the last stage returns, boxed by the invoker if primitive
+     */
+    public Class<?> outputType() {
+        return outputType;
+    }
+
+    /**
+     * Transforms a record through the call site, which the JIT can't inline unless the pipeline is a constant.
+     *
+     * @throws ClassCastException if the record isn't of the {@link #recordType()}
+     */
+    public Object apply(Object record) throws Throwable {
+        return site.getTarget().invokeExact(record);
+    }
+
+    @Override
+    public String toString() {
+        return format("Pipeline[%s -> %s]", recordType.getName(), outputType.getName());
+    }
+
+    public static final class Builder {
+        private final Class<?> recordType;
+        private final List<MethodHandle> segments = new ArrayList<>();
+        private final List<MethodHandle> filters = new ArrayList<>();
+        private MethodHandle segment;
+
+        private Builder(Class<?> recordType) {
+            this.recordType = recordType;
+            this.segment = identity(recordType);
+        }
+
+        /**
+         * @return the type of the values the stages added so far return
+         */
+        public Class<?> type() {
+            return segment.type().returnType();
+        }
+
+        /**
+         * Rejects the values the predicate, of type {@code (V)boolean}, doesn't accept.
+         */
+        public Builder filter(MethodHandle predicate) {
+            segments.add(segment);
+            filters.add(adapt("filter", predicate, boolean.class));
+            segment = identity(type());
+            return this;
+        }
+
+        /**
+         * Rejects the values whose declared no-arg boolean method of the name returns {@code false}.
+         */
+        public Builder filter(String method) {
+            return filter(ClassInfo.of(type()).handle(method));
+        }
+
+        /**
+         * Transforms the values by the function, of type {@code (V)W}.
+         */
+        public Builder map(MethodHandle function) {
+            segment = filterReturnValue(segment, adapt("map", function, function.type().returnType()));
+            return this;
+        }
+
+        /**
+         * Replaces the values by the declared field of the name, of any accessibility.
+         */
+        public Builder field(String name) {
+            return map(ClassInfo.of(type()).getter(name));
+        }
+
+        /**
+         * Replaces the values by what their declared no-arg method of the name returns.
+         */
+        public Builder call(String method) {
+            return map(ClassInfo.of(type()).handle(method));
+        }
+
+        /**
+         * Passes the values to the action, of type {@code (V)void}, before the next stage, e.g: to log them.
+         */
+        public Builder peek(MethodHandle action) {
+            MethodHandle peek = foldArguments(identity(type()), adapt("peek", action, void.class));
+            segment = filterReturnValue(segment, peek);
+            return this;
+        }
+
+        /**
+         * Converts the values to the type: strings are parsed into primitives and their wrappers by their
+         * {@code valueOf} methods, anything is converted to a string by {@link String#valueOf(Object)}, primitives and
+         * references are cast as by a Java cast, narrowing included, and boxing and unboxing are those of
+         * {@link MethodHandle#asType}.
+         *
+         * @throws IllegalArgumentException if the values can't be converted to the type
+         */
+        public Builder convert(Class<?> type) {
+            Class<?> from = type();
+            MethodHandle converter;
+            if (from == type) {
+                return this;
+            } else if (from == String.class && isParsable(type)) {
+                converter = parser(methodType(type).wrap().returnType());
+            } else if (type == String.class) {
+                converter = STRING_VALUE_OF;
+            } else if (from.isPrimitive() && type.isPrimitive()) {
+                converter = explicitCastArguments(identity(from), methodType(type, from));
+            } else if (!from.isPrimitive() && !type.isPrimitive() && !isCastable(from, type)) {
+                throw new IllegalArgumentException(format("can't convert %s to %s", from.getName(), type.getName()));
+            } else {
+                converter = identity(from);
+            }
+            return map(adapt("convert", converter, type, from));
+        }
+
+        public Pipeline build() {
+            MethodHandle tail = segment.asType(methodType(Object.class, segment.type().parameterType(0)));
+            for (int i = filters.size() - 1; i >= 0; i--) {
+                Class<?> type = filters.get(i).type().parameterType(0);
+                MethodHandle rejected = dropArguments(constant(Object.class, null), 0, type);
+                tail = filterArguments(guardWithTest(filters.get(i), tail, rejected), 0, segments.get(i));
+            }
+            return new Pipeline(recordType, type(), tail.asType(methodType(Object.class, Object.class)));
+        }
+
+        private MethodHandle adapt(String stage, MethodHandle handle, Class<?> returnType) {
+            return adapt(stage, handle, returnType, type());
+        }
+
+        private static MethodHandle adapt(String stage, MethodHandle handle, Class<?> returnType, Class<?> type) {
+            try {
+                return handle.asType(methodType(returnType, type));
+            } catch (WrongMethodTypeException e) {
+                throw new IllegalArgumentException(format("%s stage %s doesn't apply to %s", stage, handle.type(), type.getName()), e);
+            }
+        }
+
+        private static MethodHandle parser(Class<?> wrapper) {
+            try {
+                return MethodHandles.publicLookup().findStatic(wrapper, "valueOf", methodType(wrapper, String.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new IllegalArgumentException("can't parse strings into " + wrapper.getName(), e);
+            }
+        }
+
+        /**
+         * @return whether a reference of one type may be cast to the other, as the Java compiler decides; the cast by
+         * {@link MethodHandle#asType} accepts any reference type
+         */
+        private static boolean isCastable(Class<?> from, Class<?> to) {
+            return to.isAssignableFrom(from) || from.isAssignableFrom(to) || from.isInterface() || to.isInterface();
+        }
+
+        /**
+         * @return whether the type is a primitive or a wrapper, of a {@code valueOf(String)} method
+         */
+        private static boolean isParsable(Class<?> type) {
+            Class<?> primitive = methodType(type).unwrap().returnType();
+            return primitive.isPrimitive() && primitive != char.class && primitive != void.class;
+        }
+    }
+}
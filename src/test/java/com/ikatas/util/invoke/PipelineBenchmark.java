@@ -0,0 +1,159 @@
+package com.ikatas.util.invoke;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Compares transforming {@value #RECORDS} records by the same stages, keeping the open orders and parsing their
+ * quantity into a doubled {@code int}, through a {@link Pipeline} held in a constant, through the same pipeline held in
+ * a field, through a chain of {@link Function}s assembled at runtime, and through reflective calls. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args=PipelineBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+    static final int RECORDS = 1024;
+    // a constant, so the JIT inlines the pipeline into the benchmark loop
+    private static final MethodHandle PIPELINE = newPipeline().dynamicInvoker();
+
+    private final Pipeline pipeline = newPipeline();
+    private final Function<Object, Object> functions = newFunctions();
+    private Order[] orders;
+    private Field status, quantity;
+    private Method twice;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        Random random = new Random(42);
+        orders = new Order[RECORDS];
+        for (int i = 0; i < RECORDS; i++) {
+            orders[i] = new Order(random.nextInt(4) == 0 ? "closed" : "open", String.valueOf(random.nextInt(1000)));
+        }
+        status = Order.class.getDeclaredField("status");
+        status.setAccessible(true);
+        quantity = Order.class.getDeclaredField("quantity");
+        quantity.setAccessible(true);
+        twice = PipelineBenchmark.class.getDeclaredMethod("twice", int.class);
+    }
+
+    @Benchmark
+    public long constantPipeline() throws Throwable {
+        long sum = 0;
+        for (Order order : orders) {
+            Object value = (Object) PIPELINE.invokeExact((Object) order);
+            if (value != null) {
+                sum += (Integer) value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long pipeline() throws Throwable {
+        long sum = 0;
+        for (Order order : orders) {
+            Object value = pipeline.apply(order);
+            if (value != null) {
+                sum += (Integer) value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long functions() {
+        long sum = 0;
+        for (Order order : orders) {
+            Object value = functions.apply(order);
+            if (value != null) {
+                sum += (Integer) value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long reflection() throws ReflectiveOperationException {
+        long sum = 0;
+        for (Order order : orders) {
+            if (status.get(order).equals("open")) {
+                Object parsed = Integer.valueOf((String) quantity.get(order));
+                sum += (Integer) twice.invoke(null, parsed);
+            }
+        }
+        return sum;
+    }
+
+    private static Pipeline newPipeline() {
+        try {
+            return Pipeline.of(Order.class).filter("isOpen").field("quantity").convert(int.class)
+                    .map(lookup().findStatic(PipelineBenchmark.class, "twice", methodType(int.class, int.class)))
+                    .build();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The same stages as a chain of functions, where a filter rejects a record by {@code null}.
+     */
+    private static Function<Object, Object> newFunctions() {
+        Function<Object, Object> filter = record -> ((Order) record).isOpen() ? record : null;
+        Function<Object, Object> field = record -> ((Order) record).quantity;
+        Function<Object, Object> convert = value -> Integer.valueOf((String) value);
+        Function<Object, Object> map = value -> twice((Integer) value);
+        List<Function<Object, Object>> stages = List.of(field, convert, map);
+        Function<Object, Object> chain = filter;
+        for (Function<Object, Object> stage : stages) {
+            Function<Object, Object> previous = chain;
+            chain = record -> {
+                Object value = previous.apply(record);
+                return value == null ? null : stage.apply(value);
+            };
+        }
+        return chain;
+    }
+
+    private static int twice(int value) {
+        return 2 * value;
+    }
+
+    static class Order {
+        private final String status;
+        private final String quantity;
+
+        Order(String status, String quantity) {
+            this.status = status;
+            this.quantity = quantity;
+        }
+
+        private boolean isOpen() {
+            return status.equals("open");
+        }
+    }
+}
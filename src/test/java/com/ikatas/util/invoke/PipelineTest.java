@@ -0,0 +1,102 @@
+package com.ikatas.util.invoke;
+
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodType.methodType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class PipelineTest {
+    private static final List<Object> peeked = new ArrayList<>();
+
+    @Test
+    public void transformsRecordsByFieldsAndConversions() throws Throwable {
+        Pipeline pipeline = Pipeline.of(Order.class).field("quantity").convert(int.class).map(handle("twice")).build();
+
+        assertThat(pipeline.apply(new Order("open", "21")), equalTo(42));
+        assertThat(pipeline.outputType(), equalTo(int.class));
+        assertThat((Object) pipeline.dynamicInvoker().invokeExact((Object) new Order("open", "4")), equalTo(8));
+    }
+
+    @Test
+    public void rejectsRecordsWithoutRunningTheStagesAfterTheFilter() throws Throwable {
+        peeked.clear();
+        Pipeline pipeline = Pipeline.of(Order.class).filter("isOpen").peek(handle("peek")).field("quantity")
+                .convert(long.class).filter(handle("isPositive")).convert(String.class).build();
+
+        assertThat(pipeline.apply(new Order("open", "3")), equalTo("3"));
+        assertThat(pipeline.apply(new Order("closed", "3")), is(nullValue()));
+        assertThat(pipeline.apply(new Order("open", "-3")), is(nullValue()));
+        assertThat(peeked, hasSize(2));
+    }
+
+    @Test
+    public void convertsPrimitivesAsJavaCasts() throws Throwable {
+        Pipeline pipeline = Pipeline.of(Order.class).field("quantity").convert(Integer.class).convert(int.class)
+                .convert(byte.class).build();
+
+        assertThat(pipeline.apply(new Order("open", "300")), equalTo((byte) 44));
+    }
+
+    @Test
+    public void rejectsStagesWhichDoNotApplyToTheValues() {
+        Pipeline.Builder builder = Pipeline.of(Order.class).field("status");
+
+        assertThrows(IllegalArgumentException.class, () -> builder.map(handle("twice")));
+        assertThrows(IllegalArgumentException.class, () -> builder.convert(Order.class));
+        assertThrows(IllegalArgumentException.class, () -> builder.convert(char.class));
+        assertThrows(NoSuchFieldError.class, () -> builder.field("missing"));
+    }
+
+    @Test
+    public void rejectsRecordsOfOtherTypes() {
+        Pipeline pipeline = Pipeline.of(Order.class).field("status").build();
+
+        assertThrows(ClassCastException.class, () -> pipeline.apply("open"));
+    }
+
+    private static MethodHandle handle(String name) {
+        try {
+            for (var method : PipelineTest.class.getDeclaredMethods()) {
+                if (method.getName().equals(name)) {
+                    return lookup().unreflect(method);
+                }
+            }
+            throw new NoSuchMethodException(name);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int twice(int value) {
+        return 2 * value;
+    }
+
+    private static boolean isPositive(long value) {
+        return value > 0;
+    }
+
+    private static void peek(Object value) {
+        peeked.add(value);
+    }
+
+    static class Order {
+        private final String status;
+        private final String quantity;
+
+        Order(String status, String quantity) {
+            this.status = status;
+            this.quantity = quantity;
+        }
+
+        private boolean isOpen() {
+            return status.equals("open");
+        }
+    }
+}
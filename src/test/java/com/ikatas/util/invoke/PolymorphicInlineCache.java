@@ -0,0 +1,281 @@
+package com.ikatas.util.invoke;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.lang.invoke.MethodHandles.exactInvoker;
+import static java.lang.invoke.MethodHandles.filterArguments;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.guardWithTest;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodHandles.privateLookupIn;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Invokes a method by name on receivers of any class, including same-named classes defined by different class
+ * loaders, which a handle looked up for one of them can't be applied to. The invoker is a {@link MutableCallSite} whose
+ * target is a chain of {@link MethodHandles#guardWithTest guards} on the receiver class identity, each leading to the
+ * handle of the method resolved for that class. Once more than {@code depth} receiver classes are seen, the site
+ * becomes megamorphic and dispatches through a {@link ClassValue} instead of growing the chain.
+ * <p>
+ * The JIT inlines through the site as long as its {@link #dynamicInvoker()} is a constant, e.g: held in a
+ * {@code static final} field. The guards keep the receiver classes, and thus their loaders, reachable as long as the
+ * cache is; the megamorphic path doesn't.
+ */
+public final class PolymorphicInlineCache {
+    private static final MethodHandle IS_CLASS, GET_CLASS, FALLBACK, RESOLVE;
+
+    static {
+        Lookup lookup = MethodHandles.lookup();
+        try {
+            IS_CLASS = lookup.findStatic(PolymorphicInlineCache.class, "isClass", methodType(boolean.class, Class.class, Object.class));
+            GET_CLASS = lookup.findVirtual(Object.class, "getClass", methodType(Class.class));
+            FALLBACK = lookup.findVirtual(PolymorphicInlineCache.class, "fallback", methodType(Object.class, Object[].class));
+            RESOLVE = lookup.findVirtual(ClassValue.class, "get", methodType(Object.class, Class.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Lookup lookup;
+    private final String name;
+    private final MethodType type;
+    private final int depth;
+    private final MutableCallSite site;
+    private final Deque<Class<?>> receiverClasses = new ArrayDeque<>();
+    private final ClassValue<MethodHandle> resolved = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> receiverClass) {
+            return resolve(receiverClass);
+        }
+    };
+    private volatile boolean megamorphic;
+
+    private PolymorphicInlineCache(Lookup lookup, String name, MethodType type, int depth) {
+        this.lookup = lookup;
+        this.name = name;
+        this.type = type;
+        this.depth = depth;
+        this.site = new MutableCallSite(type);
+        site.setTarget(FALLBACK.bindTo(this).asCollector(Object[].class, type.parameterCount()).asType(type));
+    }
+
+    /**
+     * @param lookup the lookup whose access to the receiver classes is used to find the methods, private methods are
+     *               accessible if the receiver classes are in modules open to the lookup class, as unnamed modules are
+     * @param type   the type of the invoker, whose first parameter is the receiver, e.g: {@code (Object,int)String}
+     * @param depth  the number of receiver classes cached before the site becomes megamorphic
+     */
+    public static PolymorphicInlineCache of(Lookup lookup, String name, MethodType type, int depth) {
+        if (type.parameterCount() == 0 || type.parameterType(0).isPrimitive()) {
+            throw new IllegalArgumentException("no receiver parameter: " + type);
+        }
+        if (depth < 0) {
+            throw new IllegalArgumentException("negative depth: " + depth);
+        }
+        return new PolymorphicInlineCache(lookup, name, type, depth);
+    }
+
+    /**
+     * @return a handle of the {@link #type()} which dispatches on the class of its first argument
+     */
+    public MethodHandle dynamicInvoker() {
+        return site.dynamicInvoker();
+    }
+
+    public MethodType type() {
+        return type;
+    }
+
+    /**
+     * @return the number of receiver classes with a guard in the cache
+     */
+    public synchronized int depth() {
+        return receiverClasses.size();
+    }
+
+    public boolean isMegamorphic() {
+        return megamorphic;
+    }
+
+    private static boolean isClass(Class<?> expected, Object receiver) {
+        return receiver != null && receiver.getClass() == expected;
+    }
+
+    /**
+     * The target of the site once no guard matches: links the method of the receiver class in front of the chain, or
+     * switches the site to the megamorphic path once the chain is full, then invokes the method.
+     */
+    private Object fallback(Object[] args) throws Throwable {
+        Object receiver = args[0];
+        if (receiver == null) {
+            throw new NullPointerException(format("invoke %s on null", name));
+        }
+        Class<?> receiverClass = receiver.getClass();
+        MethodHandle target = resolved.get(receiverClass);
+        synchronized (this) {
+            if (!megamorphic && !receiverClasses.contains(receiverClass)) {
+                if (receiverClasses.size() < depth) {
+                    MethodHandle test = insertArguments(IS_CLASS, 0, receiverClass).asType(methodType(boolean.class, type.parameterType(0)));
+                    site.setTarget(guardWithTest(test, target, site.getTarget()));
+                    receiverClasses.push(receiverClass);
+                } else {
+                    site.setTarget(megamorphicTarget());
+                    receiverClasses.clear();
+                    megamorphic = true;
+                }
+            }
+        }
+        return target.invokeWithArguments(args);
+    }
+
+    /**
+     * @return {@code (receiver, args...) -> resolved.get(receiver.getClass()).invokeExact(receiver, args...)}
+     */
+    private MethodHandle megamorphicTarget() {
+        MethodHandle lookupTarget = filterArguments(RESOLVE.bindTo(resolved), 0, GET_CLASS)
+                .asType(methodType(MethodHandle.class, type.parameterType(0)));
+        return foldArguments(exactInvoker(type), lookupTarget);
+    }
+
+    /**
+     * Selects the method of the name the way {@code invokevirtual} would: the private methods declared by the receiver
+     * class and the non-private methods of it and its super classes, the most derived overriding, then the default
+     * methods of its interfaces, those of the most specific interface overriding. Among the overloads the invoker
+     * arguments convert to, the one of exactly the invoker parameter types wins, else the most specific one.
+     */
+    private MethodHandle resolve(Class<?> receiverClass) {
+        Map<List<Class<?>>, List<Method>> overloads = new LinkedHashMap<>();
+        for (Class<?> c = receiverClass; c != null; c = c.getSuperclass()) {
+            for (Method method : declaredMethods(c)) {
+                if (c == receiverClass || !Modifier.isPrivate(method.getModifiers())) {
+                    overloads.putIfAbsent(Arrays.asList(method.getParameterTypes()), Collections.singletonList(method));
+                }
+            }
+        }
+        defaultMethods(receiverClass).forEach(overloads::putIfAbsent);
+        List<Method> candidates = select(receiverClass, overloads);
+        if (candidates.size() > 1) {
+            throw new IncompatibleClassChangeError(format("conflicting default methods: %s", candidates));
+        }
+        try {
+            Method method = candidates.get(0);
+            return privateLookupIn(method.getDeclaringClass(), lookup).unreflect(method).asType(type);
+        } catch (IllegalAccessException e) {
+            throw new IllegalAccessError(e.getMessage());
+        }
+    }
+
+    /**
+     * @return the default methods of all interfaces of the class by parameter types, without those a sub interface
+     * overrides, more than one if unrelated interfaces declare them
+     */
+    private Map<List<Class<?>>, List<Method>> defaultMethods(Class<?> receiverClass) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        for (Class<?> c = receiverClass; c != null; c = c.getSuperclass()) {
+            pending.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        while (!pending.isEmpty()) {
+            Class<?> c = pending.poll();
+            if (interfaces.add(c)) {
+                pending.addAll(Arrays.asList(c.getInterfaces()));
+            }
+        }
+        Map<List<Class<?>>, List<Method>> defaults = new LinkedHashMap<>();
+        for (Class<?> c : interfaces) {
+            for (Method method : declaredMethods(c)) {
+                if (!method.isDefault()) {
+                    continue;
+                }
+                List<Method> candidates = defaults.computeIfAbsent(Arrays.asList(method.getParameterTypes()), it -> new ArrayList<>());
+                if (candidates.stream().noneMatch(it -> c.isAssignableFrom(it.getDeclaringClass()))) {
+                    candidates.removeIf(it -> it.getDeclaringClass().isAssignableFrom(c));
+                    candidates.add(method);
+                }
+            }
+        }
+        return defaults;
+    }
+
+    private List<Method> select(Class<?> receiverClass, Map<List<Class<?>>, List<Method>> overloads) {
+        List<Class<?>> parameters = type.dropParameterTypes(0, 1).parameterList();
+        if (overloads.containsKey(parameters)) {
+            return overloads.get(parameters);
+        }
+        List<List<Class<?>>> applicable = new ArrayList<>();
+        for (List<Class<?>> candidate : overloads.keySet()) {
+            try {
+                MethodHandles.empty(methodType(void.class, candidate)).asType(methodType(void.class, parameters));
+                applicable.add(candidate);
+            } catch (WrongMethodTypeException e) {
+                // an overload of other parameter types
+            }
+        }
+        for (List<Class<?>> candidate : applicable) {
+            if (applicable.stream().allMatch(it -> it == candidate || isMoreSpecific(candidate, it))) {
+                return overloads.get(candidate);
+            }
+        }
+        if (applicable.isEmpty()) {
+            throw new NoSuchMethodError(format("%s.%s%s", receiverClass.getName(), name, type.dropParameterTypes(0, 1)));
+        }
+        throw new IncompatibleClassChangeError(format("ambiguous overloads of %s.%s for %s: %s",
+                receiverClass.getName(), name, type.dropParameterTypes(0, 1), applicable));
+    }
+
+    private List<Method> declaredMethods(Class<?> declaringClass) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : declaringClass.getDeclaredMethods()) {
+            if (method.getName().equals(name) && !Modifier.isStatic(method.getModifiers()) && !method.isBridge()
+                    && !Modifier.isAbstract(method.getModifiers()) && method.getParameterCount() == type.parameterCount() - 1) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private static boolean isMoreSpecific(List<Class<?>> parameters, List<Class<?>> than) {
+        for (int i = 0; i < parameters.size(); i++) {
+            if (!isSubtype(parameters.get(i), than.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the type is a sub type of the other, by widening for primitives
+     */
+    private static boolean isSubtype(Class<?> type, Class<?> of) {
+        if (type.isPrimitive() != of.isPrimitive()) {
+            return false;
+        }
+        if (!type.isPrimitive()) {
+            return of.isAssignableFrom(type);
+        }
+        try {
+            MethodHandles.identity(of).asType(methodType(of, type));
+            return true;
+        } catch (WrongMethodTypeException e) {
+            return false;
+        }
+    }
+}
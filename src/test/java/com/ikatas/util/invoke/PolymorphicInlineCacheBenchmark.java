@@ -0,0 +1,110 @@
+package com.ikatas.util.invoke;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodHandles.privateLookupIn;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Compares invoking a private method on instances of same-named classes from {@code receivers} class loaders through
+ * a {@link PolymorphicInlineCache} of depth {@value #DEPTH}, through handles cached in a {@link ClassValue}, and
+ * through reflection. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args=PolymorphicInlineCacheBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolymorphicInlineCacheBenchmark {
+    static final int DEPTH = 4;
+    // a constant, so the JIT inlines through the call site; each fork runs a single receivers count
+    private static final MethodHandle INVOKER = PolymorphicInlineCache.of(lookup(), "add", methodType(int.class, Object.class, int.class), DEPTH).dynamicInvoker();
+
+    private static final ClassValue<MethodHandle> handles = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return privateLookupIn(type, lookup()).findVirtual(type, "add", methodType(int.class, int.class))
+                        .asType(methodType(int.class, Object.class, int.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ClassValue<Method> methods = new ClassValue<Method>() {
+        @Override
+        protected Method computeValue(Class<?> type) {
+            try {
+                Method method = type.getDeclaredMethod("add", int.class);
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    @Param({"1", "2", "4", "8"})
+    private int receivers;
+
+    private Object[] plugins;
+    private int next;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        plugins = new Object[receivers];
+        for (int i = 0; i < receivers; i++) {
+            plugins[i] = directClassLoader(true).loadClass(Plugin.class.getName()).getDeclaredConstructor().newInstance();
+        }
+    }
+
+    private Object nextPlugin() {
+        Object plugin = plugins[next];
+        next = next + 1 == plugins.length ? 0 : next + 1;
+        return plugin;
+    }
+
+    @Benchmark
+    public int inlineCache() throws Throwable {
+        return (int) INVOKER.invokeExact(nextPlugin(), 1);
+    }
+
+    @Benchmark
+    public int classValueHandle() throws Throwable {
+        Object plugin = nextPlugin();
+        return (int) handles.get(plugin.getClass()).invokeExact(plugin, 1);
+    }
+
+    @Benchmark
+    public int reflection() throws ReflectiveOperationException {
+        Object plugin = nextPlugin();
+        return (int) methods.get(plugin.getClass()).invoke(plugin, 1);
+    }
+
+    public static class Plugin {
+        private int add(int value) {
+            return value + 1;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.ikatas.util.invoke;
+
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.lang.invoke.MethodType.methodType;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class PolymorphicInlineCacheTest {
+    private final PolymorphicInlineCache loaderOf = PolymorphicInlineCache.of(lookup(), "loader", methodType(Object.class, Object.class), 2);
+
+    @Test
+    public void dispatchesPrivateMethodsOfSameNamedClassesFromDifferentLoaders() throws Throwable {
+        MethodHandle invoker = loaderOf.dynamicInvoker();
+
+        for (Object plugin : plugins(2)) {
+            assertThat(invoker.invoke(plugin), sameInstance(plugin.getClass().getClassLoader()));
+            assertThat(invoker.invoke(plugin), sameInstance(plugin.getClass().getClassLoader()));
+        }
+        assertThat(loaderOf.depth(), equalTo(2));
+        assertThat(loaderOf.isMegamorphic(), is(false));
+    }
+
+    @Test
+    public void becomesMegamorphicOnceReceiverClassesExceedTheDepth() throws Throwable {
+        MethodHandle invoker = loaderOf.dynamicInvoker();
+
+        List<Object> plugins = plugins(4);
+        for (Object plugin : plugins) {
+            invoker.invoke(plugin);
+        }
+
+        assertThat(loaderOf.isMegamorphic(), is(true));
+        assertThat(loaderOf.depth(), equalTo(0));
+        for (Object plugin : plugins) {
+            assertThat(invoker.invoke(plugin), sameInstance(plugin.getClass().getClassLoader()));
+        }
+    }
+
+    @Test
+    public void invokerIsTypeExact() throws Throwable {
+        MethodHandle add = PolymorphicInlineCache.of(lookup(), "add", methodType(int.class, Object.class, int.class), 1).dynamicInvoker();
+
+        int sum = (int) add.invokeExact(plugins(1).get(0), 2);
+
+        assertThat(sum, equalTo(3));
+    }
+
+    @Test
+    public void dispatchesTheExactOrMostSpecificOverload() throws Throwable {
+        MethodHandle addShort = PolymorphicInlineCache.of(lookup(), "add", methodType(long.class, Object.class, short.class), 1).dynamicInvoker();
+        MethodHandle addLong = PolymorphicInlineCache.of(lookup(), "add", methodType(long.class, Object.class, long.class), 1).dynamicInvoker();
+
+        assertThat((long) addShort.invokeExact((Object) new Plugin(), (short) 2), equalTo(3L));
+        assertThat((long) addLong.invokeExact((Object) new Plugin(), 2L), equalTo(4L));
+    }
+
+    @Test
+    public void dispatchesInheritedAndDefaultMethods() throws Throwable {
+        MethodHandle version = PolymorphicInlineCache.of(lookup(), "version", methodType(int.class, Object.class), 2).dynamicInvoker();
+        MethodHandle name = PolymorphicInlineCache.of(lookup(), "name", methodType(String.class, Object.class), 2).dynamicInvoker();
+
+        assertThat((int) version.invokeExact((Object) new SubPlugin()), equalTo(1));
+        assertThat((String) name.invokeExact((Object) new SubPlugin()), equalTo("sub"));
+        assertThat((String) name.invokeExact((Object) new RenamedPlugin()), equalTo("renamed"));
+    }
+
+    @Test
+    public void doesNotDispatchPrivateMethodsOfSuperClasses() {
+        MethodHandle invoker = loaderOf.dynamicInvoker();
+
+        assertThrows(NoSuchMethodError.class, () -> invoker.invoke(new SubPlugin()));
+    }
+
+    @Test
+    public void failsWithNoSuchMethodErrorOnReceiversWithoutTheMethod() {
+        MethodHandle invoker = loaderOf.dynamicInvoker();
+
+        assertThrows(NoSuchMethodError.class, () -> invoker.invoke("plugin"));
+        assertThrows(NullPointerException.class, () -> invoker.invoke(null));
+    }
+
+    private static List<Object> plugins(int count) throws ReflectiveOperationException {
+        List<Object> plugins = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Class<?> pluginClass = directClassLoader(true).loadClass(Plugin.class.getName());
+            plugins.add(pluginClass.getDeclaredConstructor().newInstance());
+        }
+        return plugins;
+    }
+
+    public static class Plugin {
+        private Object loader() {
+            return getClass().getClassLoader();
+        }
+
+        private int add(int value) {
+            return value + 1;
+        }
+
+        private long add(long value) {
+            return value + 2;
+        }
+
+        int version() {
+            return 1;
+        }
+    }
+
+    interface Named {
+        default String name() {
+            return "sub";
+        }
+    }
+
+    interface Renamed extends Named {
+        @Override
+        default String name() {
+            return "renamed";
+        }
+    }
+
+    static class SubPlugin extends Plugin implements Named {
+    }
+
+    static class RenamedPlugin implements Named, Renamed {
+    }
+}
@@ -0,0 +1,114 @@
+package com.ikatas.util.io;
+
+import java.lang.invoke.VarHandle;
+
+import static java.lang.invoke.MethodHandles.byteArrayViewVarHandle;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.Objects.checkFromIndexSize;
+
+/**
+ * Bulk primitive conversions between arrays, with the semantics of the casts of JLS 5.1.2 and 5.1.3 applied to each
+ * element. The loops are counted loops over {@code int} indexes with no calls and no early exits, the shape C2's
+ * auto-vectorizer compiles to SIMD instructions; it handles conversions between element sizes since JDK 20, older JITs
+ * compile these loops to scalar code. The ASCII check of byte arrays doesn't depend on that: it reads them a
+ * {@code long} word at a time through a {@link VarHandle} view. The arguments are checked up front like
+ * {@link System#arraycopy} does, so the loops need no range checks of their own.
+ */
+public final class ArrayConversions {
+    private static final VarHandle LONGS = byteArrayViewVarHandle(long[].class, LITTLE_ENDIAN);
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private ArrayConversions() {
+    }
+
+    /**
+     * Narrows each char to a byte as {@code (byte) c} does, keeping its low 8 bits.
+     */
+    public static void narrow(char[] src, int srcPos, byte[] dest, int destPos, int length) {
+        checkFromIndexSize(srcPos, length, src.length);
+        checkFromIndexSize(destPos, length, dest.length);
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = (byte) src[srcPos + i];
+        }
+    }
+
+    /**
+     * Widens each byte to a char as {@code (char) (b & 0xff)} does, i.e: decodes Latin-1. Unlike the cast
+     * {@code (char) b}, which sign-extends, it maps {@link #narrow} back for chars below {@code 0x100}.
+     */
+    public static void widen(byte[] src, int srcPos, char[] dest, int destPos, int length) {
+        checkFromIndexSize(srcPos, length, src.length);
+        checkFromIndexSize(destPos, length, dest.length);
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = (char) (src[srcPos + i] & 0xff);
+        }
+    }
+
+    /**
+     * Widens each byte to an int as {@code (int) b} does.
+     */
+    public static void signExtend(byte[] src, int srcPos, int[] dest, int destPos, int length) {
+        checkFromIndexSize(srcPos, length, src.length);
+        checkFromIndexSize(destPos, length, dest.length);
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = src[srcPos + i];
+        }
+    }
+
+    /**
+     * Widens each byte to an int as {@link Byte#toUnsignedInt(byte)} does.
+     */
+    public static void zeroExtend(byte[] src, int srcPos, int[] dest, int destPos, int length) {
+        checkFromIndexSize(srcPos, length, src.length);
+        checkFromIndexSize(destPos, length, dest.length);
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = src[srcPos + i] & 0xff;
+        }
+    }
+
+    /**
+     * Widens each int to a long as {@code (long) i} does.
+     */
+    public static void widen(int[] src, int srcPos, long[] dest, int destPos, int length) {
+        checkFromIndexSize(srcPos, length, src.length);
+        checkFromIndexSize(destPos, length, dest.length);
+        for (int i = 0; i < length; i++) {
+            dest[destPos + i] = src[srcPos + i];
+        }
+    }
+
+    public static boolean isAscii(byte[] bytes) {
+        return isAscii(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return whether no byte of the range has its high bit set, testing eight bytes per step
+     */
+    public static boolean isAscii(byte[] bytes, int offset, int length) {
+        checkFromIndexSize(offset, length, bytes.length);
+        int end = offset + length, i = offset;
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            if (((long) LONGS.get(bytes, i) & HIGH_BITS) != 0) {
+                return false;
+            }
+        }
+        for (; i < end; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether all chars of the range are below {@code 0x80}, i.e: {@link #narrow} encodes them as US-ASCII
+     */
+    public static boolean isAscii(char[] chars, int offset, int length) {
+        checkFromIndexSize(offset, length, chars.length);
+        int bits = 0;
+        for (int i = 0; i < length; i++) {
+            bits |= chars[offset + i];
+        }
+        return bits < 0x80;
+    }
+}
@@ -0,0 +1,139 @@
+package com.ikatas.util.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ArrayConversions} kernels over arrays of {@code size} elements, and compares the word-at-a-time
+ * ASCII check with a byte-at-a-time one. Every trial checks the converted arrays against the casts applied element by
+ * element, so a miscompiled kernel fails the run. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args=ArrayConversionsBenchmark
+ * </pre>
+ * Appending {@code -jvmArgsAppend -XX:-UseSuperWord} to the arguments disables auto-vectorization, giving the scalar
+ * baseline of the other kernels; on JDK 17 both runs measure the same, about 0.5 ns per element, since its C2 doesn't
+ * vectorize conversions between element sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArrayConversionsBenchmark {
+    @Param({"1024", "1048576"})
+    private int size;
+
+    private char[] chars;
+    private byte[] bytes, ascii;
+    private int[] ints;
+    private long[] longs;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(size);
+        chars = new char[size];
+        bytes = new byte[size];
+        ascii = new byte[size];
+        ints = new int[size];
+        longs = new long[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) random.nextInt();
+            ascii[i] = (byte) random.nextInt(0x80);
+        }
+    }
+
+    @TearDown
+    public void verify() {
+        ArrayConversions.narrow(chars, 0, bytes, 0, size);
+        for (int i = 0; i < size; i++) {
+            check(bytes[i] == (byte) chars[i], "narrow", i);
+        }
+        ArrayConversions.widen(bytes, 0, chars, 0, size);
+        for (int i = 0; i < size; i++) {
+            check(chars[i] == (char) (bytes[i] & 0xff), "widen", i);
+        }
+        ArrayConversions.signExtend(bytes, 0, ints, 0, size);
+        for (int i = 0; i < size; i++) {
+            check(ints[i] == (int) bytes[i], "signExtend", i);
+        }
+        ArrayConversions.zeroExtend(bytes, 0, ints, 0, size);
+        for (int i = 0; i < size; i++) {
+            check(ints[i] == Byte.toUnsignedInt(bytes[i]), "zeroExtend", i);
+        }
+        ArrayConversions.widen(ints, 0, longs, 0, size);
+        for (int i = 0; i < size; i++) {
+            check(longs[i] == (long) ints[i], "widen", i);
+        }
+        check(ArrayConversions.isAscii(ascii) && byteAtATimeIsAscii(), "isAscii", -1);
+    }
+
+    private static void check(boolean matches, String kernel, int index) {
+        if (!matches) {
+            throw new IllegalStateException(kernel + " differs from the cast at index " + index);
+        }
+    }
+
+    @Benchmark
+    public byte[] narrowCharsToBytes() {
+        ArrayConversions.narrow(chars, 0, bytes, 0, size);
+        return bytes;
+    }
+
+    @Benchmark
+    public char[] widenBytesToChars() {
+        ArrayConversions.widen(bytes, 0, chars, 0, size);
+        return chars;
+    }
+
+    @Benchmark
+    public int[] signExtendBytesToInts() {
+        ArrayConversions.signExtend(bytes, 0, ints, 0, size);
+        return ints;
+    }
+
+    @Benchmark
+    public int[] zeroExtendBytesToInts() {
+        ArrayConversions.zeroExtend(bytes, 0, ints, 0, size);
+        return ints;
+    }
+
+    @Benchmark
+    public long[] widenIntsToLongs() {
+        ArrayConversions.widen(ints, 0, longs, 0, size);
+        return longs;
+    }
+
+    @Benchmark
+    public boolean wordAtATimeIsAscii() {
+        return ArrayConversions.isAscii(ascii);
+    }
+
+    @Benchmark
+    public boolean charsAreAscii() {
+        return ArrayConversions.isAscii(chars, 0, size);
+    }
+
+    @Benchmark
+    public boolean byteAtATimeIsAscii() {
+        for (byte b : ascii) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
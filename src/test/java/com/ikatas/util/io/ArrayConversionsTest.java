@@ -0,0 +1,113 @@
+package com.ikatas.util.io;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+public class ArrayConversionsTest {
+    private static final byte[] ALL_BYTES = new byte[256];
+
+    static {
+        for (int i = 0; i < ALL_BYTES.length; i++) {
+            ALL_BYTES[i] = (byte) (i + Byte.MIN_VALUE);
+        }
+    }
+
+    @Test
+    public void narrowsCharsAsCastsDo() {
+        char[] chars = new char[Character.MAX_VALUE + 1];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) i;
+        }
+        byte[] bytes = new byte[chars.length];
+
+        ArrayConversions.narrow(chars, 0, bytes, 0, chars.length);
+
+        for (int i = 0; i < chars.length; i++) {
+            assertThat(bytes[i], equalTo((byte) chars[i]));
+        }
+    }
+
+    @Test
+    public void widensBytesToCharsByZeroExtension() {
+        char[] chars = new char[ALL_BYTES.length];
+
+        ArrayConversions.widen(ALL_BYTES, 0, chars, 0, ALL_BYTES.length);
+
+        for (int i = 0; i < chars.length; i++) {
+            assertThat(chars[i], equalTo((char) Byte.toUnsignedInt(ALL_BYTES[i])));
+            assertThat((byte) chars[i], equalTo(ALL_BYTES[i]));
+        }
+    }
+
+    @Test
+    public void extendsBytesToIntsAsCastsDo() {
+        int[] signed = new int[ALL_BYTES.length], unsigned = new int[ALL_BYTES.length];
+
+        ArrayConversions.signExtend(ALL_BYTES, 0, signed, 0, ALL_BYTES.length);
+        ArrayConversions.zeroExtend(ALL_BYTES, 0, unsigned, 0, ALL_BYTES.length);
+
+        for (int i = 0; i < ALL_BYTES.length; i++) {
+            assertThat(signed[i], equalTo((int) ALL_BYTES[i]));
+            assertThat(unsigned[i], equalTo(Byte.toUnsignedInt(ALL_BYTES[i])));
+        }
+    }
+
+    @Test
+    public void widensIntsToLongsAsCastsDo() {
+        int[] ints = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE};
+        long[] longs = new long[ints.length];
+
+        ArrayConversions.widen(ints, 0, longs, 0, ints.length);
+
+        assertThat(longs, equalTo(new long[]{Integer.MIN_VALUE, -1L, 0L, 1L, Integer.MAX_VALUE}));
+    }
+
+    @Test
+    public void convertsOnlyTheGivenRanges() {
+        char[] chars = "<abc>".toCharArray();
+        byte[] bytes = new byte[5];
+
+        ArrayConversions.narrow(chars, 1, bytes, 2, 3);
+
+        assertThat(bytes, equalTo(new byte[]{0, 0, 'a', 'b', 'c'}));
+    }
+
+    @Test
+    public void rejectsRangesOutOfBounds() {
+        assertThrows(IndexOutOfBoundsException.class, () -> ArrayConversions.narrow(new char[4], 1, new byte[4], 0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> ArrayConversions.widen(new int[4], 0, new long[3], 0, 4));
+        assertThrows(IndexOutOfBoundsException.class, () -> ArrayConversions.isAscii(new byte[4], -1, 2));
+    }
+
+    @Test
+    public void detectsNonAsciiAtAnyPositionOfAnyRange() {
+        for (int length = 0; length < 20; length++) {
+            byte[] bytes = new byte[length + 2];
+            Arrays.fill(bytes, (byte) 'a');
+            char[] chars = new char[length + 2];
+            Arrays.fill(chars, 'a');
+            assertThat(ArrayConversions.isAscii(bytes, 1, length), is(true));
+            assertThat(ArrayConversions.isAscii(chars, 1, length), is(true));
+
+            bytes[0] = bytes[length + 1] = (byte) 0x80;
+            chars[0] = chars[length + 1] = 'é';
+            assertThat(ArrayConversions.isAscii(bytes, 1, length), is(true));
+            assertThat(ArrayConversions.isAscii(chars, 1, length), is(true));
+
+            for (int i = 1; i <= length; i++) {
+                bytes[i] = (byte) 0x80;
+                chars[i] = 'Ā';
+                assertThat(ArrayConversions.isAscii(bytes, 1, length), is(false));
+                assertThat(ArrayConversions.isAscii(chars, 1, length), is(false));
+                bytes[i] = 'a';
+                chars[i] = 'a';
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.ikatas.util.io;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * Pools direct byte buffers in power-of-two size classes. Released buffers go to a small cache of the releasing thread
+ * first and to a shared free list of their size class once that is full.
+ * <p>
+ * The pool hands out views of its buffers, each tracked by a {@link PhantomReference} which the pool keeps strongly
+ * reachable: a phantom reference that becomes unreachable itself is never enqueued, and its buffer would be lost to
+ * the pool. So a view the application drops without {@link #release(ByteBuffer) releasing} it is enqueued once it is
+ * collected, and {@link #drain() draining} the queue returns its buffer to the pool and counts a leak. Draining
+ * happens whenever a size class runs out of free buffers.
+ * <p>
+ * Only the view is tracked: the buffers derived from it, by {@link ByteBuffer#slice() slicing} or
+ * {@link ByteBuffer#duplicate() duplicating} it or viewing it as another type of buffer, refer to the memory of the
+ * pooled buffer rather than to the view, so they must not outlive the view. A view collected while a buffer derived
+ * from it is still in use returns memory to the pool which that buffer keeps reading and writing.
+ */
+public final class DirectBufferPool {
+    private final int minShift;
+    private final int threadCacheSize;
+    private final Queue<ByteBuffer>[] freeLists;
+    private final ThreadLocal<ArrayDeque<ByteBuffer>[]> threadCaches;
+    private final Map<Key, Tracker> trackers = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ByteBuffer> leaked = new ReferenceQueue<>();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong inUseBytes = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+
+    /**
+     * @param minSize         the size of the smallest class, rounded up to a power of two
+     * @param maxSize         the size of the largest class, rounded up to a power of two
+     * @param threadCacheSize the free buffers each thread keeps per size class
+     */
+    @SuppressWarnings("unchecked")
+    public DirectBufferPool(int minSize, int maxSize, int threadCacheSize) {
+        if (minSize <= 0 || maxSize < minSize || maxSize > 1 << 30 || threadCacheSize < 0) {
+            throw new IllegalArgumentException(format("Invalid sizes: [%d, %d], thread cache: %d", minSize, maxSize, threadCacheSize));
+        }
+        this.minShift = shiftOf(minSize);
+        this.threadCacheSize = threadCacheSize;
+        int classes = shiftOf(maxSize) - minShift + 1;
+        this.freeLists = (Queue<ByteBuffer>[]) new Queue<?>[classes];
+        for (int i = 0; i < classes; i++) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> {
+            ArrayDeque<ByteBuffer>[] caches = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[classes];
+            for (int i = 0; i < classes; i++) {
+                caches[i] = new ArrayDeque<>(threadCacheSize);
+            }
+            return caches;
+        });
+    }
+
+    /**
+     * @return a buffer whose limit is the capacity asked for, and whose capacity is its size class; the buffers derived
+     * from it must not outlive it
+     * @throws IllegalArgumentException if the capacity exceeds the largest size class
+     */
+    public ByteBuffer acquire(int capacity) {
+        int sizeClass = sizeClassOf(capacity);
+        ByteBuffer buffer = threadCaches.get()[sizeClass].pollLast();
+        if (buffer == null) {
+            buffer = freeLists[sizeClass].poll();
+        }
+        if (buffer == null && drain() > 0) {
+            buffer = freeLists[sizeClass].poll();
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(1 << (sizeClass + minShift));
+            allocatedBytes.addAndGet(buffer.capacity());
+        }
+        ByteBuffer view = buffer.duplicate();
+        view.limit(capacity);
+        Tracker tracker = new Tracker(view, buffer, sizeClass, leaked);
+        trackers.put(tracker.key, tracker);
+        inUseBytes.addAndGet(buffer.capacity());
+        return view;
+    }
+
+    /**
+     * Returns a buffer to the pool; the caller must not use it any more.
+     *
+     * @throws IllegalArgumentException if the buffer wasn't acquired from this pool, or was released already
+     */
+    public void release(ByteBuffer view) {
+        Tracker tracker = trackers.remove(new Key(view));
+        if (tracker == null) {
+            throw new IllegalArgumentException("Not acquired from this pool, or released already: " + view);
+        }
+        tracker.clear();
+        inUseBytes.addAndGet(-tracker.buffer.capacity());
+        ArrayDeque<ByteBuffer> cache = threadCaches.get()[tracker.sizeClass];
+        if (cache.size() < threadCacheSize) {
+            cache.addLast(tracker.buffer);
+        } else {
+            freeLists[tracker.sizeClass].offer(tracker.buffer);
+        }
+    }
+
+    /**
+     * Returns the buffers of the collected views which weren't released to the pool.
+     *
+     * @return the number of buffers returned
+     */
+    public int drain() {
+        int drained = 0;
+        for (Tracker tracker; (tracker = (Tracker) leaked.poll()) != null; ) {
+            if (trackers.remove(tracker.key, tracker)) {
+                inUseBytes.addAndGet(-tracker.buffer.capacity());
+                freeLists[tracker.sizeClass].offer(tracker.buffer);
+                drained++;
+            }
+        }
+        leaks.addAndGet(drained);
+        return drained;
+    }
+
+    /**
+     * @return the bytes of all buffers the pool allocated, including those in the caches of terminated threads, which
+     * are freed by the garbage collector
+     */
+    public long allocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * @return the bytes of the size classes of the buffers acquired and neither released nor drained
+     */
+    public long inUseBytes() {
+        return inUseBytes.get();
+    }
+
+    /**
+     * @return the buffers drained after their views were collected without being released
+     */
+    public long leaks() {
+        return leaks.get();
+    }
+
+    private int sizeClassOf(int capacity) {
+        if (capacity < 0 || capacity > 1 << (freeLists.length - 1 + minShift)) {
+            throw new IllegalArgumentException(format("Capacity %d out of [0, %d]", capacity, 1 << (freeLists.length - 1 + minShift)));
+        }
+        return Math.max(shiftOf(capacity), minShift) - minShift;
+    }
+
+    private static int shiftOf(int size) {
+        return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    private static final class Tracker extends PhantomReference<ByteBuffer> {
+        final Key key;
+        final ByteBuffer buffer;
+        final int sizeClass;
+
+        Tracker(ByteBuffer view, ByteBuffer buffer, int sizeClass, ReferenceQueue<ByteBuffer> queue) {
+            super(view, queue);
+            this.key = new Key(new WeakReference<>(view), System.identityHashCode(view));
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+    }
+
+    /**
+     * Identifies a view without keeping it reachable from the map, since buffers compare by their content.
+     */
+    private static final class Key {
+        private final Object view;
+        private final int hash;
+
+        Key(ByteBuffer view) {
+            this(view, System.identityHashCode(view));
+        }
+
+        Key(Object view, int hash) {
+            this.view = view;
+            this.hash = hash;
+        }
+
+        private Object view() {
+            return view instanceof WeakReference ? ((WeakReference<?>) view).get() : view;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Object view = view();
+            return view != null && view == ((Key) o).view();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ikatas.util.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares getting a direct buffer of {@code size} bytes for a request, filling it and letting it go, from
+ * {@link ByteBuffer#allocateDirect(int)} and from a {@link DirectBufferPool}, releasing the buffer or leaving it for the
+ * pool to reclaim once collected. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="DirectBufferPoolBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectBufferPoolBenchmark {
+    @Param({"256", "8192", "65536"})
+    private int size;
+
+    private DirectBufferPool pool;
+
+    @Setup
+    public void setUp() {
+        pool = new DirectBufferPool(256, 1 << 16, 4);
+    }
+
+    @Benchmark
+    public long allocateDirect() {
+        return fill(ByteBuffer.allocateDirect(size));
+    }
+
+    @Benchmark
+    public long pooled() {
+        ByteBuffer buffer = pool.acquire(size);
+        try {
+            return fill(buffer);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    @Benchmark
+    public long pooledLeaked() {
+        return fill(pool.acquire(size));
+    }
+
+    private static long fill(ByteBuffer buffer) {
+        while (buffer.remaining() >= Long.BYTES) {
+            buffer.putLong(buffer.position());
+        }
+        return buffer.getLong(0);
+    }
+}
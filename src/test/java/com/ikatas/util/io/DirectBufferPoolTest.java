@@ -0,0 +1,101 @@
+package com.ikatas.util.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+public class DirectBufferPoolTest {
+    private final DirectBufferPool pool = new DirectBufferPool(64, 4096, 2);
+
+    @Test
+    public void acquiresDirectBuffersOfTheSizeClassLimitedToTheCapacityAskedFor() {
+        ByteBuffer buffer = pool.acquire(100);
+
+        assertThat(buffer.isDirect(), is(true));
+        assertThat(buffer.capacity(), equalTo(128));
+        assertThat(buffer.limit(), equalTo(100));
+        assertThat(pool.acquire(1).capacity(), equalTo(64));
+        assertThat(pool.acquire(4096).capacity(), equalTo(4096));
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(4097));
+    }
+
+    @Test
+    public void reusesReleasedBuffers() {
+        for (int i = 0; i < 10; i++) {
+            ByteBuffer buffer = pool.acquire(1000);
+            buffer.putInt(0, i);
+            pool.release(buffer);
+        }
+
+        assertThat(pool.allocatedBytes(), equalTo(1024L));
+        assertThat(pool.inUseBytes(), equalTo(0L));
+    }
+
+    @Test
+    public void sharesBuffersReleasedBeyondTheThreadCache() throws InterruptedException {
+        ByteBuffer[] buffers = {pool.acquire(64), pool.acquire(64), pool.acquire(64)};
+        for (ByteBuffer buffer : buffers) {
+            pool.release(buffer);
+        }
+
+        Thread other = new Thread(() -> pool.release(pool.acquire(64)));
+        other.start();
+        other.join();
+
+        assertThat(pool.allocatedBytes(), equalTo(3 * 64L));
+    }
+
+    @Test
+    public void rejectsBuffersReleasedTwiceOrNotAcquiredFromThePool() {
+        ByteBuffer buffer = pool.acquire(64);
+        pool.release(buffer);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(buffer));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(ByteBuffer.allocateDirect(64)));
+        assertThrows(IllegalArgumentException.class, () -> pool.release(pool.acquire(64).duplicate()));
+    }
+
+    @Test
+    public void reclaimsBuffersCollectedWithoutBeingReleased() throws InterruptedException {
+        leak(3);
+        assertThat(pool.inUseBytes(), equalTo(3 * 256L));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.leaks() < 3 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+            pool.drain();
+        }
+
+        assertThat(pool.leaks(), equalTo(3L));
+        assertThat(pool.inUseBytes(), equalTo(0L));
+        for (int i = 0; i < 3; i++) {
+            pool.acquire(256);
+        }
+        assertThat(pool.allocatedBytes(), equalTo(3 * 256L));
+    }
+
+    @Test
+    public void releasedBuffersAreNotCountedAsLeaks() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            pool.release(pool.acquire(256));
+        }
+        System.gc();
+        Thread.sleep(10);
+
+        assertThat(pool.drain(), equalTo(0));
+        assertThat(pool.leaks(), equalTo(0L));
+        assertThat(pool.allocatedBytes(), equalTo(256L));
+    }
+
+    private void leak(int buffers) {
+        for (int i = 0; i < buffers; i++) {
+            pool.acquire(256);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ikatas.util.io;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Measures the heap retained by {@code strings} strings of {@code length} characters decoded from payloads holding
+ * {@code values} distinct strings, kept as decoded, interned by a {@link StringPool} or by {@link String#intern()},
+ * and how long decoding and interning them took. The collector deduplicates the arrays of the strings kept as decoded
+ * when it runs with {@code -XX:+UseStringDeduplication}, which on JDK 17 G1 and Shenandoah support; it does so in the
+ * background, once a string survived a few collections, so the benchmark collects a few times before it measures. Run
+ * it with and without deduplication:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.io.StringDeduplicationBenchmark -Dbenchmark.jvmArgs="-XX:+UseG1GC"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.io.StringDeduplicationBenchmark -Dbenchmark.jvmArgs="-XX:+UseG1GC -XX:+UseStringDeduplication"
+ * </pre>
+ * The {@code strings}, {@code values}, {@code length} and {@code trials} system properties override the defaults.
+ */
+public class StringDeduplicationBenchmark {
+    private static final String[] MODES = {"decoded", "pool", "intern"};
+
+    public static void main(String[] args) throws Exception {
+        int strings = Integer.getInteger("strings", 1_000_000);
+        int values = Integer.getInteger("values", 10_000);
+        int length = Integer.getInteger("length", 64);
+        int trials = Integer.getInteger("trials", 3);
+
+        Random random = new Random(42);
+        byte[][] payloads = new byte[values][length];
+        for (byte[] payload : payloads) {
+            for (int i = 0; i < length; i++) {
+                payload[i] = (byte) ('a' + random.nextInt(26));
+            }
+        }
+        int[] order = random.ints(strings, 0, values).toArray();
+        out.printf("%d strings of %d chars, %d distinct, %s%s%n", strings, length, values, collector(),
+                deduplicating() ? ", deduplicating" : "");
+        out.printf("%-10s %14s %18s%n", "mode", "ns/string", "retained (bytes)");
+
+        for (String mode : MODES) {
+            long best = Long.MAX_VALUE, retained = 0;
+            for (int trial = 0; trial < trials; trial++) {
+                StringPool pool = new StringPool();
+                long baseline = usedHeap();
+                long begin = nanoTime();
+                String[] kept = new String[strings];
+                for (int i = 0; i < strings; i++) {
+                    String string = new String(payloads[order[i]], ISO_8859_1);
+                    kept[i] = mode.equals("pool") ? pool.intern(string) : mode.equals("intern") ? string.intern() : string;
+                }
+                best = Math.min(best, nanoTime() - begin);
+                if (deduplicating()) {
+                    settle();
+                }
+                retained = usedHeap() - baseline;
+                if (kept[0] == null) {
+                    throw new AssertionError(); // keeps the strings reachable
+                }
+            }
+            out.printf("%-10s %14.1f %18d%n", mode, (double) best / strings, retained);
+        }
+    }
+
+    /**
+     * Collects until the strings kept reached the age the deduplication thread looks at, and gives it time to do so.
+     */
+    private static void settle() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static boolean deduplicating() {
+        HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        return Boolean.parseBoolean(hotspot.getVMOption("UseStringDeduplication").getValue());
+    }
+
+    private static String collector() {
+        return ManagementFactory.getGarbageCollectorMXBeans().get(0).getName();
+    }
+}
@@ -0,0 +1,191 @@
+package com.ikatas.util.io;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+
+import static java.lang.invoke.MethodHandles.privateLookupIn;
+import static java.nio.charset.CodingErrorAction.REPLACE;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Encodes strings into byte buffers without the intermediate {@code byte[]} of {@link String#getBytes(Charset)}. A
+ * compact string stores its characters in a private Latin-1 {@code byte[]}, which already is its encoding in
+ * ISO-8859-1, and in US-ASCII and UTF-8 too when all of them are ASCII; such strings are bulk copied from that array
+ * into the buffer. Any other string is encoded by a {@link CharsetEncoder} reading the string in place.
+ * <p>
+ * Reading the array needs {@code java.lang} to be open to this module, e.g: by
+ * {@code --add-opens=java.base/java.lang=ALL-UNNAMED}; without it, or with {@code -XX:-CompactStrings}, every string
+ * takes the encoder path. Malformed and unmappable characters are replaced like {@code getBytes} does. An encoder is
+ * not safe for use by multiple threads.
+ */
+public final class StringEncoder {
+    private static final byte LATIN1 = 0;
+    private static final MethodHandle VALUE, CODER;
+
+    static {
+        MethodHandle value = null, coder = null;
+        try {
+            Lookup lookup = privateLookupIn(String.class, MethodHandles.lookup());
+            value = lookup.findGetter(String.class, "value", byte[].class);
+            coder = lookup.findGetter(String.class, "coder", byte.class);
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            // java.lang isn't open, or strings aren't stored as bytes
+        }
+        VALUE = value;
+        CODER = coder;
+    }
+
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final boolean latin1, ascii;
+
+    private StringEncoder(Charset charset) {
+        this.charset = charset;
+        this.encoder = charset.newEncoder().onMalformedInput(REPLACE).onUnmappableCharacter(REPLACE);
+        this.latin1 = charset.equals(ISO_8859_1);
+        this.ascii = charset.equals(US_ASCII) || charset.equals(UTF_8);
+    }
+
+    public static StringEncoder of(Charset charset) {
+        if (!charset.canEncode()) {
+            throw new IllegalArgumentException("Can't encode to " + charset);
+        }
+        return new StringEncoder(charset);
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /**
+     * @return whether the internal array of strings can be copied directly
+     */
+    public static boolean isZeroCopyAvailable() {
+        return VALUE != null && CODER != null;
+    }
+
+    /**
+     * Encodes the whole string at the position of the buffer.
+     *
+     * @throws BufferOverflowException if the buffer has not enough room for it, leaving the buffer unchanged
+     */
+    public void encode(String string, ByteBuffer out) {
+        byte[] value = compactValue(string);
+        if (value != null) {
+            out.put(value);
+            return;
+        }
+        int start = out.position();
+        encoder.reset();
+        CoderResult result = encoder.encode(CharBuffer.wrap(string), out, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(out);
+        }
+        if (result.isOverflow()) {
+            out.position(start);
+            throw new BufferOverflowException();
+        }
+        throwIfError(result);
+    }
+
+    /**
+     * Writes the string to the channel through the buffer, which is flushed to the channel whenever it is full and is
+     * left holding the remaining bytes, ready for further writes; the caller writes those eventually.
+     *
+     * @return the number of bytes the string was encoded to
+     */
+    public long write(String string, ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        byte[] value = compactValue(string);
+        if (value != null) {
+            for (int offset = 0; offset < value.length; ) {
+                if (!buffer.hasRemaining()) {
+                    drain(buffer, channel);
+                }
+                int length = Math.min(buffer.remaining(), value.length - offset);
+                buffer.put(value, offset, length);
+                offset += length;
+            }
+            return value.length;
+        }
+        long written = -buffer.position();
+        CharBuffer in = CharBuffer.wrap(string);
+        encoder.reset();
+        for (boolean flushing = false; ; ) {
+            CoderResult result = flushing ? encoder.flush(buffer) : encoder.encode(in, buffer, true);
+            if (result.isOverflow()) {
+                written += buffer.position();
+                drain(buffer, channel);
+            } else if (result.isUnderflow()) {
+                if (flushing) {
+                    return written + buffer.position();
+                }
+                flushing = true;
+            } else {
+                throwIfError(result);
+            }
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void throwIfError(CoderResult result) {
+        if (result.isError()) {
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException("Replacing encoder failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return the internal array of the string, in Latin-1 or UTF-16 as its coder says, or {@code null} if the array
+     * can't be read
+     */
+    static byte[] valueOf(String string) {
+        if (VALUE == null) {
+            return null;
+        }
+        try {
+            return (byte[]) VALUE.invokeExact(string);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the internal array of the string if it is this encoding of the string, or {@code null} otherwise
+     */
+    private byte[] compactValue(String string) {
+        if (!(latin1 || ascii) || !isZeroCopyAvailable()) {
+            return null;
+        }
+        try {
+            if ((byte) CODER.invokeExact(string) != LATIN1) {
+                return null;
+            }
+            byte[] value = (byte[]) VALUE.invokeExact(string);
+            return latin1 || ArrayConversions.isAscii(value) ? value : null;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
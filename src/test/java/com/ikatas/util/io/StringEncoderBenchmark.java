@@ -0,0 +1,86 @@
+package com.ikatas.util.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.CodingErrorAction.REPLACE;
+
+/**
+ * Compares encoding a string of {@code length} characters into a heap or direct buffer through
+ * {@link String#getBytes(Charset)}, through a reused {@link CharsetEncoder}, and through a {@link StringEncoder}. Run it
+ * with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="StringEncoderBenchmark -prof gc"
+ * </pre>
+ * where the {@code gc.alloc.rate.norm} lines of the gc profiler report the bytes allocated per encoded string.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class StringEncoderBenchmark {
+    @Param({"ascii", "latin1", "utf16"})
+    private String text;
+
+    @Param({"UTF-8", "ISO-8859-1"})
+    private String charset;
+
+    @Param({"256"})
+    private int length;
+
+    @Param({"heap", "direct"})
+    private String buffer;
+
+    private String string;
+    private Charset encoding;
+    private ByteBuffer out;
+    private CharsetEncoder charsetEncoder;
+    private StringEncoder stringEncoder;
+
+    @Setup
+    public void setUp() {
+        String sample = text.equals("ascii") ? "java.lang.String " : text.equals("latin1") ? "café crème brûlée " : "漢字 kanji かな ";
+        string = sample.repeat(length / sample.length() + 1).substring(0, length);
+        encoding = Charset.forName(charset);
+        int capacity = (int) (length * encoding.newEncoder().maxBytesPerChar());
+        out = buffer.equals("direct") ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        charsetEncoder = encoding.newEncoder().onMalformedInput(REPLACE).onUnmappableCharacter(REPLACE);
+        stringEncoder = StringEncoder.of(encoding);
+    }
+
+    @Benchmark
+    public ByteBuffer getBytes() {
+        return out.clear().put(string.getBytes(encoding));
+    }
+
+    @Benchmark
+    public ByteBuffer charsetEncoder() {
+        out.clear();
+        charsetEncoder.reset().encode(CharBuffer.wrap(string), out, true);
+        charsetEncoder.flush(out);
+        return out;
+    }
+
+    @Benchmark
+    public ByteBuffer stringEncoder() {
+        stringEncoder.encode(string, out.clear());
+        return out;
+    }
+}
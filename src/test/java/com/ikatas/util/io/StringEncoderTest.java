@@ -0,0 +1,86 @@
+package com.ikatas.util.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+
+public class StringEncoderTest {
+    private static final String ASCII = "java.lang.String", LATIN1 = "café crème", UTF16 = "漢字 😀 kanji";
+
+    @Test
+    public void zeroCopyIsAvailableWhenJavaLangIsOpen() {
+        assertThat(StringEncoder.isZeroCopyAvailable(), is(true));
+    }
+
+    @Test
+    public void encodesLikeGetBytesIntoHeapAndDirectBuffers() {
+        for (Charset charset : new Charset[]{ISO_8859_1, US_ASCII, UTF_8, UTF_16BE}) {
+            for (String string : new String[]{"", ASCII, LATIN1, "crème brûlé", UTF16}) {
+                assertThat(charset + ": " + string, encode(charset, string, ByteBuffer.allocate(64)), equalTo(string.getBytes(charset)));
+                assertThat(charset + ": " + string, encode(charset, string, ByteBuffer.allocateDirect(64)), equalTo(string.getBytes(charset)));
+            }
+        }
+    }
+
+    @Test
+    public void encodesAtTheBufferPosition() {
+        ByteBuffer buffer = ByteBuffer.allocate(64).put((byte) '>');
+
+        StringEncoder.of(UTF_8).encode(ASCII, buffer);
+        StringEncoder.of(UTF_8).encode(LATIN1, buffer);
+
+        assertThat(bytes(buffer), equalTo((">" + ASCII + LATIN1).getBytes(UTF_8)));
+    }
+
+    @Test
+    public void leavesBufferUnchangedWhenStringDoesNotFit() {
+        for (String string : new String[]{ASCII, UTF16}) {
+            ByteBuffer buffer = ByteBuffer.allocate(8).put((byte) '>');
+
+            assertThrows(BufferOverflowException.class, () -> StringEncoder.of(UTF_8).encode(string, buffer));
+            assertThat(buffer.position(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void writesStringsLongerThanTheBufferToChannel() throws IOException {
+        String text = (ASCII + LATIN1 + UTF16).repeat(50);
+        for (Charset charset : new Charset[]{ISO_8859_1, UTF_8}) {
+            for (String string : new String[]{ASCII.repeat(50), text}) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(13);
+
+                long written = StringEncoder.of(charset).write(string, buffer, Channels.newChannel(out));
+                out.write(bytes(buffer));
+
+                assertThat(out.toByteArray(), equalTo(string.getBytes(charset)));
+                assertThat(written, equalTo((long) string.getBytes(charset).length));
+            }
+        }
+    }
+
+    private static byte[] encode(Charset charset, String string, ByteBuffer buffer) {
+        StringEncoder.of(charset).encode(string, buffer);
+        return bytes(buffer);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.flip().remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,211 @@
+package com.ikatas.util.io;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Interns strings by value without keeping them alive, so duplicates of a string, e.g: parsed from many payloads, share
+ * one instance and one array for as long as the application references any of them. Unlike {@link String#intern()},
+ * whose native table is sized at startup and is only purged by the collector, the pool grows and shrinks with the
+ * strings it holds.
+ * <p>
+ * The pool is split into segments by hash, each a table of chained {@link WeakReference}s guarded by a lock of its own.
+ * Lookups read the table without locking, and only a miss takes the lock to add the string. Each segment registers its
+ * references with a {@link ReferenceQueue} and removes the entries of collected strings whenever it adds one, or on
+ * {@link #purge()}.
+ * <p>
+ * Strings are hashed over their internal array eight bytes at a time rather than by {@link String#hashCode()}, one
+ * character at a time, which needs {@code java.lang} to be open to this module like {@link StringEncoder} does;
+ * without it they are hashed by {@code hashCode}.
+ */
+public final class StringPool {
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final Segment[] segments;
+
+    public StringPool() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency the number of segments, rounded up to a power of two
+     */
+    public StringPool(int concurrency) {
+        if (concurrency <= 0 || concurrency > 1 << 16) {
+            throw new IllegalArgumentException("Invalid concurrency: " + concurrency);
+        }
+        segments = new Segment[1 << (32 - Integer.numberOfLeadingZeros(concurrency - 1))];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the string in the pool equal to the string, which is added to the pool and returned if there's none
+     */
+    public String intern(String string) {
+        long hash = hash(string);
+        // the high half selects the segment, the low half the bucket in its table
+        return segments[(int) (hash >>> 32) & (segments.length - 1)].intern(string, (int) hash);
+    }
+
+    /**
+     * Removes the entries of the strings which were collected, from all segments.
+     *
+     * @return the number of entries removed
+     */
+    public int purge() {
+        int purged = 0;
+        for (Segment segment : segments) {
+            purged += segment.purge();
+        }
+        return purged;
+    }
+
+    /**
+     * @return the number of strings in the pool, including those collected but not removed yet
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    static long hash(String string) {
+        byte[] value = StringEncoder.valueOf(string);
+        if (value == null) {
+            return mix(string.hashCode() * GOLDEN);
+        }
+        // equal strings have equal arrays, since a string is stored in Latin-1 whenever it can be
+        long hash = value.length * GOLDEN;
+        int i = 0;
+        for (; i <= value.length - Long.BYTES; i += Long.BYTES) {
+            hash = Long.rotateLeft(hash ^ (long) LONGS.get(value, i), 29) * GOLDEN;
+        }
+        long tail = 0;
+        for (int shift = 0; i < value.length; i++, shift += Byte.SIZE) {
+            tail |= (value[i] & 0xFFL) << shift;
+        }
+        return mix(hash ^ tail);
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Segment {
+        private final ReferenceQueue<String> collected = new ReferenceQueue<>();
+        private volatile AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(16);
+        private volatile int count;
+
+        String intern(String string, int hash) {
+            String interned = find(table, string, hash);
+            return interned != null ? interned : add(string, hash);
+        }
+
+        private static String find(AtomicReferenceArray<Entry> table, String string, int hash) {
+            for (Entry entry = table.get(hash & (table.length() - 1)); entry != null; entry = entry.next) {
+                if (entry.hash == hash) {
+                    String interned = entry.get();
+                    if (string.equals(interned)) {
+                        return interned;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private synchronized String add(String string, int hash) {
+            expunge();
+            AtomicReferenceArray<Entry> table = this.table;
+            String interned = find(table, string, hash);
+            if (interned != null) {
+                return interned;
+            }
+            if (count >= table.length() / 4 * 3) {
+                table = resize(table);
+            }
+            int bucket = hash & (table.length() - 1);
+            table.set(bucket, new Entry(string, hash, table.get(bucket), collected));
+            count++;
+            return string;
+        }
+
+        /**
+         * Copies the entries of the strings still alive into a table twice as large, leaving the chains of the old one
+         * intact for the lookups reading it.
+         */
+        private AtomicReferenceArray<Entry> resize(AtomicReferenceArray<Entry> table) {
+            AtomicReferenceArray<Entry> resized = new AtomicReferenceArray<>(table.length() * 2);
+            int alive = 0;
+            for (int i = 0; i < table.length(); i++) {
+                for (Entry entry = table.get(i); entry != null; entry = entry.next) {
+                    String string = entry.get();
+                    if (string != null) {
+                        int bucket = entry.hash & (resized.length() - 1);
+                        resized.set(bucket, new Entry(string, entry.hash, resized.get(bucket), collected));
+                        alive++;
+                    }
+                }
+            }
+            count = alive;
+            this.table = resized;
+            return resized;
+        }
+
+        synchronized int purge() {
+            return expunge();
+        }
+
+        private int expunge() {
+            int removed = 0;
+            for (Reference<? extends String> reference; (reference = collected.poll()) != null; ) {
+                if (remove((Entry) reference)) {
+                    removed++;
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Unlinks the entry from its chain, whose lookups in flight on the entry go on to its successors.
+         */
+        private boolean remove(Entry removed) {
+            AtomicReferenceArray<Entry> table = this.table;
+            int bucket = removed.hash & (table.length() - 1);
+            for (Entry entry = table.get(bucket), previous = null; entry != null; previous = entry, entry = entry.next) {
+                if (entry == removed) {
+                    if (previous == null) {
+                        table.set(bucket, entry.next);
+                    } else {
+                        previous.next = entry.next;
+                    }
+                    count--;
+                    return true;
+                }
+            }
+            return false; // dropped when the table was resized
+        }
+    }
+
+    private static final class Entry extends WeakReference<String> {
+        final int hash;
+        volatile Entry next;
+
+        Entry(String string, int hash, Entry next, ReferenceQueue<String> queue) {
+            super(string, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ikatas.util.io;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * Compares interning a string of {@code length} characters, decoded from a payload holding one of {@code values}
+ * distinct strings, through a {@link StringPool}, through {@link String#intern()}, and through a strong
+ * {@link ConcurrentHashMap}, against only decoding it. The pools are shared by all benchmark threads. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="StringPoolBenchmark -t 4"
+ * </pre>
+ * See {@link StringDeduplicationBenchmark} for the heap the strings retain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class StringPoolBenchmark {
+    @Param({"16", "256"})
+    private int length;
+
+    @Param({"100000"})
+    private int values;
+
+    private byte[][] payloads;
+    private StringPool pool;
+    private ConcurrentHashMap<String, String> map;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        payloads = new byte[values][length];
+        for (byte[] payload : payloads) {
+            for (int i = 0; i < length; i++) {
+                payload[i] = (byte) ('a' + random.nextInt(26));
+            }
+        }
+        pool = new StringPool();
+        map = new ConcurrentHashMap<>();
+        for (byte[] payload : payloads) {
+            String string = new String(payload, ISO_8859_1);
+            pool.intern(string).intern();
+            map.put(string, string);
+        }
+    }
+
+    @Benchmark
+    public String decode() {
+        return next();
+    }
+
+    @Benchmark
+    public String stringPool() {
+        return pool.intern(next());
+    }
+
+    @Benchmark
+    public String stringIntern() {
+        return next().intern();
+    }
+
+    @Benchmark
+    public String concurrentHashMap() {
+        String string = next();
+        String interned = map.putIfAbsent(string, string);
+        return interned != null ? interned : string;
+    }
+
+    private String next() {
+        return new String(payloads[ThreadLocalRandom.current().nextInt(values)], ISO_8859_1);
+    }
+}
@@ -0,0 +1,107 @@
+package com.ikatas.util.io;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class StringPoolTest {
+    private final StringPool pool = new StringPool(4);
+
+    @Test
+    public void internsEqualStringsToTheFirstOneAdded() {
+        String first = new String("payload");
+        String second = new String("payload");
+
+        assertThat(pool.intern(first), is(sameInstance(first)));
+        assertThat(pool.intern(second), is(sameInstance(first)));
+        assertThat(pool.intern("other"), equalTo("other"));
+        assertThat(pool.size(), equalTo(2));
+    }
+
+    @Test
+    public void internsStringsOfAnyLengthAndCoder() {
+        List<String> strings = new ArrayList<>();
+        for (int length = 0; length < 40; length++) {
+            strings.add("x".repeat(length));
+            strings.add("é".repeat(length) + "!");
+            strings.add("漢".repeat(length) + "?");
+        }
+        for (String string : strings) {
+            pool.intern(string);
+        }
+
+        for (String string : strings) {
+            assertThat(pool.intern(new String(string)), is(sameInstance(string)));
+        }
+        assertThat(pool.size(), equalTo(strings.size()));
+    }
+
+    @Test
+    public void hashesEqualStringsEquallyAndNearStringsApart() {
+        assertThat(StringPool.hash(new String("a".repeat(100))), equalTo(StringPool.hash("a".repeat(100))));
+        assertThat(StringPool.hash("abcdefgh1"), not(equalTo(StringPool.hash("abcdefgh2"))));
+        assertThat(StringPool.hash("abcdefgh"), not(equalTo(StringPool.hash("abcdefgh\0"))));
+    }
+
+    @Test
+    public void removesTheStringsWhichWereCollected() throws InterruptedException {
+        String kept = pool.intern(new String(new byte[1024]) + "kept");
+        for (int i = 0; i < 20000; i++) {
+            pool.intern(new String(new byte[1024]) + i);
+        }
+
+        for (int attempt = 0; attempt < 10 && pool.size() > 1; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.purge();
+        }
+
+        assertThat(pool.size(), equalTo(1));
+        assertThat(pool.intern(new String(kept)), is(sameInstance(kept)));
+    }
+
+    @Test
+    public void internsOneInstanceOfEachValueAcrossThreads() throws Exception {
+        int threads = 8, values = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<String[]>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    String[] interned = new String[values];
+                    for (int i = 0; i < values; i++) {
+                        interned[i] = pool.intern(String.valueOf(i));
+                    }
+                    return interned;
+                });
+            }
+            List<Future<String[]>> results = executor.invokeAll(tasks);
+
+            String[] expected = results.get(0).get();
+            for (Future<String[]> result : results) {
+                String[] interned = result.get();
+                for (int i = 0; i < values; i++) {
+                    assertThat(interned[i], is(sameInstance(expected[i])));
+                }
+            }
+            assertThat(pool.size(), equalTo(values));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsInvalidConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> new StringPool(0));
+        assertThat(new StringPool(1).intern("a"), equalTo("a"));
+    }
+}
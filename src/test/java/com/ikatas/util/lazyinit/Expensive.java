@@ -0,0 +1,15 @@
+package com.ikatas.util.lazyinit;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@code static final} field whose initializer is expensive, so a {@link LazyHolderTransformer} defers it
+ * from the initialization of its class to the first read of the field.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Expensive {
+}
@@ -0,0 +1,112 @@
+package com.ikatas.util.lazyinit;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A value initialized on its first read, once, like a static field initialized by the initialization of its class,
+ * but per instance rather than per class. Once initialized, the value is published by a release store and read by an
+ * acquire load, without any lock; threads reading it while it is being initialized wait for the initializing thread,
+ * as they would for the initialization of a class.
+ * <p>
+ * Unlike class initialization, failures are explicit: an initializer which throws leaves the value uninitialized, and
+ * its exception propagates to the reader and to the readers which waited for that initialization; the next read runs
+ * the initializer again, rather than failing for good like a class in an erroneous state. A read of the value by its
+ * own initializer throws an {@link IllegalStateException}, rather than seeing its default value as a static field read
+ * during the initialization of its class does.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    /**
+     * Stands for a {@code null} value, so that the default of the field means uninitialized, even to a thread which
+     * sees this holder through a data race.
+     */
+    private static final Object NIL = new Object();
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Lazy.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unused") // accessed by VALUE
+    private Object value;
+    private Supplier<? extends T> initializer;
+    private Thread initializing;
+    /**
+     * the initializations which failed, so a reader tells whether one failed while it waited for the lock
+     */
+    private volatile int failures;
+    private Throwable failure;
+
+    private Lazy(Supplier<? extends T> initializer) {
+        this.initializer = initializer;
+    }
+
+    /**
+     * @param initializer computes the value, which may be {@code null}; it is dropped once it succeeds
+     */
+    public static <T> Lazy<T> of(Supplier<? extends T> initializer) {
+        return new Lazy<>(requireNonNull(initializer));
+    }
+
+    /**
+     * @return the value, initializing it first if this is the first read
+     * @throws IllegalStateException if the initializer reads the value itself
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get() {
+        Object value = VALUE.getAcquire(this);
+        return value == null ? initialize(failures) : value == NIL ? null : (T) value;
+    }
+
+    /**
+     * @return whether the value is initialized; reading it won't block or run the initializer then
+     */
+    public boolean isInitialized() {
+        return VALUE.getAcquire(this) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized T initialize(int failuresBefore) {
+        Object value = VALUE.getAcquire(this);
+        if (value != null) {
+            return value == NIL ? null : (T) value; // initialized by another thread while this one waited
+        }
+        if (initializing != null) { // the lock is reentrant, so it can only be this thread
+            throw new IllegalStateException("Lazy value read by its own initializer");
+        }
+        if (failures != failuresBefore) { // failed in another thread while this one waited
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+        initializing = Thread.currentThread();
+        try {
+            T initialized = initializer.get();
+            VALUE.setRelease(this, initialized == null ? NIL : initialized);
+            initializer = null;
+            failure = null;
+            return initialized;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            failures++;
+            throw e;
+        } finally {
+            initializing = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        Object value = VALUE.getAcquire(this);
+        return value == null ? "Lazy[uninitialized]" : "Lazy[" + (value == NIL ? null : value) + "]";
+    }
+}
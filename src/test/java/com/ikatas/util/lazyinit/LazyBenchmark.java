@@ -0,0 +1,134 @@
+package com.ikatas.util.lazyinit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares reading a lazily initialized value once it is initialized, by the idioms which do it: a static field of a
+ * holder class, initialized by the initialization of its class, double-checked locking over a volatile field, and a
+ * {@link Lazy}; and reading lazily loaded values of {@code keys} keys, by {@link ConcurrentHashMap#computeIfAbsent} and
+ * by a {@link LazyMap}. The {@code firstRead} benchmarks measure creating a holder and reading it once, which a holder
+ * class does once per class loader rather than per instance, as {@link LazyHolderBenchmark} measures. The {@code -t}
+ * option sets the number of reading threads:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LazyBenchmark -t 1"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="LazyBenchmark -t 4"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyBenchmark {
+    @Param({"1024"})
+    private int keys;
+
+    private final DoubleChecked<Object> doubleChecked = new DoubleChecked<>(Object::new);
+    private final Lazy<Object> lazy = Lazy.of(Object::new);
+    private final ConcurrentHashMap<Integer, Object> computed = new ConcurrentHashMap<>();
+    private final LazyMap<Integer, Object> lazyMap = LazyMap.of(key -> new Object());
+    private Integer[] boxedKeys;
+
+    @Setup
+    public void setUp() {
+        boxedKeys = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            boxedKeys[i] = i;
+            computed.computeIfAbsent(boxedKeys[i], key -> new Object());
+            lazyMap.get(boxedKeys[i]);
+        }
+        doubleChecked.get();
+        lazy.get();
+    }
+
+    /**
+     * Cycles a thread through the keys, without the cost of a random number per read.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int key;
+
+        Integer next(Integer[] keys) {
+            if (++key == keys.length) {
+                key = 0;
+            }
+            return keys[key];
+        }
+    }
+
+    @Benchmark
+    public Object holderClass() {
+        return Holder.VALUE;
+    }
+
+    @Benchmark
+    public Object doubleCheckedLocking() {
+        return doubleChecked.get();
+    }
+
+    @Benchmark
+    public Object lazy() {
+        return lazy.get();
+    }
+
+    @Benchmark
+    public Object computeIfAbsent(Cursor cursor) {
+        return computed.computeIfAbsent(cursor.next(boxedKeys), key -> new Object());
+    }
+
+    @Benchmark
+    public Object lazyMap(Cursor cursor) {
+        return lazyMap.get(cursor.next(boxedKeys));
+    }
+
+    @Benchmark
+    public Object firstReadDoubleCheckedLocking() {
+        return new DoubleChecked<>(Object::new).get();
+    }
+
+    @Benchmark
+    public Object firstReadLazy() {
+        return Lazy.of(Object::new).get();
+    }
+
+    private static final class Holder {
+        static final Object VALUE = new Object();
+    }
+
+    private static final class DoubleChecked<T> {
+        private final Supplier<T> initializer;
+        private volatile T value;
+
+        DoubleChecked(Supplier<T> initializer) {
+            this.initializer = initializer;
+        }
+
+        T get() {
+            T value = this.value;
+            if (value == null) {
+                synchronized (this) {
+                    value = this.value;
+                    if (value == null) {
+                        this.value = value = initializer.get();
+                    }
+                }
+            }
+            return value;
+        }
+    }
+}
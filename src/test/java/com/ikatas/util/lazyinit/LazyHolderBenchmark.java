@@ -0,0 +1,109 @@
+package com.ikatas.util.lazyinit;
+
+import com.ikatas.util.DirectClassLoader;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Compares the time from a fresh class loader to the first read of a cheap static field of a {@code Sub} class whose
+ * {@code Sup} class declares {@link Expensive} fields, with and without a {@link LazyHolderTransformer}, and the time
+ * to then read every expensive field. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.lazyinit.LazyHolderBenchmark
+ * </pre>
+ * The {@code trials} system property overrides the default.
+ */
+public class LazyHolderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int trials = Integer.getInteger("trials", 20);
+        out.printf("%-10s %16s %16s%n", "loader", "first read (us)", "all fields (us)");
+        for (boolean lazy : new boolean[]{false, true}) {
+            run(lazy); // warm up
+            long firstRead = Long.MAX_VALUE, allFields = Long.MAX_VALUE;
+            for (int trial = 0; trial < trials; trial++) {
+                long[] result = run(lazy);
+                firstRead = Math.min(firstRead, result[0]);
+                allFields = Math.min(allFields, result[1]);
+            }
+            out.printf("%-10s %16.1f %16.1f%n", lazy ? "lazy" : "eager", firstRead / 1e3, allFields / 1e3);
+        }
+    }
+
+    private static long[] run(boolean lazy) throws Exception {
+        DirectClassLoader loader = directClassLoader();
+        if (lazy) {
+            loader.addTransformer(LazyHolderTransformer.of(loader));
+        }
+        // loads the classes without initializing them, so the timings only cover initialization
+        for (Class<?> type : new Class<?>[]{Sup.class, Sub.class, Reader.class}) {
+            loader.loadClass(type.getName());
+        }
+        Class<?> reader = loader.loadClass(Reader.class.getName());
+        Method name = reader.getDeclaredMethod("name"), expensive = reader.getDeclaredMethod("expensive");
+
+        long begin = nanoTime();
+        name.invoke(null);
+        long firstRead = nanoTime() - begin;
+        expensive.invoke(null);
+        return new long[]{firstRead, nanoTime() - begin};
+    }
+
+    public static class Sup {
+        @Expensive
+        static final int[] PRIMES = primes(200_000);
+        @Expensive
+        static final Pattern IDENTIFIER = Pattern.compile("[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*");
+        @Expensive
+        static final Map<String, Integer> CODES = codes(10_000);
+
+        private static int[] primes(int limit) {
+            boolean[] composite = new boolean[limit];
+            int count = 0;
+            for (int i = 2; i < limit; i++) {
+                if (!composite[i]) {
+                    count++;
+                    for (long j = (long) i * i; j < limit; j += i) {
+                        composite[(int) j] = true;
+                    }
+                }
+            }
+            int[] primes = new int[count];
+            for (int i = 2, n = 0; i < limit; i++) {
+                if (!composite[i]) {
+                    primes[n++] = i;
+                }
+            }
+            return primes;
+        }
+
+        private static Map<String, Integer> codes(int size) {
+            Map<String, Integer> codes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                codes.put(Integer.toHexString(i), i);
+            }
+            return codes;
+        }
+    }
+
+    public static class Sub extends Sup {
+        static final String NAME = String.valueOf(Sub.class.getSimpleName());
+    }
+
+    public static class Reader {
+        public static String name() {
+            return Sub.NAME;
+        }
+
+        public static int expensive() {
+            return Sub.PRIMES.length + (Sub.IDENTIFIER.matcher(Sub.NAME).matches() ? 1 : 0) + Sub.CODES.size();
+        }
+    }
+}
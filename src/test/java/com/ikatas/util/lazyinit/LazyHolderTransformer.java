@@ -0,0 +1,463 @@
+package com.ikatas.util.lazyinit;
+
+import com.ikatas.util.ClassTransformer;
+import com.ikatas.util.DirectClassLoader;
+import com.ikatas.util.classfile.ClassFileParser;
+import com.ikatas.util.classfile.ClassHeader;
+import com.ikatas.util.classfile.ClassHeader.Member;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.Frame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Moves the initializers of {@link Expensive} static final fields out of {@code <clinit>} into generated holder
+ * classes, one per field, and rewrites every {@code getstatic} of such a field into a read of its holder. Initializing
+ * the declaring class no longer runs the expensive initializers; each runs once its field is first read, and an
+ * exception it throws is raised by that read.
+ * <p>
+ * An initializer is the straight-line code of {@code <clinit>} computing the value since the operand stack was last
+ * empty. Initializers which branch, use local variables, are covered by exception handlers, store other fields, or
+ * access private members of other nestmates stay where they are. Private members of the declaring class used by a
+ * moved initializer become package-private, so the holder in the same package can access them. The fields are
+ * removed from the declaring classes, so they can't be reflected nor read by classes which are not transformed.
+ */
+public final class LazyHolderTransformer implements ClassTransformer {
+    private static final String EXPENSIVE = Expensive.class.getName();
+    private static final String HOLDER_SEPARATOR = "$$Lazy$";
+    private static final String VALUE = "value";
+
+    private final ClassLoader resources;
+    private final Predicate<String> classes;
+    private final Map<String, Owner> owners = new ConcurrentHashMap<>();
+
+    /**
+     * @param resources locates the class files of the classes declaring the fields read by transformed classes
+     * @param classes   the binary names of the classes to transform
+     */
+    public LazyHolderTransformer(ClassLoader resources, Predicate<String> classes) {
+        this.resources = resources;
+        this.classes = classes;
+    }
+
+    public static LazyHolderTransformer of(DirectClassLoader loader) {
+        return new LazyHolderTransformer(loader, loader::isDefinedDirectly);
+    }
+
+    public static String holderName(String className, String field) {
+        return className + HOLDER_SEPARATOR + field;
+    }
+
+    /**
+     * @return the fields of the class which are moved to holders
+     */
+    public Set<String> lazyFields(String className) {
+        Owner owner = owner(className);
+        return owner == null ? emptySet() : unmodifiableSet(owner.lazyFields.keySet());
+    }
+
+    @Override
+    public byte[] transform(String name, byte[] classFile) {
+        if (!classes.test(name)) {
+            return classFile;
+        }
+        Owner owner = analyze(classFile);
+        owners.putIfAbsent(name, owner);
+        return rewriteReads(owner.lazyFields.isEmpty() ? classFile : owner.transform());
+    }
+
+    @Override
+    public byte[] generate(String name) {
+        int separator = name.indexOf(HOLDER_SEPARATOR);
+        if (separator < 0) {
+            return null;
+        }
+        Owner owner = owner(name.substring(0, separator));
+        LazyField field = owner == null ? null : owner.lazyFields.get(name.substring(separator + HOLDER_SEPARATOR.length()));
+        return field == null ? null : holder(internalName(name), owner.version, field);
+    }
+
+    private byte[] holder(String holder, int version, LazyField field) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(version, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, holder, null, "java/lang/Object", null);
+        writer.visitField(ACC_STATIC | ACC_FINAL, VALUE, field.descriptor, null, null).visitEnd();
+        MethodVisitor initializer = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        initializer.visitCode();
+        for (AbstractInsnNode instruction : field.initializer) {
+            instruction.accept(initializer);
+        }
+        initializer.visitFieldInsn(PUTSTATIC, holder, VALUE, field.descriptor);
+        initializer.visitInsn(RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Reads the fields moved to holders from their holders instead, the stack maps hold since the types don't change.
+     */
+    private byte[] rewriteReads(byte[] classFile) {
+        ClassReader reader = new ClassReader(classFile);
+        ClassWriter writer = new ClassWriter(reader, 0);
+        boolean[] rewritten = {false};
+        reader.accept(new ClassVisitor(ASM9, writer) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(ASM9, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                    @Override
+                    public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+                        String holder = opcode == GETSTATIC ? holderOf(binaryName(owner), name) : null;
+                        if (holder != null) {
+                            rewritten[0] = true;
+                            super.visitFieldInsn(GETSTATIC, internalName(holder), VALUE, descriptor);
+                        } else {
+                            super.visitFieldInsn(opcode, owner, name, descriptor);
+                        }
+                    }
+                };
+            }
+        }, 0);
+        return rewritten[0] ? writer.toByteArray() : classFile;
+    }
+
+    /**
+     * Resolves the field as the JVM does (JVMS §5.4.3.2): declared by the class, by its superinterfaces, then by its
+     * superclasses.
+     *
+     * @return {@code null} if the field is not moved to a holder
+     */
+    private String holderOf(String className, String field) {
+        Owner owner = classes.test(className) ? owner(className) : null;
+        if (owner == null) {
+            return null;
+        }
+        for (Member it : owner.header.fields()) {
+            if (it.isStatic() && it.name().equals(field)) {
+                return owner.lazyFields.containsKey(field) ? holderName(className, field) : null;
+            }
+        }
+        for (String superinterface : owner.header.interfaces()) {
+            String holder = holderOf(superinterface, field);
+            if (holder != null) {
+                return holder;
+            }
+        }
+        return owner.header.superName() == null ? null : holderOf(owner.header.superName(), field);
+    }
+
+    /**
+     * @return {@code null} if the class file can't be found
+     */
+    private Owner owner(String className) {
+        Owner owner = owners.get(className);
+        if (owner == null) {
+            byte[] classFile = read(className);
+            if (classFile == null) {
+                return null;
+            }
+            owner = owners.computeIfAbsent(className, it -> analyze(classFile));
+        }
+        return owner;
+    }
+
+    private byte[] read(String className) {
+        try (InputStream in = resources.getResourceAsStream(internalName(className) + ".class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Owner analyze(byte[] classFile) {
+        ClassHeader header = ClassFileParser.parse(classFile);
+        if (header.fields().stream().noneMatch(it -> it.isStatic() && it.annotations().contains(EXPENSIVE))) {
+            return new Owner(header, null, emptyMap(), emptyMap());
+        }
+        ClassNode node = new ClassNode();
+        new ClassReader(classFile).accept(node, 0);
+        MethodNode initializer = node.methods.stream().filter(it -> it.name.equals("<clinit>")).findFirst().orElse(null);
+        Map<String, LazyField> lazyFields = new LinkedHashMap<>();
+        Map<String, List<AbstractInsnNode>> segments = new LinkedHashMap<>();
+        if (initializer != null) {
+            Frame<BasicValue>[] frames;
+            try {
+                frames = new Analyzer<>(new BasicInterpreter()).analyze(node.name, initializer);
+            } catch (AnalyzerException e) {
+                return new Owner(header, node, emptyMap(), emptyMap());
+            }
+            for (FieldNode field : node.fields) {
+                if ((field.access & (ACC_STATIC | ACC_FINAL)) != (ACC_STATIC | ACC_FINAL) || field.value != null
+                        || field.invisibleAnnotations == null
+                        || field.invisibleAnnotations.stream().noneMatch(it -> it.desc.equals("L" + internalName(EXPENSIVE) + ";"))) {
+                    continue;
+                }
+                List<AbstractInsnNode> segment = segment(node, initializer, frames, field.name);
+                if (segment != null) {
+                    List<AbstractInsnNode> copy = new ArrayList<>();
+                    for (AbstractInsnNode instruction : segment.subList(0, segment.size() - 1)) { // without the putstatic
+                        copy.add(instruction.clone(emptyMap()));
+                    }
+                    lazyFields.put(field.name, new LazyField(field.desc, copy));
+                    segments.put(field.name, segment);
+                }
+            }
+        }
+        return new Owner(header, node, lazyFields, segments);
+    }
+
+    /**
+     * @return the instructions computing and storing the field, or {@code null} if they can't be moved
+     */
+    private List<AbstractInsnNode> segment(ClassNode node, MethodNode initializer, Frame<BasicValue>[] frames, String field) {
+        AbstractInsnNode[] instructions = initializer.instructions.toArray();
+        int store = -1;
+        for (int i = 0; i < instructions.length; i++) {
+            if (isStaticField(instructions[i], PUTSTATIC, node.name, field)) {
+                if (store >= 0) {
+                    return null;
+                }
+                store = i;
+            }
+        }
+        if (store < 0) {
+            return null;
+        }
+        int start = store;
+        while (start > 0 && (frames[start] == null || frames[start].getStackSize() > 0)) {
+            start--;
+        }
+        if (frames[start] == null || frames[start].getStackSize() > 0) {
+            return null;
+        }
+        Set<LabelNode> targets = jumpTargets(initializer);
+        for (TryCatchBlockNode block : initializer.tryCatchBlocks) {
+            int from = initializer.instructions.indexOf(block.start), to = initializer.instructions.indexOf(block.end);
+            if (from <= store && to > start) {
+                return null;
+            }
+        }
+        List<AbstractInsnNode> segment = new ArrayList<>();
+        for (int i = start; i <= store; i++) {
+            AbstractInsnNode instruction = instructions[i];
+            if (instruction.getOpcode() < 0) {
+                if (i > start && targets.contains(instruction) || instruction instanceof FrameNode) {
+                    return null;
+                }
+                continue;
+            }
+            if (!isMovable(node, instruction, i == store)) {
+                return null;
+            }
+            segment.add(instruction);
+        }
+        return segment;
+    }
+
+    private boolean isMovable(ClassNode node, AbstractInsnNode instruction, boolean isStore) {
+        switch (instruction.getType()) {
+            case AbstractInsnNode.JUMP_INSN:
+            case AbstractInsnNode.TABLESWITCH_INSN:
+            case AbstractInsnNode.LOOKUPSWITCH_INSN:
+            case AbstractInsnNode.VAR_INSN:
+            case AbstractInsnNode.IINC_INSN:
+                return false;
+            case AbstractInsnNode.FIELD_INSN:
+                FieldInsnNode field = (FieldInsnNode) instruction;
+                return (isStore || field.getOpcode() == GETSTATIC || field.getOpcode() == GETFIELD)
+                        && !isNestPrivate(node, field.owner, field.name, field.desc, true);
+            case AbstractInsnNode.METHOD_INSN:
+                MethodInsnNode method = (MethodInsnNode) instruction;
+                return (method.getOpcode() != INVOKESPECIAL || method.name.equals("<init>"))
+                        && !isNestPrivate(node, method.owner, method.name, method.desc, false);
+            case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+                for (Handle handle : handles((InvokeDynamicInsnNode) instruction)) {
+                    if (!handle.getOwner().equals(node.name) && isNestPrivate(node, handle.getOwner(), handle.getName(), handle.getDesc(), handle.getTag() <= H_PUTSTATIC)) {
+                        return false;
+                    }
+                }
+                return true;
+            default:
+                return instruction.getOpcode() != ATHROW;
+        }
+    }
+
+    /**
+     * @return whether the member is private to another class of the nest of the class, which the holder can't access
+     */
+    private boolean isNestPrivate(ClassNode node, String owner, String name, String descriptor, boolean isField) {
+        String host = node.name.contains("$") ? node.name.substring(0, node.name.indexOf('$')) : node.name;
+        if (owner.equals(node.name) || !owner.equals(host) && !owner.startsWith(host + "$")) {
+            return false;
+        }
+        byte[] classFile = read(binaryName(owner));
+        if (classFile == null) {
+            return true;
+        }
+        ClassHeader header = ClassFileParser.parse(classFile);
+        for (Member member : isField ? header.fields() : header.methods()) {
+            if (member.name().equals(name) && member.descriptor().equals(descriptor)) {
+                return (member.access() & ACC_PRIVATE) != 0;
+            }
+        }
+        return false;
+    }
+
+    private static Set<LabelNode> jumpTargets(MethodNode method) {
+        Set<LabelNode> targets = new HashSet<>();
+        for (AbstractInsnNode instruction : method.instructions) {
+            if (instruction instanceof JumpInsnNode) {
+                targets.add(((JumpInsnNode) instruction).label);
+            } else if (instruction instanceof TableSwitchInsnNode) {
+                targets.add(((TableSwitchInsnNode) instruction).dflt);
+                targets.addAll(((TableSwitchInsnNode) instruction).labels);
+            } else if (instruction instanceof LookupSwitchInsnNode) {
+                targets.add(((LookupSwitchInsnNode) instruction).dflt);
+                targets.addAll(((LookupSwitchInsnNode) instruction).labels);
+            }
+        }
+        method.tryCatchBlocks.forEach(it -> targets.add(it.handler));
+        return targets;
+    }
+
+    private static List<Handle> handles(InvokeDynamicInsnNode instruction) {
+        List<Handle> handles = new ArrayList<>();
+        handles.add(instruction.bsm);
+        for (Object argument : instruction.bsmArgs) {
+            if (argument instanceof Handle) {
+                handles.add((Handle) argument);
+            }
+        }
+        return handles;
+    }
+
+    private static boolean isStaticField(AbstractInsnNode instruction, int opcode, String owner, String name) {
+        if (instruction.getOpcode() != opcode) {
+            return false;
+        }
+        FieldInsnNode field = (FieldInsnNode) instruction;
+        return field.owner.equals(owner) && field.name.equals(name);
+    }
+
+    private static String internalName(String binaryName) {
+        return binaryName.replace('.', '/');
+    }
+
+    private static String binaryName(String internalName) {
+        return internalName.replace('/', '.');
+    }
+
+    private static final class LazyField {
+        final String descriptor;
+        final List<AbstractInsnNode> initializer;
+
+        LazyField(String descriptor, List<AbstractInsnNode> initializer) {
+            this.descriptor = descriptor;
+            this.initializer = initializer;
+        }
+    }
+
+    /**
+     * A class as analyzed from its original class file.
+     */
+    private static final class Owner {
+        final ClassHeader header;
+        final ClassNode node;
+        final int version;
+        final Map<String, LazyField> lazyFields;
+        final Map<String, List<AbstractInsnNode>> segments;
+
+        Owner(ClassHeader header, ClassNode node, Map<String, LazyField> lazyFields, Map<String, List<AbstractInsnNode>> segments) {
+            this.header = header;
+            this.node = node;
+            this.version = header.version();
+            this.lazyFields = lazyFields;
+            this.segments = segments;
+        }
+
+        /**
+         * Removes the lazy fields and their initializers, and opens the private members the initializers use to the
+         * package.
+         */
+        byte[] transform() {
+            MethodNode initializer = node.methods.stream().filter(it -> it.name.equals("<clinit>")).findFirst().orElseThrow();
+            Set<String> used = new HashSet<>();
+            for (List<AbstractInsnNode> segment : segments.values()) {
+                for (AbstractInsnNode instruction : segment) {
+                    used.addAll(members(instruction));
+                    initializer.instructions.remove(instruction);
+                }
+            }
+            node.fields.removeIf(it -> lazyFields.containsKey(it.name));
+            for (FieldNode field : node.fields) {
+                if (used.contains(field.name + ":" + field.desc)) {
+                    field.access &= ~ACC_PRIVATE;
+                }
+            }
+            for (MethodNode method : node.methods) {
+                if (used.contains(method.name + method.desc)) {
+                    method.access &= ~ACC_PRIVATE;
+                }
+            }
+            ClassWriter writer = new ClassWriter(0);
+            node.accept(writer);
+            return writer.toByteArray();
+        }
+
+        /**
+         * @return the members of this class an instruction uses, fields as {@code name:descriptor}, methods as
+         * {@code name descriptor}
+         */
+        private List<String> members(AbstractInsnNode instruction) {
+            List<String> members = new ArrayList<>();
+            if (instruction instanceof FieldInsnNode && ((FieldInsnNode) instruction).owner.equals(node.name)) {
+                members.add(((FieldInsnNode) instruction).name + ":" + ((FieldInsnNode) instruction).desc);
+            } else if (instruction instanceof MethodInsnNode && ((MethodInsnNode) instruction).owner.equals(node.name)) {
+                members.add(((MethodInsnNode) instruction).name + ((MethodInsnNode) instruction).desc);
+            } else if (instruction instanceof InvokeDynamicInsnNode) {
+                for (Handle handle : handles((InvokeDynamicInsnNode) instruction)) {
+                    if (handle.getOwner().equals(node.name)) {
+                        members.add(handle.getName() + (handle.getTag() <= H_PUTSTATIC ? ":" : "") + handle.getDesc());
+                    }
+                }
+            }
+            return members;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ikatas.util.lazyinit;
+
+import com.ikatas.util.DirectClassLoader;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class LazyHolderTransformerTest {
+    private final DirectClassLoader loader = directClassLoader();
+    private final LazyHolderTransformer transformer = LazyHolderTransformer.of(loader);
+
+    {
+        loader.addTransformer(transformer);
+    }
+
+    @Test
+    public void initializingClassDoesNotInitializeExpensiveFields() throws Exception {
+        assertThat(call(Config.class, "name"), equalTo("config"));
+
+        assertThat(events(), contains("name"));
+    }
+
+    @Test
+    public void expensiveFieldsAreInitializedOnFirstRead() throws Exception {
+        call(Config.class, "name");
+
+        assertThat(call(Config.class, "tableSize"), equalTo(1000));
+        assertThat(call(Config.class, "tableSize"), equalTo(1000));
+        assertThat(events(), contains("name", "table"));
+    }
+
+    @Test
+    public void privateMembersUsedByExpensiveInitializersAreAccessibleFromTheirHolders() throws Exception {
+        assertThat(call(Config.class, "index"), equalTo("lazy:3"));
+    }
+
+    @Test
+    public void fieldsInheritedBySubclassesAreReadFromTheirHolders() throws Exception {
+        assertThat(call(Reader.class, "readSub"), equalTo(2));
+        assertThat(events(), contains("sub"));
+
+        assertThat(call(Reader.class, "readSup"), equalTo("sup"));
+        assertThat(events(), contains("sub", "sup"));
+    }
+
+    @Test
+    public void exceptionsOfExpensiveInitializersAreRaisedByTheFirstRead() throws Exception {
+        assertThat(call(Failing.class, "cheap"), equalTo(1));
+
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> call(Failing.class, "expensive"));
+        assertThat(thrown.getCause(), instanceOf(ExceptionInInitializerError.class));
+    }
+
+    @Test
+    public void movesOnlyStraightLineInitializersOfStaticFinalFields() {
+        assertThat(transformer.lazyFields(Config.class.getName()), containsInAnyOrder("TABLE", "INDEX"));
+        assertThat(transformer.lazyFields(Failing.class.getName()), containsInAnyOrder("EXPENSIVE"));
+        assertThat(transformer.lazyFields(Branched.class.getName()), is(empty()));
+    }
+
+    @Test
+    public void movedFieldsAreRemovedFromTheirClasses() throws Exception {
+        Class<?> config = loader.loadClass(Config.class.getName());
+
+        assertThrows(NoSuchFieldException.class, () -> config.getDeclaredField("TABLE"));
+        assertThat(config.getDeclaredField("NAME"), notNullValue());
+    }
+
+    private Object call(Class<?> type, String method) throws Exception {
+        Method it = loader.loadClass(type.getName()).getDeclaredMethod(method);
+        it.setAccessible(true);
+        return it.invoke(null);
+    }
+
+    private List<?> events() throws Exception {
+        Field log = loader.loadClass(Events.class.getName()).getDeclaredField("log");
+        log.setAccessible(true);
+        return (List<?>) log.get(null);
+    }
+
+    static class Events {
+        static final List<String> log = new ArrayList<>();
+
+        static <T> T record(String event, T value) {
+            log.add(event);
+            return value;
+        }
+    }
+
+    static class Config {
+        static final String NAME = Events.record("name", "config");
+        @Expensive
+        static final int[] TABLE = Events.record("table", new int[1000]);
+        @Expensive
+        private static final Supplier<String> INDEX = index(3);
+
+        static String name() {
+            return NAME;
+        }
+
+        static int tableSize() {
+            return TABLE.length;
+        }
+
+        static String index() {
+            return INDEX.get();
+        }
+
+        private static Supplier<String> index(int size) {
+            return () -> "lazy:" + size;
+        }
+    }
+
+    static class Sup {
+        @Expensive
+        static final String SUP = Events.record("sup", "sup");
+    }
+
+    static class Sub extends Sup {
+        static final Integer SUB = Events.record("sub", 2);
+    }
+
+    static class Reader {
+        static Integer readSub() {
+            return Sub.SUB;
+        }
+
+        static String readSup() {
+            return Sub.SUP;
+        }
+    }
+
+    static class Failing {
+        static final Integer CHEAP = 1;
+        @Expensive
+        static final Integer EXPENSIVE = Integer.valueOf("expensive");
+
+        static Integer cheap() {
+            return CHEAP;
+        }
+
+        static Integer expensive() {
+            return EXPENSIVE;
+        }
+    }
+
+    static class Branched {
+        @Expensive
+        static final int VALUE = Boolean.getBoolean("branched") ? 1 : 2;
+    }
+}
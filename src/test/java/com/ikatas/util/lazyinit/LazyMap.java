@@ -0,0 +1,72 @@
+package com.ikatas.util.lazyinit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Values loaded on the first read of their keys, each once, as by a {@link Lazy} per key. Unlike
+ * {@link ConcurrentHashMap#computeIfAbsent}, a value is loaded outside the lock of the bin of its key, so loading it
+ * neither blocks the readers and loaders of other keys of the bin, nor fails if it reads other keys of the map. A
+ * loader which throws leaves the key absent: its exception propagates to the reader which loaded it and to the readers
+ * waiting for it, which don't load it again, and the next read of the key loads it again.
+ */
+public final class LazyMap<K, V> {
+    private final ConcurrentHashMap<K, Lazy<V>> values = new ConcurrentHashMap<>();
+    private final Function<? super K, ? extends V> loader;
+
+    private LazyMap(Function<? super K, ? extends V> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * @param loader computes the value of a key, which may be {@code null}
+     */
+    public static <K, V> LazyMap<K, V> of(Function<? super K, ? extends V> loader) {
+        return new LazyMap<>(requireNonNull(loader));
+    }
+
+    /**
+     * @return the value of the key, loading it first if this is the first read of the key
+     * @throws IllegalStateException if the loader of the key reads the key itself
+     */
+    public V get(K key) {
+        Lazy<V> value = values.get(key);
+        if (value == null) {
+            Lazy<V> loading = Lazy.of(() -> loader.apply(key));
+            value = values.putIfAbsent(key, loading);
+            if (value == null) {
+                value = loading;
+            }
+        }
+        try {
+            return value.get();
+        } catch (RuntimeException | Error e) {
+            values.remove(key, value);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the value of the key if it is loaded, without loading it or waiting for it, or {@code null}
+     */
+    public V getIfLoaded(K key) {
+        Lazy<V> value = values.get(key);
+        return value != null && value.isInitialized() ? value.get() : null;
+    }
+
+    /**
+     * Forgets the value of the key, so the next read loads it again; a read of the key which is loading it is unaffected.
+     */
+    public void invalidate(K key) {
+        values.remove(key);
+    }
+
+    /**
+     * @return the number of keys loaded or being loaded
+     */
+    public int size() {
+        return values.size();
+    }
+}
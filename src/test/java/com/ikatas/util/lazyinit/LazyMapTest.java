@@ -0,0 +1,112 @@
+package com.ikatas.util.lazyinit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class LazyMapTest {
+    private final List<Integer> loaded = new ArrayList<>();
+
+    @Test
+    public void eachKeyIsLoadedOnItsFirstReadOnly() {
+        LazyMap<Integer, String> map = LazyMap.of(this::load);
+
+        assertThat(map.get(1), equalTo("1"));
+        assertThat(map.get(2), equalTo("2"));
+        assertThat(map.get(1), equalTo("1"));
+        assertThat(loaded, contains(1, 2));
+        assertThat(map.size(), equalTo(2));
+    }
+
+    @Test
+    public void readingALoadedValueNeverLoadsIt() {
+        LazyMap<Integer, String> map = LazyMap.of(this::load);
+
+        assertThat(map.getIfLoaded(1), is(nullValue()));
+        map.get(1);
+        assertThat(map.getIfLoaded(1), equalTo("1"));
+        assertThat(loaded, contains(1));
+    }
+
+    @Test
+    public void failingLoaderLeavesTheKeyAbsentForTheNextRead() {
+        LazyMap<Integer, String> map = LazyMap.of(key -> {
+            if (loaded.isEmpty()) {
+                loaded.add(key);
+                throw new IllegalStateException("unavailable");
+            }
+            return load(key);
+        });
+
+        assertThrows(IllegalStateException.class, () -> map.get(1));
+        assertThat(map.size(), equalTo(0));
+
+        assertThat(map.get(1), equalTo("1"));
+        assertThat(loaded, contains(1, 1));
+    }
+
+    @Test
+    public void readersWaitingForAFailingLoaderFailWithoutLoadingTheKeyAgain() throws Exception {
+        List<Thread> readers = new ArrayList<>();
+        LazyMap<Integer, String> map = LazyMap.of(key -> {
+            load(key);
+            LazyTest.awaitBlocked(readers);
+            throw new IllegalStateException("unavailable");
+        });
+
+        List<Throwable> failures = LazyTest.readAll(readers, () -> map.get(1));
+
+        assertThat(failures, hasSize(readers.size()));
+        assertThat(failures, everyItem(hasProperty("message", equalTo("unavailable"))));
+        assertThat(loaded, contains(1));
+        assertThat(map.size(), equalTo(0));
+    }
+
+    @Test
+    public void invalidatedKeysAreLoadedAgain() {
+        LazyMap<Integer, String> map = LazyMap.of(this::load);
+        map.get(1);
+
+        map.invalidate(1);
+
+        assertThat(map.get(1), equalTo("1"));
+        assertThat(loaded, contains(1, 1));
+    }
+
+    @Test
+    public void loadersMayReadOtherKeysUnlikeComputeIfAbsent() {
+        Map<Integer, Long> computed = new ConcurrentHashMap<>();
+        assertThrows(IllegalStateException.class, () -> fibonacci(computed, 30)); // recursive update
+
+        AtomicReference<LazyMap<Integer, Long>> map = new AtomicReference<>();
+        map.set(LazyMap.of(n -> n < 2 ? (long) n : map.get().get(n - 1) + map.get().get(n - 2)));
+
+        assertThat(map.get().get(30), equalTo(832040L));
+    }
+
+    @Test
+    public void loaderReadingItsOwnKeyFailsAndLeavesTheKeyAbsent() {
+        AtomicReference<LazyMap<Integer, Integer>> map = new AtomicReference<>();
+        map.set(LazyMap.of(key -> map.get().get(key)));
+
+        assertThrows(IllegalStateException.class, () -> map.get().get(1));
+        assertThat(map.get().size(), equalTo(0));
+    }
+
+    private static long fibonacci(Map<Integer, Long> computed, int n) {
+        return n < 2 ? n : computed.computeIfAbsent(n, k -> fibonacci(computed, k - 1) + fibonacci(computed, k - 2));
+    }
+
+    private String load(Integer key) {
+        loaded.add(key);
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,160 @@
+package com.ikatas.util.lazyinit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class LazyTest {
+    private final AtomicInteger initializations = new AtomicInteger();
+
+    @Test
+    public void valueIsInitializedOnFirstReadOnly() {
+        Lazy<String> lazy = Lazy.of(() -> "value" + initializations.incrementAndGet());
+        assertFalse(lazy.isInitialized());
+        assertThat(initializations.get(), equalTo(0));
+
+        assertThat(lazy.get(), equalTo("value1"));
+        assertThat(lazy.get(), equalTo("value1"));
+        assertTrue(lazy.isInitialized());
+        assertThat(lazy, hasToString("Lazy[value1]"));
+    }
+
+    @Test
+    public void nullIsAValueLikeAnyOther() {
+        Lazy<String> lazy = Lazy.of(() -> {
+            initializations.incrementAndGet();
+            return null;
+        });
+
+        assertThat(lazy.get(), is(nullValue()));
+        assertThat(lazy.get(), is(nullValue()));
+        assertTrue(lazy.isInitialized());
+        assertThat(initializations.get(), equalTo(1));
+    }
+
+    @Test
+    public void concurrentFirstReadsWaitForASingleInitialization() throws Exception {
+        int readers = 8;
+        CountDownLatch started = new CountDownLatch(1);
+        Lazy<Object> lazy = Lazy.of(() -> {
+            initializations.incrementAndGet();
+            try {
+                started.await();
+                Thread.sleep(20); // lets the other readers block on the initialization
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new Object();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            List<Future<Object>> values = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                values.add(executor.submit(lazy::get));
+            }
+            started.countDown();
+
+            for (Future<Object> value : values) {
+                assertThat(value.get(), sameInstance(lazy.get()));
+            }
+            assertThat(initializations.get(), equalTo(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failingInitializerLeavesTheValueUninitializedForTheNextRead() {
+        Lazy<String> lazy = Lazy.of(() -> {
+            if (initializations.incrementAndGet() == 1) {
+                throw new IllegalArgumentException("first");
+            }
+            return "retried";
+        });
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, lazy::get);
+        assertThat(thrown.getMessage(), equalTo("first"));
+        assertFalse(lazy.isInitialized());
+        assertThat(lazy, hasToString("Lazy[uninitialized]"));
+
+        assertThat(lazy.get(), equalTo("retried"));
+        assertThat(initializations.get(), equalTo(2));
+    }
+
+    @Test
+    public void readersWaitingForAFailingInitializationFailWithItsException() throws Exception {
+        List<Thread> readers = new ArrayList<>();
+        Lazy<Object> lazy = Lazy.of(() -> {
+            initializations.incrementAndGet();
+            awaitBlocked(readers);
+            throw new IllegalArgumentException("unavailable");
+        });
+        List<Throwable> failures = readAll(readers, lazy::get);
+
+        assertThat(failures, hasSize(readers.size()));
+        assertThat(failures, everyItem(sameInstance(failures.get(0))));
+        assertThat(initializations.get(), equalTo(1));
+        assertFalse(lazy.isInitialized());
+    }
+
+    @Test
+    public void initializerReadingItsOwnValueFailsRatherThanSeeingADefaultValue() {
+        AtomicReference<Lazy<Integer>> self = new AtomicReference<>();
+        self.set(Lazy.of(() -> self.get().get() + 1));
+
+        assertThrows(IllegalStateException.class, self.get()::get);
+        assertFalse(self.get().isInitialized());
+    }
+
+    /**
+     * Starts the readers, and waits for them.
+     *
+     * @return what the readers threw
+     */
+    static List<Throwable> readAll(List<Thread> readers, Runnable read) throws InterruptedException {
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(new Thread(() -> {
+                try {
+                    read.run();
+                } catch (RuntimeException | Error e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        return failures;
+    }
+
+    /**
+     * Waits for the readers but the current one to block, e.g: on the lock of a {@link Lazy} it initializes.
+     */
+    static void awaitBlocked(List<Thread> readers) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (readers.stream().anyMatch(it -> it != Thread.currentThread() && it.getState() != Thread.State.BLOCKED)) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Readers not blocked: " + readers);
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.ikatas.util.module;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link ModuleFinder} which finds modules in the same way as {@link ModuleFinder#of(Path...)}, but scans all path
+ * entries in parallel and caches the descriptors of jars on disk, keyed by jar path, size and last modified time. The
+ * descriptors of unchanged jars are read from the cache instead of being derived again; exploded modules and
+ * directories of modules are always scanned since their time stamps don't follow their content. Finders of other paths
+ * may share the cache file, each adds its jars to those of the others. The cache is only an optimization, so failing
+ * to read or write it never fails to find modules.
+ * <p>
+ * Like {@code ModuleFinder.of}, the first module found of a name wins and a broken jar raises a
+ * {@link java.lang.module.FindException}.
+ */
+public final class CachingModuleFinder implements ModuleFinder {
+    private static final int CACHE_MAGIC = 0x4D444331; // MDC1
+
+    private final Path cacheFile;
+    private final List<Path> entries;
+    private final AtomicInteger cacheHits = new AtomicInteger(), cacheMisses = new AtomicInteger();
+    private volatile Map<String, ModuleReference> modules;
+
+    private CachingModuleFinder(Path cacheFile, List<Path> entries) {
+        this.cacheFile = cacheFile;
+        this.entries = entries;
+    }
+
+    public static CachingModuleFinder of(Path cacheFile, Path... entries) {
+        return new CachingModuleFinder(cacheFile, Arrays.asList(entries.clone()));
+    }
+
+    @Override
+    public Optional<ModuleReference> find(String name) {
+        return Optional.ofNullable(modules().get(name));
+    }
+
+    @Override
+    public Set<ModuleReference> findAll() {
+        return new LinkedHashSet<>(modules().values());
+    }
+
+    /**
+     * @return the number of jars whose descriptors were read from the cache
+     */
+    public int cacheHits() {
+        modules();
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the number of jars whose descriptors were derived since they were not cached or have changed
+     */
+    public int cacheMisses() {
+        modules();
+        return cacheMisses.get();
+    }
+
+    private Map<String, ModuleReference> modules() {
+        Map<String, ModuleReference> modules = this.modules;
+        if (modules == null) {
+            synchronized (this) {
+                if ((modules = this.modules) == null) {
+                    this.modules = modules = scan();
+                }
+            }
+        }
+        return modules;
+    }
+
+    private Map<String, ModuleReference> scan() {
+        Map<Key, List<ModuleDescriptor>> cached = readCache();
+        List<Scanned> scanned = entries.parallelStream().map(it -> scan(it, cached)).collect(toList());
+
+        Map<String, ModuleReference> modules = new LinkedHashMap<>();
+        Map<Key, List<ModuleDescriptor>> jars = new LinkedHashMap<>();
+        for (Scanned entry : scanned) {
+            for (ModuleReference reference : entry.references) {
+                modules.putIfAbsent(reference.descriptor().name(), reference);
+            }
+            if (entry.key != null) {
+                jars.put(entry.key, entry.references.stream().map(ModuleReference::descriptor).collect(toList()));
+            }
+        }
+        Map<Key, List<ModuleDescriptor>> cache = merge(cached, jars);
+        if (!cache.equals(cached)) {
+            writeCache(cache);
+        }
+        return modules;
+    }
+
+    /**
+     * @return the jars of this finder, and the cached jars of other finders which are unchanged
+     */
+    private static Map<Key, List<ModuleDescriptor>> merge(Map<Key, List<ModuleDescriptor>> cached, Map<Key, List<ModuleDescriptor>> jars) {
+        Set<String> paths = new HashSet<>();
+        jars.keySet().forEach(it -> paths.add(it.path));
+        Map<Key, List<ModuleDescriptor>> cache = new LinkedHashMap<>();
+        cached.forEach((key, descriptors) -> {
+            if (!paths.contains(key.path) && key.equals(Key.of(Paths.get(key.path)))) {
+                cache.put(key, descriptors);
+            }
+        });
+        cache.putAll(jars);
+        return cache;
+    }
+
+    private Scanned scan(Path entry, Map<Key, List<ModuleDescriptor>> cached) {
+        Key key = Key.of(entry);
+        List<ModuleDescriptor> descriptors = key == null ? null : cached.get(key);
+        if (descriptors != null) {
+            cacheHits.incrementAndGet();
+            return new Scanned(key, descriptors.stream().map(it -> new CachedModuleReference(it, entry)).collect(toList()));
+        }
+        if (key != null) {
+            cacheMisses.incrementAndGet();
+        }
+        return new Scanned(key, new ArrayList<>(ModuleFinder.of(entry).findAll()));
+    }
+
+    private Map<Key, List<ModuleDescriptor>> readCache() {
+        Map<Key, List<ModuleDescriptor>> cache = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_MAGIC) {
+                return cache;
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                Key key = new Key(in.readUTF(), in.readLong(), in.readLong());
+                List<ModuleDescriptor> descriptors = new ArrayList<>();
+                for (int n = in.readInt(); n > 0; n--) {
+                    descriptors.add(DescriptorCodec.read(in));
+                }
+                cache.put(key, descriptors);
+            }
+            return cache;
+        } catch (NoSuchFileException e) {
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            return new HashMap<>(); // a corrupted cache is rebuilt
+        }
+    }
+
+    /**
+     * Writes a temporary file and moves it over the cache, so concurrent readers never see a partial cache. A cache
+     * which can't be written, e.g: in a read-only directory, is left as is, and the descriptors derived again next time.
+     */
+    private void writeCache(Map<Key, List<ModuleDescriptor>> cache) {
+        Path temp = null;
+        try {
+            Path dir = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            temp = Files.createTempFile(dir, cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(CACHE_MAGIC);
+                out.writeInt(cache.size());
+                for (Map.Entry<Key, List<ModuleDescriptor>> it : cache.entrySet()) {
+                    out.writeUTF(it.getKey().path);
+                    out.writeLong(it.getKey().size);
+                    out.writeLong(it.getKey().lastModified);
+                    out.writeInt(it.getValue().size());
+                    for (ModuleDescriptor descriptor : it.getValue()) {
+                        DescriptorCodec.write(out, descriptor);
+                    }
+                }
+            }
+            Files.move(temp, cacheFile, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {/**/}
+            }
+        }
+    }
+
+    private static final class Scanned {
+        final Key key;
+        final List<ModuleReference> references;
+
+        Scanned(Key key, List<ModuleReference> references) {
+            this.key = key;
+            this.references = references;
+        }
+    }
+
+    private static final class Key {
+        final String path;
+        final long size;
+        final long lastModified;
+
+        Key(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * @return {@code null} if the entry is not a jar
+         */
+        static Key of(Path entry) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                if (!attributes.isRegularFile()) {
+                    return null;
+                }
+                return new Key(entry.toAbsolutePath().normalize().toString(), attributes.size(), attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return size == that.size && lastModified == that.lastModified && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, size, lastModified);
+        }
+    }
+
+    /**
+     * A module of a cached descriptor, the jar is only opened once the content of the module is read.
+     */
+    private static final class CachedModuleReference extends ModuleReference {
+        private final Path jar;
+
+        CachedModuleReference(ModuleDescriptor descriptor, Path jar) {
+            super(descriptor, jar.toAbsolutePath().normalize().toUri());
+            this.jar = jar;
+        }
+
+        @Override
+        public ModuleReader open() throws IOException {
+            return ModuleFinder.of(jar).find(descriptor().name()).orElseThrow(() -> new NoSuchFileException(jar.toString())).open();
+        }
+    }
+}
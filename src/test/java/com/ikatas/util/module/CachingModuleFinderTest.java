@@ -0,0 +1,124 @@
+package com.ikatas.util.module;
+
+import com.ikatas.util.SyntheticClasses;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CachingModuleFinderTest {
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    private final Path[] classPath = Arrays.stream(System.getProperty("java.class.path").split("[:;]")).map(Paths::get).toArray(Path[]::new);
+
+    @Test
+    public void findsTheSameModulesAsModuleFinder() {
+        ModuleFinder expected = ModuleFinder.of(classPath);
+
+        CachingModuleFinder finder = CachingModuleFinder.of(cacheFile(), classPath);
+
+        assertThat(finder.find("junit").get().descriptor(), equalTo(expected.find("junit").get().descriptor()));
+        assertThat(descriptorsOf(finder), equalTo(descriptorsOf(expected)));
+    }
+
+    @Test
+    public void readDescriptorsOfUnchangedJarsFromCache() throws IOException {
+        CachingModuleFinder first = CachingModuleFinder.of(cacheFile(), classPath);
+        assertThat(first.cacheHits(), equalTo(0));
+        assertThat(first.cacheMisses(), greaterThan(0));
+
+        CachingModuleFinder second = CachingModuleFinder.of(cacheFile(), classPath);
+
+        assertThat(second.cacheMisses(), equalTo(0));
+        assertThat(second.cacheHits(), equalTo(first.cacheMisses()));
+        assertThat(descriptorsOf(second), equalTo(descriptorsOf(first)));
+        try (ModuleReader reader = second.find("junit").get().open()) {
+            assertThat(reader.find("org/junit/Test.class").isPresent(), is(true));
+        }
+    }
+
+    @Test
+    public void deriveDescriptorAgainOnceJarChanged() throws IOException {
+        Path jar = temp.getRoot().toPath().resolve("synthetic-lib-1.0.jar");
+        SyntheticClasses.jar(jar, SyntheticClasses.PACKAGE, 1);
+        CachingModuleFinder.of(cacheFile(), jar).findAll();
+
+        SyntheticClasses.jar(jar, SyntheticClasses.PACKAGE + ".changed", 1);
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 1000));
+        CachingModuleFinder finder = CachingModuleFinder.of(cacheFile(), jar);
+
+        assertThat(finder.cacheMisses(), equalTo(1));
+        assertThat(finder.find("synthetic.lib").get().descriptor().packages(), contains(SyntheticClasses.PACKAGE + ".changed"));
+    }
+
+    @Test
+    public void findersOfOtherPathsShareTheCacheFile() throws IOException {
+        Path first = temp.getRoot().toPath().resolve("first-1.0.jar"), second = temp.getRoot().toPath().resolve("second-1.0.jar");
+        SyntheticClasses.jar(first, SyntheticClasses.PACKAGE + ".first", 1);
+        SyntheticClasses.jar(second, SyntheticClasses.PACKAGE + ".second", 1);
+        CachingModuleFinder.of(cacheFile(), first).findAll();
+        CachingModuleFinder.of(cacheFile(), second).findAll();
+
+        assertThat(CachingModuleFinder.of(cacheFile(), first).cacheHits(), equalTo(1));
+        assertThat(CachingModuleFinder.of(cacheFile(), second).cacheHits(), equalTo(1));
+    }
+
+    @Test
+    public void findsModulesEvenIfTheCacheCanNotBeWritten() throws IOException {
+        Path notADirectory = temp.newFile("not-a-directory").toPath();
+
+        CachingModuleFinder finder = CachingModuleFinder.of(notADirectory.resolve("modules.cache"), classPath);
+
+        assertThat(descriptorsOf(finder), equalTo(descriptorsOf(ModuleFinder.of(classPath))));
+        assertThat(finder.cacheMisses(), greaterThan(0));
+    }
+
+    @Test
+    public void encodeAndDecodeDescriptorsOfAllKindsOfModules() throws IOException {
+        for (Module module : ModuleLayer.boot().modules()) {
+            ModuleDescriptor descriptor = module.getDescriptor();
+
+            assertThat(descriptor.name(), decode(encode(descriptor)), equalTo(descriptor));
+        }
+    }
+
+    private Path cacheFile() {
+        return temp.getRoot().toPath().resolve("modules.cache");
+    }
+
+    private static Set<ModuleDescriptor> descriptorsOf(ModuleFinder finder) {
+        return finder.findAll().stream().map(ModuleReference::descriptor).collect(toSet());
+    }
+
+    private static byte[] encode(ModuleDescriptor descriptor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            DescriptorCodec.write(out, descriptor);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ModuleDescriptor decode(byte[] bytes) throws IOException {
+        return DescriptorCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,149 @@
+package com.ikatas.util.module;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.module.ModuleDescriptor;
+import java.lang.module.ModuleDescriptor.Exports;
+import java.lang.module.ModuleDescriptor.Modifier;
+import java.lang.module.ModuleDescriptor.Opens;
+import java.lang.module.ModuleDescriptor.Provides;
+import java.lang.module.ModuleDescriptor.Requires;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writes a {@link ModuleDescriptor}, which is not serializable, in a compact binary form and reads it back into an
+ * equal descriptor.
+ */
+final class DescriptorCodec {
+    private DescriptorCodec() {
+    }
+
+    static void write(DataOutput out, ModuleDescriptor descriptor) throws IOException {
+        out.writeUTF(descriptor.name());
+        writeEnums(out, descriptor.modifiers());
+        writeOptional(out, descriptor.rawVersion());
+        out.writeInt(descriptor.requires().size());
+        for (Requires requires : descriptor.requires()) {
+            writeEnums(out, requires.modifiers());
+            out.writeUTF(requires.name());
+            writeOptional(out, requires.rawCompiledVersion());
+        }
+        out.writeInt(descriptor.exports().size());
+        for (Exports exports : descriptor.exports()) {
+            writeEnums(out, exports.modifiers());
+            out.writeUTF(exports.source());
+            writeStrings(out, exports.targets());
+        }
+        out.writeInt(descriptor.opens().size());
+        for (Opens opens : descriptor.opens()) {
+            writeEnums(out, opens.modifiers());
+            out.writeUTF(opens.source());
+            writeStrings(out, opens.targets());
+        }
+        writeStrings(out, descriptor.uses());
+        out.writeInt(descriptor.provides().size());
+        for (Provides provides : descriptor.provides()) {
+            out.writeUTF(provides.service());
+            writeStrings(out, provides.providers());
+        }
+        writeStrings(out, descriptor.packages());
+        writeOptional(out, descriptor.mainClass());
+    }
+
+    static ModuleDescriptor read(DataInput in) throws IOException {
+        String name = in.readUTF();
+        Set<Modifier> modifiers = readEnums(in, Modifier.class);
+        boolean automatic = modifiers.contains(Modifier.AUTOMATIC);
+        ModuleDescriptor.Builder builder = ModuleDescriptor.newModule(name, modifiers);
+        readOptional(in).ifPresent(builder::version);
+        for (int i = in.readInt(); i > 0; i--) {
+            Set<Requires.Modifier> requiresModifiers = readEnums(in, Requires.Modifier.class);
+            String requires = in.readUTF();
+            Optional<String> compiledVersion = readOptional(in);
+            if (automatic) {
+                continue; // automatic modules only have the mandated java.base which the builder adds itself
+            }
+            if (compiledVersion.isPresent()) {
+                builder.requires(requiresModifiers, requires, ModuleDescriptor.Version.parse(compiledVersion.get()));
+            } else {
+                builder.requires(requiresModifiers, requires);
+            }
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            Set<Exports.Modifier> exportsModifiers = readEnums(in, Exports.Modifier.class);
+            String source = in.readUTF();
+            Set<String> targets = new HashSet<>(readStrings(in));
+            if (targets.isEmpty()) {
+                builder.exports(exportsModifiers, source);
+            } else {
+                builder.exports(exportsModifiers, source, targets);
+            }
+        }
+        for (int i = in.readInt(); i > 0; i--) {
+            Set<Opens.Modifier> opensModifiers = readEnums(in, Opens.Modifier.class);
+            String source = in.readUTF();
+            Set<String> targets = new HashSet<>(readStrings(in));
+            if (targets.isEmpty()) {
+                builder.opens(opensModifiers, source);
+            } else {
+                builder.opens(opensModifiers, source, targets);
+            }
+        }
+        readStrings(in).forEach(builder::uses);
+        for (int i = in.readInt(); i > 0; i--) {
+            String service = in.readUTF();
+            builder.provides(service, readStrings(in));
+        }
+        builder.packages(new HashSet<>(readStrings(in)));
+        readOptional(in).ifPresent(builder::mainClass);
+        return builder.build();
+    }
+
+    private static void writeEnums(DataOutput out, Set<? extends Enum<?>> values) throws IOException {
+        out.writeInt(values.size());
+        for (Enum<?> value : values) {
+            out.writeUTF(value.name());
+        }
+    }
+
+    private static <E extends Enum<E>> Set<E> readEnums(DataInput in, Class<E> type) throws IOException {
+        Set<E> values = new HashSet<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            values.add(Enum.valueOf(type, in.readUTF()));
+        }
+        return values;
+    }
+
+    private static void writeStrings(DataOutput out, Collection<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<String> readStrings(DataInput in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+
+    private static void writeOptional(DataOutput out, Optional<String> value) throws IOException {
+        out.writeBoolean(value.isPresent());
+        if (value.isPresent()) {
+            out.writeUTF(value.get());
+        }
+    }
+
+    private static Optional<String> readOptional(DataInput in) throws IOException {
+        return in.readBoolean() ? Optional.of(in.readUTF()) : Optional.empty();
+    }
+}
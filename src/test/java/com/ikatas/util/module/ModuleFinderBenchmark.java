@@ -0,0 +1,62 @@
+package com.ikatas.util.module;
+
+import com.ikatas.util.SyntheticClasses;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.module.ModuleFinder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Compares finding all modules of a module path of synthetic automatic module jars with {@link ModuleFinder#of} and
+ * with a {@link CachingModuleFinder} whose cache is cold or warm. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.module.ModuleFinderBenchmark
+ * </pre>
+ * The {@code jars}, {@code classes} (per jar) and {@code trials} system properties override the defaults.
+ */
+public class ModuleFinderBenchmark {
+    public static void main(String[] args) throws Exception {
+        int jars = Integer.getInteger("jars", 500);
+        int classes = Integer.getInteger("classes", 20);
+        int trials = Integer.getInteger("trials", 5);
+
+        Path dir = Files.createTempDirectory("module-path");
+        Path[] modulePath = new Path[jars];
+        for (int i = 0; i < jars; i++) {
+            modulePath[i] = dir.resolve(format("synthetic-m%04d-1.0.jar", i));
+            SyntheticClasses.jar(modulePath[i], format("%s.m%04d", SyntheticClasses.PACKAGE, i), classes);
+        }
+        Path cache = dir.resolve("modules.cache");
+        out.printf("%d jars of %d classes%n", jars, classes);
+
+        measure("ModuleFinder.of", trials, () -> ModuleFinder.of(modulePath).findAll().size());
+        measure("caching, cold cache", trials, () -> {
+            try {
+                Files.deleteIfExists(cache);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return CachingModuleFinder.of(cache, modulePath).findAll().size();
+        });
+        measure("caching, warm cache", trials, () -> CachingModuleFinder.of(cache, modulePath).findAll().size());
+    }
+
+    private static void measure(String name, int trials, Supplier<Integer> findAll) {
+        findAll.get(); // warm up
+        long best = Long.MAX_VALUE;
+        int modules = 0;
+        for (int i = 0; i < trials; i++) {
+            long start = nanoTime();
+            modules = findAll.get();
+            best = Math.min(best, nanoTime() - start);
+        }
+        out.printf("%-22s %8.1f ms %6d modules%n", name, best / 1e6, modules);
+    }
+}
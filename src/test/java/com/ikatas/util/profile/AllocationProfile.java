@@ -0,0 +1,62 @@
+package com.ikatas.util.profile;
+
+import static java.lang.String.format;
+
+/**
+ * The allocations of an allocation site, estimated from the samples taken at the site.
+ */
+public final class AllocationProfile {
+    private final String caller;
+    private final String type;
+    private final long bytes;
+    private final long allocations;
+    private final long samples;
+
+    AllocationProfile(String caller, String type, long bytes, long allocations, long samples) {
+        this.caller = caller;
+        this.type = type;
+        this.bytes = bytes;
+        this.allocations = allocations;
+        this.samples = samples;
+    }
+
+    /**
+     * @return the allocating method and line, e.g: {@code com.ikatas.Parser.parse(Parser.java:42)}
+     */
+    public String caller() {
+        return caller;
+    }
+
+    /**
+     * @return the class of the objects allocated, e.g: {@code java.util.ArrayList} or {@code byte[]}
+     */
+    public String type() {
+        return type;
+    }
+
+    /**
+     * @return the estimated bytes allocated, by the shallow size of the objects
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the estimated number of objects allocated
+     */
+    public long allocations() {
+        return allocations;
+    }
+
+    /**
+     * @return the allocations sampled, the more the better the estimates
+     */
+    public long samples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return format("%12d bytes %10d allocations %8d samples  %s %s", bytes, allocations, samples, caller, type);
+    }
+}
@@ -0,0 +1,430 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.ClassTransformer;
+import com.ikatas.util.DirectClassLoader;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Samples the allocations of the {@code new}, {@code newarray}, {@code anewarray} and {@code multianewarray} sites of
+ * the classes a {@link DirectClassLoader} defines. A call of the profiler is inserted at each site, passing it the
+ * sampler of the site, a dynamic constant of the class resolved on the first allocation of the site, and the length of
+ * the array if any; the call follows a {@code new}, since code inserted before it would move the offset the stack maps
+ * of the method refer to the uninitialized object by. Class files older than Java 11 have no dynamic constants, so
+ * they are not instrumented.
+ * <p>
+ * Each site counts down the bytes it allocates, and samples the allocation which takes the count below zero; the
+ * count then restarts from a random number of bytes, exponentially distributed around the sampling interval, so an
+ * allocation of {@code s} bytes is sampled with a probability {@code 1 - exp(-s / interval)} whatever the allocation
+ * pattern. A sample counts for the allocations it stands for, the inverse of that probability, so the estimated bytes
+ * and allocations of a site are unbiased as long as its allocations don't race. Threads count down without
+ * synchronization, which keeps an allocation which isn't sampled as cheap as a field update, but the count loses the
+ * bytes of racing allocations, so sites allocated by many threads at once are sampled less often than they should and
+ * their estimates are biased low. Of the threads which take the count below zero at once, only the one which restarts
+ * the count weights the sample, so it isn't counted twice.
+ * Sizes are shallow and estimated as HotSpot lays objects out on a 64-bit VM with compressed class pointers.
+ */
+public final class AllocationProfiler implements ClassTransformer {
+    public static final long DEFAULT_SAMPLING_INTERVAL = 512 * 1024;
+
+    private static final String PROFILER = Type.getInternalName(AllocationProfiler.class);
+    private static final Handle SAMPLER = new Handle(H_INVOKESTATIC, PROFILER, "sampler",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;II)Ljava/lang/Object;", false);
+    private static final int OBJECT_HEADER = 12, ARRAY_HEADER = 16, ALIGNMENT = 8;
+    private static final int REFERENCE_SIZE = compressedOops() ? 4 : 8;
+    /**
+     * the estimated allocations are counted in 1/1024ths, since a sample stands for a fraction of an allocation more
+     */
+    private static final long ALLOCATION_SCALE = 1024;
+    private static final VarHandle REMAINING;
+    private static final ClassValue<Long> SIZES = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        size += sizeOf(field.getType());
+                    }
+                }
+            }
+            return align(size);
+        }
+    };
+
+    static {
+        try {
+            REMAINING = MethodHandles.lookup().findVarHandle(Sampler.class, "remaining", long.class);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final Predicate<String> classes;
+    private final long samplingInterval;
+    /**
+     * the estimated bytes and allocations, and the samples of each site
+     */
+    private final SiteCounters<Site> sites = new SiteCounters<>(3);
+
+    /**
+     * @param classes the binary names of the classes whose allocation sites are profiled
+     */
+    public AllocationProfiler(Predicate<String> classes) {
+        this(classes, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    /**
+     * @param samplingInterval the mean bytes a thread allocates between samples, {@code 1} samples every allocation
+     */
+    public AllocationProfiler(Predicate<String> classes, long samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Invalid sampling interval: " + samplingInterval);
+        }
+        this.classes = classes;
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Resolves the sampler of a site, the bootstrap method of the dynamic constant the instrumented code passes to
+     * the profiler.
+     */
+    public static Object sampler(MethodHandles.Lookup lookup, String name, Class<?> type, int profiler, int site) {
+        Site registered = (Site) SiteCounters.of(profiler).site(site); // the loader of the class holds its profiler
+        return registered.profiler().new Sampler(site, sizeOf(lookup, registered));
+    }
+
+    /**
+     * Counts an allocation of an object, called by the instrumented code.
+     */
+    public static void recordNew(Object sampler) {
+        Sampler site = (Sampler) sampler;
+        long remaining = site.remaining -= site.size;
+        if (remaining < 0) {
+            site.sample(site.size, remaining);
+        }
+    }
+
+    /**
+     * Counts an allocation of a one-dimensional array, called by the instrumented code.
+     */
+    public static void recordArray(int length, Object sampler) {
+        Sampler site = (Sampler) sampler;
+        long size = arraySize(length, (int) site.size);
+        if (length < 0) {
+            return; // the allocation throws a NegativeArraySizeException
+        }
+        long remaining = site.remaining -= size;
+        if (remaining < 0) {
+            site.sample(size, remaining);
+        }
+    }
+
+    /**
+     * Counts an allocation of a multi-dimensional array, with all of its nested arrays, called by the instrumented code.
+     */
+    public static void recordMultiArray(Object array, Object sampler) {
+        Sampler site = (Sampler) sampler;
+        long size = deepSizeOf(array);
+        long remaining = site.remaining -= size;
+        if (remaining < 0) {
+            site.sample(size, remaining);
+        }
+    }
+
+    /**
+     * @return the size of the objects the site allocates, the size of the elements of the one-dimensional arrays it
+     * allocates, or {@code 0} for multi-dimensional arrays
+     */
+    private static long sizeOf(MethodHandles.Lookup lookup, Site site) {
+        if (site.elementSize >= 0) {
+            return site.elementSize;
+        }
+        try {
+            return SIZES.get(Class.forName(site.type, false, lookup.lookupClass().getClassLoader()));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return align(OBJECT_HEADER); // resolved by the new instruction, so hardly ever
+        }
+    }
+
+    private long nextSample() {
+        return (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * samplingInterval);
+    }
+
+    @Override
+    public Collection<String> runtimeClasses() {
+        return List.of(AllocationProfiler.class.getName());
+    }
+
+    @Override
+    public byte[] transform(String name, byte[] classFile) {
+        if (!classes.test(name)) {
+            return classFile;
+        }
+        ClassReader reader = new ClassReader(classFile);
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new Instrumenter(writer), 0);
+        return writer.toByteArray();
+    }
+
+    public long samplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * @return the profiles of the sites which were sampled, most bytes first
+     */
+    public List<AllocationProfile> report() {
+        List<Site> sites = this.sites.sites();
+        long[] totals = this.sites.totals();
+        List<AllocationProfile> profiles = new ArrayList<>();
+        for (int id = 0; id < sites.size(); id++) {
+            Site site = sites.get(id);
+            long samples = totals[id * 3 + 2];
+            if (samples > 0) {
+                long allocations = Math.round((double) totals[id * 3 + 1] / ALLOCATION_SCALE);
+                profiles.add(new AllocationProfile(site.caller, site.type, totals[id * 3], allocations, samples));
+            }
+        }
+        profiles.sort(comparingLong(AllocationProfile::bytes).reversed());
+        return profiles;
+    }
+
+    /**
+     * Prints the sites allocating the most bytes.
+     */
+    public void dump(PrintStream out, int top) {
+        List<AllocationProfile> report = report();
+        long total = report.stream().mapToLong(AllocationProfile::bytes).sum();
+        out.printf("%d bytes allocated by %d sites, sampled every %d bytes%n", total, report.size(), samplingInterval);
+        report.stream().limit(top).forEach(out::println);
+    }
+
+    /**
+     * Dumps the sites allocating the most bytes periodically, until the returned future is cancelled.
+     */
+    public ScheduledFuture<?> dumpEvery(ScheduledExecutorService scheduler, Duration period, PrintStream out, int top) {
+        return scheduler.scheduleAtFixedRate(() -> dump(out, top), period.toNanos(), period.toNanos(), NANOSECONDS);
+    }
+
+    private static long arraySize(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    private static long deepSizeOf(Object array) {
+        Class<?> component = array.getClass().getComponentType();
+        long size = arraySize(Array.getLength(array), sizeOf(component));
+        if (component.isArray()) {
+            for (Object nested : (Object[]) array) {
+                if (nested != null) {
+                    size += deepSizeOf(nested);
+                }
+            }
+        }
+        return size;
+    }
+
+    private static int sizeOf(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static boolean compressedOops() {
+        HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+        return hotspot == null || Boolean.parseBoolean(hotspot.getVMOption("UseCompressedOops").getValue());
+    }
+
+    private final class Site {
+        final String caller;
+        final String type;
+        /**
+         * the size of the elements of the one-dimensional arrays the site allocates, {@code -1} for objects and
+         * {@code 0} for multi-dimensional arrays
+         */
+        final int elementSize;
+
+        Site(String caller, String type, int elementSize) {
+            this.caller = caller;
+            this.type = type;
+            this.elementSize = elementSize;
+        }
+
+        AllocationProfiler profiler() {
+            return AllocationProfiler.this;
+        }
+    }
+
+    /**
+     * Counts down the bytes a site allocates until its next sample.
+     */
+    private final class Sampler {
+        final int site;
+        final long size;
+        long remaining = nextSample();
+
+        Sampler(int site, long size) {
+            this.site = site;
+            this.size = size;
+        }
+
+        /**
+         * Restarts the count unless another thread took it below zero since, then weights the sample.
+         *
+         * @param remaining the count this thread took below zero
+         */
+        void sample(long size, long remaining) {
+            if (!REMAINING.compareAndSet(this, remaining, nextSample())) {
+                return;
+            }
+            double probability = -Math.expm1(-(double) size / samplingInterval);
+            long[] counts = sites.counters(site);
+            counts[site * 3] += Math.round(size / probability);
+            counts[site * 3 + 1] += Math.round(ALLOCATION_SCALE / probability);
+            counts[site * 3 + 2]++;
+        }
+    }
+
+    private final class Instrumenter extends ClassVisitor {
+        private String className;
+        private String sourceFile;
+        private boolean instrumented;
+
+        Instrumenter(ClassVisitor next) {
+            super(ASM9, next);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name.replace('/', '.');
+            instrumented = (access & ACC_MODULE) == 0 && (version & 0xFFFF) >= V11; // ldc of a dynamic constant
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFile = source;
+            super.visitSource(source, debug);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            MethodVisitor next = super.visitMethod(access, name, descriptor, signature, exceptions);
+            if (!instrumented) {
+                return next;
+            }
+            return new MethodVisitor(ASM9, next) {
+                private int line = -1;
+
+                @Override
+                public void visitLineNumber(int line, Label start) {
+                    this.line = line;
+                    super.visitLineNumber(line, start);
+                }
+
+                @Override
+                public void visitTypeInsn(int opcode, String type) {
+                    if (opcode == ANEWARRAY) {
+                        recordArray(REFERENCE_SIZE, Type.getObjectType(type).getClassName() + "[]");
+                    }
+                    super.visitTypeInsn(opcode, type);
+                    if (opcode == NEW) {
+                        pushSampler(Type.getObjectType(type).getClassName(), -1);
+                        super.visitMethodInsn(INVOKESTATIC, PROFILER, "recordNew", "(Ljava/lang/Object;)V", false);
+                    }
+                }
+
+                @Override
+                public void visitIntInsn(int opcode, int operand) {
+                    if (opcode == NEWARRAY) {
+                        Class<?> element = elementType(operand);
+                        recordArray(sizeOf(element), element.getName() + "[]");
+                    }
+                    super.visitIntInsn(opcode, operand);
+                }
+
+                @Override
+                public void visitMultiANewArrayInsn(String descriptor, int dimensions) {
+                    super.visitMultiANewArrayInsn(descriptor, dimensions);
+                    super.visitInsn(DUP);
+                    pushSampler(Type.getType(descriptor).getClassName(), 0);
+                    super.visitMethodInsn(INVOKESTATIC, PROFILER, "recordMultiArray", "(Ljava/lang/Object;Ljava/lang/Object;)V", false);
+                }
+
+                private void recordArray(int elementSize, String type) {
+                    super.visitInsn(DUP);
+                    pushSampler(type, elementSize);
+                    super.visitMethodInsn(INVOKESTATIC, PROFILER, "recordArray", "(ILjava/lang/Object;)V", false);
+                }
+
+                private void pushSampler(String type, int elementSize) {
+                    int site = sites.register(new Site(format("%s.%s(%s:%d)", className, name, sourceFile, line), type, elementSize));
+                    super.visitLdcInsn(new ConstantDynamic("site" + site, "Ljava/lang/Object;", SAMPLER, sites.id(), site));
+                }
+            };
+        }
+
+        private Class<?> elementType(int operand) {
+            switch (operand) {
+                case T_BOOLEAN:
+                    return boolean.class;
+                case T_CHAR:
+                    return char.class;
+                case T_FLOAT:
+                    return float.class;
+                case T_DOUBLE:
+                    return double.class;
+                case T_BYTE:
+                    return byte.class;
+                case T_SHORT:
+                    return short.class;
+                case T_INT:
+                    return int.class;
+                default:
+                    return long.class;
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.DirectClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.lang.invoke.MethodHandles.publicLookup;
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Measures the overhead of an {@link AllocationProfiler} on a workload which allocates at every step, parsing
+ * {@value Workload#LINES} lines into records and aggregating them, loaded without the profiler, with the profiler
+ * sampling at its default interval, and with it sampling every allocation. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="AllocationProfilerBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationProfilerBenchmark {
+    @Param({"none", "default", "every"})
+    private String sampling;
+
+    private MethodHandle run;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        DirectClassLoader loader = directClassLoader();
+        if (!sampling.equals("none")) {
+            long interval = sampling.equals("every") ? 1 : AllocationProfiler.DEFAULT_SAMPLING_INTERVAL;
+            loader.addTransformer(new AllocationProfiler(name -> name.startsWith(Workload.class.getName()), interval));
+        }
+        run = publicLookup().findStatic(loader.loadClass(Workload.class.getName()), "run", methodType(long.class));
+    }
+
+    @Benchmark
+    public long workload() throws Throwable {
+        return (long) run.invokeExact();
+    }
+
+    public static class Workload {
+        static final int LINES = 1000;
+
+        public static long run() {
+            Map<String, Total> totals = new HashMap<>();
+            for (Record record : parse()) {
+                totals.computeIfAbsent(record.account, Total::new).add(record.amount);
+            }
+            long sum = 0;
+            for (Total total : totals.values()) {
+                sum += total.amount * total.count;
+            }
+            return sum;
+        }
+
+        private static List<Record> parse() {
+            List<Record> records = new ArrayList<>();
+            for (int i = 0; i < LINES; i++) {
+                String[] fields = new String[]{"account-" + (i % 64), Integer.toString(i * 31 % 1000)};
+                char[] digits = fields[1].toCharArray();
+                long amount = 0;
+                for (char digit : digits) {
+                    amount = amount * 10 + digit - '0';
+                }
+                records.add(new Record(fields[0], amount));
+            }
+            return records;
+        }
+
+        static class Record {
+            final String account;
+            final long amount;
+
+            Record(String account, long amount) {
+                this.account = account;
+                this.amount = amount;
+            }
+        }
+
+        static class Total {
+            final String account;
+            long amount, count;
+
+            Total(String account) {
+                this.account = account;
+            }
+
+            void add(long amount) {
+                this.amount += amount;
+                count++;
+            }
+        }
+    }
+}
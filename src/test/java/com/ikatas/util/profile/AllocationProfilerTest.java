@@ -0,0 +1,153 @@
+package com.ikatas.util.profile;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class AllocationProfilerTest {
+    private final InstrumentedFixture fixture = new InstrumentedFixture(Fixture.class);
+
+    @Test
+    public void countsEveryAllocationWhenSamplingEachByte() throws Exception {
+        AllocationProfiler profiler = profile(1);
+
+        run("points", 1000);
+        run("buffers", 100);
+
+        assertThat(siteOf(profiler, "points").type(), equalTo(Fixture.Point.class.getName()));
+        assertThat(siteOf(profiler, "points").allocations(), equalTo(1000L));
+        assertThat(siteOf(profiler, "points").bytes(), equalTo(1000L * 24)); // 12 bytes of header and 2 ints
+        assertThat(siteOf(profiler, "buffers").type(), equalTo("byte[]"));
+        assertThat(siteOf(profiler, "buffers").bytes(), equalTo(100L * 1016)); // 16 bytes of header and 1000 bytes
+    }
+
+    @Test
+    public void ranksSitesByBytes() throws Exception {
+        AllocationProfiler profiler = profile(1);
+
+        run("all", 100);
+
+        List<AllocationProfile> report = profiler.report();
+        assertThat(report.stream().map(AllocationProfile::type).collect(toList()), contains(
+                "byte[]", "long[][]", "java.lang.String[]", Fixture.Point.class.getName()));
+        assertThat(report.get(1).bytes(), equalTo(100L * (32 + 4 * 48))); // an array of 4 references and 4 of 4 longs
+    }
+
+    @Test
+    public void estimatesTheBytesAllocatedFromSamples() throws Exception {
+        AllocationProfiler profiler = profile(64 * 1024);
+
+        run("buffers", 100_000);
+
+        AllocationProfile buffers = siteOf(profiler, "buffers");
+        assertThat(buffers.samples(), is(both(greaterThan(1000L)).and(lessThan(2200L))));
+        assertThat((double) buffers.bytes(), is(closeTo(100_000 * 1016, 100_000 * 1016 * 0.1)));
+        assertThat((double) buffers.allocations(), is(closeTo(100_000, 100_000 * 0.1)));
+    }
+
+    @Test
+    public void instrumentedClassesBehaveAsBefore() throws Exception {
+        profile(1);
+
+        assertThat(run("all", 10), equalTo(Fixture.all(10)));
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> run("buffers", -1));
+        assertThat(thrown.getCause(), is(instanceOf(NegativeArraySizeException.class)));
+    }
+
+    @Test
+    public void instrumentsObjectsWhoseConstructorArgumentsBranch() throws Exception {
+        AllocationProfiler profiler = profile(1);
+
+        assertThat(run("conditionalPoints", 100), equalTo(Fixture.conditionalPoints(100)));
+        assertThat(siteOf(profiler, "conditionalPoints").allocations(), equalTo(100L));
+    }
+
+    @Test
+    public void dumpsTheTopSites() throws Exception {
+        AllocationProfiler profiler = profile(1);
+        run("all", 10);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        profiler.dump(new PrintStream(out, true), 2);
+
+        String[] lines = out.toString().split("\\R");
+        assertThat(lines.length, equalTo(3));
+        assertThat(lines[0], startsWith(profiler.report().stream().mapToLong(AllocationProfile::bytes).sum() + " bytes allocated by 4 sites"));
+        assertThat(lines[1], endsWith("byte[]"));
+    }
+
+    private AllocationProfiler profile(long samplingInterval) {
+        return fixture.instrument(new AllocationProfiler(fixture.classes(), samplingInterval));
+    }
+
+    private Object run(String method, int count) throws Exception {
+        return fixture.run(method, count);
+    }
+
+    private static AllocationProfile siteOf(AllocationProfiler profiler, String method) {
+        return InstrumentedFixture.siteOf(profiler.report(), AllocationProfile::caller, method);
+    }
+
+    public static class Fixture {
+        public static long all(int count) {
+            return points(count) + buffers(count) + matrices(count) + names(count);
+        }
+
+        public static long points(int count) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += new Point(i, i).x;
+            }
+            return sum;
+        }
+
+        public static long conditionalPoints(int count) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += new Point(i % 2 == 0 ? i : -i, i).x; // the uninitialized point is on the stack across branches
+            }
+            return sum;
+        }
+
+        public static long buffers(int count) {
+            long sum = 0;
+            for (int i = 0; i < Math.max(count, 1); i++) {
+                sum += new byte[count < 0 ? count : 1000].length;
+            }
+            return sum;
+        }
+
+        public static long matrices(int count) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += new long[4][4].length;
+            }
+            return sum;
+        }
+
+        public static long names(int count) {
+            long sum = 0;
+            for (int i = 0; i < count; i++) {
+                sum += new String[10].length;
+            }
+            return sum;
+        }
+
+        static class Point {
+            final int x, y;
+
+            Point(int x, int y) {
+                this.x = x;
+                this.y = y;
+            }
+        }
+    }
+}
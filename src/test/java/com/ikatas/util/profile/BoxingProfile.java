@@ -0,0 +1,41 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.classfile.BoxingSite;
+
+import static java.lang.String.format;
+
+/**
+ * The executions of a boxing or unboxing site, and how many of its boxings allocated.
+ */
+public final class BoxingProfile {
+    private final BoxingSite site;
+    private final long executions;
+    private final long allocations;
+
+    BoxingProfile(BoxingSite site, long executions, long allocations) {
+        this.site = site;
+        this.executions = executions;
+        this.allocations = allocations;
+    }
+
+    public BoxingSite site() {
+        return site;
+    }
+
+    public long executions() {
+        return executions;
+    }
+
+    /**
+     * @return the boxings of values outside the caches of the {@code valueOf} methods, assuming the default size of
+     * the {@code Integer} cache; always {@code 0} for unboxing
+     */
+    public long allocations() {
+        return allocations;
+    }
+
+    @Override
+    public String toString() {
+        return format("%10d allocations %10d executions  %s", allocations, executions, site);
+    }
+}
@@ -0,0 +1,222 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.ClassTransformer;
+import com.ikatas.util.DirectClassLoader;
+import com.ikatas.util.classfile.BoxingSite;
+import com.ikatas.util.classfile.BoxingSite.Kind;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Counts the executions of the boxing and unboxing sites of the classes a {@link DirectClassLoader} defines, as found
+ * by {@link com.ikatas.util.classfile.BoxingScanner}. A call of the profiler is inserted before each site; the boxings
+ * of {@code Integer}, {@code Short}, {@code Character} and {@code Long} pass it a copy of the value, so it can tell
+ * whether {@code valueOf} allocates or returns a cached instance. Each site counts its executions and allocations.
+ */
+public final class BoxingProfiler implements ClassTransformer {
+    private static final int CACHE_LOW = -128, CACHE_HIGH = 127;
+    private static final String PROFILER = Type.getInternalName(BoxingProfiler.class);
+
+    private final Predicate<String> classes;
+    private final SiteCounters<Site> sites = new SiteCounters<>(2);
+
+    /**
+     * @param classes the binary names of the classes whose sites are profiled
+     */
+    public BoxingProfiler(Predicate<String> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Counts an execution of a site, called by the instrumented code.
+     */
+    public static void record(int site, int profiler) {
+        long[] counts = counters(site, profiler);
+        if (counts != null) {
+            counts[site * 2]++;
+        }
+    }
+
+    /**
+     * Counts an execution of a site boxing an integral value, called by the instrumented code.
+     */
+    public static void recordBox(int value, int site, int profiler) {
+        long[] counts = counters(site, profiler);
+        if (counts == null) {
+            return;
+        }
+        counts[site * 2]++;
+        if (value < CACHE_LOW || value > CACHE_HIGH) {
+            counts[site * 2 + 1]++;
+        }
+    }
+
+    /**
+     * Counts an execution of a site boxing a {@code long}, called by the instrumented code.
+     */
+    public static void recordBox(long value, int site, int profiler) {
+        long[] counts = counters(site, profiler);
+        if (counts == null) {
+            return;
+        }
+        counts[site * 2]++;
+        if (value < CACHE_LOW || value > CACHE_HIGH) {
+            counts[site * 2 + 1]++;
+        }
+    }
+
+    /**
+     * @return the executions and allocations of the sites of the thread, in pairs per site, or {@code null} if the
+     * profiler is gone
+     */
+    private static long[] counters(int site, int profiler) {
+        SiteCounters<?> sites = SiteCounters.of(profiler);
+        return sites == null ? null : sites.counters(site);
+    }
+
+    @Override
+    public Collection<String> runtimeClasses() {
+        return List.of(BoxingProfiler.class.getName());
+    }
+
+    @Override
+    public byte[] transform(String name, byte[] classFile) {
+        if (!classes.test(name)) {
+            return classFile;
+        }
+        ClassReader reader = new ClassReader(classFile);
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new Instrumenter(writer), 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return the profiles of the sites which were executed, most allocations first, then most executions
+     */
+    public List<BoxingProfile> report() {
+        List<Site> sites = this.sites.sites();
+        long[] totals = this.sites.totals();
+        List<BoxingProfile> profiles = new ArrayList<>();
+        for (int id = 0; id < sites.size(); id++) {
+            Site site = sites.get(id);
+            long executions = totals[id * 2], allocations = totals[id * 2 + 1];
+            if (executions > 0) {
+                profiles.add(new BoxingProfile(site.site, executions, site.allocates == Allocates.ALWAYS ? executions : allocations));
+            }
+        }
+        profiles.sort(comparingLong(BoxingProfile::allocations).thenComparingLong(BoxingProfile::executions).reversed());
+        return profiles;
+    }
+
+    private enum Allocates {
+        /**
+         * unboxing, or boxing a {@code boolean} or {@code byte}, all of whose values are cached
+         */
+        NEVER,
+        /**
+         * boxing a value which is cached if it is small
+         */
+        OUTSIDE_CACHE,
+        /**
+         * boxing a {@code float} or {@code double}, which are never cached
+         */
+        ALWAYS
+    }
+
+    private static final class Site {
+        final BoxingSite site;
+        final Allocates allocates;
+
+        Site(BoxingSite site, Allocates allocates) {
+            this.site = site;
+            this.allocates = allocates;
+        }
+    }
+
+    private final class Instrumenter extends ClassVisitor {
+        private String className;
+        private String sourceFile;
+        private boolean instrumented;
+
+        Instrumenter(ClassVisitor next) {
+            super(ASM9, next);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name.replace('/', '.');
+            instrumented = (access & ACC_MODULE) == 0;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFile = source;
+            super.visitSource(source, debug);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            MethodVisitor next = super.visitMethod(access, name, descriptor, signature, exceptions);
+            if (!instrumented) {
+                return next;
+            }
+            return new MethodVisitor(ASM9, next) {
+                private int line = -1;
+
+                @Override
+                public void visitLineNumber(int line, Label start) {
+                    this.line = line;
+                    super.visitLineNumber(line, start);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String method, String methodDescriptor, boolean isInterface) {
+                    Kind kind = BoxingSite.kindOf(opcode, owner, method, methodDescriptor);
+                    if (kind != null) {
+                        String caller = format("%s.%s(%s:%d)", className, name, sourceFile, line);
+                        BoxingSite site = new BoxingSite(caller, owner + "." + method + methodDescriptor, kind);
+                        char primitive = kind == Kind.BOXING ? methodDescriptor.charAt(1) : 'V';
+                        switch (primitive) {
+                            case 'I':
+                            case 'S':
+                            case 'C':
+                                super.visitInsn(DUP);
+                                pushSite(new Site(site, Allocates.OUTSIDE_CACHE));
+                                super.visitMethodInsn(INVOKESTATIC, PROFILER, "recordBox", "(III)V", false);
+                                break;
+                            case 'J':
+                                super.visitInsn(DUP2);
+                                pushSite(new Site(site, Allocates.OUTSIDE_CACHE));
+                                super.visitMethodInsn(INVOKESTATIC, PROFILER, "recordBox", "(JII)V", false);
+                                break;
+                            default:
+                                Allocates allocates = primitive == 'F' || primitive == 'D' ? Allocates.ALWAYS : Allocates.NEVER;
+                                pushSite(new Site(site, allocates));
+                                super.visitMethodInsn(INVOKESTATIC, PROFILER, "record", "(II)V", false);
+                        }
+                    }
+                    super.visitMethodInsn(opcode, owner, method, methodDescriptor, isInterface);
+                }
+
+                private void pushSite(Site site) {
+                    super.visitLdcInsn(sites.register(site));
+                    super.visitLdcInsn(sites.id());
+                }
+            };
+        }
+    }
+}
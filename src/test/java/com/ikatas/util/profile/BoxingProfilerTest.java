@@ -0,0 +1,106 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.classfile.BoxingSite.Kind;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class BoxingProfilerTest {
+    private final InstrumentedFixture fixture = new InstrumentedFixture(Fixture.class);
+    private final BoxingProfiler profiler = fixture.instrument(new BoxingProfiler(fixture.classes()));
+
+    @Test
+    public void ranksSitesByAllocationsThenByExecutions() throws Exception {
+        run("total", 1000);
+
+        List<BoxingProfile> report = profiler.report();
+        assertThat(report.stream().map(it -> it.site().caller().replaceAll("\\(.*", "")).collect(toList()), contains(
+                endsWith(".large"), endsWith(".fractions"), endsWith(".sum"), endsWith(".small")));
+        assertThat(report.get(0).allocations(), equalTo(1000L));
+        assertThat(report.get(1).allocations(), equalTo(500L));
+    }
+
+    @Test
+    public void countsOnlyBoxingsOutsideTheCachesAsAllocations() throws Exception {
+        run("total", 1000);
+
+        BoxingProfile small = siteOf("small"), large = siteOf("large");
+        assertThat(small.executions(), equalTo(1000L));
+        assertThat(small.allocations(), equalTo(0L));
+        assertThat(large.executions(), equalTo(1000L));
+        assertThat(large.allocations(), equalTo(1000L));
+    }
+
+    @Test
+    public void countsUnboxingsAsExecutionsOnly() throws Exception {
+        run("total", 1000);
+
+        BoxingProfile sum = siteOf("sum");
+        assertThat(sum.site().kind(), equalTo(Kind.UNBOXING));
+        assertThat(sum.executions(), equalTo(2000L));
+        assertThat(sum.allocations(), equalTo(0L));
+    }
+
+    @Test
+    public void instrumentedClassesBehaveAsBefore() throws Exception {
+        assertThat(run("total", 1000), equalTo(Fixture.total(1000)));
+        assertThat(run("longs", 300), equalTo(Fixture.longs(300)));
+        assertThat(siteOf("longs").allocations(), equalTo(172L));
+    }
+
+    private Object run(String method, int count) throws Exception {
+        return fixture.run(method, count);
+    }
+
+    private BoxingProfile siteOf(String method) {
+        return InstrumentedFixture.siteOf(profiler.report(), it -> it.site().caller(), method);
+    }
+
+    public static class Fixture {
+        public static long total(int count) {
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                small(values, i);
+                large(values, i);
+            }
+            return sum(values) + fractions(count / 2).size();
+        }
+
+        static void small(List<Integer> values, int i) {
+            values.add(i % 100);
+        }
+
+        static void large(List<Integer> values, int i) {
+            values.add(i + 1000);
+        }
+
+        static List<Double> fractions(int count) {
+            List<Double> fractions = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                fractions.add(i / 2.0);
+            }
+            return fractions;
+        }
+
+        static long sum(List<Integer> values) {
+            long sum = 0;
+            for (int value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        public static long longs(int count) {
+            List<Long> values = new ArrayList<>();
+            for (long i = 0; i < count; i++) {
+                values.add(i);
+            }
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ikatas.util.profile;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The receiver classes seen at a virtual or interface call site, classified as the JIT does when it decides how to
+ * inline the call.
+ */
+public final class CallSiteProfile {
+    public enum Morphism {
+        MONOMORPHIC, BIMORPHIC, MEGAMORPHIC
+    }
+
+    private final String caller;
+    private final String target;
+    private final long calls;
+    private final Map<Class<?>, Long> receivers;
+    private final int receiverClasses;
+
+    /**
+     * @param receiverClasses the number of receiver classes which called the site, including those which were unloaded
+     *                        or untracked, at least one more than tracked once some are untracked
+     */
+    CallSiteProfile(String caller, String target, long calls, Map<Class<?>, Long> receivers, int receiverClasses) {
+        this.caller = caller;
+        this.target = target;
+        this.calls = calls;
+        this.receivers = unmodifiableMap(receivers);
+        this.receiverClasses = receiverClasses;
+    }
+
+    /**
+     * @return the calling method and line, e.g: {@code com.ikatas.Shapes.area(Shapes.java:12)}
+     */
+    public String caller() {
+        return caller;
+    }
+
+    /**
+     * @return the method referenced by the call instruction, e.g: {@code com/ikatas/Shape.area()D}
+     */
+    public String target() {
+        return target;
+    }
+
+    public long calls() {
+        return calls;
+    }
+
+    /**
+     * @return the calls per receiver class, most frequent first; a site only tracks its first few receiver classes,
+     * and leaves out those which were unloaded, so its calls may exceed their sum
+     */
+    public Map<Class<?>, Long> receivers() {
+        return receivers;
+    }
+
+    /**
+     * @return the morphism by all receiver classes which called the site, so unloading them doesn't change it
+     */
+    public Morphism morphism() {
+        if (receiverClasses > 2) {
+            return Morphism.MEGAMORPHIC;
+        }
+        return receiverClasses == 2 ? Morphism.BIMORPHIC : Morphism.MONOMORPHIC;
+    }
+
+    @Override
+    public String toString() {
+        return format("%-11s %10d calls  %s -> %s [%s]", morphism(), calls, caller, target,
+                receivers.entrySet().stream().map(it -> it.getKey().getName() + "=" + it.getValue()).collect(joining(", ")));
+    }
+}
@@ -0,0 +1,270 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.ClassTransformer;
+import com.ikatas.util.DirectClassLoader;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Predicate;
+
+import static java.lang.String.format;
+import static java.util.Comparator.comparingLong;
+import static java.util.Comparator.reverseOrder;
+import static java.util.Map.Entry.comparingByValue;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Profiles the receiver classes of the {@code invokevirtual} and {@code invokeinterface} call sites of the classes a
+ * {@link DirectClassLoader} defines. Each call site is rewritten into a call of a synthetic static bridge, which counts
+ * the class of the receiver before making the original call, so the stack maps of the instrumented methods hold as
+ * they are.
+ * <p>
+ * Each site counts the calls of the first few receiver classes it sees, and the calls of all others together. The
+ * sites only hold their receiver classes weakly, so profiling does not keep the classes, nor their loaders, from being
+ * unloaded; the calls of the unloaded classes are still counted, though no longer reported by class.
+ */
+public final class CallSiteProfiler implements ClassTransformer {
+    private static final String BRIDGE_PREFIX = "profile$site$";
+    private static final String RECORD_DESCRIPTOR = "(Ljava/lang/Object;II)V";
+    private static final int TRACKED_RECEIVERS = 4;
+    /**
+     * a counter per tracked receiver class, and one for the others
+     */
+    private static final int COUNTERS = TRACKED_RECEIVERS + 1;
+
+    private final Predicate<String> classes;
+    private final SiteCounters<Site> sites = new SiteCounters<>(COUNTERS);
+
+    /**
+     * @param classes the binary names of the classes whose call sites are profiled
+     */
+    public CallSiteProfiler(Predicate<String> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * Counts a call of the receiver at a site, called by the instrumented code.
+     */
+    public static void record(Object receiver, int site, int profiler) {
+        SiteCounters<?> sites = SiteCounters.of(profiler);
+        if (receiver == null || sites == null) {
+            return; // the original call throws the NullPointerException
+        }
+        int receiverClass = ((Site) sites.site(site)).receiverIndex(receiver.getClass());
+        sites.counters(site)[site * COUNTERS + receiverClass]++;
+    }
+
+    @Override
+    public Collection<String> runtimeClasses() {
+        return List.of(CallSiteProfiler.class.getName());
+    }
+
+    @Override
+    public byte[] transform(String name, byte[] classFile) {
+        if (!classes.test(name)) {
+            return classFile;
+        }
+        ClassReader reader = new ClassReader(classFile);
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new Instrumenter(writer), 0);
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return the profiles of the call sites which were called, most called first
+     */
+    public List<CallSiteProfile> report() {
+        List<Site> sites = this.sites.sites();
+        long[] totals = this.sites.totals();
+        List<CallSiteProfile> profiles = new ArrayList<>();
+        for (int id = 0; id < sites.size(); id++) {
+            CallSiteProfile profile = profile(sites.get(id), totals, id * COUNTERS);
+            if (profile.calls() > 0) {
+                profiles.add(profile);
+            }
+        }
+        profiles.sort(comparingLong(CallSiteProfile::calls).reversed());
+        return profiles;
+    }
+
+    private static CallSiteProfile profile(Site site, long[] totals, int counters) {
+        Map<Class<?>, Long> receivers = new HashMap<>();
+        long calls = 0;
+        int receiverClasses = 0;
+        for (int i = 0; i < TRACKED_RECEIVERS; i++) {
+            if (totals[counters + i] == 0) {
+                continue;
+            }
+            WeakReference<Class<?>> tracked = site.receivers.get(i);
+            Class<?> receiver = tracked == null ? null : tracked.get();
+            if (receiver != null) {
+                receivers.put(receiver, totals[counters + i]);
+            }
+            calls += totals[counters + i];
+            receiverClasses++; // unloaded ones too
+        }
+        long untracked = totals[counters + TRACKED_RECEIVERS];
+        if (untracked > 0) {
+            receiverClasses++;
+        }
+        Map<Class<?>, Long> sorted = new LinkedHashMap<>();
+        receivers.entrySet().stream().sorted(comparingByValue(reverseOrder())).forEach(it -> sorted.put(it.getKey(), it.getValue()));
+        return new CallSiteProfile(site.caller, site.target, calls + untracked, sorted, receiverClasses);
+    }
+
+    private static final class Site {
+        final String caller;
+        final String target;
+        /**
+         * the first few receiver classes of the site, in the order the threads saw them
+         */
+        final AtomicReferenceArray<WeakReference<Class<?>>> receivers = new AtomicReferenceArray<>(TRACKED_RECEIVERS);
+
+        Site(String caller, String target) {
+            this.caller = caller;
+            this.target = target;
+        }
+
+        /**
+         * @return the index of the counter of the receiver class, {@link #TRACKED_RECEIVERS} for the untracked ones
+         */
+        int receiverIndex(Class<?> receiver) {
+            for (int i = 0; i < TRACKED_RECEIVERS; i++) {
+                WeakReference<Class<?>> tracked = receivers.get(i);
+                if (tracked == null) {
+                    if (receivers.compareAndSet(i, null, new WeakReference<>(receiver))) {
+                        return i;
+                    }
+                    tracked = receivers.get(i);
+                }
+                if (tracked.get() == receiver) {
+                    return i;
+                }
+            }
+            return TRACKED_RECEIVERS;
+        }
+    }
+
+    private static final class Bridge {
+        final String name;
+        final String descriptor;
+        final int opcode;
+        final String owner;
+        final String method;
+        final String methodDescriptor;
+        final boolean isInterface;
+        final int site;
+
+        Bridge(String name, String descriptor, int opcode, String owner, String method, String methodDescriptor, boolean isInterface, int site) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.opcode = opcode;
+            this.owner = owner;
+            this.method = method;
+            this.methodDescriptor = methodDescriptor;
+            this.isInterface = isInterface;
+            this.site = site;
+        }
+    }
+
+    private final class Instrumenter extends ClassVisitor {
+        private final List<Bridge> bridges = new ArrayList<>();
+        private String className;
+        private String sourceFile;
+        private boolean isInterface;
+        private boolean instrumented;
+
+        Instrumenter(ClassVisitor next) {
+            super(ASM9, next);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            className = name;
+            isInterface = (access & ACC_INTERFACE) != 0;
+            // private static interface methods need class files of java 9
+            instrumented = (!isInterface || (version & 0xFFFF) >= V9) && (access & ACC_MODULE) == 0;
+            super.visit(version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public void visitSource(String source, String debug) {
+            sourceFile = source;
+            super.visitSource(source, debug);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            MethodVisitor next = super.visitMethod(access, name, descriptor, signature, exceptions);
+            if (!instrumented) {
+                return next;
+            }
+            return new MethodVisitor(ASM9, next) {
+                private int line = -1;
+
+                @Override
+                public void visitLineNumber(int line, Label start) {
+                    this.line = line;
+                    super.visitLineNumber(line, start);
+                }
+
+                @Override
+                public void visitMethodInsn(int opcode, String owner, String method, String methodDescriptor, boolean ownerIsInterface) {
+                    if ((opcode != INVOKEVIRTUAL && opcode != INVOKEINTERFACE) || isSignaturePolymorphic(owner)) {
+                        super.visitMethodInsn(opcode, owner, method, methodDescriptor, ownerIsInterface);
+                        return;
+                    }
+                    String caller = format("%s.%s(%s:%d)", className.replace('/', '.'), name, sourceFile, line);
+                    int site = sites.register(new Site(caller, owner + "." + method + methodDescriptor));
+                    Type ownerType = owner.startsWith("[") ? Type.getType(owner) : Type.getObjectType(owner);
+                    Type[] arguments = Type.getArgumentTypes(methodDescriptor);
+                    Type[] parameters = new Type[arguments.length + 1];
+                    parameters[0] = ownerType;
+                    System.arraycopy(arguments, 0, parameters, 1, arguments.length);
+                    String bridgeDescriptor = Type.getMethodDescriptor(Type.getReturnType(methodDescriptor), parameters);
+                    Bridge bridge = new Bridge(BRIDGE_PREFIX + site, bridgeDescriptor, opcode, owner, method, methodDescriptor, ownerIsInterface, site);
+                    bridges.add(bridge);
+                    super.visitMethodInsn(INVOKESTATIC, className, bridge.name, bridge.descriptor, isInterface);
+                }
+            };
+        }
+
+        @Override
+        public void visitEnd() {
+            for (Bridge bridge : bridges) {
+                MethodVisitor mv = super.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, bridge.name, bridge.descriptor, null, null);
+                mv.visitCode();
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitLdcInsn(bridge.site);
+                mv.visitLdcInsn(sites.id());
+                mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CallSiteProfiler.class), "record", RECORD_DESCRIPTOR, false);
+                int slot = 0;
+                for (Type parameter : Type.getArgumentTypes(bridge.descriptor)) {
+                    mv.visitVarInsn(parameter.getOpcode(ILOAD), slot);
+                    slot += parameter.getSize();
+                }
+                mv.visitMethodInsn(bridge.opcode, bridge.owner, bridge.method, bridge.methodDescriptor, bridge.isInterface);
+                mv.visitInsn(Type.getReturnType(bridge.descriptor).getOpcode(IRETURN));
+                mv.visitMaxs(0, 0);
+                mv.visitEnd();
+            }
+            super.visitEnd();
+        }
+
+        private boolean isSignaturePolymorphic(String owner) {
+            return owner.equals("java/lang/invoke/MethodHandle") || owner.equals("java/lang/invoke/VarHandle");
+        }
+    }
+}
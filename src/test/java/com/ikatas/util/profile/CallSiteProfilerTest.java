@@ -0,0 +1,146 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.profile.CallSiteProfile.Morphism;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static com.ikatas.util.profile.InstrumentedFixture.siteOf;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CallSiteProfilerTest {
+    private final InstrumentedFixture fixture = new InstrumentedFixture(Fixture.class);
+    private final CallSiteProfiler profiler = fixture.instrument(new CallSiteProfiler(fixture.classes()));
+
+    @Test
+    public void classifiesCallSitesByTheNumberOfReceiverClasses() throws Exception {
+        assertThat(areaSiteOfShapes(1).morphism(), equalTo(Morphism.MONOMORPHIC));
+        assertThat(areaSiteOfShapes(2).morphism(), equalTo(Morphism.BIMORPHIC));
+        assertThat(areaSiteOfShapes(3).morphism(), equalTo(Morphism.MEGAMORPHIC));
+    }
+
+    @Test
+    public void classifiesCallSitesByReceiverClassesIncludingUnloadedOnes() {
+        Map<Class<?>, Long> loaded = Map.of(Fixture.Circle.class, 50L);
+
+        assertThat(new CallSiteProfile("caller", "target", 100, loaded, 2).morphism(), equalTo(Morphism.BIMORPHIC));
+        assertThat(new CallSiteProfile("caller", "target", 100, Map.of(), 3).morphism(), equalTo(Morphism.MEGAMORPHIC));
+    }
+
+    @Test
+    public void countsCallsPerReceiverClass() throws Exception {
+        CallSiteProfile site = areaSiteOfShapes(2);
+
+        assertThat(site.calls(), equalTo(100L));
+        assertThat(site.receivers().keySet().stream().map(Class::getSimpleName).collect(toList()), containsInAnyOrder("Circle", "Square"));
+        assertThat(site.receivers().values(), everyItem(equalTo(50L)));
+        assertThat(site.caller(), startsWith(Fixture.class.getName() + ".total(CallSiteProfilerTest.java:"));
+        assertThat(site.target(), equalTo("com/ikatas/util/profile/CallSiteProfilerTest$Fixture$Shape.area()I"));
+    }
+
+    @Test
+    public void instrumentedClassesBehaveAsBefore() throws Exception {
+        assertThat(fixture.run("total", 3, 6), equalTo(8));
+        assertThat(fixture.load(Fixture.Derived.class).getConstructor().newInstance().toString(), equalTo("0"));
+    }
+
+    @Test
+    public void overriddenMethodsCalledDuringSuperclassConstructionAreDispatchedToTheSubclass() throws Exception {
+        fixture.load(Fixture.Derived.class).getConstructor().newInstance();
+
+        CallSiteProfile site = siteOf(profiler.report(), CallSiteProfile::target, "initialValue");
+        assertThat(site.caller(), containsString("$Base.<init>"));
+        assertThat(site.receivers().keySet().stream().map(Class::getSimpleName).collect(toList()), contains("Derived"));
+    }
+
+    @Test
+    public void reportsCallsOfAllThreads() throws Exception {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    fixture.run("total", 1, 100);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(siteOf(profiler.report(), CallSiteProfile::target, "area").calls(), equalTo(400L));
+    }
+
+    private CallSiteProfile areaSiteOfShapes(int kinds) throws Exception {
+        InstrumentedFixture fixture = new InstrumentedFixture(Fixture.class);
+        CallSiteProfiler profiler = fixture.instrument(new CallSiteProfiler(fixture.classes()));
+        fixture.run("total", kinds, 100);
+        return siteOf(profiler.report(), CallSiteProfile::target, "area");
+    }
+
+    public static class Fixture {
+        public static int total(int kinds, int count) {
+            Shape[] shapes = {new Circle(), new Square(), new Triangle()};
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                total += shapes[i % kinds].area();
+            }
+            return total;
+        }
+
+        interface Shape {
+            int area();
+        }
+
+        static class Circle implements Shape {
+            public int area() {
+                return 3;
+            }
+        }
+
+        static class Square implements Shape {
+            public int area() {
+                return 1;
+            }
+        }
+
+        static class Triangle implements Shape {
+            public int area() {
+                return 0;
+            }
+        }
+
+        public static class Base {
+            final int baseValue;
+
+            Base() {
+                baseValue = initialValue();
+            }
+
+            int initialValue() {
+                throw new UnsupportedOperationException();
+            }
+        }
+
+        public static class Derived extends Base {
+            int value = -1;
+
+            public Derived() {
+            }
+
+            @Override
+            int initialValue() {
+                return value;
+            }
+
+            @Override
+            public String toString() {
+                return String.valueOf(baseValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.ClassTransformer;
+import com.ikatas.util.DirectClassLoader;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+
+/**
+ * A fixture class of a profiler test, and its nested classes, defined by a loader of their own which instruments them.
+ */
+final class InstrumentedFixture {
+    private final Class<?> fixture;
+    private final DirectClassLoader loader = directClassLoader();
+
+    InstrumentedFixture(Class<?> fixture) {
+        this.fixture = fixture;
+    }
+
+    /**
+     * @return the binary names of the classes to profile: the fixture and its nested classes
+     */
+    Predicate<String> classes() {
+        return name -> name.startsWith(fixture.getName());
+    }
+
+    <T extends ClassTransformer> T instrument(T profiler) {
+        loader.addTransformer(profiler);
+        return profiler;
+    }
+
+    Class<?> load(Class<?> type) throws ClassNotFoundException {
+        return loader.loadClass(type.getName());
+    }
+
+    /**
+     * Calls a static method of the fixture taking {@code int}s.
+     */
+    Object run(String method, int... arguments) throws Exception {
+        Class<?>[] parameters = new Class<?>[arguments.length];
+        Arrays.fill(parameters, int.class);
+        return load(fixture).getMethod(method, parameters).invoke(null, Arrays.stream(arguments).boxed().toArray());
+    }
+
+    /**
+     * @return the only profile of a site whose description, e.g: its caller, mentions the method
+     */
+    static <P> P siteOf(List<P> report, Function<P, String> description, String method) {
+        List<P> sites = report.stream().filter(it -> description.apply(it).contains("." + method + "(")).collect(toList());
+        assertThat(sites, hasSize(1));
+        return sites.get(0);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ikatas.util.profile;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * The metaspace a loader's class definitions took, as sampled around each definition.
+ */
+public final class LoaderMetaspace {
+    private final String loader;
+    private final List<String> classes;
+    private final long metaspaceBytes;
+    private final long classSpaceBytes;
+    private final boolean collected;
+
+    LoaderMetaspace(String loader, List<String> classes, long metaspaceBytes, long classSpaceBytes, boolean collected) {
+        this.loader = loader;
+        this.classes = classes;
+        this.metaspaceBytes = metaspaceBytes;
+        this.classSpaceBytes = classSpaceBytes;
+        this.collected = collected;
+    }
+
+    /**
+     * @return the name of the loader with its identity hash, e.g: {@code direct@1b6d3586}
+     */
+    public String loader() {
+        return loader;
+    }
+
+    /**
+     * @return the binary names of the classes the loader defined, in the order they were defined, a class defined
+     * again in force reload mode appearing once per definition
+     */
+    public List<String> classes() {
+        return classes;
+    }
+
+    /**
+     * @return the growth of the {@code Metaspace} pool usage while the classes were defined, which includes the
+     * compressed class space
+     */
+    public long metaspaceBytes() {
+        return metaspaceBytes;
+    }
+
+    /**
+     * @return the growth of the {@code Compressed Class Space} pool usage while the classes were defined, or {@code 0}
+     * if class pointers aren't compressed
+     */
+    public long classSpaceBytes() {
+        return classSpaceBytes;
+    }
+
+    /**
+     * @return whether the loader was garbage collected, after which its metaspace is released once its classes are
+     * unloaded
+     */
+    public boolean isCollected() {
+        return collected;
+    }
+
+    @Override
+    public String toString() {
+        return format("%-24s %6d classes %10d metaspace %10d class space%s", loader, classes.size(), metaspaceBytes,
+                classSpaceBytes, collected ? "  (collected)" : "");
+    }
+}
@@ -0,0 +1,169 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.DefinitionListener;
+import com.ikatas.util.DirectClassLoader;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static java.lang.String.format;
+import static java.util.Collections.synchronizedMap;
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Ties metaspace usage to the {@link DirectClassLoader}s whose class definitions take it: the usage of the
+ * {@code Metaspace} and {@code Compressed Class Space} memory pools is sampled right before and after each class a
+ * tracked loader defines, and the growth is added to the account of the loader. Defining a class may load and define
+ * its supertypes first, so the growth of the definitions nested in that of a class is left out of its own, and the
+ * growths of the classes add up to that of the outermost definition.
+ * <p>
+ * The pools are shared by all loaders, so classes defined concurrently by other threads, or metaspace chunks the JVM
+ * hands out to a loader ahead of its needs, blur the accounts; they are estimates, not a breakdown of the pools.
+ * Accounts don't keep their loaders reachable, and outlive them.
+ */
+public final class MetaspaceAccounting implements DefinitionListener {
+    private static final MemoryPoolMXBean METASPACE = pool("Metaspace"), CLASS_SPACE = pool("Compressed Class Space");
+
+    private final Map<DirectClassLoader, Account> loaders = synchronizedMap(new WeakHashMap<>());
+    private final Queue<Account> accounts = new ConcurrentLinkedQueue<>();
+    /**
+     * the definitions in progress on the thread, innermost first, each sampling the usage of both pools before it
+     * started and the growth of the definitions nested in it
+     */
+    private final ThreadLocal<Deque<long[]>> definitions = ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Accounts for the classes the loader defines from now on.
+     */
+    public void track(DirectClassLoader loader) {
+        Account account = new Account(loader);
+        if (loaders.putIfAbsent(loader, account) == null) {
+            accounts.add(account);
+            loader.addListener(this);
+        }
+    }
+
+    /**
+     * @return the accounts of all loaders tracked so far, collected or not, by descending metaspace
+     */
+    public List<LoaderMetaspace> accounts() {
+        List<LoaderMetaspace> result = new ArrayList<>();
+        for (Account account : accounts) {
+            result.add(account.snapshot());
+        }
+        result.sort(comparingLong(LoaderMetaspace::metaspaceBytes).reversed());
+        return result;
+    }
+
+    /**
+     * @return the account of the loader, or {@code null} if it isn't tracked
+     */
+    public LoaderMetaspace account(DirectClassLoader loader) {
+        Account account = loaders.get(loader);
+        return account == null ? null : account.snapshot();
+    }
+
+    /**
+     * Forgets the accounts of the collected loaders.
+     *
+     * @return the number of accounts forgotten
+     */
+    public int purge() {
+        int purged = 0;
+        for (Account account : accounts) {
+            if (account.loader.get() == null && accounts.remove(account)) {
+                purged++;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * @return the bytes used in the {@code Metaspace} pool, or {@code 0} if the JVM has no such pool
+     */
+    public static long metaspaceUsed() {
+        return used(METASPACE);
+    }
+
+    /**
+     * @return the bytes used in the {@code Compressed Class Space} pool, or {@code 0} if class pointers aren't
+     * compressed
+     */
+    public static long classSpaceUsed() {
+        return used(CLASS_SPACE);
+    }
+
+    @Override
+    public void defining(DirectClassLoader loader, String name) {
+        definitions.get().push(new long[]{metaspaceUsed(), classSpaceUsed(), 0, 0});
+    }
+
+    @Override
+    public void defined(DirectClassLoader loader, Class<?> c, ByteBuffer classFile) {
+        long metaspace = metaspaceUsed(), classSpace = classSpaceUsed();
+        Deque<long[]> definitions = this.definitions.get();
+        long[] definition = definitions.pop();
+        long metaspaceGrowth = metaspace - definition[0], classSpaceGrowth = classSpace - definition[1];
+        long[] enclosing = definitions.peek();
+        if (enclosing != null) {
+            enclosing[2] += metaspaceGrowth;
+            enclosing[3] += classSpaceGrowth;
+        }
+        Account account = loaders.get(loader);
+        if (account != null) {
+            account.add(c.getName(), Math.max(0, metaspaceGrowth - definition[2]), Math.max(0, classSpaceGrowth - definition[3]));
+        }
+    }
+
+    @Override
+    public void failed(DirectClassLoader loader, String name, Throwable failure) {
+        definitions.get().pop();
+    }
+
+    private static MemoryPoolMXBean pool(String name) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals(name)) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    private static long used(MemoryPoolMXBean pool) {
+        return pool == null ? 0 : pool.getUsage().getUsed();
+    }
+
+    private static final class Account {
+        final WeakReference<DirectClassLoader> loader;
+        final String name;
+        // guarded by this
+        final List<String> classes = new ArrayList<>();
+        long metaspaceBytes;
+        long classSpaceBytes;
+
+        Account(DirectClassLoader loader) {
+            this.loader = new WeakReference<>(loader);
+            this.name = format("%s@%x", loader.getName(), System.identityHashCode(loader));
+        }
+
+        synchronized void add(String className, long metaspace, long classSpace) {
+            classes.add(className);
+            metaspaceBytes += metaspace;
+            classSpaceBytes += classSpace;
+        }
+
+        synchronized LoaderMetaspace snapshot() {
+            return new LoaderMetaspace(name, List.copyOf(classes), metaspaceBytes, classSpaceBytes, loader.get() == null);
+        }
+    }
+}
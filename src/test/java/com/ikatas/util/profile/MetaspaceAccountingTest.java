@@ -0,0 +1,110 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.jls.test.execution.ClassLoaderTest;
+import com.ikatas.util.DirectClassLoader;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class MetaspaceAccountingTest {
+    private static final String TEST_CLASS = ClassLoaderTest.class.getName();
+    private static final String SUP = TEST_CLASS + "$Sup", SUB = TEST_CLASS + "$Sub";
+
+    private final MetaspaceAccounting accounting = new MetaspaceAccounting();
+
+    @Test
+    public void accountsTheClassesEachLoaderDefines() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+        accounting.track(loader);
+
+        loader.loadClass(SUB);
+
+        LoaderMetaspace account = accounting.account(loader);
+        assertThat(account.classes(), hasItems(SUP, SUB));
+        assertThat(account.classes(), equalTo(List.copyOf(loader.loadedClasses())));
+        assertThat(account.metaspaceBytes(), greaterThan(0L));
+        assertThat(account.classSpaceBytes(), lessThanOrEqualTo(account.metaspaceBytes()));
+        assertThat(account.loader(), startsWith("direct@"));
+    }
+
+    @Test
+    public void leavesTheDefinitionsOfSupertypesOutOfThoseOfTheirSubtypes() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+        accounting.track(loader);
+
+        long before = MetaspaceAccounting.metaspaceUsed();
+        loader.loadClass(SUB);
+        long growth = MetaspaceAccounting.metaspaceUsed() - before;
+
+        LoaderMetaspace account = accounting.account(loader);
+        assertThat(account.classes(), hasItems(SUP, SUB));
+        assertThat(account.metaspaceBytes(), allOf(greaterThan(0L), lessThanOrEqualTo(growth)));
+    }
+
+    @Test
+    public void leavesFailedDefinitionsOut() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+        accounting.track(loader);
+        loader.loadClass(SUP);
+        List<String> classes = accounting.account(loader).classes();
+
+        assertThrows(LinkageError.class, () -> loader.loadClass(SUP)); // defined again by the same loader
+
+        assertThat(accounting.account(loader).classes(), equalTo(classes));
+        DirectClassLoader next = directClassLoader(true);
+        accounting.track(next);
+        next.loadClass(SUB);
+        assertThat(accounting.account(next).classes(), hasItems(SUP, SUB));
+    }
+
+    @Test
+    public void accountsBatchDefinitions() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+        accounting.track(loader);
+        accounting.track(loader);
+
+        loader.defineAll(asList(SUB, SUP));
+
+        assertThat(accounting.account(loader).classes(), hasItems(SUP, SUB));
+        assertThat(accounting.accounts(), hasSize(1));
+    }
+
+    @Test
+    public void ignoresLoadersNotTracked() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+
+        loader.loadClass(SUP);
+
+        assertThat(accounting.account(loader), is(nullValue()));
+        assertThat(accounting.accounts(), is(empty()));
+    }
+
+    @Test
+    public void accountsOutliveTheirLoaders() throws Exception {
+        trackAndDrop();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!accounting.accounts().get(0).isCollected() && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        LoaderMetaspace account = accounting.accounts().get(0);
+        assertThat(account.isCollected(), is(true));
+        assertThat(account.classes(), hasItem(SUP));
+        assertThat(accounting.purge(), equalTo(1));
+        assertThat(accounting.accounts(), is(empty()));
+    }
+
+    private void trackAndDrop() throws ClassNotFoundException {
+        DirectClassLoader loader = directClassLoader(true);
+        accounting.track(loader);
+        loader.loadClass(SUP);
+    }
+}
@@ -0,0 +1,197 @@
+package com.ikatas.util.profile;
+
+import com.ikatas.util.DirectoryClassLoader;
+import com.ikatas.util.SyntheticClasses;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+
+/**
+ * Creates force reload loaders at a fixed rate, each defining and using a set of classes before it is dropped, and
+ * measures what the churn costs: the metaspace in use once it reaches a steady state, how long dropped loaders take to
+ * be collected, and the time the collectors spent. Loaders are collected with their classes, so the collection
+ * latency is that of class unloading, driven by the GCs the churn itself triggers, e.g: when metaspace reaches its
+ * high water mark. The hiccup column is the longest a thread sleeping 1 ms at a time overslept, an upper bound of the
+ * pauses the application saw. Run it under G1 and ZGC with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.profile.MetaspaceChurnBenchmark -Dbenchmark.jvmArgs="-XX:+UseG1GC"
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark=com.ikatas.util.profile.MetaspaceChurnBenchmark -Dbenchmark.jvmArgs="-XX:+UseZGC"
+ * </pre>
+ * The {@code rate} (loaders/s), {@code seconds}, {@code classes} (per loader) system properties override the defaults,
+ * and {@code -Daccounting=true} tracks every loader with a {@link MetaspaceAccounting}, e.g:
+ * {@code -Dbenchmark.jvmArgs="-XX:+UseZGC -Drate=200 -Daccounting=true"}.
+ */
+public class MetaspaceChurnBenchmark {
+    private static final long UNLOAD_TIMEOUT_NANOS = 10_000_000_000L;
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("rate", 100);
+        int seconds = Integer.getInteger("seconds", 10);
+        int classes = Integer.getInteger("classes", 64);
+        boolean accounting = Boolean.getBoolean("accounting");
+
+        Path root = Files.createTempDirectory("synthetic-classes");
+        List<String> names = SyntheticClasses.generate(root, classes);
+        out.printf("%s, %d loaders/s for %d s, %d classes per loader%s%n", collectors(), rate, seconds, classes,
+                accounting ? ", accounted" : "");
+
+        Churn churn = new Churn(root, names, accounting ? new MetaspaceAccounting() : null);
+        churn.run(rate, seconds);
+        churn.report();
+    }
+
+    private static String collectors() {
+        List<String> names = new ArrayList<>();
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            names.add(gc.getName());
+        }
+        return String.join(" + ", names);
+    }
+
+    private static final class Churn {
+        final Path root;
+        final List<String> names;
+        final MetaspaceAccounting accounting;
+        final ReferenceQueue<DirectoryClassLoader> collected = new ReferenceQueue<>();
+        final Set<Dropped> dropped = ConcurrentHashMap.newKeySet();
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> metaspaceSamples = new ArrayList<>();
+        volatile long hiccup;
+        long[] gcCounts, gcTimes;
+        int loaders;
+        long checksum;
+
+        Churn(Path root, List<String> names, MetaspaceAccounting accounting) {
+            this.root = root;
+            this.names = names;
+            this.accounting = accounting;
+        }
+
+        void run(int rate, int seconds) throws Exception {
+            Thread reaper = daemon(this::reap);
+            Thread ticker = daemon(this::tick);
+            List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+            gcCounts = new long[gcs.size()];
+            gcTimes = new long[gcs.size()];
+            for (int i = 0; i < gcs.size(); i++) {
+                gcCounts[i] = gcs.get(i).getCollectionCount();
+                gcTimes[i] = gcs.get(i).getCollectionTime();
+            }
+
+            long period = 1_000_000_000L / rate, begin = nanoTime(), nextSample = begin;
+            for (int i = 0; i < rate * seconds; i++) {
+                LockSupport.parkNanos(begin + i * period - nanoTime());
+                churn();
+                if (nanoTime() >= nextSample) {
+                    metaspaceSamples.add(MetaspaceAccounting.metaspaceUsed());
+                    nextSample += 100_000_000L;
+                }
+            }
+
+            for (int i = 0; i < gcs.size(); i++) {
+                gcCounts[i] = gcs.get(i).getCollectionCount() - gcCounts[i];
+                gcTimes[i] = gcs.get(i).getCollectionTime() - gcTimes[i];
+            }
+            ticker.interrupt();
+            long deadline = nanoTime() + UNLOAD_TIMEOUT_NANOS;
+            while (!dropped.isEmpty() && nanoTime() < deadline) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            reaper.interrupt();
+        }
+
+        void churn() throws ReflectiveOperationException {
+            DirectoryClassLoader loader = new DirectoryClassLoader(root, true);
+            if (accounting != null) {
+                accounting.track(loader);
+            }
+            long sum = 0;
+            for (String name : names) {
+                Object instance = loader.loadClass(name).getConstructor().newInstance();
+                sum += (int) instance.getClass().getMethod("value0").invoke(instance);
+            }
+            checksum += sum;
+            dropped.add(new Dropped(loader, collected));
+            loaders++;
+        }
+
+        void reap() {
+            try {
+                while (true) {
+                    Dropped loader = (Dropped) collected.remove();
+                    latencies.add(nanoTime() - loader.at);
+                    dropped.remove(loader);
+                }
+            } catch (InterruptedException ignored) {/**/}
+        }
+
+        void tick() {
+            while (!Thread.currentThread().isInterrupted()) {
+                long start = nanoTime();
+                LockSupport.parkNanos(1_000_000L);
+                hiccup = Math.max(hiccup, nanoTime() - start - 1_000_000L);
+            }
+        }
+
+        void report() {
+            List<Long> steady = metaspaceSamples.subList(metaspaceSamples.size() / 2, metaspaceSamples.size());
+            long mean = (long) steady.stream().mapToLong(Long::longValue).average().orElse(0);
+            long max = metaspaceSamples.stream().mapToLong(Long::longValue).max().orElse(0);
+            out.printf("%n%10s %14s %14s %12s %12s %12s %12s%n", "loaders", "steady (MB)", "max (MB)",
+                    "p50 (ms)", "p99 (ms)", "max (ms)", "hiccup (ms)");
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            Collections.sort(sorted);
+            out.printf("%10d %14.1f %14.1f %12.1f %12.1f %12.1f %12.1f%n", loaders, mean / 1e6, max / 1e6,
+                    percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.99) / 1e6, percentile(sorted, 1) / 1e6, hiccup / 1e6);
+            out.printf("%d loaders collected, %d not within %d s after the churn (checksum %d)%n", sorted.size(),
+                    dropped.size(), UNLOAD_TIMEOUT_NANOS / 1_000_000_000L, checksum);
+
+            List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+            out.printf("%n%-24s %8s %12s%n", "collector", "count", "time (ms)");
+            for (int i = 0; i < gcs.size(); i++) {
+                out.printf("%-24s %8d %12d%n", gcs.get(i).getName(), gcCounts[i], gcTimes[i]);
+            }
+            if (accounting != null) {
+                List<LoaderMetaspace> accounts = accounting.accounts();
+                long metaspace = accounts.stream().mapToLong(LoaderMetaspace::metaspaceBytes).sum();
+                out.printf("%naccounted %.1f KB of metaspace per loader%n", metaspace / 1e3 / accounts.size());
+            }
+        }
+
+        private static long percentile(List<Long> sorted, double p) {
+            return sorted.isEmpty() ? 0 : sorted.get(Math.max(0, (int) Math.ceil(p * sorted.size()) - 1));
+        }
+
+        private static Thread daemon(Runnable action) {
+            Thread thread = new Thread(action);
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+    }
+
+    private static final class Dropped extends PhantomReference<DirectoryClassLoader> {
+        final long at = nanoTime();
+
+        Dropped(DirectoryClassLoader loader, ReferenceQueue<DirectoryClassLoader> queue) {
+            super(loader, queue);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ikatas.util.profile;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The sites a profiler instruments, and {@code width} counters per site which each thread running the instrumented code
+ * keeps in a plain array of its own, incremented without any synchronization, so totals taken while the code runs are
+ * approximate.
+ * <p>
+ * The instrumented code passes the {@link #id()} of the counters to the static methods of its profiler, which find them
+ * by {@link #of(int)}. Ids are only held weakly, so the counters are released with their profiler, once no loader
+ * transforms classes with it anymore. The counters of the threads which terminated are added up, and released, as
+ * other threads start counting and as totals are taken, so only the live threads keep counters of their own.
+ */
+final class SiteCounters<S> {
+    private static final List<WeakReference<SiteCounters<?>>> all = new CopyOnWriteArrayList<>();
+    private static final int INITIAL_SITES = 64;
+
+    private final int id;
+    private final int width;
+    private volatile AtomicReferenceArray<S> sites = new AtomicReferenceArray<>(INITIAL_SITES);
+    private int size;
+    private final List<ThreadCounters> threads = new ArrayList<>();
+    private long[] retired = new long[0];
+    private final ThreadLocal<ThreadCounters> counters = ThreadLocal.withInitial(this::start);
+
+    /**
+     * @param width the number of counters per site
+     */
+    SiteCounters(int width) {
+        this.width = width;
+        synchronized (all) {
+            int id = 0;
+            while (id < all.size() && all.get(id).get() != null) {
+                id++;
+            }
+            this.id = id;
+            if (id < all.size()) {
+                all.set(id, new WeakReference<>(this)); // released, so no instrumented code refers to it anymore
+            } else {
+                all.add(new WeakReference<>(this));
+            }
+        }
+    }
+
+    /**
+     * @return the counters of the id, or {@code null} if they were released
+     */
+    static SiteCounters<?> of(int id) {
+        return all.get(id).get();
+    }
+
+    int id() {
+        return id;
+    }
+
+    /**
+     * @return the id of the site, which indexes its counters
+     */
+    synchronized int register(S site) {
+        AtomicReferenceArray<S> sites = this.sites;
+        if (size == sites.length()) {
+            AtomicReferenceArray<S> grown = new AtomicReferenceArray<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                grown.set(i, sites.get(i));
+            }
+            this.sites = sites = grown;
+        }
+        sites.set(size, site);
+        return size++;
+    }
+
+    S site(int id) {
+        return sites.get(id);
+    }
+
+    /**
+     * @return the sites in the order of their ids
+     */
+    synchronized List<S> sites() {
+        List<S> sites = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sites.add(this.sites.get(i));
+        }
+        return sites;
+    }
+
+    /**
+     * @return the counters of the current thread, which holds those of the site from {@code site * width}
+     */
+    long[] counters(int site) {
+        ThreadCounters thread = counters.get();
+        long[] counts = thread.counts;
+        if ((site + 1) * width > counts.length) {
+            thread.counts = counts = Arrays.copyOf(counts, Math.max((site + 1) * width, counts.length * 2));
+        }
+        return counts;
+    }
+
+    /**
+     * @return the counters of all threads added up, those of each site from {@code site * width}
+     */
+    long[] totals() {
+        long[] totals;
+        synchronized (threads) {
+            retire();
+            totals = retired.clone();
+            for (ThreadCounters thread : threads) {
+                totals = add(totals, thread.counts);
+            }
+        }
+        int sites;
+        synchronized (this) {
+            sites = size;
+        }
+        return totals.length < sites * width ? Arrays.copyOf(totals, sites * width) : totals;
+    }
+
+    private ThreadCounters start() {
+        ThreadCounters thread = new ThreadCounters(Thread.currentThread(), new long[INITIAL_SITES * width]);
+        synchronized (threads) {
+            retire();
+            threads.add(thread);
+        }
+        return thread;
+    }
+
+    /**
+     * Adds the counters of the terminated threads to the retired ones, all their increments are visible once they
+     * terminated.
+     */
+    private void retire() {
+        for (Iterator<ThreadCounters> it = threads.iterator(); it.hasNext(); ) {
+            ThreadCounters thread = it.next();
+            if (!thread.thread.isAlive()) {
+                retired = add(retired, thread.counts);
+                it.remove();
+            }
+        }
+    }
+
+    private static long[] add(long[] totals, long[] counts) {
+        if (counts.length > totals.length) {
+            totals = Arrays.copyOf(totals, counts.length);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            totals[i] += counts[i];
+        }
+        return totals;
+    }
+
+    private static final class ThreadCounters {
+        final Thread thread;
+        volatile long[] counts;
+
+        ThreadCounters(Thread thread, long[] counts) {
+            this.thread = thread;
+            this.counts = counts;
+        }
+    }
+}
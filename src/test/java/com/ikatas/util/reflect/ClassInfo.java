@@ -0,0 +1,229 @@
+package com.ikatas.util.reflect;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The declared fields, methods and constructors of a class, indexed by name, with handles made once for each of them.
+ * Every {@link Class#getDeclaredField(String)} or {@link Class#getDeclaredMethod(String, Class[])} call searches the
+ * members of the class and returns a new copy, with an accessible flag of its own to set again; a {@code ClassInfo}
+ * is built once per class and returns the same members every time, made accessible where the module of the class
+ * allows it. Callers must not change the accessibility of the shared members.
+ * <p>
+ * The infos are cached in a {@link ClassValue}, which keeps each info with its class rather than in a map keyed by
+ * classes, so the loader of a class, e.g: a {@code DirectClassLoader}, can still be unloaded although the info refers
+ * to the class.
+ */
+public final class ClassInfo {
+    private static final Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<ClassInfo> INFOS = new ClassValue<ClassInfo>() {
+        @Override
+        protected ClassInfo computeValue(Class<?> type) {
+            return new ClassInfo(type);
+        }
+    };
+
+    private final Class<?> type;
+    private final Map<String, FieldEntry> fields = new HashMap<>();
+    private final Map<String, List<MethodEntry>> methods = new HashMap<>();
+    private final List<ConstructorEntry> constructors = new ArrayList<>();
+
+    private ClassInfo(Class<?> type) {
+        this.type = type;
+        for (Field field : type.getDeclaredFields()) {
+            fields.put(field.getName(), new FieldEntry(field));
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            methods.computeIfAbsent(method.getName(), name -> new ArrayList<>(1)).add(new MethodEntry(method));
+        }
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            constructors.add(new ConstructorEntry(constructor));
+        }
+    }
+
+    public static ClassInfo of(Class<?> type) {
+        return INFOS.get(type);
+    }
+
+    public Class<?> type() {
+        return type;
+    }
+
+    /**
+     * @throws NoSuchFieldError if the class declares no field of the name
+     */
+    public Field field(String name) {
+        return fieldEntry(name).field;
+    }
+
+    /**
+     * @return a handle reading the field of type {@code V}: {@code (T)V} for an instance field of the class {@code T},
+     * {@code ()V} for a static field
+     * @throws IllegalAccessError if the field isn't accessible
+     */
+    public MethodHandle getter(String name) {
+        return accessible(fieldEntry(name).getter, name);
+    }
+
+    /**
+     * @return a handle writing the field: {@code (T,V)void} for an instance field, {@code (V)void} for a static field
+     * @throws IllegalAccessError if the field isn't accessible, or is static final
+     */
+    public MethodHandle setter(String name) {
+        return accessible(fieldEntry(name).setter, name);
+    }
+
+    /**
+     * @return the methods of the name declared by the class, in no particular order
+     */
+    public List<Method> methods(String name) {
+        List<Method> overloads = new ArrayList<>();
+        for (MethodEntry entry : methods.getOrDefault(name, List.of())) {
+            overloads.add(entry.method);
+        }
+        return unmodifiableList(overloads);
+    }
+
+    /**
+     * @throws NoSuchMethodError if the class declares no method of the name and parameter types
+     */
+    public Method method(String name, Class<?>... parameterTypes) {
+        return methodEntry(name, parameterTypes).method;
+    }
+
+    /**
+     * @return a handle of the method, whose first parameter is the receiver unless the method is static
+     * @throws IllegalAccessError if the method isn't accessible
+     */
+    public MethodHandle handle(String name, Class<?>... parameterTypes) {
+        return accessible(methodEntry(name, parameterTypes).handle, name);
+    }
+
+    /**
+     * @throws NoSuchMethodError if the class declares no constructor of the parameter types
+     */
+    public Constructor<?> constructor(Class<?>... parameterTypes) {
+        return constructorEntry(parameterTypes).constructor;
+    }
+
+    /**
+     * @return a handle creating instances of the class by the constructor
+     * @throws IllegalAccessError if the constructor isn't accessible
+     */
+    public MethodHandle constructorHandle(Class<?>... parameterTypes) {
+        return accessible(constructorEntry(parameterTypes).handle, "<init>");
+    }
+
+    private FieldEntry fieldEntry(String name) {
+        FieldEntry entry = fields.get(name);
+        if (entry == null) {
+            throw new NoSuchFieldError(format("%s.%s", type.getName(), name));
+        }
+        return entry;
+    }
+
+    private MethodEntry methodEntry(String name, Class<?>[] parameterTypes) {
+        for (MethodEntry entry : methods.getOrDefault(name, List.of())) {
+            if (Arrays.equals(entry.parameterTypes, parameterTypes)) {
+                return entry;
+            }
+        }
+        throw new NoSuchMethodError(format("%s.%s(%s)", type.getName(), name, names(parameterTypes)));
+    }
+
+    private ConstructorEntry constructorEntry(Class<?>[] parameterTypes) {
+        for (ConstructorEntry entry : constructors) {
+            if (Arrays.equals(entry.parameterTypes, parameterTypes)) {
+                return entry;
+            }
+        }
+        throw new NoSuchMethodError(format("%s.<init>(%s)", type.getName(), names(parameterTypes)));
+    }
+
+    private MethodHandle accessible(MethodHandle handle, String name) {
+        if (handle == null) {
+            throw new IllegalAccessError(format("%s.%s is not accessible", type.getName(), name));
+        }
+        return handle;
+    }
+
+    private static String names(Class<?>[] types) {
+        return Arrays.stream(types).map(Class::getName).collect(joining(","));
+    }
+
+    /**
+     * Makes the member accessible if its module allows it, since the handles of accessible members skip the access
+     * checks of the lookup.
+     */
+    private static <M extends AccessibleObject> M accessible(M member) {
+        try {
+            member.trySetAccessible();
+        } catch (SecurityException ignored) {/**/}
+        return member;
+    }
+
+    private interface Unreflector<M> {
+        MethodHandle unreflect(M member) throws IllegalAccessException;
+    }
+
+    /**
+     * @return the handle of the member, or null if it isn't accessible
+     */
+    private static <M> MethodHandle unreflect(Unreflector<M> unreflector, M member) {
+        try {
+            return unreflector.unreflect(member);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class FieldEntry {
+        final Field field;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        FieldEntry(Field field) {
+            this.field = accessible(field);
+            this.getter = unreflect(LOOKUP::unreflectGetter, field);
+            this.setter = unreflect(LOOKUP::unreflectSetter, field);
+        }
+    }
+
+    private static final class MethodEntry {
+        final Method method;
+        final Class<?>[] parameterTypes;
+        final MethodHandle handle;
+
+        MethodEntry(Method method) {
+            this.method = accessible(method);
+            this.parameterTypes = method.getParameterTypes();
+            this.handle = unreflect(LOOKUP::unreflect, method);
+        }
+    }
+
+    private static final class ConstructorEntry {
+        final Constructor<?> constructor;
+        final Class<?>[] parameterTypes;
+        final MethodHandle handle;
+
+        ConstructorEntry(Constructor<?> constructor) {
+            this.constructor = accessible(constructor);
+            this.parameterTypes = constructor.getParameterTypes();
+            this.handle = unreflect(LOOKUP::unreflectConstructor, constructor);
+        }
+    }
+}
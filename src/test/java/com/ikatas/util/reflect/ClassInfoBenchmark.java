@@ -0,0 +1,85 @@
+package com.ikatas.util.reflect;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares looking up a declared field and method of a class per request, and reading a private field found so,
+ * through raw reflection and through {@link ClassInfo}. Run it with:
+ * <pre>
+ * mvn -B test-compile exec:exec -Pbenchmark -Dbenchmark.args="ClassInfoBenchmark -prof gc"
+ * </pre>
+ * where the {@code gc.alloc.rate.norm} lines of the gc profiler report the bytes of the members copied per lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassInfoBenchmark {
+    private final Class<?> type = Request.class;
+    private final Request request = new Request();
+
+    @Benchmark
+    public Field reflectField() throws NoSuchFieldException {
+        return type.getDeclaredField("id");
+    }
+
+    @Benchmark
+    public Field cachedField() {
+        return ClassInfo.of(type).field("id");
+    }
+
+    @Benchmark
+    public Method reflectMethod() throws NoSuchMethodException {
+        return type.getDeclaredMethod("handle", String.class, int.class);
+    }
+
+    @Benchmark
+    public Method cachedMethod() {
+        return ClassInfo.of(type).method("handle", String.class, int.class);
+    }
+
+    @Benchmark
+    public Object reflectRead() throws ReflectiveOperationException {
+        Field id = type.getDeclaredField("id");
+        id.setAccessible(true);
+        return id.get(request);
+    }
+
+    @Benchmark
+    public Object cachedRead() throws Throwable {
+        return ClassInfo.of(type).getter("id").invoke(request);
+    }
+
+    static class Request {
+        private long id = 42;
+        private String path = "/";
+        private int status;
+        private String body;
+
+        private String handle(String path, int status) {
+            return path + status;
+        }
+
+        private String handle(String path) {
+            return path;
+        }
+
+        public String body() {
+            return body;
+        }
+    }
+}
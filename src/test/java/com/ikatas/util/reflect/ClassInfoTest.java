@@ -0,0 +1,107 @@
+package com.ikatas.util.reflect;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+
+import static com.ikatas.util.DirectClassLoader.directClassLoader;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThrows;
+
+public class ClassInfoTest {
+    @Test
+    public void infosAreBuiltOncePerClass() {
+        assertThat(ClassInfo.of(Point.class), sameInstance(ClassInfo.of(Point.class)));
+        assertThat(ClassInfo.of(Point.class).type(), equalTo(Point.class));
+    }
+
+    @Test
+    public void returnsTheSameAccessibleMembersEveryTime() throws NoSuchFieldException {
+        ClassInfo info = ClassInfo.of(Point.class);
+
+        assertThat(info.field("x"), sameInstance(info.field("x")));
+        assertThat(info.field("x"), equalTo(Point.class.getDeclaredField("x")));
+        assertThat(info.field("x").canAccess(new Point(1, 2)), is(true));
+        assertThat(info.method("scale", int.class), sameInstance(info.method("scale", int.class)));
+    }
+
+    @Test
+    public void readsAndWritesPrivateFieldsByHandles() throws Throwable {
+        ClassInfo info = ClassInfo.of(Point.class);
+        Point point = new Point(1, 2);
+
+        info.setter("x").invoke(point, 3);
+
+        assertThat((int) info.getter("x").invoke(point), equalTo(3));
+        assertThat((int) info.getter("count").invoke(), equalTo(Point.count));
+        assertThrows(IllegalAccessError.class, () -> info.setter("ORIGIN"));
+    }
+
+    @Test
+    public void invokesMethodsAndConstructorsByParameterTypes() throws Throwable {
+        ClassInfo info = ClassInfo.of(Point.class);
+        Point point = (Point) info.constructorHandle(int.class, int.class).invoke(2, 3);
+
+        assertThat(info.methods("scale").stream().map(Method::getParameterCount).toArray(), arrayContainingInAnyOrder(1, 2));
+        assertThat((String) info.handle("scale", int.class).invoke(point, 2), equalTo("4,6"));
+        assertThat((String) info.handle("scale", int.class, int.class).invoke(point, 2, 3), equalTo("4,9"));
+    }
+
+    @Test
+    public void rejectsMembersTheClassDoesNotDeclare() {
+        ClassInfo info = ClassInfo.of(Point.class);
+
+        assertThrows(NoSuchFieldError.class, () -> info.field("z"));
+        assertThrows(NoSuchMethodError.class, () -> info.method("scale", long.class));
+        assertThrows(NoSuchMethodError.class, () -> info.constructor(int.class));
+        assertThat(info.methods("z"), is(empty()));
+    }
+
+    @Test
+    public void accessesJdkInternalsOfOpenPackages() throws Throwable {
+        assertThat(((byte[]) ClassInfo.of(String.class).handle("value").invoke("foo")).length, equalTo(3));
+    }
+
+    @Test
+    public void classesCanBeUnloadedWhileTheirInfosAreCached() throws Exception {
+        WeakReference<Class<?>> loaded = loadInfo();
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loaded.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(loaded.get(), is(nullValue()));
+    }
+
+    private static WeakReference<Class<?>> loadInfo() throws ClassNotFoundException {
+        Class<?> c = directClassLoader().loadClass(Point.class.getName());
+        assertThat(c, not(sameInstance(Point.class)));
+        assertThat(ClassInfo.of(c).field("x").getDeclaringClass(), sameInstance(c));
+        return new WeakReference<>(c);
+    }
+
+    static class Point {
+        private static final Point ORIGIN = new Point(0, 0);
+        private static int count;
+        private int x;
+        private final int y;
+
+        private Point(int x, int y) {
+            this.x = x;
+            this.y = y;
+            count++;
+        }
+
+        private String scale(int factor) {
+            return x * factor + "," + y * factor;
+        }
+
+        private String scale(int xFactor, int yFactor) {
+            return x * xFactor + "," + y * yFactor;
+        }
+    }
+}